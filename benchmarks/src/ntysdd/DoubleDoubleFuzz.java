@@ -0,0 +1,852 @@
+package ntysdd;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 并行的差分测试，用大量随机输入比较DoubleDouble的运算结果和精确的参考值，用于验证对核心算法的改写
+ * 输入偏向边界情况：次正规数、接近溢出的数、严重的相消、long和特殊值
+ * 加减乘的参考值是DoubleExpansion精确计算的结果，除法、倒数、平方根、立方根和平方根的倒数
+ * 通过精确计算的残差得到误差，对数的参考值用QuadDouble计算
+ * 误差的单位是结果第一部分的ulp乘以2^-53，大约是结果的2^-105到2^-106
+ * 结果太小（第二部分可能是次正规数）或者溢出时只检查不抛出异常
+ * 对每个操作输出误差的分布、最大误差的例子和每秒的操作数，
+ * 出现异常、特殊值的结果与double不一致或者误差超过上限时退出码为1
+ * 运行方法（mvn package之后）：
+ * java -cp benchmarks/target/benchmarks.jar ntysdd.DoubleDoubleFuzz
+ * java -Dntysdd.fuzz.cases=100000000 -Dntysdd.fuzz.threads=8 -Dntysdd.fuzz.seed=1 -cp benchmarks/target/benchmarks.jar ntysdd.DoubleDoubleFuzz
+ * java -Dntysdd.fma=false -cp benchmarks/target/benchmarks.jar ntysdd.DoubleDoubleFuzz
+ * 参数不为空时只执行名字中包含某个参数的操作
+ * 每批输入只由种子、操作的序号和批的序号决定，与线程数无关，所以失败的例子可以重现
+ */
+public class DoubleDoubleFuzz {
+    private static final long CASES = Long.getLong("ntysdd.fuzz.cases", 1_000_000L);
+    private static final int THREADS = Integer.getInteger("ntysdd.fuzz.threads",
+            Runtime.getRuntime().availableProcessors());
+    private static final long SEED = Long.getLong("ntysdd.fuzz.seed", 0L);
+    private static final int BATCH = 4096;
+
+    // 第一部分不小于这个数时，第二部分不会是次正规数
+    private static final double MIN_CHECKED = Math.scalb(1.0, Double.MIN_EXPONENT + 53);
+    private static final double[] BUCKETS = {0, 0.5, 1, 2, 8, 64, 1024, Double.POSITIVE_INFINITY};
+    private static final String[] BUCKET_NAMES = {"0", "<=0.5", "<=1", "<=2", "<=8", "<=64", "<=1024", ">1024"};
+
+    private static final int BINARY = 0;
+    private static final int DOUBLE_RHS = 1;
+    private static final int LONG_RHS = 2;
+    private static final int UNARY = 3;
+    private static final int DOUBLE_UNARY = 4;
+
+    private static final QuadDouble LN2 = atanh(QuadDouble.ONE.div(3)).mul(2);
+
+    private static final class Batch {
+        final DoubleDouble[] xs = new DoubleDouble[BATCH];
+        final DoubleDouble[] ys = new DoubleDouble[BATCH];
+        final long[] ls = new long[BATCH];
+        final DoubleDouble[] results = new DoubleDouble[BATCH];
+    }
+
+    private abstract static class Operation {
+        final String name;
+        final int arguments;
+        // 允许的最大误差
+        final double bound;
+
+        Operation(String name, int arguments, double bound) {
+            this.name = name;
+            this.arguments = arguments;
+            this.bound = bound;
+        }
+
+        abstract DoubleDouble apply(DoubleDouble x, DoubleDouble y, long l);
+
+        // 对double的第一部分做同样的运算，用于检查特殊值
+        abstract double special(double x, double y);
+
+        // 以ulp为单位的误差，无法精确计算时抛出ArithmeticException
+        abstract double error(DoubleDouble x, DoubleDouble y, DoubleDouble r);
+
+        // 输入是特殊值时，结果应当与double的运算结果相同
+        boolean isSpecial(DoubleDouble x, DoubleDouble y) {
+            boolean binary = arguments < UNARY;
+            if (!Double.isFinite(x.getFirst()) || binary && !Double.isFinite(y.getFirst())) {
+                return true;
+            }
+            if (Double.isNaN(special(x.getFirst(), y.getFirst()))) {
+                return true;
+            }
+            // 加减法中的0不是特殊值
+            boolean additive = name.startsWith("add") || name.startsWith("sub");
+            return !additive && (x.getFirst() == 0 || binary && y.getFirst() == 0);
+        }
+    }
+
+    private static final class Stats {
+        final long[] histogram = new long[BUCKETS.length];
+        long cases;
+        long checked;
+        long unchecked;
+        long nanos;
+        long timedCases;
+        long exceptions;
+        long specialMismatches;
+        long overBound;
+        double maxError;
+        String maxErrorExample;
+        String firstFailure;
+
+        void merge(Stats that) {
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] += that.histogram[i];
+            }
+            cases += that.cases;
+            checked += that.checked;
+            unchecked += that.unchecked;
+            nanos += that.nanos;
+            timedCases += that.timedCases;
+            exceptions += that.exceptions;
+            specialMismatches += that.specialMismatches;
+            overBound += that.overBound;
+            if (that.maxError > maxError) {
+                maxError = that.maxError;
+                maxErrorExample = that.maxErrorExample;
+            }
+            if (firstFailure == null) {
+                firstFailure = that.firstFailure;
+            }
+        }
+
+        void fail(String message) {
+            if (firstFailure == null) {
+                firstFailure = message;
+            }
+        }
+
+        long failures() {
+            return exceptions + specialMismatches + overBound;
+        }
+    }
+
+    private static Operation[] operations() {
+        return new Operation[]{
+                new Operation("add(DoubleDouble)", BINARY, 1) {
+                    @Override
+                    DoubleDouble apply(DoubleDouble x, DoubleDouble y, long l) {
+                        return x.add(y);
+                    }
+
+                    @Override
+                    double special(double x, double y) {
+                        return x + y;
+                    }
+
+                    @Override
+                    double error(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+                        return sumError(x, y, r);
+                    }
+                },
+                new Operation("sub(DoubleDouble)", BINARY, 1) {
+                    @Override
+                    DoubleDouble apply(DoubleDouble x, DoubleDouble y, long l) {
+                        return x.sub(y);
+                    }
+
+                    @Override
+                    double special(double x, double y) {
+                        return x - y;
+                    }
+
+                    @Override
+                    double error(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+                        return sumError(x, y.neg(), r);
+                    }
+                },
+                new Operation("mul(DoubleDouble)", BINARY, 2) {
+                    @Override
+                    DoubleDouble apply(DoubleDouble x, DoubleDouble y, long l) {
+                        return x.mul(y);
+                    }
+
+                    @Override
+                    double special(double x, double y) {
+                        return x * y;
+                    }
+
+                    @Override
+                    double error(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+                        return productError(x, y, r);
+                    }
+                },
+                new Operation("div(DoubleDouble)", BINARY, 2) {
+                    @Override
+                    DoubleDouble apply(DoubleDouble x, DoubleDouble y, long l) {
+                        return x.div(y);
+                    }
+
+                    @Override
+                    double special(double x, double y) {
+                        return x / y;
+                    }
+
+                    @Override
+                    double error(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+                        return quotientError(x, y, r);
+                    }
+                },
+                new Operation("add(double)", DOUBLE_RHS, 1) {
+                    @Override
+                    DoubleDouble apply(DoubleDouble x, DoubleDouble y, long l) {
+                        return x.add(y.getFirst());
+                    }
+
+                    @Override
+                    double special(double x, double y) {
+                        return x + y;
+                    }
+
+                    @Override
+                    double error(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+                        return sumError(x, y, r);
+                    }
+                },
+                new Operation("sub(double)", DOUBLE_RHS, 1) {
+                    @Override
+                    DoubleDouble apply(DoubleDouble x, DoubleDouble y, long l) {
+                        return x.sub(y.getFirst());
+                    }
+
+                    @Override
+                    double special(double x, double y) {
+                        return x - y;
+                    }
+
+                    @Override
+                    double error(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+                        return sumError(x, y.neg(), r);
+                    }
+                },
+                new Operation("mul(double)", DOUBLE_RHS, 2) {
+                    @Override
+                    DoubleDouble apply(DoubleDouble x, DoubleDouble y, long l) {
+                        return x.mul(y.getFirst());
+                    }
+
+                    @Override
+                    double special(double x, double y) {
+                        return x * y;
+                    }
+
+                    @Override
+                    double error(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+                        return productError(x, y, r);
+                    }
+                },
+                new Operation("div(double)", DOUBLE_RHS, 2) {
+                    @Override
+                    DoubleDouble apply(DoubleDouble x, DoubleDouble y, long l) {
+                        return x.div(y.getFirst());
+                    }
+
+                    @Override
+                    double special(double x, double y) {
+                        return x / y;
+                    }
+
+                    @Override
+                    double error(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+                        return quotientError(x, y, r);
+                    }
+                },
+                new Operation("add(long)", LONG_RHS, 1) {
+                    @Override
+                    DoubleDouble apply(DoubleDouble x, DoubleDouble y, long l) {
+                        return x.add(l);
+                    }
+
+                    @Override
+                    double special(double x, double y) {
+                        return x + y;
+                    }
+
+                    @Override
+                    double error(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+                        return sumError(x, y, r);
+                    }
+                },
+                new Operation("mul(long)", LONG_RHS, 2) {
+                    @Override
+                    DoubleDouble apply(DoubleDouble x, DoubleDouble y, long l) {
+                        return x.mul(l);
+                    }
+
+                    @Override
+                    double special(double x, double y) {
+                        return x * y;
+                    }
+
+                    @Override
+                    double error(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+                        return productError(x, y, r);
+                    }
+                },
+                new Operation("div(long)", LONG_RHS, 2) {
+                    @Override
+                    DoubleDouble apply(DoubleDouble x, DoubleDouble y, long l) {
+                        return x.div(l);
+                    }
+
+                    @Override
+                    double special(double x, double y) {
+                        return x / y;
+                    }
+
+                    @Override
+                    double error(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+                        return quotientError(x, y, r);
+                    }
+                },
+                new Operation("reciprocal(DoubleDouble)", UNARY, 2) {
+                    @Override
+                    DoubleDouble apply(DoubleDouble x, DoubleDouble y, long l) {
+                        return DoubleDouble.reciprocal(x);
+                    }
+
+                    @Override
+                    double special(double x, double y) {
+                        return 1 / x;
+                    }
+
+                    @Override
+                    double error(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+                        return quotientError(DoubleDouble.ONE, x, r);
+                    }
+                },
+                new Operation("reciprocal(double)", DOUBLE_UNARY, 2) {
+                    @Override
+                    DoubleDouble apply(DoubleDouble x, DoubleDouble y, long l) {
+                        return DoubleDouble.reciprocal(x.getFirst());
+                    }
+
+                    @Override
+                    double special(double x, double y) {
+                        return 1 / x;
+                    }
+
+                    @Override
+                    double error(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+                        return quotientError(DoubleDouble.ONE, x, r);
+                    }
+                },
+                new Operation("sqrt(DoubleDouble)", UNARY, 2) {
+                    @Override
+                    DoubleDouble apply(DoubleDouble x, DoubleDouble y, long l) {
+                        return DoubleDouble.sqrt(x);
+                    }
+
+                    @Override
+                    double special(double x, double y) {
+                        return Math.sqrt(x);
+                    }
+
+                    @Override
+                    double error(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+                        return sqrtError(x, r);
+                    }
+                },
+                new Operation("sqrt(double)", DOUBLE_UNARY, 2) {
+                    @Override
+                    DoubleDouble apply(DoubleDouble x, DoubleDouble y, long l) {
+                        return DoubleDouble.sqrt(x.getFirst());
+                    }
+
+                    @Override
+                    double special(double x, double y) {
+                        return Math.sqrt(x);
+                    }
+
+                    @Override
+                    double error(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+                        return sqrtError(x, r);
+                    }
+                },
+                new Operation("rsqrt(DoubleDouble)", UNARY, 4) {
+                    @Override
+                    DoubleDouble apply(DoubleDouble x, DoubleDouble y, long l) {
+                        return DoubleDouble.rsqrt(x);
+                    }
+
+                    @Override
+                    double special(double x, double y) {
+                        return 1 / Math.sqrt(x);
+                    }
+
+                    @Override
+                    double error(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+                        return rsqrtError(x, r);
+                    }
+                },
+                new Operation("rsqrt(double)", DOUBLE_UNARY, 4) {
+                    @Override
+                    DoubleDouble apply(DoubleDouble x, DoubleDouble y, long l) {
+                        return DoubleDouble.rsqrt(x.getFirst());
+                    }
+
+                    @Override
+                    double special(double x, double y) {
+                        return 1 / Math.sqrt(x);
+                    }
+
+                    @Override
+                    double error(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+                        return rsqrtError(x, r);
+                    }
+                },
+                new Operation("cbrt(DoubleDouble)", UNARY, 2) {
+                    @Override
+                    DoubleDouble apply(DoubleDouble x, DoubleDouble y, long l) {
+                        return DoubleDouble.cbrt(x);
+                    }
+
+                    @Override
+                    double special(double x, double y) {
+                        return Math.cbrt(x);
+                    }
+
+                    @Override
+                    double error(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+                        return cbrtError(x, r);
+                    }
+                },
+                new Operation("cbrt(double)", DOUBLE_UNARY, 2) {
+                    @Override
+                    DoubleDouble apply(DoubleDouble x, DoubleDouble y, long l) {
+                        return DoubleDouble.cbrt(x.getFirst());
+                    }
+
+                    @Override
+                    double special(double x, double y) {
+                        return Math.cbrt(x);
+                    }
+
+                    @Override
+                    double error(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+                        return cbrtError(x, r);
+                    }
+                },
+                new Operation("log(double)", DOUBLE_UNARY, 4) {
+                    @Override
+                    DoubleDouble apply(DoubleDouble x, DoubleDouble y, long l) {
+                        return DoubleDouble.log(x.getFirst());
+                    }
+
+                    @Override
+                    double special(double x, double y) {
+                        return Math.log(x);
+                    }
+
+                    @Override
+                    double error(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+                        return ulps(log(x.getFirst()).sub(r).getFirst(), r.getFirst());
+                    }
+                },
+        };
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("FMA: " + (Fma.isAvailable() ? "enabled" : "disabled")
+                + ", cases: " + CASES + ", threads: " + THREADS + ", seed: " + SEED);
+        Operation[] operations = operations();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long failures = 0;
+        try {
+            for (int index = 0; index < operations.length; index++) {
+                Operation operation = operations[index];
+                if (!isSelected(operation, args)) {
+                    continue;
+                }
+                Stats stats = run(executor, operation, index);
+                print(operation, stats);
+                failures += stats.failures();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        if (failures != 0) {
+            System.out.println("FAILED: " + failures);
+            System.exit(1);
+        }
+    }
+
+    // 没有参数时执行所有操作，否则只执行名字中包含某个参数的操作
+    private static boolean isSelected(Operation operation, String[] args) {
+        if (args.length == 0) {
+            return true;
+        }
+        for (String arg : args) {
+            if (operation.name.contains(arg)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Stats run(ExecutorService executor, Operation operation, int index) throws Exception {
+        long batches = (CASES + BATCH - 1) / BATCH;
+        AtomicLong next = new AtomicLong();
+        List<Future<Stats>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                Stats stats = new Stats();
+                Batch batch = new Batch();
+                for (long b = next.getAndIncrement(); b < batches; b = next.getAndIncrement()) {
+                    int size = (int) Math.min(BATCH, CASES - b * BATCH);
+                    runBatch(operation, batch, size, new SplittableRandom(seed(index, b)), stats);
+                }
+                return stats;
+            }));
+        }
+        Stats total = new Stats();
+        for (Future<Stats> future : futures) {
+            total.merge(future.get());
+        }
+        return total;
+    }
+
+    private static long seed(int index, long batch) {
+        return SEED * 0x9E3779B97F4A7C15L + ((long) index << 40) + batch;
+    }
+
+    private static void runBatch(Operation operation, Batch batch, int size, SplittableRandom random, Stats stats) {
+        for (int i = 0; i < size; i++) {
+            generate(operation, batch, i, random);
+        }
+        // 先计时执行整批运算，有异常时再逐个执行以记录异常
+        boolean timed = true;
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < size; i++) {
+                batch.results[i] = operation.apply(batch.xs[i], batch.ys[i], batch.ls[i]);
+            }
+        } catch (RuntimeException | AssertionError e) {
+            timed = false;
+        }
+        if (timed) {
+            stats.nanos += System.nanoTime() - start;
+            stats.timedCases += size;
+        }
+        for (int i = 0; i < size; i++) {
+            stats.cases++;
+            DoubleDouble x = batch.xs[i];
+            DoubleDouble y = batch.ys[i];
+            DoubleDouble r = batch.results[i];
+            if (!timed) {
+                try {
+                    r = operation.apply(x, y, batch.ls[i]);
+                } catch (RuntimeException | AssertionError e) {
+                    stats.exceptions++;
+                    stats.fail(describe(operation, x, y, batch.ls[i]) + " threw " + e);
+                    continue;
+                }
+            }
+            check(operation, x, y, batch.ls[i], r, stats);
+        }
+    }
+
+    private static void check(Operation operation, DoubleDouble x, DoubleDouble y, long l, DoubleDouble r,
+                              Stats stats) {
+        if (operation.isSpecial(x, y)) {
+            stats.unchecked++;
+            DoubleDouble expected = DoubleDouble.valueOf(operation.special(x.getFirst(), y.getFirst()));
+            if (!expected.equals(r)) {
+                stats.specialMismatches++;
+                stats.fail(describe(operation, x, y, l) + " = " + format(r) + ", expected: " + format(expected));
+            }
+            return;
+        }
+        if (Double.isNaN(r.getFirst())) {
+            stats.specialMismatches++;
+            stats.fail(describe(operation, x, y, l) + " = NaN");
+            return;
+        }
+        if (Double.isInfinite(r.getFirst()) || Math.abs(r.getFirst()) < MIN_CHECKED) {
+            stats.unchecked++;
+            return;
+        }
+        double error;
+        try {
+            error = Math.abs(operation.error(x, y, r));
+        } catch (ArithmeticException e) {
+            // 参考值超出了double的范围
+            stats.unchecked++;
+            return;
+        }
+        stats.checked++;
+        int bucket = 0;
+        while (error > BUCKETS[bucket]) {
+            bucket++;
+        }
+        stats.histogram[bucket]++;
+        if (error > stats.maxError) {
+            stats.maxError = error;
+            stats.maxErrorExample = describe(operation, x, y, l) + " = " + format(r);
+        }
+        if (error > operation.bound) {
+            stats.overBound++;
+            stats.fail(describe(operation, x, y, l) + " = " + format(r) + ", error: " + error + " ulp");
+        }
+    }
+
+    private static void print(Operation operation, Stats stats) {
+        double nanosPerOp = stats.timedCases == 0 ? Double.NaN : (double) stats.nanos / stats.timedCases;
+        System.out.printf("%-26s %12d cases %12d checked %10.3f max ulp %8.1f ns/op %14.0f ops/s%n",
+                operation.name, stats.cases, stats.checked, stats.maxError,
+                nanosPerOp, 1E9 / nanosPerOp * THREADS);
+        StringBuilder sb = new StringBuilder("    ");
+        for (int i = 0; i < BUCKETS.length; i++) {
+            sb.append(BUCKET_NAMES[i]).append(": ").append(stats.histogram[i]).append("  ");
+        }
+        sb.append("unchecked: ").append(stats.unchecked);
+        System.out.println(sb);
+        if (stats.maxErrorExample != null) {
+            System.out.println("    max: " + stats.maxErrorExample);
+        }
+        if (stats.failures() != 0) {
+            System.out.println("    exceptions: " + stats.exceptions
+                    + ", special mismatches: " + stats.specialMismatches
+                    + ", over bound (" + operation.bound + " ulp): " + stats.overBound);
+            System.out.println("    first failure: " + stats.firstFailure);
+        }
+    }
+
+    private static String describe(Operation operation, DoubleDouble x, DoubleDouble y, long l) {
+        switch (operation.arguments) {
+            case BINARY:
+                return operation.name + " " + format(x) + ", " + format(y);
+            case DOUBLE_RHS:
+                return operation.name + " " + format(x) + ", " + y.getFirst();
+            case LONG_RHS:
+                return operation.name + " " + format(x) + ", " + l;
+            case UNARY:
+                return operation.name + " " + format(x);
+            default:
+                return operation.name + " " + x.getFirst();
+        }
+    }
+
+    // Double.toString的结果可以精确地转换回来
+    private static String format(DoubleDouble x) {
+        return "(" + x.getFirst() + ", " + x.getSecond() + ")";
+    }
+
+    private static void generate(Operation operation, Batch batch, int i, SplittableRandom random) {
+        DoubleDouble x = randomDoubleDouble(random);
+        DoubleDouble y;
+        long l = 0;
+        if (operation.arguments == LONG_RHS) {
+            l = randomLong(random);
+            y = DoubleDouble.valueOf(l);
+        } else if (random.nextInt(8) == 0 && Double.isFinite(x.getFirst()) && x.getFirst() != 0) {
+            // 与x接近，加减法中严重的相消，除法中接近1的商
+            y = randomDoubleDouble(random, Math.getExponent(x.getFirst()) - random.nextInt(160));
+            y = random.nextBoolean() ? x.neg().add(y) : x.add(y);
+        } else {
+            y = randomDoubleDouble(random);
+        }
+        if (operation.arguments == DOUBLE_RHS) {
+            y = DoubleDouble.valueOf(y.getFirst());
+        }
+        if (operation.arguments == DOUBLE_UNARY) {
+            x = DoubleDouble.valueOf(x.getFirst());
+        }
+        batch.xs[i] = x;
+        batch.ys[i] = y;
+        batch.ls[i] = l;
+    }
+
+    private static DoubleDouble randomDoubleDouble(SplittableRandom random) {
+        switch (random.nextInt(16)) {
+            case 0:
+            case 1:
+                // 全部的指数范围
+                return randomDoubleDouble(random, random.nextInt(Double.MIN_EXPONENT - 52, Double.MAX_EXPONENT + 1));
+            case 2:
+                // 次正规数和接近下溢的数
+                return randomDoubleDouble(random, random.nextInt(Double.MIN_EXPONENT - 52, Double.MIN_EXPONENT + 110));
+            case 3:
+                // 接近溢出的数
+                return randomDoubleDouble(random, random.nextInt(Double.MAX_EXPONENT - 60, Double.MAX_EXPONENT + 1));
+            case 4:
+                return DoubleDouble.valueOf(randomLong(random));
+            case 5:
+                return randomSpecial(random);
+            default:
+                return randomDoubleDouble(random, random.nextInt(-64, 65));
+        }
+    }
+
+    // 第一部分的指数是exponent，第二部分是小于第一部分半个ulp的随机数
+    private static DoubleDouble randomDoubleDouble(SplittableRandom random, int exponent) {
+        exponent = Math.max(exponent, Double.MIN_EXPONENT - 52);
+        long significand;
+        switch (random.nextInt(8)) {
+            case 0:
+                significand = (1L << 53) - 1;
+                break;
+            case 1:
+                significand = 1L << 52;
+                break;
+            default:
+                significand = random.nextLong() >>> 11 | 1L << 52;
+                break;
+        }
+        double first = Math.scalb((double) significand, exponent - 52);
+        double second;
+        switch (random.nextInt(8)) {
+            case 0:
+                second = 0;
+                break;
+            case 1:
+                // 正好是半个ulp
+                second = Math.scalb(0.5, exponent - 52);
+                break;
+            default:
+                second = Math.scalb(random.nextDouble() - 0.5, exponent - 52);
+                break;
+        }
+        if (random.nextBoolean()) {
+            first = -first;
+            second = -second;
+        }
+        if (random.nextBoolean()) {
+            second = -second;
+        }
+        return DoubleDouble.add(first, second);
+    }
+
+    private static long randomLong(SplittableRandom random) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return random.nextBoolean() ? Long.MIN_VALUE : Long.MAX_VALUE - random.nextInt(4);
+            case 1:
+                // 2的整数幂附近
+                return (1L << random.nextInt(63)) + random.nextInt(-2, 3);
+            case 2:
+                return random.nextLong() >> random.nextInt(64);
+            default:
+                return random.nextLong();
+        }
+    }
+
+    private static DoubleDouble randomSpecial(SplittableRandom random) {
+        double[] values = {
+                0.0, -0.0, 1.0, -1.0, Double.MIN_VALUE, -Double.MIN_VALUE,
+                Double.MIN_NORMAL, Double.MAX_VALUE, -Double.MAX_VALUE,
+                Math.nextDown(1.0), Math.nextUp(1.0),
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN,
+        };
+        return DoubleDouble.valueOf(values[random.nextInt(values.length)]);
+    }
+
+    // 以r的第一部分的ulp乘以2^-53为单位
+    private static double ulps(double error, double r) {
+        return error / Math.scalb(1.0, Math.getExponent(r) - 105);
+    }
+
+    private static double sumError(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+        DoubleExpansion exact = DoubleExpansion.valueOf(x).add(DoubleExpansion.valueOf(y));
+        return ulps(exact.sub(DoubleExpansion.valueOf(r)).doubleValue(), r.getFirst());
+    }
+
+    private static double productError(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+        // 缩放到1附近，避免精确的乘积下溢或者溢出
+        int kx = -Math.getExponent(x.getFirst());
+        int ky = -Math.getExponent(y.getFirst());
+        DoubleExpansion exact = scaled(x, kx).mul(scaled(y, ky));
+        DoubleExpansion residual = exact.sub(scaled(r, kx + ky));
+        return ulps(residual.doubleValue(), Math.scalb(r.getFirst(), kx + ky));
+    }
+
+    // r - x / y = (r * y - x) / y
+    private static double quotientError(DoubleDouble x, DoubleDouble y, DoubleDouble r) {
+        int kr = -Math.getExponent(r.getFirst());
+        int ky = -Math.getExponent(y.getFirst());
+        DoubleExpansion ys = scaled(y, ky);
+        DoubleExpansion residual = scaled(r, kr).mul(ys).sub(scaled(x, kr + ky));
+        return ulps(residual.doubleValue() / ys.doubleValue(), Math.scalb(r.getFirst(), kr));
+    }
+
+    // r - sqrt(x) = (r^2 - x) / (r + sqrt(x))
+    private static double sqrtError(DoubleDouble x, DoubleDouble r) {
+        int kr = -Math.getExponent(r.getFirst());
+        DoubleExpansion rs = scaled(r, kr);
+        DoubleExpansion residual = rs.mul(rs).sub(scaled(x, 2 * kr));
+        double first = Math.scalb(r.getFirst(), kr);
+        return ulps(residual.doubleValue() / (2 * first), first);
+    }
+
+    // r - cbrt(x) = (r^3 - x) / (r^2 + r * cbrt(x) + cbrt(x)^2)
+    private static double cbrtError(DoubleDouble x, DoubleDouble r) {
+        int kr = -Math.getExponent(r.getFirst());
+        DoubleExpansion rs = scaled(r, kr);
+        DoubleExpansion residual = rs.mul(rs).mul(rs).sub(scaled(x, 3 * kr));
+        double first = Math.scalb(r.getFirst(), kr);
+        return ulps(residual.doubleValue() / (3 * first * first), first);
+    }
+
+    // r = (1 + d) / sqrt(x)时，r^2 * x - 1约等于2d，误差约等于r * d
+    private static double rsqrtError(DoubleDouble x, DoubleDouble r) {
+        int kr = -Math.getExponent(r.getFirst());
+        int kx = -Math.getExponent(x.getFirst());
+        DoubleExpansion rs = scaled(r, kr);
+        DoubleExpansion residual = rs.mul(rs).mul(scaled(x, kx)).sub(Math.scalb(1.0, 2 * kr + kx));
+        double first = Math.scalb(r.getFirst(), kr);
+        return ulps(residual.doubleValue() * first / 2, first);
+    }
+
+    // x乘以2^k，不能精确表示时抛出ArithmeticException
+    private static DoubleExpansion scaled(DoubleDouble x, int k) {
+        return DoubleExpansion.valueOf(scalb(x.getFirst(), k)).add(scalb(x.getSecond(), k));
+    }
+
+    private static double scalb(double x, int k) {
+        double y = Math.scalb(x, k);
+        if (!Double.isFinite(y) || Math.scalb(y, -k) != x) {
+            throw new ArithmeticException("inexact: " + x + " * 2^" + k);
+        }
+        return y;
+    }
+
+    // log(x) = e * log(2) + 2 * atanh((m - 1) / (m + 1))，x = m * 2^e，sqrt(1/2) <= m <= sqrt(2)
+    private static QuadDouble log(double x) {
+        int exponent = Math.getExponent(x);
+        if (exponent < Double.MIN_EXPONENT) {
+            exponent = Math.getExponent(Math.scalb(x, 64)) - 64;
+        }
+        double m = Math.scalb(x, -exponent);
+        if (m > Math.sqrt(2)) {
+            m /= 2;
+            exponent++;
+        }
+        QuadDouble z = QuadDouble.valueOf(m - 1).div(QuadDouble.valueOf(m).add(1.0));
+        return atanh(z).mul(2).add(LN2.mul(exponent));
+    }
+
+    private static QuadDouble atanh(QuadDouble z) {
+        QuadDouble z2 = z.mul(z);
+        QuadDouble power = z;
+        QuadDouble sum = z;
+        for (int k = 3; ; k += 2) {
+            power = power.mul(z2);
+            QuadDouble term = power.div(k);
+            sum = sum.add(term);
+            if (Math.abs(term.getFirst()) <= Math.abs(sum.getFirst()) * 0x1p-220) {
+                return sum;
+            }
+        }
+    }
+}
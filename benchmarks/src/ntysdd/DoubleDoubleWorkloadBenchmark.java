@@ -0,0 +1,502 @@
+package ntysdd;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+import java.util.stream.DoubleStream;
+
+/**
+ * 应用级的性能测试，在接近实际使用的计算中比较DoubleDouble、double和BigDecimal
+ * 包括README中一百万项的调和级数求和、长向量的内积、用Horner法计算多项式和小矩阵的乘法，
+ * 这些计算中分配对象的速度和逃逸分析往往比单个操作的耗时更重要
+ * 输出每秒的操作数、每个操作分配的字节数和测量期间GC的时间，
+ * 一个操作是求和中的一项、内积中的一对元素、Horner法中的一步或者矩阵乘法中的一次乘加
+ * 运行方法（mvn package之后）：
+ * java -cp benchmarks/target/benchmarks.jar ntysdd.DoubleDoubleWorkloadBenchmark
+ * java -Dntysdd.fma=false -cp benchmarks/target/benchmarks.jar ntysdd.DoubleDoubleWorkloadBenchmark
+ * 参数不为空时只执行名字中包含某个参数的任务
+ * 注意：
+ * 分配的字节数来自com.sun.management.ThreadMXBean，JVM不支持时输出n/a，
+ * 只包括当前线程，不包括并行的Stream和其他线程中的分配
+ */
+public class DoubleDoubleWorkloadBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+    private static final long ROUND_NANOS = 500_000_000L;
+
+    private static final int HARMONIC_TERMS = 1_000_000;
+    private static final int DOT_LENGTH = 100_000;
+    private static final int DEGREE = 16;
+    private static final int POINTS = 1000;
+    private static final int N = 16;
+    private static final int CSV_LINES = 200_000;
+    private static final MathContext MC = MathContext.DECIMAL128;
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+    private abstract static class Workload {
+        final String name;
+        // 每次run()的操作数
+        final long ops;
+
+        Workload(String name, long ops) {
+            this.name = name;
+            this.ops = ops;
+        }
+
+        // 执行一次完整的计算，返回结果防止被优化掉
+        abstract double run();
+    }
+
+    private static final double[] HARMONIC_VALUES = new double[HARMONIC_TERMS];
+    private static final double[] XS = new double[DOT_LENGTH];
+    private static final double[] YS = new double[DOT_LENGTH];
+
+    // 多项式的系数是1 / (k + 1)，x在[-1, 1)中
+    private static final double[] COEFFICIENTS = new double[DEGREE + 1];
+    private static final DoubleDouble[] DD_COEFFICIENTS = new DoubleDouble[DEGREE + 1];
+    private static final BigDecimal[] BD_COEFFICIENTS = new BigDecimal[DEGREE + 1];
+    private static final double[] POINT_VALUES = new double[POINTS];
+    private static final BigDecimal[] BD_POINT_VALUES = new BigDecimal[POINTS];
+
+    private static final double[][] A = new double[N][N];
+    private static final double[][] B = new double[N][N];
+    private static final DoubleDouble[][] DA = new DoubleDouble[N][N];
+    private static final DoubleDouble[][] DB = new DoubleDouble[N][N];
+    private static final DoubleDoubleArray[] DB_ROWS = new DoubleDoubleArray[N];
+    private static final BigDecimal[][] BA = new BigDecimal[N][N];
+    private static final BigDecimal[][] BB = new BigDecimal[N][N];
+    // 三列的CSV，第二列是小数点后4位的价格
+    private static final byte[] CSV_BYTES;
+
+    static {
+        Random random = new Random(0);
+        for (int i = 0; i < HARMONIC_TERMS; i++) {
+            HARMONIC_VALUES[i] = 1.0 / (i + 1);
+        }
+        for (int i = 0; i < DOT_LENGTH; i++) {
+            XS[i] = random.nextDouble() - 0.5;
+            YS[i] = random.nextDouble() - 0.5;
+        }
+        for (int k = 0; k <= DEGREE; k++) {
+            DD_COEFFICIENTS[k] = DoubleDouble.reciprocal(k + 1L);
+            COEFFICIENTS[k] = DD_COEFFICIENTS[k].getFirst();
+            BD_COEFFICIENTS[k] = BigDecimal.ONE.divide(BigDecimal.valueOf(k + 1L), MC);
+        }
+        for (int i = 0; i < POINTS; i++) {
+            POINT_VALUES[i] = 2 * random.nextDouble() - 1;
+            BD_POINT_VALUES[i] = new BigDecimal(POINT_VALUES[i]);
+        }
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                DA[i][j] = DoubleDouble.add(random.nextDouble() - 0.5, random.nextDouble() * 1E-17);
+                DB[i][j] = DoubleDouble.add(random.nextDouble() - 0.5, random.nextDouble() * 1E-17);
+                A[i][j] = DA[i][j].getFirst();
+                B[i][j] = DB[i][j].getFirst();
+                BA[i][j] = DA[i][j].toBigDecimal().round(MC);
+                BB[i][j] = DB[i][j].toBigDecimal().round(MC);
+            }
+        }
+        for (int k = 0; k < N; k++) {
+            DB_ROWS[k] = DoubleDoubleArray.valueOf(DB[k]);
+        }
+        StringBuilder csv = new StringBuilder("id,price,qty\n");
+        for (int i = 0; i < CSV_LINES; i++) {
+            csv.append(i).append(',').append(BigDecimal.valueOf(random.nextInt(100_000_000), 4))
+                    .append(',').append(random.nextInt(1000)).append('\n');
+        }
+        CSV_BYTES = csv.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static Workload[] workloads() {
+        return new Workload[]{
+                new Workload("harmonic double", HARMONIC_TERMS) {
+                    @Override
+                    double run() {
+                        double sum = 0;
+                        for (int i = 1; i <= HARMONIC_TERMS; i++) {
+                            sum += 1.0 / i;
+                        }
+                        return sum;
+                    }
+                },
+                new Workload("harmonic DoubleDouble.add(double)", HARMONIC_TERMS) {
+                    @Override
+                    double run() {
+                        DoubleDouble sum = DoubleDouble.ZERO;
+                        for (int i = 1; i <= HARMONIC_TERMS; i++) {
+                            sum = sum.add(1.0 / i);
+                        }
+                        return sum.getSecond();
+                    }
+                },
+                new Workload("harmonic DoubleDoubleAccumulator", HARMONIC_TERMS) {
+                    @Override
+                    double run() {
+                        DoubleDoubleAccumulator sum = new DoubleDoubleAccumulator();
+                        for (int i = 1; i <= HARMONIC_TERMS; i++) {
+                            sum.accept(1.0 / i);
+                        }
+                        return sum.get().getSecond();
+                    }
+                },
+                new Workload("harmonic BigDecimal (exact)", HARMONIC_TERMS) {
+                    @Override
+                    double run() {
+                        BigDecimal sum = BigDecimal.ZERO;
+                        for (int i = 1; i <= HARMONIC_TERMS; i++) {
+                            sum = sum.add(new BigDecimal(1.0 / i));
+                        }
+                        return sum.doubleValue();
+                    }
+                },
+                new Workload("harmonic DoubleStream.sum() (parallel)", HARMONIC_TERMS) {
+                    @Override
+                    double run() {
+                        return DoubleStream.of(HARMONIC_VALUES).parallel().sum();
+                    }
+                },
+                new Workload("harmonic DoubleDoubleCollectors.sum (parallel)", HARMONIC_TERMS) {
+                    @Override
+                    double run() {
+                        return DoubleDoubleCollectors.sum(DoubleStream.of(HARMONIC_VALUES).parallel()).getSecond();
+                    }
+                },
+                new Workload("harmonic DoubleDoubleExactAccumulator", HARMONIC_TERMS) {
+                    @Override
+                    double run() {
+                        return DoubleDoubleExactAccumulator.sum(HARMONIC_VALUES, 0, HARMONIC_TERMS).getSecond();
+                    }
+                },
+                new Workload("harmonic DoubleDoubleExactAccumulator (parallel)", HARMONIC_TERMS) {
+                    @Override
+                    double run() {
+                        return DoubleDoubleExactAccumulator.parallelSum(HARMONIC_VALUES).getSecond();
+                    }
+                },
+                // 每个线程累加调和级数的一部分，所有线程共用一个和
+                new Workload("harmonic AtomicReference CAS (threads)", HARMONIC_TERMS) {
+                    @Override
+                    double run() {
+                        AtomicReference<DoubleDouble> sum = new AtomicReference<>(DoubleDouble.ZERO);
+                        runThreads(i -> {
+                            DoubleDouble current;
+                            do {
+                                current = sum.get();
+                            } while (!sum.compareAndSet(current, current.add(HARMONIC_VALUES[i])));
+                        });
+                        return sum.get().getSecond();
+                    }
+                },
+                new Workload("harmonic DoubleDoubleAdder (threads)", HARMONIC_TERMS) {
+                    @Override
+                    double run() {
+                        DoubleDoubleAdder sum = new DoubleDoubleAdder();
+                        runThreads(i -> sum.add(HARMONIC_VALUES[i]));
+                        return sum.sum().getSecond();
+                    }
+                },
+                new Workload("dot double", DOT_LENGTH) {
+                    @Override
+                    double run() {
+                        double sum = 0;
+                        for (int i = 0; i < DOT_LENGTH; i++) {
+                            sum += XS[i] * YS[i];
+                        }
+                        return sum;
+                    }
+                },
+                new Workload("dot DoubleDouble.mul(double, double)", DOT_LENGTH) {
+                    @Override
+                    double run() {
+                        DoubleDouble sum = DoubleDouble.ZERO;
+                        for (int i = 0; i < DOT_LENGTH; i++) {
+                            sum = sum.add(DoubleDouble.mul(XS[i], YS[i]));
+                        }
+                        return sum.getSecond();
+                    }
+                },
+                new Workload("dot DoubleDouble.dot", DOT_LENGTH) {
+                    @Override
+                    double run() {
+                        return DoubleDouble.dot(XS, YS).getSecond();
+                    }
+                },
+                new Workload("dot BigDecimal (exact)", DOT_LENGTH) {
+                    @Override
+                    double run() {
+                        BigDecimal sum = BigDecimal.ZERO;
+                        for (int i = 0; i < DOT_LENGTH; i++) {
+                            sum = sum.add(new BigDecimal(XS[i]).multiply(new BigDecimal(YS[i])));
+                        }
+                        return sum.doubleValue();
+                    }
+                },
+                new Workload("horner double", (long) POINTS * DEGREE) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (double x : POINT_VALUES) {
+                            double p = COEFFICIENTS[DEGREE];
+                            for (int k = DEGREE - 1; k >= 0; k--) {
+                                p = p * x + COEFFICIENTS[k];
+                            }
+                            s += p;
+                        }
+                        return s;
+                    }
+                },
+                new Workload("horner DoubleDouble", (long) POINTS * DEGREE) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (double x : POINT_VALUES) {
+                            DoubleDouble p = DD_COEFFICIENTS[DEGREE];
+                            for (int k = DEGREE - 1; k >= 0; k--) {
+                                p = p.mul(x).add(DD_COEFFICIENTS[k]);
+                            }
+                            s += p.getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Workload("horner MutableDoubleDouble", (long) POINTS * DEGREE) {
+                    private final MutableDoubleDouble p = new MutableDoubleDouble();
+
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (double x : POINT_VALUES) {
+                            p.set(DD_COEFFICIENTS[DEGREE]);
+                            for (int k = DEGREE - 1; k >= 0; k--) {
+                                p.mul(x).add(DD_COEFFICIENTS[k]);
+                            }
+                            s += p.getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Workload("horner BigDecimal (DECIMAL128)", (long) POINTS * DEGREE) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (BigDecimal x : BD_POINT_VALUES) {
+                            BigDecimal p = BD_COEFFICIENTS[DEGREE];
+                            for (int k = DEGREE - 1; k >= 0; k--) {
+                                p = p.multiply(x, MC).add(BD_COEFFICIENTS[k], MC);
+                            }
+                            s += p.scale();
+                        }
+                        return s;
+                    }
+                },
+                new Workload("matrix double", (long) N * N * N) {
+                    private final double[][] c = new double[N][N];
+
+                    @Override
+                    double run() {
+                        for (int i = 0; i < N; i++) {
+                            for (int j = 0; j < N; j++) {
+                                double sum = 0;
+                                for (int k = 0; k < N; k++) {
+                                    sum += A[i][k] * B[k][j];
+                                }
+                                c[i][j] = sum;
+                            }
+                        }
+                        return c[N - 1][N - 1];
+                    }
+                },
+                new Workload("matrix DoubleDouble", (long) N * N * N) {
+                    private final DoubleDouble[][] c = new DoubleDouble[N][N];
+
+                    @Override
+                    double run() {
+                        for (int i = 0; i < N; i++) {
+                            for (int j = 0; j < N; j++) {
+                                DoubleDouble sum = DoubleDouble.ZERO;
+                                for (int k = 0; k < N; k++) {
+                                    sum = sum.add(DA[i][k].mul(DB[k][j]));
+                                }
+                                c[i][j] = sum;
+                            }
+                        }
+                        return c[N - 1][N - 1].getSecond();
+                    }
+                },
+                new Workload("matrix DoubleDoubleVectors.axpy", (long) N * N * N) {
+                    private final DoubleDoubleArray[] c = new DoubleDoubleArray[N];
+
+                    {
+                        for (int i = 0; i < N; i++) {
+                            c[i] = new DoubleDoubleArray(N);
+                        }
+                    }
+
+                    @Override
+                    double run() {
+                        // 按行计算，c的第i行 += a[i][k]乘以b的第k行
+                        for (int i = 0; i < N; i++) {
+                            c[i].fill(DoubleDouble.ZERO);
+                            for (int k = 0; k < N; k++) {
+                                DoubleDoubleVectors.axpy(DA[i][k], DB_ROWS[k], c[i]);
+                            }
+                        }
+                        return c[N - 1].getSecond(N - 1);
+                    }
+                },
+                new Workload("matrix BigDecimal (DECIMAL128)", (long) N * N * N) {
+                    private final BigDecimal[][] c = new BigDecimal[N][N];
+
+                    @Override
+                    double run() {
+                        for (int i = 0; i < N; i++) {
+                            for (int j = 0; j < N; j++) {
+                                BigDecimal sum = BigDecimal.ZERO;
+                                for (int k = 0; k < N; k++) {
+                                    sum = sum.add(BA[i][k].multiply(BB[k][j], MC), MC);
+                                }
+                                c[i][j] = sum;
+                            }
+                        }
+                        return c[N - 1][N - 1].scale();
+                    }
+                },
+                new Workload("csv String.split + BigDecimal sum", CSV_LINES) {
+                    @Override
+                    double run() {
+                        String[] lines = new String(CSV_BYTES, StandardCharsets.US_ASCII).split("\n");
+                        BigDecimal sum = BigDecimal.ZERO;
+                        for (int i = 1; i < lines.length; i++) {
+                            sum = sum.add(new BigDecimal(lines[i].split(",")[1]));
+                        }
+                        return sum.doubleValue();
+                    }
+                },
+                new Workload("csv DoubleDoubleCsvLoader.sumColumn (parallel)", CSV_LINES) {
+                    private final ByteBuffer buf = ByteBuffer.wrap(CSV_BYTES);
+
+                    @Override
+                    double run() {
+                        return DoubleDoubleCsvLoader.sumColumn(buf, ',', 1, true).getSecond();
+                    }
+                },
+                new Workload("csv DoubleDoubleCsvLoader.loadColumn (parallel)", CSV_LINES) {
+                    private final ByteBuffer buf = ByteBuffer.wrap(CSV_BYTES);
+
+                    @Override
+                    double run() {
+                        return DoubleDoubleCsvLoader.loadColumn(buf, ',', 1, true).getSecond(CSV_LINES - 1);
+                    }
+                },
+        };
+    }
+
+    public static void main(String[] args) {
+        System.out.println("FMA: " + (Fma.isAvailable() ? "enabled" : "disabled"));
+        double sink = 0;
+        for (Workload workload : workloads()) {
+            if (!isSelected(workload, args)) {
+                continue;
+            }
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                sink += measure(workload)[3];
+            }
+            double best = 0;
+            double bytes = Double.POSITIVE_INFINITY;
+            long gcMillis = 0;
+            for (int i = 0; i < ROUNDS; i++) {
+                double[] result = measure(workload);
+                best = Math.max(best, result[0]);
+                bytes = Math.min(bytes, result[1]);
+                gcMillis += (long) result[2];
+                sink += result[3];
+            }
+            String bytesPerOp = bytes < 0 ? "n/a" : String.format("%.1f", bytes);
+            System.out.printf("%-48s %14.0f ops/s %10s B/op %6d ms GC%n",
+                    workload.name, best, bytesPerOp, gcMillis);
+        }
+        if (sink == 42) {
+            System.out.println(sink);
+        }
+    }
+
+    // 用THREADS个线程对0到HARMONIC_TERMS - 1的每个下标执行一次action
+    private static void runThreads(IntConsumer action) {
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            int start = t;
+            threads[t] = new Thread(() -> {
+                for (int i = start; i < HARMONIC_TERMS; i += THREADS) {
+                    action.accept(i);
+                }
+            });
+            threads[t].start();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    // 没有参数时执行所有任务，否则只执行名字中包含某个参数的任务
+    private static boolean isSelected(Workload workload, String[] args) {
+        if (args.length == 0) {
+            return true;
+        }
+        for (String arg : args) {
+            if (workload.name.contains(arg)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 返回{每秒的操作数, 每个操作分配的字节数（不支持时为负数）, GC的毫秒数, 计算结果}
+    private static double[] measure(Workload workload) {
+        long allocated = allocatedBytes();
+        long gc = gcMillis();
+        double sink = 0;
+        long runs = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            sink += workload.run();
+            runs++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ROUND_NANOS);
+        double ops = (double) runs * workload.ops;
+        double bytes = allocated < 0 ? -1 : (allocatedBytes() - allocated) / ops;
+        return new double[]{ops * 1E9 / elapsed, bytes, gcMillis() - gc, sink};
+    }
+
+    // 当前线程累计分配的字节数，不支持时返回-1
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        if (!sunBean.isThreadAllocatedMemorySupported() || !sunBean.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // 所有垃圾收集器累计的GC时间
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, bean.getCollectionTime());
+        }
+        return total;
+    }
+}
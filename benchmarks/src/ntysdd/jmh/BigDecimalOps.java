@@ -0,0 +1,251 @@
+package ntysdd.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.concurrent.TimeUnit;
+
+import static ntysdd.jmh.Inputs.BXS;
+import static ntysdd.jmh.Inputs.BYS;
+import static ntysdd.jmh.Inputs.LXS;
+import static ntysdd.jmh.Inputs.LYS;
+import static ntysdd.jmh.Inputs.SHORT_TEXTS;
+import static ntysdd.jmh.Inputs.SIZE;
+import static ntysdd.jmh.Inputs.TEXTS;
+import static ntysdd.jmh.Inputs.XS;
+import static ntysdd.jmh.Inputs.YS;
+
+/**
+ * 与DoubleDoubleOps对应的BigDecimal的操作，精度是MathContext.DECIMAL128，方法名相同，作为参照
+ * BigDecimal没有cbrt和log
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OperationsPerInvocation(SIZE)
+@Fork(1)
+public class BigDecimalOps {
+    private static final MathContext MC = MathContext.DECIMAL128;
+
+    @Benchmark
+    public void valueOfDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(new BigDecimal(XS[i]));
+        }
+    }
+
+    @Benchmark
+    public void valueOfLong(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(BigDecimal.valueOf(LXS[i]));
+        }
+    }
+
+    @Benchmark
+    public void parse(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(new BigDecimal(TEXTS[i]));
+        }
+    }
+
+    @Benchmark
+    public void parseShort(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(new BigDecimal(SHORT_TEXTS[i]));
+        }
+    }
+
+    @Benchmark
+    public void addDoubleDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(new BigDecimal(XS[i]).add(new BigDecimal(YS[i]), MC));
+        }
+    }
+
+    @Benchmark
+    public void add(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(BXS[i].add(BYS[i], MC));
+        }
+    }
+
+    @Benchmark
+    public void addDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(BXS[i].add(new BigDecimal(YS[i]), MC));
+        }
+    }
+
+    @Benchmark
+    public void addLong(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(BXS[i].add(BigDecimal.valueOf(LYS[i]), MC));
+        }
+    }
+
+    @Benchmark
+    public void neg(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(BXS[i].negate());
+        }
+    }
+
+    @Benchmark
+    public void sub(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(BXS[i].subtract(BYS[i], MC));
+        }
+    }
+
+    @Benchmark
+    public void subDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(BXS[i].subtract(new BigDecimal(YS[i]), MC));
+        }
+    }
+
+    @Benchmark
+    public void subLong(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(BXS[i].subtract(BigDecimal.valueOf(LYS[i]), MC));
+        }
+    }
+
+    @Benchmark
+    public void mulDoubleDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(new BigDecimal(XS[i]).multiply(new BigDecimal(YS[i]), MC));
+        }
+    }
+
+    @Benchmark
+    public void mul(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(BXS[i].multiply(BYS[i], MC));
+        }
+    }
+
+    @Benchmark
+    public void mulDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(BXS[i].multiply(new BigDecimal(YS[i]), MC));
+        }
+    }
+
+    @Benchmark
+    public void mulLong(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(BXS[i].multiply(BigDecimal.valueOf(LYS[i]), MC));
+        }
+    }
+
+    @Benchmark
+    public void div(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(BXS[i].divide(BYS[i], MC));
+        }
+    }
+
+    @Benchmark
+    public void divDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(BXS[i].divide(new BigDecimal(YS[i]), MC));
+        }
+    }
+
+    @Benchmark
+    public void divLong(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(BXS[i].divide(BigDecimal.valueOf(LYS[i]), MC));
+        }
+    }
+
+    @Benchmark
+    public void reciprocal(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(BigDecimal.ONE.divide(BXS[i], MC));
+        }
+    }
+
+    @Benchmark
+    public void sqrt(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(sqrt(BXS[i]));
+        }
+    }
+
+    @Benchmark
+    public void rsqrt(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(BigDecimal.ONE.divide(sqrt(BXS[i]), MC));
+        }
+    }
+
+    @Benchmark
+    public void toStringValue(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(BXS[i].toString());
+        }
+    }
+
+    @Benchmark
+    public void equalsValue(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(BXS[i].equals(BYS[i]));
+        }
+    }
+
+    @Benchmark
+    public void hashCodeValue(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(BXS[i].hashCode());
+        }
+    }
+
+    @Benchmark
+    public BigDecimal sum() {
+        BigDecimal s = BigDecimal.ZERO;
+        for (int i = 0; i < SIZE; i++) {
+            s = s.add(new BigDecimal(XS[i]), MC);
+        }
+        return s;
+    }
+
+    @Benchmark
+    public BigDecimal dot() {
+        BigDecimal s = BigDecimal.ZERO;
+        for (int i = 0; i < SIZE; i++) {
+            s = s.add(new BigDecimal(XS[i]).multiply(new BigDecimal(YS[i])), MC);
+        }
+        return s;
+    }
+
+    // BigDecimal.sqrt是Java 9才有的，这里用牛顿迭代
+    private static BigDecimal sqrt(BigDecimal x) {
+        if (x.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+        // x = m * 10^(2k)，m在[1, 100)之间，用double的平方根作为初值，每次迭代有效位数加倍
+        int k = Math.floorDiv(x.precision() - x.scale() - 1, 2);
+        BigDecimal m = x.scaleByPowerOfTen(-2 * k);
+        MathContext work = new MathContext(MC.getPrecision() + 10);
+        BigDecimal y = new BigDecimal(Math.sqrt(m.doubleValue()));
+        for (int digits = 8; digits < work.getPrecision(); digits *= 2) {
+            y = y.add(m.divide(y, work)).divide(BigDecimal.valueOf(2), work);
+        }
+        return y.scaleByPowerOfTen(k).round(MC);
+    }
+}
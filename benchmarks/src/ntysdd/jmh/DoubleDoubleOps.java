@@ -0,0 +1,500 @@
+package ntysdd.jmh;
+
+import ntysdd.DoubleDouble;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static ntysdd.jmh.Inputs.CHARS;
+import static ntysdd.jmh.Inputs.DXS;
+import static ntysdd.jmh.Inputs.DYS;
+import static ntysdd.jmh.Inputs.LXS;
+import static ntysdd.jmh.Inputs.LYS;
+import static ntysdd.jmh.Inputs.SHORT_TEXTS;
+import static ntysdd.jmh.Inputs.SIZE;
+import static ntysdd.jmh.Inputs.TEXTS;
+import static ntysdd.jmh.Inputs.XS;
+import static ntysdd.jmh.Inputs.YS;
+
+/**
+ * DoubleDouble的每个公开操作（double、long和DoubleDouble的重载，以及DoubleDouble.Fast）的基准测试
+ * 结果是每个操作的平均耗时，DoubleOps和BigDecimalOps是对应的double和BigDecimal（MathContext.DECIMAL128）的操作
+ * 子类DoubleDoubleOpsFma和DoubleDoubleOpsNoFma分别在使用和关闭Math.fma的JVM中运行
+ * getFirst()和getSecond()只是读字段，没有单独测试
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OperationsPerInvocation(SIZE)
+public abstract class DoubleDoubleOps {
+    private final ByteBuffer buffer = ByteBuffer.allocate(SIZE * DoubleDouble.BYTES);
+    private final ByteBuffer filled = ByteBuffer.allocate(SIZE * DoubleDouble.BYTES);
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(SIZE * DoubleDouble.BYTES);
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private ByteArrayInputStream filledBytes;
+    private DataInputStream in;
+    private final StringBuilder sb = new StringBuilder();
+    private final StringWriter writer = new StringWriter();
+    private final char[] chars = new char[64];
+
+    @Setup
+    public void setup() throws IOException {
+        for (DoubleDouble x : DXS) {
+            x.writeTo(filled);
+        }
+        ByteArrayOutputStream b = new ByteArrayOutputStream();
+        DataOutputStream o = new DataOutputStream(b);
+        for (DoubleDouble x : DXS) {
+            x.writeTo(o);
+        }
+        filledBytes = new ByteArrayInputStream(b.toByteArray());
+        in = new DataInputStream(filledBytes);
+    }
+
+    @Benchmark
+    public void valueOfDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.valueOf(XS[i]));
+        }
+    }
+
+    @Benchmark
+    public void valueOfLong(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.valueOf(LXS[i]));
+        }
+    }
+
+    @Benchmark
+    public void parse(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.parse(TEXTS[i]));
+        }
+    }
+
+    @Benchmark
+    public void parseShort(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.parse(SHORT_TEXTS[i]));
+        }
+    }
+
+    @Benchmark
+    public void parseChars(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.parse(CHARS[i], 0, CHARS[i].length));
+        }
+    }
+
+    @Benchmark
+    public void addDoubleDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.add(XS[i], YS[i]));
+        }
+    }
+
+    @Benchmark
+    public void addLongDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.add(LXS[i], YS[i]));
+        }
+    }
+
+    @Benchmark
+    public void addDoubleLong(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.add(XS[i], LYS[i]));
+        }
+    }
+
+    @Benchmark
+    public void addLongLong(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.add(LXS[i], LYS[i]));
+        }
+    }
+
+    @Benchmark
+    public void add(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DXS[i].add(DYS[i]));
+        }
+    }
+
+    @Benchmark
+    public void addDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DXS[i].add(YS[i]));
+        }
+    }
+
+    @Benchmark
+    public void addLong(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DXS[i].add(LYS[i]));
+        }
+    }
+
+    @Benchmark
+    public void neg(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DXS[i].neg());
+        }
+    }
+
+    @Benchmark
+    public void sub(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DXS[i].sub(DYS[i]));
+        }
+    }
+
+    @Benchmark
+    public void subDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DXS[i].sub(YS[i]));
+        }
+    }
+
+    @Benchmark
+    public void subLong(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DXS[i].sub(LYS[i]));
+        }
+    }
+
+    @Benchmark
+    public void mulDoubleDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.mul(XS[i], YS[i]));
+        }
+    }
+
+    @Benchmark
+    public void mulLongDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.mul(LXS[i], YS[i]));
+        }
+    }
+
+    @Benchmark
+    public void mulDoubleLong(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.mul(XS[i], LYS[i]));
+        }
+    }
+
+    @Benchmark
+    public void mulLongLong(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.mul(LXS[i], LYS[i]));
+        }
+    }
+
+    @Benchmark
+    public void mul(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DXS[i].mul(DYS[i]));
+        }
+    }
+
+    @Benchmark
+    public void mulDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DXS[i].mul(YS[i]));
+        }
+    }
+
+    @Benchmark
+    public void mulLong(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DXS[i].mul(LYS[i]));
+        }
+    }
+
+    @Benchmark
+    public void div(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DXS[i].div(DYS[i]));
+        }
+    }
+
+    @Benchmark
+    public void divDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DXS[i].div(YS[i]));
+        }
+    }
+
+    @Benchmark
+    public void divLong(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DXS[i].div(LYS[i]));
+        }
+    }
+
+    @Benchmark
+    public void reciprocal(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.reciprocal(DXS[i]));
+        }
+    }
+
+    @Benchmark
+    public void reciprocalDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.reciprocal(XS[i]));
+        }
+    }
+
+    @Benchmark
+    public void reciprocalLong(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.reciprocal(LXS[i]));
+        }
+    }
+
+    @Benchmark
+    public void sqrt(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.sqrt(DXS[i]));
+        }
+    }
+
+    @Benchmark
+    public void sqrtDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.sqrt(XS[i]));
+        }
+    }
+
+    @Benchmark
+    public void sqrtLong(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.sqrt(LXS[i]));
+        }
+    }
+
+    @Benchmark
+    public void rsqrt(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.rsqrt(DXS[i]));
+        }
+    }
+
+    @Benchmark
+    public void rsqrtDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.rsqrt(XS[i]));
+        }
+    }
+
+    @Benchmark
+    public void rsqrtLong(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.rsqrt(LXS[i]));
+        }
+    }
+
+    @Benchmark
+    public void cbrt(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.cbrt(DXS[i]));
+        }
+    }
+
+    @Benchmark
+    public void cbrtDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.cbrt(XS[i]));
+        }
+    }
+
+    @Benchmark
+    public void cbrtLong(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.cbrt(LXS[i]));
+        }
+    }
+
+    @Benchmark
+    public void logDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.log(XS[i]));
+        }
+    }
+
+    @Benchmark
+    public void fastAdd(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.Fast.add(DXS[i], DYS[i]));
+        }
+    }
+
+    @Benchmark
+    public void fastAddDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.Fast.add(DXS[i], YS[i]));
+        }
+    }
+
+    @Benchmark
+    public void fastSub(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.Fast.sub(DXS[i], DYS[i]));
+        }
+    }
+
+    @Benchmark
+    public void fastMul(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.Fast.mul(DXS[i], DYS[i]));
+        }
+    }
+
+    @Benchmark
+    public void fastMulDouble(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.Fast.mul(DXS[i], YS[i]));
+        }
+    }
+
+    @Benchmark
+    public void fastDiv(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.Fast.div(DXS[i], DYS[i]));
+        }
+    }
+
+    @Benchmark
+    public void toBigDecimal(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DXS[i].toBigDecimal());
+        }
+    }
+
+    @Benchmark
+    public void toStringValue(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DXS[i].toString());
+        }
+    }
+
+    @Benchmark
+    public void equalsValue(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DXS[i].equals(DYS[i]));
+        }
+    }
+
+    @Benchmark
+    public void hashCodeValue(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DXS[i].hashCode());
+        }
+    }
+
+    @Benchmark
+    public void appendTo(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            sb.setLength(0);
+            bh.consume(DXS[i].appendTo(sb).length());
+        }
+    }
+
+    @Benchmark
+    public void appendToAppendable(Blackhole bh) throws IOException {
+        for (int i = 0; i < SIZE; i++) {
+            writer.getBuffer().setLength(0);
+            DXS[i].appendTo(writer);
+            bh.consume(writer.getBuffer().length());
+        }
+    }
+
+    @Benchmark
+    public void format(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DXS[i].format(34, chars));
+        }
+    }
+
+    // 以下几个对整个数组执行一次，每个元素算一次操作
+
+    @Benchmark
+    public DoubleDouble sum() {
+        return DoubleDouble.sum(XS);
+    }
+
+    @Benchmark
+    public DoubleDouble sumRange() {
+        return DoubleDouble.sum(XS, 0, SIZE);
+    }
+
+    @Benchmark
+    public DoubleDouble dot() {
+        return DoubleDouble.dot(XS, YS);
+    }
+
+    @Benchmark
+    public DoubleDouble dotRange() {
+        return DoubleDouble.dot(XS, 0, YS, 0, SIZE);
+    }
+
+    @Benchmark
+    public DoubleDouble dotStrided() {
+        return DoubleDouble.dot(XS, 0, 1, YS, 0, 1, SIZE);
+    }
+
+    @Benchmark
+    public int writeToByteBuffer() {
+        buffer.clear();
+        for (int i = 0; i < SIZE; i++) {
+            DXS[i].writeTo(buffer);
+        }
+        return buffer.position();
+    }
+
+    @Benchmark
+    public void readFromByteBuffer(Blackhole bh) {
+        filled.rewind();
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.readFrom(filled));
+        }
+    }
+
+    @Benchmark
+    public int writeToDataOutput() throws IOException {
+        bytes.reset();
+        for (int i = 0; i < SIZE; i++) {
+            DXS[i].writeTo(out);
+        }
+        return bytes.size();
+    }
+
+    @Benchmark
+    public void readFromDataInput(Blackhole bh) throws IOException {
+        filledBytes.reset();
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DoubleDouble.readFrom(in));
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package ntysdd.jmh;
+
+import org.openjdk.jmh.annotations.Fork;
+
+/**
+ * 在Java 9以上使用Math.fma时的DoubleDoubleOps
+ * Java 8没有Math.fma，结果与DoubleDoubleOpsNoFma相同
+ */
+@Fork(1)
+public class DoubleDoubleOpsFma extends DoubleDoubleOps {
+}
@@ -0,0 +1,10 @@
+package ntysdd.jmh;
+
+import org.openjdk.jmh.annotations.Fork;
+
+/**
+ * 用-Dntysdd.fma=false关闭FMA时的DoubleDoubleOps，乘积的误差用拆分的方法计算
+ */
+@Fork(value = 1, jvmArgsAppend = "-Dntysdd.fma=false")
+public class DoubleDoubleOpsNoFma extends DoubleDoubleOps {
+}
@@ -0,0 +1,171 @@
+package ntysdd.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static ntysdd.jmh.Inputs.DOUBLE_TEXTS;
+import static ntysdd.jmh.Inputs.LYS;
+import static ntysdd.jmh.Inputs.SHORT_TEXTS;
+import static ntysdd.jmh.Inputs.SIZE;
+import static ntysdd.jmh.Inputs.XS;
+import static ntysdd.jmh.Inputs.YS;
+
+/**
+ * 与DoubleDoubleOps对应的double的操作，方法名相同，作为参照
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OperationsPerInvocation(SIZE)
+@Fork(1)
+public class DoubleOps {
+    @Benchmark
+    public void add(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(XS[i] + YS[i]);
+        }
+    }
+
+    @Benchmark
+    public void addLong(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(XS[i] + LYS[i]);
+        }
+    }
+
+    @Benchmark
+    public void neg(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(-XS[i]);
+        }
+    }
+
+    @Benchmark
+    public void sub(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(XS[i] - YS[i]);
+        }
+    }
+
+    @Benchmark
+    public void subLong(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(XS[i] - LYS[i]);
+        }
+    }
+
+    @Benchmark
+    public void mul(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(XS[i] * YS[i]);
+        }
+    }
+
+    @Benchmark
+    public void mulLong(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(XS[i] * LYS[i]);
+        }
+    }
+
+    @Benchmark
+    public void div(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(XS[i] / YS[i]);
+        }
+    }
+
+    @Benchmark
+    public void divLong(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(XS[i] / LYS[i]);
+        }
+    }
+
+    @Benchmark
+    public void reciprocal(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(1 / XS[i]);
+        }
+    }
+
+    @Benchmark
+    public void sqrt(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(Math.sqrt(XS[i]));
+        }
+    }
+
+    @Benchmark
+    public void rsqrt(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(1 / Math.sqrt(XS[i]));
+        }
+    }
+
+    @Benchmark
+    public void cbrt(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(Math.cbrt(XS[i]));
+        }
+    }
+
+    @Benchmark
+    public void log(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(Math.log(XS[i]));
+        }
+    }
+
+    @Benchmark
+    public void parse(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(Double.parseDouble(DOUBLE_TEXTS[i]));
+        }
+    }
+
+    @Benchmark
+    public void parseShort(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(Double.parseDouble(SHORT_TEXTS[i]));
+        }
+    }
+
+    @Benchmark
+    public void toStringValue(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(Double.toString(XS[i]));
+        }
+    }
+
+    @Benchmark
+    public double sum() {
+        double s = 0;
+        for (int i = 0; i < SIZE; i++) {
+            s += XS[i];
+        }
+        return s;
+    }
+
+    @Benchmark
+    public double dot() {
+        double s = 0;
+        for (int i = 0; i < SIZE; i++) {
+            s += XS[i] * YS[i];
+        }
+        return s;
+    }
+}
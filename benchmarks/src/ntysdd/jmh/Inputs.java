@@ -0,0 +1,54 @@
+package ntysdd.jmh;
+
+import ntysdd.DoubleDouble;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Random;
+
+/**
+ * 各个基准测试共用的输入
+ * 每次调用对SIZE个不同的输入各执行一次操作
+ */
+final class Inputs {
+    static final int SIZE = 1024;
+
+    // [0.5, 1.5)之间的double
+    static final double[] XS = new double[SIZE];
+    static final double[] YS = new double[SIZE];
+    // 超过2^53的正整数，转成DoubleDouble时需要两部分
+    static final long[] LXS = new long[SIZE];
+    static final long[] LYS = new long[SIZE];
+    static final DoubleDouble[] DXS = new DoubleDouble[SIZE];
+    static final DoubleDouble[] DYS = new DoubleDouble[SIZE];
+    // DXS和DYS舍入到MathContext.DECIMAL128
+    static final BigDecimal[] BXS = new BigDecimal[SIZE];
+    static final BigDecimal[] BYS = new BigDecimal[SIZE];
+    // DXS的toString()，以及小数点后4位的短数字
+    static final String[] TEXTS = new String[SIZE];
+    static final char[][] CHARS = new char[SIZE][];
+    static final String[] SHORT_TEXTS = new String[SIZE];
+    // XS的Double.toString()
+    static final String[] DOUBLE_TEXTS = new String[SIZE];
+
+    static {
+        Random random = new Random(0);
+        for (int i = 0; i < SIZE; i++) {
+            XS[i] = random.nextDouble() + 0.5;
+            YS[i] = random.nextDouble() + 0.5;
+            DXS[i] = DoubleDouble.add(XS[i], random.nextDouble() * 1E-17);
+            DYS[i] = DoubleDouble.add(YS[i], random.nextDouble() * 1E-17);
+            LXS[i] = (random.nextLong() >>> 2) + (1L << 61);
+            LYS[i] = (random.nextLong() >>> 2) + (1L << 61);
+            BXS[i] = DXS[i].toBigDecimal().round(MathContext.DECIMAL128);
+            BYS[i] = DYS[i].toBigDecimal().round(MathContext.DECIMAL128);
+            TEXTS[i] = DXS[i].toString();
+            CHARS[i] = TEXTS[i].toCharArray();
+            SHORT_TEXTS[i] = BigDecimal.valueOf(random.nextInt(100_000_000), 4).toString();
+            DOUBLE_TEXTS[i] = Double.toString(XS[i]);
+        }
+    }
+
+    private Inputs() {
+    }
+}
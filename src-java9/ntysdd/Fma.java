@@ -0,0 +1,42 @@
+package ntysdd;
+
+/**
+ * 乘积的舍入误差的计算，以及对Math.fma的包装
+ * 这是Java 9以上的版本，编译到jar的META-INF/versions/9，直接调用Math.fma，
+ * 在支持FMA指令的机器上JIT会把它编译成一条指令
+ * 可以用-Dntysdd.fma=false关闭FMA，这时与Java 8的版本相同，用FmaFallback中拆分的计算方法
+ */
+final strictfp class Fma {
+    private static final boolean ENABLED = !"false".equals(System.getProperty("ntysdd.fma"));
+
+    private Fma() {
+    }
+
+    /*
+     * 当前运行环境是否提供Math.fma
+     */
+    static boolean isAvailable() {
+        return ENABLED;
+    }
+
+    /*
+     * 计算a * b + c，只舍入一次
+     */
+    static double fma(double a, double b, double c) {
+        if (ENABLED) {
+            return Math.fma(a, b, c);
+        }
+        return FmaFallback.fma(a, b, c);
+    }
+
+    /*
+     * 计算lhs * rhs的舍入误差，r1是lhs * rhs的浮点结果
+     * 要求r1是非0的有限值
+     */
+    static double productError(double lhs, double rhs, double r1) {
+        if (ENABLED) {
+            return Math.fma(lhs, rhs, -r1);
+        }
+        return FmaFallback.productError(lhs, rhs, r1);
+    }
+}
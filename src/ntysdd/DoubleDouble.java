@@ -1,13 +1,10 @@
 package ntysdd;
 
-import java.lang.invoke.MethodHandle;
-import java.lang.invoke.MethodHandles;
-import java.lang.ref.WeakReference;
-import java.lang.reflect.Method;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.math.BigDecimal;
-import java.math.MathContext;
-import java.util.Arrays;
-import java.util.Comparator;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 /**
@@ -24,29 +21,13 @@ public final strictfp class DoubleDouble {
     // 在一个内部使用二进制小数的类里设置这样一个常量有点没有道理
     // 考虑到常用的BigDecimal类中有这个常量，这里也设置一下
     public static final DoubleDouble TEN = new DoubleDouble(10.0, 0.0);
+    /**
+     * writeTo写入的字节数
+     */
+    public static final int BYTES = DoubleDoubleCodec.BYTES;
 
     private final double first;
     private final double second;
-    // 用来缓存String表示
-    private WeakReference<String> toStringCache;
-
-    private static final MethodHandle FMA_METHOD;
-
-    static {
-        Method fma = null;
-        try {
-            fma = Math.class.getMethod("fma", double.class, double.class, double.class);
-        } catch (NoSuchMethodException ignore) {
-        }
-        MethodHandle fmaHandle = null;
-        if (fma != null) {
-            try {
-                fmaHandle = MethodHandles.publicLookup().unreflect(fma);
-            } catch (IllegalAccessException ignore) {
-            }
-        }
-        FMA_METHOD = fmaHandle;
-    }
 
     /**
      * 将double转为DoubleDouble
@@ -79,6 +60,23 @@ public final strictfp class DoubleDouble {
         return add((double) part1, (double) part2);
     }
 
+    /**
+     * 把十进制数d解析成DoubleDouble：first = round(d)，second = round(d - first)
+     * 格式与new BigDecimal(String)相同，另外可以是NaN、Infinity和-Infinity，
+     * toString()的结果可以解析回原来的值
+     * 格式不对时抛出NumberFormatException
+     */
+    public static DoubleDouble parse(CharSequence s) {
+        return DoubleDoubleParser.parse(s);
+    }
+
+    /**
+     * 解析buf[from]到buf[to - 1]，见parse(CharSequence)
+     */
+    public static DoubleDouble parse(char[] buf, int from, int to) {
+        return DoubleDoubleParser.parse(buf, from, to);
+    }
+
     private DoubleDouble(double v) {
         if (Double.isNaN(v)) {
             first = Double.NaN;
@@ -97,16 +95,62 @@ public final strictfp class DoubleDouble {
         if (Double.isInfinite(f)) {
             return new DoubleDouble(f);
         }
+        return new DoubleDouble(f, addError(lhs, rhs, f));
+    }
+
+    /*
+     * 计算lhs + rhs的舍入误差，f是lhs + rhs的浮点结果
+     * 要求f是有限值
+     */
+    static double addError(double lhs, double rhs, double f) {
         long r1 = Double.doubleToRawLongBits(lhs);
         long r2 = Double.doubleToRawLongBits(rhs);
 
         if ((r1 & Long.MAX_VALUE) >= (r2 & Long.MAX_VALUE)) {
-            return new DoubleDouble(f, rhs - (f - lhs));
+            return rhs - (f - lhs);
         } else {
-            return new DoubleDouble(f, lhs - (f - rhs));
+            return lhs - (f - rhs);
         }
     }
 
+    /*
+     * add(double, double)结果的第二部分，f是lhs + rhs的浮点结果
+     * 与构造函数一样处理NaN、无穷大和0
+     */
+    static double sumError(double lhs, double rhs, double f) {
+        if (Double.isNaN(f)) {
+            return f;
+        }
+        if (Double.isInfinite(f)) {
+            return 0;
+        }
+        double e = addError(lhs, rhs, f);
+        if (f == 0 || e == 0) {
+            return 0;
+        }
+        return e;
+    }
+
+    /*
+     * mul(double, double)结果的第二部分，f是lhs * rhs的浮点结果
+     * 与构造函数一样处理NaN、无穷大和0
+     */
+    static double productError(double lhs, double rhs, double f) {
+        if (Double.isNaN(f)) {
+            return f;
+        }
+        if (f == 0 || Double.isInfinite(f)) {
+            return 0;
+        }
+        double e = Fma.productError(lhs, rhs, f);
+        // 接近下溢时误差已经被舍入过，这时真正的误差比最小的次正规数还小，
+        // 舍入后可能正好是f的半个ulp
+        if (e == 0 || f + e != f) {
+            return 0;
+        }
+        return e;
+    }
+
     /**
      * 计算一个DoubleDouble和一个double的和，返回DoubleDouble
      */
@@ -187,29 +231,6 @@ public final strictfp class DoubleDouble {
     }
 
 
-    private static class Pair {
-        final double v1;
-        final double v2;
-
-        Pair(double v1, double v2) {
-            this.v1 = v1;
-            this.v2 = v2;
-        }
-    }
-
-    private static final long POW_2_27 = (long) StrictMath.pow(2, 27);
-
-    private static Pair split2(double v) {
-        double c = POW_2_27 + 1;
-        double vp = v * c;
-        double v1 = (v - vp) + vp;
-        double v2 = v - v1;
-        return new Pair(v1, v2);
-    }
-
-    private static final double POW_2_970 = StrictMath.pow(2, 970);
-    private static final double POW_2_minus_53 = StrictMath.pow(2, -53);
-
     /**
      * 计算两个double的积，结果表示为DoubleDouble
      */
@@ -223,55 +244,10 @@ public final strictfp class DoubleDouble {
         if (Double.isInfinite(r1)) {
             return new DoubleDouble(r1);
         }
-        if (FMA_METHOD != null) {
-            double r2;
-            try {
-                r2 = (double) FMA_METHOD.invokeExact(lhs, rhs, -r1);
-            } catch (Throwable e) {
-                throw new AssertionError(e);
-            }
-            return new DoubleDouble(r1, r2);
-        }
         if (Double.isNaN(r1)) {
             return new DoubleDouble(Double.NaN);
         }
-        if (Math.abs(lhs) == 1 || Math.abs(lhs) == 0.5 || Math.abs(lhs) == 2
-                || Math.abs(rhs) == 1 || Math.abs(rhs) == 0.5 || Math.abs(rhs) == 2) {
-            // 这些常见值走快速路径
-            return DoubleDouble.valueOf(r1);
-        }
-        double mantissa1 = Math.scalb(lhs, -Math.getExponent(lhs));
-        double mantissa2 = Math.scalb(rhs, -Math.getExponent(rhs));
-        if (Math.abs(mantissa1) == 1.0 || Math.abs(mantissa2) == 1.0) {
-            return DoubleDouble.valueOf(r1);
-        }
-        int shift = 0;
-        if (Math.abs(lhs) >= POW_2_970) {
-            lhs *= POW_2_minus_53;
-            shift += 53;
-        }
-        if (Math.abs(rhs) >= POW_2_970) {
-            rhs *= POW_2_minus_53;
-            shift += 53;
-        }
-        Pair s1 = split2(lhs);
-        Pair s2 = split2(rhs);
-        double c = s1.v1 * s2.v1 - lhs * rhs;
-        c += s1.v1 * s2.v2;
-        c += s1.v2 * s2.v1;
-        c += s1.v2 * s2.v2;
-        if (shift == 0) {
-            return DoubleDouble.add(lhs * rhs, c);
-        } else {
-            double scale;
-            if (shift == 53) {
-                scale = (double) POW_2_53;
-            } else {
-                scale = StrictMath.pow(2, shift);
-            }
-            return DoubleDouble.add(lhs * rhs * scale,
-                    c * scale);
-        }
+        return new DoubleDouble(r1, productError(lhs, rhs, r1));
     }
 
     /**
@@ -304,38 +280,130 @@ public final strictfp class DoubleDouble {
         double x3 = this.second;
         double x4 = rhs.second;
 
-        double[] v = {x1, x2, x3, x4};
-        sortByAbsMaxFirst(v);
+        // 按绝对值从大到小排序，相等时保持原有顺序
+        double t;
+        if (Math.abs(x1) < Math.abs(x2)) {
+            t = x1;
+            x1 = x2;
+            x2 = t;
+        }
+        if (Math.abs(x2) < Math.abs(x3)) {
+            t = x2;
+            x2 = x3;
+            x3 = t;
+        }
+        if (Math.abs(x3) < Math.abs(x4)) {
+            t = x3;
+            x3 = x4;
+            x4 = t;
+        }
+        if (Math.abs(x1) < Math.abs(x2)) {
+            t = x1;
+            x1 = x2;
+            x2 = t;
+        }
+        if (Math.abs(x2) < Math.abs(x3)) {
+            t = x2;
+            x2 = x3;
+            x3 = t;
+        }
+        if (Math.abs(x1) < Math.abs(x2)) {
+            t = x1;
+            x1 = x2;
+            x2 = t;
+        }
 
+        // 三级的和，每一级保存上一级的舍入误差
         double s1 = 0;
         double s2 = 0;
         double s3 = 0;
+        double f;
+
+        s3 += x1;
+        f = s2 + s3;
+        s3 = sumError(s2, s3, f);
+        s2 = f;
+        f = s1 + s2;
+        s2 = sumError(s1, s2, f);
+        s1 = f;
+
+        s3 += x2;
+        f = s2 + s3;
+        s3 = sumError(s2, s3, f);
+        s2 = f;
+        f = s1 + s2;
+        s2 = sumError(s1, s2, f);
+        s1 = f;
+
+        s3 += x3;
+        f = s2 + s3;
+        s3 = sumError(s2, s3, f);
+        s2 = f;
+        f = s1 + s2;
+        s2 = sumError(s1, s2, f);
+        s1 = f;
+
+        s3 += x4;
+        f = s2 + s3;
+        s3 = sumError(s2, s3, f);
+        s2 = f;
+        f = s1 + s2;
+        s2 = sumError(s1, s2, f);
+        s1 = f;
+
+        f = s1 + s2;
+        return add(f, sumError(s1, s2, f), s3);
+    }
 
-        for (double x : v) {
-            s3 += x;
-            DoubleDouble t = add(s2, s3);
-            s3 = t.second;
-            s2 = t.first;
-            t = add(s1, s2);
-            s2 = t.second;
-            s1 = t.first;
+    /*
+     * 计算(first, second) + rhs，与DoubleDouble.add(first, ...).add(rhs)的结果相同，
+     * 但是不生成中间的DoubleDouble
+     * first和second是add(double, double)的两部分
+     */
+    private static DoubleDouble add(double first, double second, double rhs) {
+        if (Double.isNaN(first)) {
+            return DoubleDouble.valueOf(Double.NaN);
         }
-        return add(s1, s2).add(s3);
+        if (rhs == 0 || first == 0.0) {
+            return DoubleDouble.add(first, second).add(rhs);
+        }
+        if (Double.isInfinite(first) && first == rhs) {
+            return DoubleDouble.valueOf(first);
+        }
+        if (second == 0) {
+            return DoubleDouble.add(first, rhs);
+        }
+        if (Double.isNaN(rhs)) {
+            return DoubleDouble.valueOf(Double.NaN);
+        }
+        if (Double.isInfinite(rhs)) {
+            return DoubleDouble.valueOf(first + rhs);
+        }
+        double t1 = first + rhs;
+        double t2 = sumError(first, rhs, t1);
+        if (t1 == 0) {
+            return new DoubleDouble(second);
+        }
+        if (t2 == 0 && second + t1 == t1) {
+            return new DoubleDouble(t1, second);
+        }
+        return add(t1, second + t2);
     }
 
     /*
-     * 将数组按照绝对值排序，绝对值最大的排在最开头，绝对值最小的排在最末尾
+     * 将数组按照绝对值排序，绝对值最大的排在最开头，绝对值最小的排在最末尾，NaN排在最后
+     * 排序是稳定的
      * 对于不含NaN的小数组，采用插排
-     * 对于大数组，交给Arrays.sort(T[], Comparator)排序
+     * 对于大数组，采用归并排序，只需要一个临时数组
      */
-    private static void sortByAbsMaxFirst(double[] v) {
+    static void sortByAbsMaxFirst(double[] v) {
         OUT:
         if (v.length <= 20) {
             // 插排
             for (int i = 0; i < v.length; i++) {
                 double val = v[i];
                 if (Double.isNaN(val)) {
-                    // 发现含有NaN，则跳到外面，用Arrays.sort(T[], Comparator)来排序
+                    // 发现含有NaN，则跳到外面，用归并排序
                     break OUT;
                 }
                 if (i == 0) {
@@ -352,14 +420,180 @@ public final strictfp class DoubleDouble {
             return;
         }
 
-        // 为了能匹配API的签名，这里生成了很多包装对象
-        Double[] t = new Double[v.length];
-        for (int i = 0; i < v.length; i++) {
-            t[i] = v[i];
+        mergeSortByAbsMaxFirst(v, new double[v.length], 0, v.length);
+    }
+
+    // 排序时x是否应该排在y的前面
+    private static boolean absGreater(double x, double y) {
+        return !Double.isNaN(x) && (Double.isNaN(y) || Math.abs(x) > Math.abs(y));
+    }
+
+    private static void mergeSortByAbsMaxFirst(double[] v, double[] buffer, int from, int to) {
+        if (to - from <= 16) {
+            for (int i = from + 1; i < to; i++) {
+                double val = v[i];
+                int j = i - 1;
+                while (j >= from && absGreater(val, v[j])) {
+                    v[j + 1] = v[j];
+                    j--;
+                }
+                v[j + 1] = val;
+            }
+            return;
         }
-        Arrays.sort(t, Comparator.comparing(x -> -Math.abs(x)));
-        for (int i = 0; i < v.length; i++) {
-            v[i] = t[i];
+        int mid = (from + to) >>> 1;
+        mergeSortByAbsMaxFirst(v, buffer, from, mid);
+        mergeSortByAbsMaxFirst(v, buffer, mid, to);
+        if (!absGreater(v[mid], v[mid - 1])) {
+            // 已经有序
+            return;
+        }
+        System.arraycopy(v, from, buffer, from, mid - from);
+        int i = from;
+        int j = mid;
+        int k = from;
+        while (i < mid && j < to) {
+            if (absGreater(v[j], buffer[i])) {
+                v[k++] = v[j++];
+            } else {
+                v[k++] = buffer[i++];
+            }
+        }
+        while (i < mid) {
+            v[k++] = buffer[i++];
+        }
+    }
+
+    /**
+     * 计算数组中所有元素的和，返回DoubleDouble
+     */
+    public static DoubleDouble sum(double[] values) {
+        return sum(values, 0, values.length);
+    }
+
+    /**
+     * 计算values[from]到values[to - 1]的和，返回DoubleDouble
+     * 不排序，也不生成临时对象，只需要遍历一次数组
+     * 计算时维护三级的和，每一级保存上一级的舍入误差，
+     * 结果的误差相当于用三倍double的精度计算之后再舍入成DoubleDouble
+     * 注意：
+     * 如果中间结果溢出，或者含有无穷大和NaN，结果与直接用double求和相同
+     */
+    public static DoubleDouble sum(double[] values, int from, int to) {
+        if (from < 0 || to > values.length || from > to) {
+            throw new IndexOutOfBoundsException("from: " + from + ", to: " + to
+                    + ", length: " + values.length);
+        }
+        if (from == to) {
+            return ZERO;
+        }
+        // 从-0.0开始，这样全是-0.0的时候结果也是-0.0
+        double s1 = -0.0;
+        double s2 = 0;
+        double s3 = 0;
+        for (int i = from; i < to; i++) {
+            double x = values[i];
+            double t = s1 + x;
+            double e = addError(s1, x, t);
+            s1 = t;
+            t = s2 + e;
+            e = addError(s2, e, t);
+            s2 = t;
+            s3 += e;
+        }
+        if (!Double.isFinite(s1) || !Double.isFinite(s2) || !Double.isFinite(s3)) {
+            double result = 0;
+            for (int i = from; i < to; i++) {
+                result += values[i];
+            }
+            return valueOf(result);
+        }
+        if (s2 == 0 && s3 == 0) {
+            return valueOf(s1);
+        }
+        return add(s1, s2).add(s3);
+    }
+
+    /**
+     * 计算两个数组的内积，返回DoubleDouble
+     */
+    public static DoubleDouble dot(double[] x, double[] y) {
+        if (x.length != y.length) {
+            throw new IllegalArgumentException("length mismatch: " + x.length + ", " + y.length);
+        }
+        return dot(x, 0, 1, y, 0, 1, x.length);
+    }
+
+    /**
+     * 计算x[xOffset]到x[xOffset + length - 1]与y[yOffset]到y[yOffset + length - 1]的内积
+     */
+    public static DoubleDouble dot(double[] x, int xOffset, double[] y, int yOffset, int length) {
+        return dot(x, xOffset, 1, y, yOffset, 1, length);
+    }
+
+    /**
+     * 计算x[xOffset + i * xStride]与y[yOffset + i * yStride]的内积，i从0到length - 1
+     * 每一项的积用mul(double, double)中的方法精确地拆成两个double，
+     * 再和sum(double[], int, int)一样分级累加，不生成临时对象
+     * 结果的误差相当于用DoubleDouble的精度计算每一项再求和
+     * 注意：
+     * 如果中间结果溢出，或者含有无穷大和NaN，结果与直接用double计算相同
+     */
+    public static DoubleDouble dot(double[] x, int xOffset, int xStride,
+                                   double[] y, int yOffset, int yStride, int length) {
+        checkStridedRange(x, xOffset, xStride, length);
+        checkStridedRange(y, yOffset, yStride, length);
+        if (length == 0) {
+            return ZERO;
+        }
+        double s1 = -0.0;
+        double s2 = 0;
+        double s3 = 0;
+        int xi = xOffset;
+        int yi = yOffset;
+        for (int i = 0; i < length; i++) {
+            double a = x[xi];
+            double b = y[yi];
+            xi += xStride;
+            yi += yStride;
+            double p = a * b;
+            double pe = p == 0 ? 0 : Fma.productError(a, b, p);
+            double t = s1 + p;
+            double e = addError(s1, p, t);
+            s1 = t;
+            t = s2 + e;
+            e = addError(s2, e, t);
+            s2 = t;
+            s3 += e;
+            t = s2 + pe;
+            e = addError(s2, pe, t);
+            s2 = t;
+            s3 += e;
+        }
+        if (!Double.isFinite(s1) || !Double.isFinite(s2) || !Double.isFinite(s3)) {
+            double result = 0;
+            for (int i = 0; i < length; i++) {
+                result += x[xOffset + i * xStride] * y[yOffset + i * yStride];
+            }
+            return valueOf(result);
+        }
+        if (s2 == 0 && s3 == 0) {
+            return valueOf(s1);
+        }
+        return add(s1, s2).add(s3);
+    }
+
+    private static void checkStridedRange(double[] v, int offset, int stride, int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("length: " + length);
+        }
+        if (length == 0) {
+            return;
+        }
+        long last = offset + (long) stride * (length - 1);
+        if (offset < 0 || offset >= v.length || last < 0 || last >= v.length) {
+            throw new IndexOutOfBoundsException("offset: " + offset + ", stride: " + stride
+                    + ", length: " + length + ", array length: " + v.length);
         }
     }
 
@@ -399,6 +633,10 @@ public final strictfp class DoubleDouble {
         } else {
             result = add(r1.first, r2.first);
         }
+        if (Double.isNaN(result.first)) {
+            // 两个有限值的积是NaN，只可能是中间结果上溢
+            return DoubleDouble.valueOf(Math.copySign(Double.POSITIVE_INFINITY, first * rhs));
+        }
         if (result.first == 0) {
             // 处理±0
             double res = Math.copySign(0, first * rhs);
@@ -439,6 +677,10 @@ public final strictfp class DoubleDouble {
             c = c.sub(s1.sub(sum));
             sum = s1;
         }
+        if (Double.isNaN(sum.first)) {
+            // 两个有限值的积是NaN，只可能是中间结果上溢
+            return DoubleDouble.valueOf(Math.copySign(Double.POSITIVE_INFINITY, x1 * x2));
+        }
         return sum;
     }
 
@@ -482,19 +724,10 @@ public final strictfp class DoubleDouble {
             // rhs是2的整数次幂，且1.0 / rhs不会导致无穷
             return this.mul(1.0 / rhs);
         }
-        double r1 = first / rhs;
-        if (!Double.isFinite(r1)) {
-            return new DoubleDouble(r1);
+        if (Double.isNaN(rhs)) {
+            return DoubleDouble.valueOf(Double.NaN);
         }
-        DoubleDouble m = mul(r1, rhs);
-        DoubleDouble r = m.neg().add(first);
-        DoubleDouble rr = r.add(this.second);
-        double r2 = rr.first / rhs;
-        DoubleDouble m2 = mul(r2, rhs);
-        DoubleDouble k = m2.neg().add(rr.first);
-        k = k.add(rr.second);
-        double r3 = k.first / rhs;
-        return add(r1, r2).add(r3);
+        return divide(first, this.second, rhs, 0.0);
     }
 
     /**
@@ -507,79 +740,69 @@ public final strictfp class DoubleDouble {
                 || Double.isInfinite(this.first)) {
             return this.div(rhs.first);
         }
-        if (ONE.equals(this)) {
-            return reciprocal(rhs);
-        }
-
-        // reciprocal0和reciprocal1共有1.0 / first的大约53 * 3 = 159位二进制数
-        double reciprocal0 = 1.0 / rhs.first;
-        DoubleDouble reciprocal1 = DoubleDouble.ONE.sub(mul(reciprocal0, rhs.first)).div(rhs.first);
+        return divide(this.first, this.second, rhs.first, rhs.second);
+    }
 
-        // 上面计算的倒数只考虑了first，用泰勒级数修正second带来的的影响
-        DoubleDouble eps = DoubleDouble.valueOf(rhs.second).div(rhs.first);
-        DoubleDouble epsDivFirst = eps.div(rhs.first);
-        // 这一项已经很小，不需要很高精度
-        double eps2 = eps.first * eps.first;
+    /*
+     * 计算(ah + al) / (bh + bl)，要求两个数都是有限的非0值，bl可以是0
+     * 先用double的除法得到商的近似值q1，
+     * 再用精确的乘积误差算出余数a - q1 * b，用余数修正两次得到q2和q3，
+     * q1、q2、q3共有大约53 * 3 = 159位二进制数
+     * 不需要数组，也不需要排序
+     */
+    private static DoubleDouble divide(double ah, double al, double bh, double bl) {
+        int ea = Math.getExponent(ah);
+        int eb = Math.getExponent(bh);
+        if (isDivisionScalingNeeded(ea, eb)) {
+            // 把被除数和除数缩放到1附近，避免中间结果上溢或者下溢，最后再缩放回去
+            DoubleDouble q = divide(Math.scalb(ah, -ea), Math.scalb(al, -ea),
+                    Math.scalb(bh, -eb), Math.scalb(bl, -eb));
+            int k = ea - eb;
+            double h = Math.scalb(q.first, k);
+            if (h == 0 || Double.isInfinite(h)) {
+                return new DoubleDouble(h);
+            }
+            return add(h, Math.scalb(q.second, k));
+        }
+
+        double q1 = ah / bh;
+        // r = a - q1 * b，用(rh, rl)表示
+        double p1 = q1 * bh;
+        double e1 = Fma.productError(q1, bh, p1);
+        double p2 = q1 * bl;
+        double e2 = p2 == 0 ? 0 : Fma.productError(q1, bl, p2);
+        // p1与ah非常接近，所以ah - p1没有舍入误差
+        double d = ah - p1;
+        double rh = d + al;
+        double rl = addError(d, al, rh);
+        double t = rh - e1;
+        rl += addError(rh, -e1, t);
+        rh = t;
+        t = rh - p2;
+        rl += addError(rh, -p2, t);
+        rh = t;
+        rl -= e2;
+        t = rh + rl;
+        rl = addError(rh, rl, t);
+        rh = t;
+
+        double q2 = rh / bh;
+        // r = r - q2 * b，这里只需要double的精度
+        double p3 = q2 * bh;
+        double e3 = p3 == 0 ? 0 : Fma.productError(q2, bh, p3);
+        double r = (rh - p3) + rl - e3 - q2 * bl;
+        double q3 = r / bh;
+
+        double f = q1 + q2;
+        return add(f, sumError(q1, q2, f), q3);
+    }
 
-        double[] v = {reciprocal0,
-                -epsDivFirst.first,
-                reciprocal1.first,
-                -epsDivFirst.second,
-                eps2 * reciprocal0,
-                reciprocal1.second};
-        sortByAbsMaxFirst(v);
-        double s1 = 0;
-        double s2 = 0;
-        double s3 = 0;
-        for (double x : v) {
-            DoubleDouble t;
-            s3 += x;
-            t = add(s2, s3);
-            s3 = t.second;
-            s2 = t.first;
-            t = add(s1, s2);
-            s2 = t.second;
-            s1 = t.first;
-        }
-
-        double t1 = this.first;
-        double t2 = this.second;
-
-        DoubleDouble[] parts = {
-                mul(s1, t1),
-                mul(s2, t1),
-                mul(s3, t1),
-                mul(s1, t2),
-                mul(s2, t2),
-                mul(s3, t2),
-        };
-        v = new double[parts.length * 2];
-        for (int i = 0; i < parts.length; i++) {
-            DoubleDouble dd = parts[i];
-            v[i] = dd.first;
-            v[i + parts.length] = dd.second;
-        }
-        sortByAbsMaxFirst(v);
-        s1 = 0;
-        s2 = 0;
-        s3 = 0;
-
-        for (double x : v) {
-            DoubleDouble t;
-            s3 += x;
-            t = add(s2, s3);
-            s3 = t.second;
-            s2 = t.first;
-            t = add(s1, s2);
-            s2 = t.second;
-            s1 = t.first;
-        }
-        DoubleDouble res = add(s1, s2).add(s3);
-        if (res.getFirst() == 0) {
-            // 需要考虑±0的问题
-            return DoubleDouble.valueOf(Math.copySign(0, this.first) * Math.copySign(0, rhs.first));
-        }
-        return res;
+    /*
+     * 除法的中间结果是否可能上溢或者下溢，ea和eb是被除数和除数第一部分的指数
+     */
+    static boolean isDivisionScalingNeeded(int ea, int eb) {
+        return ea < -900 || ea > 900 || eb < -900 || eb > 900
+                || ea - eb < -900 || ea - eb > 900;
     }
 
     /**
@@ -604,12 +827,8 @@ public final strictfp class DoubleDouble {
         }
 
         double r;
-        if (FMA_METHOD != null) {
-            try {
-                r = (double) FMA_METHOD.invokeExact(f, -value, 1.0);
-            } catch (Throwable e) {
-                throw new AssertionError(e);
-            }
+        if (Fma.isAvailable()) {
+            r = Fma.fma(f, -value, 1.0);
         } else {
             r = mul(f, -value).add(ONE).first;
         }
@@ -633,6 +852,12 @@ public final strictfp class DoubleDouble {
         if (!(Double.isFinite(f0))) {
             return DoubleDouble.valueOf(f0);
         }
+        int exponent = Math.getExponent(value);
+        if (isRootScalingNeeded(exponent)) {
+            // 缩放到1附近，避免中间结果上溢或者下溢，最后再缩放回去
+            int k = exponent / 2;
+            return scalb(sqrt(Math.scalb(value, -2 * k)), k);
+        }
         DoubleDouble k = mul(f0, f0);
         double t = k.sub(value).first;
         if (t == 0) {
@@ -644,52 +869,14 @@ public final strictfp class DoubleDouble {
         return eps.add(eps2).add(f0);
     }
 
+    // rsqrt和log每次在新的MutableDoubleDouble上计算，会生成临时对象，
+    // 不想生成临时对象时直接复用MutableDoubleDouble的setRsqrt和setLog
     public static DoubleDouble rsqrt(DoubleDouble value) {
-        if (value.second == 0 || Double.isNaN(value.second)) {
-            return rsqrt(value.first);
-        }
-        int exponent = Math.getExponent(value.first);
-        if (exponent % 2 != 0) {
-            exponent++;
-        }
-        double normalized1 = Math.scalb(value.first, -exponent);
-        double normalized2 = Math.scalb(value.second, -exponent);
-
-        Triple v = new Triple(DoubleDouble.add(normalized1, normalized2));
-        v.rsqrt();
-
-        v.v1 = Math.scalb(v.v1, -exponent / 2);
-        v.v2 = Math.scalb(v.v2, -exponent / 2);
-        return DoubleDouble.add(v.v1, v.v2);
+        return new MutableDoubleDouble().setRsqrt(value).toDoubleDouble();
     }
 
     public static DoubleDouble rsqrt(double value) {
-        if (!(value >= 0)) {
-            return valueOf(Double.NaN);
-        }
-        if (value == Double.POSITIVE_INFINITY) {
-            return ZERO;
-        }
-        if (value == 0) {
-            return valueOf(1.0 / value);
-        }
-
-        int exponent = Math.getExponent(value);
-        if (exponent % 2 != 0) {
-            exponent++;
-        }
-        double normalized = Math.scalb(value, -exponent);
-
-        double r1 = 1.0 / Math.sqrt(normalized);
-        Triple triple = Triple.mul(r1, r1, -normalized);
-        triple.dirtyAdd(1);
-        DoubleDouble k = DoubleDouble.add(triple.v1, triple.v2);
-        double k1 = k.first;
-
-        DoubleDouble res = k.mul(r1 * 0.5)
-                .add(DoubleDouble.add(r1, 3.0 / 8 * k1 * k1 * r1));
-
-        return res.mul(Math.scalb(1.0, -exponent / 2));
+        return new MutableDoubleDouble().setRsqrt(value).toDoubleDouble();
     }
 
     public static DoubleDouble cbrt(DoubleDouble value) {
@@ -700,6 +887,11 @@ public final strictfp class DoubleDouble {
         if (!(Double.isFinite(f0))) {
             return DoubleDouble.valueOf(f0);
         }
+        int exponent = Math.getExponent(value.first);
+        if (isRootScalingNeeded(exponent)) {
+            int k = exponent / 3;
+            return scalb(cbrt(scalb(value, -3 * k)), k);
+        }
         DoubleDouble h = mul(f0, f0).mul(-f0).add(value).div(value);
         DoubleDouble eps = h.mul(f0).div(3);
         double eps2 = f0 * h.first * h.first * (2.0 / 9.0);
@@ -720,6 +912,12 @@ public final strictfp class DoubleDouble {
         if (!(Double.isFinite(f0))) {
             return DoubleDouble.valueOf(f0);
         }
+        int exponent = Math.getExponent(value);
+        if (isRootScalingNeeded(exponent)) {
+            // 缩放到1附近，避免中间结果上溢或者下溢，最后再缩放回去
+            int k = exponent / 3;
+            return scalb(cbrt(Math.scalb(value, -3 * k)), k);
+        }
         DoubleDouble h = mul(f0, f0).mul(-f0).add(value).div(value);
         DoubleDouble eps = h.mul(f0).div(3);
         double eps2 = f0 * h.first * h.first * (2.0 / 9.0);
@@ -753,6 +951,17 @@ public final strictfp class DoubleDouble {
         }
     }
 
+    /*
+     * 用已经规格化的两部分构造DoubleDouble，供同一个包中的可变类型使用
+     * 两部分不满足规格化要求时抛出AssertionError
+     */
+    static DoubleDouble ofNormalized(double first, double second) {
+        if (second == 0) {
+            return valueOf(first);
+        }
+        return new DoubleDouble(first, second);
+    }
+
     /**
      * 返回内部表示的第一部分
      */
@@ -768,55 +977,78 @@ public final strictfp class DoubleDouble {
     }
 
     /**
-     * 转成String
+     * 转成String，格式与BigDecimal.toString()相同，long范围内的整数不用科学计数法
+     * 返回的是最短的十进制数d，使first = round(d)、second = round(d - first)，所以可以用parse解析回原来的值
+     * second相对first很小时结果可能很长，只需要32位左右的有效数字时用format(34, buf)
      * 注意：
      * 不保证返回的String能够精确表示这个数
      * 不保证返回的表示具体形式
      */
     @Override
     public String toString() {
-        WeakReference<String> localRef = this.toStringCache;
-        if (localRef != null) {
-            String cachedString = localRef.get();
-            if (cachedString != null) {
-                return cachedString;
-            }
-        }
-        if (first == 0 && second == 0) {
-            if (Math.copySign(1, first) < 0) {
-                this.toStringCache = new WeakReference<>("-0");
-                return "-0";
-            } else {
-                this.toStringCache = new WeakReference<>("0");
-                return "0";
-            }
-        }
-        if (Double.isNaN(first) || Double.isNaN(second)) {
-            String str = Double.toString(Double.NaN);
-            this.toStringCache = new WeakReference<>(str);
-            return str;
-        }
-        if (Double.isInfinite(first)) {
-            String str = Double.toString(first);
-            this.toStringCache = new WeakReference<>(str);
-            return str;
-        }
-        if (Double.isInfinite(second)) {
-            throw new AssertionError();
-        }
-        BigDecimal bd = new BigDecimal(first).add(new BigDecimal(second));
-        long longValue = bd.longValue();
-        if (bd.compareTo(BigDecimal.valueOf(longValue)) == 0) {
-            String str = Long.toString(longValue);
-            this.toStringCache = new WeakReference<>(str);
-            return str;
-        }
-        MathContext mathContext = MathContext.DECIMAL128;
-        String str = bd.round(mathContext)
-                .stripTrailingZeros()
-                .toString();
-        this.toStringCache = new WeakReference<>(str);
-        return str;
+        return DoubleDoubleDecimal.toString(first, second);
+    }
+
+    /**
+     * 把toString()的结果追加到sb，返回sb
+     * sb的容量足够时不生成新对象
+     */
+    public StringBuilder appendTo(StringBuilder sb) {
+        DoubleDoubleDecimal.appendTo(sb, first, second);
+        return sb;
+    }
+
+    /**
+     * 把toString()的结果追加到out，返回out
+     */
+    public Appendable appendTo(Appendable out) throws IOException {
+        DoubleDoubleDecimal.appendTo(out, first, second);
+        return out;
+    }
+
+    /**
+     * 把精确值四舍五入到digits位有效数字（一样近时取偶数），去掉末尾的0，写到buf中，返回写入的长度
+     * 格式与toString()相同，结果与toBigDecimal().round(new MathContext(digits)).stripTrailingZeros().toString()相同，
+     * 但是long范围内的整数不用科学计数法
+     * digits小于1时抛出IllegalArgumentException，buf放不下时抛出IndexOutOfBoundsException
+     * 不生成新对象
+     */
+    public int format(int digits, char[] buf) {
+        return DoubleDoubleDecimal.format(first, second, digits, buf);
+    }
+
+    /**
+     * 在buf的position处写入16字节：first和second的位模式，固定为大端序，与buf.order()无关
+     * 每个值只有一种表示，与DataOutput.writeDouble(first)、writeDouble(second)的结果相同
+     * 剩余空间不足16字节时抛出BufferOverflowException，不写入任何内容
+     */
+    public ByteBuffer writeTo(ByteBuffer buf) {
+        DoubleDoubleCodec.write(buf, first, second);
+        return buf;
+    }
+
+    /**
+     * 从buf的position处读取writeTo(ByteBuffer)写入的16字节
+     * 剩余不足16字节时抛出BufferUnderflowException，
+     * 两部分不满足first + second == first时抛出IllegalArgumentException，这两种情况下position不变
+     */
+    public static DoubleDouble readFrom(ByteBuffer buf) {
+        return DoubleDoubleCodec.read(buf);
+    }
+
+    /**
+     * 写入16字节，格式与writeTo(ByteBuffer)相同
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        DoubleDoubleCodec.write(out, first, second);
+    }
+
+    /**
+     * 读取writeTo(DataOutput)写入的16字节
+     * 两部分不满足first + second == first时抛出IllegalArgumentException
+     */
+    public static DoubleDouble readFrom(DataInput in) throws IOException {
+        return DoubleDoubleCodec.read(in);
     }
 
     /**
@@ -942,31 +1174,7 @@ public final strictfp class DoubleDouble {
             return DoubleDouble.valueOf(Double.NaN);
         }
 
-        // reciprocal0和reciprocal1共有1.0 / first的大约53 * 3 = 159位二进制数
-        double reciprocal0 = 1.0 / first;
-        DoubleDouble reciprocal1 = DoubleDouble.ONE.sub(mul(reciprocal0, first)).div(first);
-
-        // 上面计算的倒数只考虑了value.first，用泰勒级数修正value.second带来的的影响
-        DoubleDouble eps = DoubleDouble.valueOf(second).div(first);
-        DoubleDouble epsDivFirst = eps.div(first);
-        // 这一项已经很小，不需要很高精度
-        double eps2 = eps.first * eps.first;
-
-        double[] v = {reciprocal0,
-                -epsDivFirst.first,
-                reciprocal1.first,
-                -epsDivFirst.second,
-                eps2 * reciprocal0,
-                reciprocal1.second};
-
-        DoubleDouble sum = ZERO;
-
-        for (int i = v.length - 1; i >= 0; i--) {
-            double x = v[i];
-            sum = sum.add(x);
-        }
-
-        return sum;
+        return divide(1.0, 0.0, first, second);
     }
 
     public static DoubleDouble sqrt(long value) {
@@ -1001,15 +1209,33 @@ public final strictfp class DoubleDouble {
             return sqrt(value.first);
         }
         double x0 = Math.sqrt(value.first);
+        int exponent = Math.getExponent(value.first);
+        if (isRootScalingNeeded(exponent) && Double.isFinite(x0)) {
+            int k = exponent / 2;
+            return scalb(sqrt(scalb(value, -2 * k)), k);
+        }
         DoubleDouble h = mul(-x0, x0).add(value).div(value);
         DoubleDouble eps = h.mul(x0 * 0.5);
         double eps2 = 0.375 * x0 * h.first * h.first;
         return eps.add(eps2).add(x0);
     }
 
+    /*
+     * 开平方和开立方时是否需要先缩放到1附近，exponent是第一部分的指数
+     * 指数太大时中间结果的平方可能上溢，太小时乘积的误差可能下溢成次正规数
+     */
+    static boolean isRootScalingNeeded(int exponent) {
+        return exponent < -500 || exponent > 500;
+    }
+
+    // 乘以2^k，只用于结果在正规数范围内的缩放
+    private static DoubleDouble scalb(DoubleDouble value, int k) {
+        return add(Math.scalb(value.first, k), Math.scalb(value.second, k));
+    }
+
     private static final long POW_2_53 = (long) StrictMath.pow(2, 53);
 
-    private static boolean canLongBeConvertedToDoubleExactly(long x) {
+    static boolean canLongBeConvertedToDoubleExactly(long x) {
         if (-POW_2_53 <= x && x <= POW_2_53) {
             return true;
         }
@@ -1024,613 +1250,144 @@ public final strictfp class DoubleDouble {
     }
 
     public static DoubleDouble log(double value) {
-        if (!(value >= 0)) {
-            return DoubleDouble.valueOf(Double.NaN);
-        }
-        if (value == 0) {
-            return DoubleDouble.valueOf(Double.NEGATIVE_INFINITY);
-        }
-        if (value == Double.POSITIVE_INFINITY) {
-            return valueOf(Double.POSITIVE_INFINITY);
-        }
-        int exponent = Math.getExponent(value);
-        double normalized = Math.scalb(value, -exponent);
-        if (exponent == Double.MIN_EXPONENT - 1) {
-            // subnormal
-            int exponent2 = Math.getExponent(normalized);
-            exponent += exponent2;
-            normalized = Math.scalb(value, -exponent);
-        }
-
-        // 1.0 <= normalized && normalized < 2
-        Triple result;
-        if (normalized <= 1.99 || exponent != -1) {
-            result = Log.log1p(normalized - 1);
-        } else {
-            // normalized > 1.99 && normalized < 2
-            double reciprocal = 2 / normalized;
-            double val = reciprocal - 1;
-            result = Log.log1p(val);
-
-            DoubleDouble ke = DoubleDouble.mul(reciprocal, value).add(-1.0);
-            double k = ke.first;
-            DoubleDouble k2 = DoubleDouble.mul(k, k);
-            if (ke.second != 0) {
-                k2 = k2.add(2 * k * ke.second);
-            }
-            Triple lk = new Triple(k2);
-            lk.v1 *= -0.5;
-            lk.v2 *= -0.5;
-            lk.dirtyAdd(k * k * k / 3);
-            lk.dirtyAdd(k);
-
-            lk.dirtyAdd(-result.v3);
-            lk.dirtyAdd(-result.v2);
-            lk.dirtyAdd(-result.v1);
-
-            return new DoubleDouble(lk.v1, lk.v2);
-        }
-        Triple log2 = new Triple(0.6931471805599453);
-        log2.v2 = 2.3190468138462996E-17;
-        log2.v3 = 5.707708438416212E-34;
-        log2.dirtyMul((double) exponent);
-        result.dirtyAdd(log2.v3);
-        result.dirtyAdd(log2.v2);
-        result.dirtyAdd(log2.v1);
-        return new DoubleDouble(result.v1, result.v2);
+        return new MutableDoubleDouble().setLog(value).toDoubleDouble();
     }
 
-    private static class Triple {
-        double v1;
-        double v2;
-        double v3;
-
-        public double getV1() {
-            return v1;
-        }
-
-        public double getV2() {
-            return v2;
-        }
-
-        public double getV3() {
-            return v3;
-        }
-
-        public Triple() {
-        }
-
-        public Triple(double x) {
-            this.v1 = x;
-            if (Double.isNaN(x)) {
-                this.v1 = Double.NaN;
-                this.v2 = Double.NaN;
-                this.v3 = Double.NaN;
-            }
-        }
-
-        public Triple(DoubleDouble x) {
-            this.v1 = x.first;
-            this.v2 = x.second;
-            if (Double.isNaN(x.first) || Double.isNaN(x.second) ) {
-                this.v1 = Double.NaN;
-                this.v2 = Double.NaN;
-                this.v3 = Double.NaN;
-            }
-        }
-
-        public Triple(Triple x) {
-            this.v1 = x.v1;
-            this.v2 = x.v2;
-            this.v3 = x.v3;
-        }
-
-        public void renormalize() {
-            final double ov1 = this.v1;
-            final double ov2 = this.v2;
-            final double ov3 = this.v3;
-            if (!(Double.isFinite(ov1) && Double.isFinite(ov2) && Double.isFinite(ov3))) {
-                if (Double.isNaN(ov1) || Double.isNaN(ov2) || Double.isNaN(ov3)) {
-                    this.v1 = Double.NaN;
-                    this.v2 = Double.NaN;
-                    this.v3 = Double.NaN;
-                    return;
-                }
-                if (Double.isInfinite(ov1) || Double.isInfinite(ov2) || Double.isInfinite(ov3)) {
-                    double res = ov1 + ov2 + ov3;
-                    if (Double.isNaN(res)) {
-                        this.v1 = Double.NaN;
-                        this.v2 = Double.NaN;
-                        this.v3 = Double.NaN;
-                        return;
-                    }
-                    this.v1 = res;
-                    this.v2 = 0;
-                    this.v3 = 0;
-                    return;
-                }
-                throw new AssertionError();
-            }
-            if (ov2 == 0 && ov3 == 0) {
-                if (Double.doubleToRawLongBits(ov2) == 0
-                        && Double.doubleToRawLongBits(ov3) == 0) {
-                    return;
-                }
-                this.v2 = 0;
-                this.v3 = 0;
-                return;
+    /**
+     * 快速但精度稍低的DoubleDouble四则运算
+     * 适用情况：大量计算，约100位的精度已经足够，不要求结果正确到最后一位
+     * 采用经典的double-double算法（见QD库，以及Joldes, Muller, Popescu的分析），
+     * 不排序，不生成中间对象，u = 2^-53时相对误差的上界为：
+     * add、sub：3u^2
+     * add(DoubleDouble, double)：2u^2
+     * mul：7u^2
+     * mul(DoubleDouble, double)：2u^2
+     * div：15u^2
+     * 注意：
+     * 上面的误差上界不考虑上溢和下溢
+     * 操作数为0、无穷大、NaN，或者结果上溢时，改用DoubleDouble中精确的方法计算
+     */
+    public static final class Fast {
+        private Fast() {
+        }
+
+        /**
+         * 计算x + y
+         */
+        public static DoubleDouble add(DoubleDouble x, DoubleDouble y) {
+            double xh = x.first;
+            double yh = y.first;
+            if (xh == 0 || yh == 0) {
+                return x.add(y);
             }
-            if (Math.abs(ov1) * 0.25 <= Math.abs(ov2)
-                    || Math.abs(ov2) * 0.25 <= Math.abs(ov3)
-            ) {
-                // 大小关系很奇怪
-                BigDecimal bd1 = new BigDecimal(ov1);
-                BigDecimal bd2 = new BigDecimal(ov2);
-                BigDecimal bd3 = new BigDecimal(ov3);
-                BigDecimal res = bd1.add(bd2).add(bd3);
-                double lv1 = res.doubleValue();
-                BigDecimal r = res.subtract(new BigDecimal(lv1));
-                double lv2 = r.doubleValue();
-                double lv3 = r.subtract(new BigDecimal(lv2)).doubleValue();
-                if (Double.isInfinite(lv1)) {
-                    this.v1 = lv1;
-                    this.v2 = 0;
-                    this.v3 = 0;
-                    return;
-                }
-                this.v1 = lv1;
-                this.v2 = lv2;
-                this.v3 = lv3;
-                return;
+            double sh = xh + yh;
+            double sl = addError(xh, yh, sh);
+            double th = x.second + y.second;
+            double tl = addError(x.second, y.second, th);
+            double c = sl + th;
+            double vh = sh + c;
+            double vl = addError(sh, c, vh);
+            double w = tl + vl;
+            double zh = vh + w;
+            if (!Double.isFinite(zh)) {
+                return x.add(y);
             }
-
-            DoubleDouble t = DoubleDouble.add(this.v2, this.v3);
-            DoubleDouble t2 = DoubleDouble.add(this.v1, t.getFirst());
-            DoubleDouble t3 = DoubleDouble.add(t2.getSecond(), t.getSecond());
-            this.v1 = t2.getFirst();
-            this.v2 = t3.getFirst();
-            this.v3 = t3.getSecond();
+            return ofNormalized(zh, addError(vh, w, zh));
         }
 
-        private static double fma(double a, double b, double c) {
-            if (FMA_METHOD != null) {
-                try {
-                    return (double) FMA_METHOD.invokeExact(a, b, c);
-                } catch (Throwable e) {
-                    throw new AssertionError(e);
-                }
+        /**
+         * 计算x + y
+         */
+        public static DoubleDouble add(DoubleDouble x, double y) {
+            double xh = x.first;
+            if (xh == 0 || y == 0) {
+                return x.add(y);
             }
-            return DoubleDouble.mul(a, b).add(c).getFirst();
-        }
-
-        // 用Triple来求和
-        // 注意会进行排序
-        public static Triple sum(double[] v) {
-            Triple res = new Triple();
-            OUT:
-            if (v.length != 0) {
-                DoubleDouble.sortByAbsMaxFirst(v);
-                if (Double.isNaN(v[v.length - 1])) {
-                    res.v1 = Double.NaN;
-                    res.v2 = Double.NaN;
-                    res.v3 = Double.NaN;
-                    break OUT;
-                }
-                double sum1 = 0;
-                double sum2 = 0;
-                double sum3 = 0;
-                for (double x : v) {
-                    if (x == 0) {
-                        // 因为前面按照绝对值排序了，所以后面都是0.0（或者NaN）
-                        break;
-                    }
-                    DoubleDouble t;
-                    sum3 += x;
-                    t = DoubleDouble.add(sum2, sum3);
-                    sum2 = t.getFirst();
-                    sum3 = t.getSecond();
-                    t = DoubleDouble.add(sum1, sum2);
-                    sum1 = t.getFirst();
-                    sum2 = t.getSecond();
-                }
-
-                res.v1 = sum1;
-                res.v2 = sum2;
-                res.v3 = sum3;
-
-                if (res.v2 + res.v3 != res.v2) {
-                    res.renormalize();
-                }
+            double sh = xh + y;
+            double sl = addError(xh, y, sh);
+            double v = x.second + sl;
+            double zh = sh + v;
+            if (!Double.isFinite(zh)) {
+                return x.add(y);
             }
-            return res;
+            return ofNormalized(zh, addError(sh, v, zh));
         }
 
-        public static Triple mul(double x1, double x2, double x3) {
-            DoubleDouble t1 = DoubleDouble.mul(x1, x2);
-            DoubleDouble t2 = DoubleDouble.mul(t1.getFirst(), x3);
-            DoubleDouble t3 = DoubleDouble.mul(t1.getSecond(), x3);
-            double[] v = { t2.getFirst(),
-                    t3.getFirst(),
-                    t2.getSecond(),
-                    t3.getSecond()
-            };
-            return sum(v);
-        }
-
-        public void dirtyMul(double m) {
-            double v1 = this.v1;
-            double v2 = this.v2;
-            double v3 = this.v3;
-
-            DoubleDouble t1 = DoubleDouble.mul(m, v1);
-            DoubleDouble t2 = DoubleDouble.mul(m, v2);
-            double t3 = m * v3;
-
-            DoubleDouble t4 = DoubleDouble.add(t1.getSecond(), t2.getFirst());
-            double t5 = t2.getSecond() + t3;
-            double t6 = t5 + t4.getSecond();
-
-            DoubleDouble t7 = DoubleDouble.add(t4.getFirst(), t6);
-
-            this.v1 = t1.getFirst();
-            this.v2 = t7.getFirst();
-            this.v3 = t7.getSecond();
-            if (this.v1 + this.v2 != this.v1) {
-                this.renormalize();
-            }
-        }
-
-        public void dirtyAdd(double x) {
-            if (this.v1 == 0) {
-                // assert this.v2 == 0 && this.v3 == 0
-                this.v1 = x;
-                this.v2 = 0;
-                this.v3 = 0;
-                return;
-            }
-            if (this.v2 == 0) {
-                // assert this.v3 == 0
-                DoubleDouble t = DoubleDouble.add(this.v1, x);
-                this.v1 = t.getFirst();
-                this.v2 = t.getSecond();
-                this.v3 = 0;
-                return;
-            }
-            if (this.v3 == 0) {
-                DoubleDouble t = DoubleDouble.add(x, this.v1);
-                if (t.getFirst() == 0) {
-                    this.v1 = this.v2;
-                    this.v2 = 0;
-                    this.v3 = 0;
-                    return;
-                }
-                DoubleDouble t2 = DoubleDouble.add(t.getSecond(), this.v2);
-                this.v1 = t.getFirst();
-                this.v2 = t2.getFirst();
-                this.v3 = t2.getSecond();
-                if (this.v1 + this.v2 != this.v1) {
-                    renormalize();
-                }
-                return;
+        /**
+         * 计算x - y
+         */
+        public static DoubleDouble sub(DoubleDouble x, DoubleDouble y) {
+            if (x.first == 0 || y.first == 0) {
+                return x.sub(y);
             }
-            DoubleDouble t1 = DoubleDouble.add(x, this.v1);
-            if (t1.getSecond() == 0 && Math.abs(t1.getFirst()) >= Math.abs(this.v1)) {
-                this.v1 = t1.getFirst();
-                return;
+            return add(x, y.neg());
+        }
+
+        /**
+         * 计算x * y
+         */
+        public static DoubleDouble mul(DoubleDouble x, DoubleDouble y) {
+            double xh = x.first;
+            double yh = y.first;
+            double ch = xh * yh;
+            if (ch == 0 || !Double.isFinite(ch)) {
+                return x.mul(y);
             }
-            if (t1.getFirst() == 0) {
-                this.v1 = this.v2;
-                this.v2 = this.v3;
-                this.v3 = 0;
-                return;
+            double cl1 = Fma.productError(xh, yh, ch);
+            double cl2 = xh * y.second + x.second * yh;
+            double cl3 = cl1 + cl2;
+            double zh = ch + cl3;
+            if (!Double.isFinite(zh)) {
+                return x.mul(y);
             }
-            DoubleDouble t2 = DoubleDouble.add(this.v2, t1.getSecond());
-            double t3 = t2.getSecond() + this.v3;
-            DoubleDouble t4 = DoubleDouble.add(t2.getFirst(), t3);
-
-            DoubleDouble r1 = DoubleDouble.add(t1.getFirst(), t4.getFirst());
-            DoubleDouble r2 = DoubleDouble.add(r1.getSecond(), t4.getSecond());
-
-            this.v1 = r1.getFirst();
-            this.v2 = r2.getFirst();
-            this.v3 = r2.getSecond();
-        }
-
-        public void dirtyDiv(double d) {
-            double r1 = this.v1 / d;
-            double k = fma(-d, r1, this.v1);
-            DoubleDouble t = DoubleDouble.add(this.v2, k);
-            double k2 = t.getSecond() + this.v3;
-            DoubleDouble t2 = DoubleDouble.add(t.getFirst(), k2);
-
-            double r2 = t2.getFirst() / d;
-            k = fma(-d, r2, t2.getFirst());
-
-            double r3 = (k + t2.getSecond()) / d;
-
-            this.v1 = r1;
-            this.v2 = r2;
-            this.v3 = r3;
+            return ofNormalized(zh, addError(ch, cl3, zh));
         }
 
-        // 计算1/(1+x)-1
-        public static Triple reciprocal1p(double x) {
-            double r1;
-            if (Math.abs(x) > 1E-5) {
-                r1 = Math.expm1(-Math.log1p(x));
-            } else {
-                r1 = x * (-1 + x * (1 + x * (-1 + x * 0.999999999999999)));
-            }
-            DoubleDouble r1p1 = DoubleDouble.add(1.0, r1);
-            DoubleDouble h = DoubleDouble.add(r1, x)
-                    .add(DoubleDouble.mul(r1, x));
-
-            double h2 = h.getFirst() * h.getFirst();
-
-            DoubleDouble r = r1p1.mul(h.neg());
-
-            double r2 = h2 * r1p1.getFirst();
-
-            DoubleDouble s1 = DoubleDouble.add(r1, r.first);
-            double c = r.second + r2;
-            Triple res = new Triple(s1);
-            res.dirtyAdd(c);
-
-            return res;
-        }
-
-        public void dirtyMul(Triple rhs) {
-            // 注意最后再修改，防止参数被意外修改
-            DoubleDouble d1 = DoubleDouble.mul(this.v1, rhs.v1);
-            DoubleDouble d2 = DoubleDouble.mul(this.v1, rhs.v2);
-            DoubleDouble d3 = DoubleDouble.mul(this.v1, rhs.v3);
-            DoubleDouble d4 = DoubleDouble.mul(this.v2, rhs.v1);
-            DoubleDouble d5 = DoubleDouble.mul(this.v2, rhs.v2);
-            DoubleDouble d6 = DoubleDouble.mul(this.v2, rhs.v3);
-            DoubleDouble d7 = DoubleDouble.mul(this.v3, rhs.v1);
-            DoubleDouble d8 = DoubleDouble.mul(this.v3, rhs.v2);
-            DoubleDouble d9 = DoubleDouble.mul(this.v3, rhs.v3);
-            double[] v = {
-                    d1.getFirst(),
-                    d2.getFirst(),
-                    d4.getFirst(),
-                    d1.getSecond(),
-                    d5.getFirst(),
-                    d4.getSecond(),
-                    d2.getSecond(),
-                    d5.getSecond(),
-                    d3.getFirst(),
-                    d3.getSecond(),
-                    d6.getFirst(),
-                    d7.getFirst(),
-                    d6.getSecond(),
-                    d7.getSecond(),
-                    d8.getFirst(),
-                    d8.getSecond(),
-                    d9.getFirst(),
-                    d9.getSecond()
-            };
-            Triple sum = sum(v);
-            this.v1 = sum.v1;
-            this.v2 = sum.v2;
-            this.v3 = sum.v3;
-        }
-
-        public void sqrt() {
-            double v1 = this.v1;
-            double v2 = this.v2;
-            double v3 = this.v3;
-
-            double r1 = Math.sqrt(v1);
-            DoubleDouble k = DoubleDouble.add(v2, v3).add(fma(r1, -r1, v1));
-            DoubleDouble r = k.mul(0.5).div(r1);
-            double k1 = k.getFirst();
-            double r2 = (k1 * k1) / (r1 * r1 * r1) * (-0.125);
-
-            DoubleDouble s1 = DoubleDouble.add(r1, r.first);
-            double c = r.second + r2;
-            this.v1 = s1.first;
-            this.v2 = s1.second;
-            this.v3 = 0;
-            dirtyAdd(c);
-        }
-
-        public void rsqrt() {
-            double v1 = this.v1;
-            double v2 = this.v2;
-            double v3 = this.v3;
-
-            double r1 = 1.0 / Math.sqrt(v1);
-            Triple n1 = mul(r1, -r1, v1);
-            n1.dirtyAdd(1);
-            n1.dirtyDiv(r1);
-            n1.dirtyDiv(r1);
-            DoubleDouble k = DoubleDouble.add(n1.v1, n1.v2)
-                    .sub(DoubleDouble.add(v2, v3));
-
-            DoubleDouble r = k.mul(r1).mul(r1).mul(r1 * 0.5);
-            double k1 = k.getFirst();
-            double r2 = 3.0 / 8 * (k1 * k1) * ((r1 * r1) * (r1 * r1) * r1);
-
-            DoubleDouble s1 = DoubleDouble.add(r1, r.first);
-            double c = r.second + r2;
-            this.v1 = s1.first;
-            this.v2 = s1.second;
-            this.v3 = 0;
-            dirtyAdd(c);
-        }
-
-        public void fourthRoot() {
-            if (true) {
-                // this seems faster
-                this.sqrt();
-                this.sqrt();
-                return;
-            }
-            double v1 = this.v1;
-            double v2 = this.v2;
-            double v3 = this.v3;
-
-            // for Java 8 sqrt(sqrt(v1)) may be faster
-            double r1 = Math.pow(v1, 0.25);
-            // 计算pow(r1, 4)
-            DoubleDouble rr = DoubleDouble.mul(r1, r1);
-            Triple rr4 = new Triple(rr);
-            rr4.dirtyMul(r1);
-
-            DoubleDouble r3 = DoubleDouble.add(rr4.v1, rr4.v2);
-            rr4.dirtyMul(r1);
-
-            rr4.dirtyAdd(-v1);
-
-            DoubleDouble k = DoubleDouble.add(v2, v3)
-                    .sub(DoubleDouble.add(rr4.v1, rr4.v2));
-            DoubleDouble r = k.mul(0.25).div(r3);
-
-            double k1 = k.getFirst();
-            double r2 = -3.0 / 32 * (k1 * k1) / r3.getFirst() / v1;
-
-            DoubleDouble s1 = DoubleDouble.add(r1, r.first);
-            double c = r.second + r2;
-            this.v1 = s1.first;
-            this.v2 = s1.second;
-            this.v3 = 0;
-            dirtyAdd(c);
-        }
-
-        public void eighthRoot() {
-            if (true) {
-                // this seems faster
-                this.sqrt();
-                this.sqrt();
-                this.sqrt();
-                return;
-            }
-            double v1 = this.v1;
-            double v2 = this.v2;
-            double v3 = this.v3;
-
-            // for Java 8 sqrt(sqrt(sqrt(v1))) may be faster
-            double r1 = Math.pow(v1, 0.125);
-            // 计算pow(r1, 8)
-            DoubleDouble rr = DoubleDouble.mul(r1, r1);
-            Triple rr4 = new Triple(rr);
-            rr4.dirtyMul(r1);
-            rr4.dirtyMul(r1);
-
-            rr4.dirtyMul(rr4);
-
-            DoubleDouble r8 = DoubleDouble.add(rr4.v1, rr4.v2);
-
-            rr4.dirtyAdd(-v1);
-
-            DoubleDouble k = DoubleDouble.add(v2, v3)
-                    .sub(DoubleDouble.add(rr4.v1, rr4.v2));
-            DoubleDouble r = k.mul(0.125).mul(r1)
-                    .div(r8);
-
-            double k1 = k.getFirst();
-            double r2 = -7.0 / 128 * (k1 * k1) / (r8.getFirst() * r8.getFirst()) * r1;
-
-            DoubleDouble s1 = DoubleDouble.add(r1, r.first);
-            double c = r.second + r2;
-            this.v1 = s1.first;
-            this.v2 = s1.second;
-            this.v3 = 0;
-            dirtyAdd(c);
-        }
-
-        public BigDecimal toBigDecimal() {
-            return new BigDecimal(v1)
-                    .add(new BigDecimal(v2))
-                    .add(new BigDecimal(v3))
-                    .stripTrailingZeros();
-        }
-
-        @Override
-        public String toString() {
-            if (Double.isNaN(this.v1) || Double.isNaN(this.v2) || Double.isNaN(this.v3)) {
-                return Double.toString(Double.NaN);
+        /**
+         * 计算x * y
+         */
+        public static DoubleDouble mul(DoubleDouble x, double y) {
+            double xh = x.first;
+            double ch = xh * y;
+            if (ch == 0 || !Double.isFinite(ch)) {
+                return x.mul(y);
             }
-            if (Double.isInfinite(this.v1) || Double.isInfinite(this.v2) || Double.isInfinite(this.v3)) {
-                return Double.toString(this.v1 + this.v2 + this.v3);
+            double cl1 = Fma.productError(xh, y, ch);
+            double cl2 = x.second * y;
+            double th = ch + cl2;
+            double tl1 = addError(ch, cl2, th);
+            double tl2 = tl1 + cl1;
+            double zh = th + tl2;
+            if (!Double.isFinite(zh)) {
+                return x.mul(y);
             }
-            BigDecimal bd = toBigDecimal();
-            return bd.round(new MathContext(51))
-                    .stripTrailingZeros()
-                    .toString();
-        }
-    }
-
-    private static class Log {
-        private static final double[] coefficients = {
-                20564.141339293772,
-                -0.40742573671663634,
-                0.2857174507900288,
-                -1.20149472161068E-11,
-                0.4,
-                -1.5906358982810946E-23,
-        };
-
-        public static Triple log1p(double value) {
-            if (!(0 <= value && value <= 1)) {
-                throw new AssertionError();
+            return ofNormalized(zh, addError(th, tl2, zh));
+        }
+
+        /**
+         * 计算x / y
+         */
+        public static DoubleDouble div(DoubleDouble x, DoubleDouble y) {
+            double xh = x.first;
+            double yh = y.first;
+            double q1 = xh / yh;
+            if (xh == 0 || q1 == 0 || !Double.isFinite(q1)) {
+                return x.div(y);
             }
-            Triple vt = new Triple(value);
-            vt.dirtyAdd(1);
-            for (int i = 0; i < 16; i++) {
-                vt.sqrt();
-            }
-            Triple vtc = new Triple(vt);
-            vtc.dirtyAdd(-1);
-            double value1 = vtc.v1;
-
-            double x = value1 / (2 + value1);
-
-            Triple tInv = new Triple(DoubleDouble.add(1, -x));
-            Triple reciprocalX = Triple.reciprocal1p(x);
-            reciprocalX.dirtyAdd(1);
-            tInv.dirtyMul(reciprocalX);
-
-            Triple vtMulInv = new Triple(vt);
-            vtMulInv.dirtyMul(tInv);
-
-            Triple s2 = Triple.mul(x, x, x);
-            s2.dirtyDiv(3);
-
-            DoubleDouble t1 = DoubleDouble.mul(x, coefficients[0]);
-            Triple k = new Triple(t1);
-            k.dirtyAdd(coefficients[1]);
-
-            for (int i = 2, coefficientsLength = coefficients.length; i < coefficientsLength; i++) {
-                double c = coefficients[i];
-                k.dirtyMul(x);
-                k.dirtyAdd(c);
+            // r = y * q1
+            double rh = yh * q1;
+            if (rh == 0 || !Double.isFinite(rh)) {
+                return x.div(y);
             }
-            k.dirtyMul(x);
-            k.dirtyMul(x);
-            k.dirtyMul(x);
-            k.dirtyMul(x);
-
-            k.dirtyAdd(x * 2);
-            k.dirtyAdd(s2.v3 * 2);
-            k.dirtyAdd(s2.v2 * 2);
-            k.dirtyAdd(s2.v1 * 2);
-
-
-            // 修正value与(1+x)/(1-x)中的细微差别
-            vtMulInv.dirtyAdd(-1);
-            double vs1 = vtMulInv.v1;
-            double vs2 = vtMulInv.v2;
-
-            k.dirtyAdd(vs1);
-            k.dirtyAdd(vs2 + vs1 * vs1 * (-0.5));
-
-            k.v1 *= 65536;
-            k.v2 *= 65536;
-            k.v3 *= 65536;
-
-            return k;
+            double rl = Fma.productError(yh, q1, rh) + y.second * q1;
+            // (x - r) / yh是q1的修正量
+            double sh = xh - rh;
+            double sl = addError(xh, -rh, sh);
+            sl -= rl;
+            sl += x.second;
+            double q2 = (sh + sl) / yh;
+            double zh = q1 + q2;
+            return ofNormalized(zh, addError(q1, q2, zh));
         }
     }
 }
@@ -0,0 +1,77 @@
+package ntysdd;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * 可变的DoubleDouble累加器
+ * 适用情况：对大量的double求和，又不想每一步都生成新的DoubleDouble对象
+ * 每一步的计算和DoubleDouble.add的结果完全相同，只是把结果保存在MutableDoubleDouble中
+ * 注意：
+ * 这个类不是线程安全的
+ */
+public final strictfp class DoubleDoubleAccumulator implements DoubleConsumer {
+    private final MutableDoubleDouble sum;
+
+    /**
+     * 创建一个值为0的累加器
+     */
+    public DoubleDoubleAccumulator() {
+        this.sum = new MutableDoubleDouble();
+    }
+
+    /**
+     * 创建一个初始值为value的累加器
+     */
+    public DoubleDoubleAccumulator(DoubleDouble value) {
+        this.sum = new MutableDoubleDouble(value);
+    }
+
+    /**
+     * 加上一个double，结果与DoubleDouble.add(double)相同
+     */
+    @Override
+    public void accept(double rhs) {
+        sum.add(rhs);
+    }
+
+    /**
+     * 加上一个long，结果与DoubleDouble.add(long)相同
+     */
+    public void accept(long rhs) {
+        sum.add(rhs);
+    }
+
+    /**
+     * 加上一个DoubleDouble，结果与DoubleDouble.add(DoubleDouble)相同
+     */
+    public void accept(DoubleDouble rhs) {
+        sum.add(rhs);
+    }
+
+    /**
+     * 加上另一个累加器当前的和，结果与DoubleDouble.add(DoubleDouble)相同
+     * 用于合并并行计算中各个线程的部分和
+     */
+    public void combine(DoubleDoubleAccumulator other) {
+        sum.add(other.sum);
+    }
+
+    /**
+     * 返回当前的和
+     */
+    public DoubleDouble get() {
+        return sum.toDoubleDouble();
+    }
+
+    /**
+     * 重置为0
+     */
+    public void reset() {
+        sum.set(0.0);
+    }
+
+    @Override
+    public String toString() {
+        return sum.toString();
+    }
+}
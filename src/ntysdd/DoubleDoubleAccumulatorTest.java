@@ -0,0 +1,134 @@
+package ntysdd;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+public class DoubleDoubleAccumulatorTest {
+    private static final double[] SPECIAL_DOUBLES = {
+            0.0, -0.0, 1.0, -1.0, 1E-20, -1E-20, 1E30, -1E30,
+            Double.MAX_VALUE, -Double.MAX_VALUE, Double.MIN_VALUE, -Double.MIN_VALUE,
+            Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN,
+    };
+
+    private static final long[] SPECIAL_LONGS = {
+            0, 1, -1, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE - 1, Long.MIN_VALUE + 1,
+            (long) StrictMath.pow(2, 53) + 1, -(long) StrictMath.pow(2, 53) - 1,
+    };
+
+    public static void test001() {
+        for (double x : SPECIAL_DOUBLES) {
+            for (double y : SPECIAL_DOUBLES) {
+                DoubleDoubleAccumulator acc = new DoubleDoubleAccumulator();
+                acc.accept(x);
+                acc.accept(y);
+                assertEquals(DoubleDouble.ZERO.add(x).add(y), acc.get());
+
+                acc = new DoubleDoubleAccumulator(DoubleDouble.valueOf(x));
+                acc.accept(DoubleDouble.add(y, 1E-25));
+                assertEquals(DoubleDouble.valueOf(x).add(DoubleDouble.add(y, 1E-25)), acc.get());
+            }
+        }
+    }
+
+    public static void test002() {
+        for (long x : SPECIAL_LONGS) {
+            for (double y : SPECIAL_DOUBLES) {
+                DoubleDoubleAccumulator acc = new DoubleDoubleAccumulator(DoubleDouble.valueOf(y));
+                acc.accept(x);
+                assertEquals(DoubleDouble.valueOf(y).add(x), acc.get());
+
+                acc = new DoubleDoubleAccumulator(DoubleDouble.valueOf(x));
+                acc.accept(y);
+                assertEquals(DoubleDouble.valueOf(x).add(y), acc.get());
+            }
+        }
+    }
+
+    public static void test003() {
+        Random random = new Random(0);
+        for (int round = 0; round < 100; round++) {
+            DoubleDouble expected = DoubleDouble.ZERO;
+            DoubleDoubleAccumulator acc = new DoubleDoubleAccumulator();
+            for (int i = 0; i < 1000; i++) {
+                double v = (random.nextDouble() - 0.5) * StrictMath.pow(2, random.nextInt(200) - 100);
+                switch (random.nextInt(3)) {
+                    case 0:
+                        expected = expected.add(v);
+                        acc.accept(v);
+                        break;
+                    case 1:
+                        long l = random.nextLong() >> random.nextInt(64);
+                        expected = expected.add(l);
+                        acc.accept(l);
+                        break;
+                    default:
+                        DoubleDouble d = DoubleDouble.add(v, v * 1E-17 * random.nextDouble());
+                        expected = expected.add(d);
+                        acc.accept(d);
+                        break;
+                }
+                assertEquals(expected, acc.get());
+            }
+        }
+    }
+
+    public static void test004() {
+        DoubleDoubleAccumulator acc = new DoubleDoubleAccumulator();
+        for (int i = 1; i <= 1_000_000; i++) {
+            acc.accept(1.0 / i);
+        }
+        assertEquals("14.3927267228657235772183993851615", acc.get().toString());
+
+        acc.reset();
+        assertEquals(DoubleDouble.ZERO, acc.get());
+        acc.accept(1E30);
+        acc.accept(1.0);
+        acc.accept(-1E30);
+        assertEquals(DoubleDouble.ONE, acc.get());
+    }
+
+    public static void test005() {
+        // 合并两个累加器与DoubleDouble.add(DoubleDouble)相同
+        Random random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            DoubleDouble x = DoubleDouble.add(random.nextDouble(), random.nextDouble() * 1E-17)
+                    .mul(StrictMath.pow(2, random.nextInt(200) - 100));
+            DoubleDouble y = DoubleDouble.add(random.nextDouble() - 0.5, random.nextDouble() * 1E-17)
+                    .mul(StrictMath.pow(2, random.nextInt(200) - 100));
+            DoubleDoubleAccumulator acc = new DoubleDoubleAccumulator(x);
+            DoubleDoubleAccumulator other = new DoubleDoubleAccumulator(y);
+            acc.combine(other);
+            assertEquals(x.add(y), acc.get());
+            assertEquals(y, other.get());
+        }
+        DoubleDoubleAccumulator acc = new DoubleDoubleAccumulator(DoubleDouble.valueOf(1E30));
+        DoubleDoubleAccumulator other = new DoubleDoubleAccumulator(DoubleDouble.valueOf(-1E30));
+        other.accept(1.0);
+        acc.combine(other);
+        assertEquals(DoubleDouble.ONE, acc.get());
+    }
+
+    public static void main(String[] args) throws Exception {
+        Method[] methods = Arrays.stream(DoubleDoubleAccumulatorTest.class.getMethods())
+                .filter(m -> m.getName().matches("test[0-9]+")
+                        && m.getParameterCount() == 0)
+                .sorted(Comparator.comparing(Method::getName))
+                .toArray(Method[]::new);
+        for (Method method : methods) {
+            method.invoke(null);
+        }
+    }
+
+    private static void assertEquals(Object expected, Object actual) {
+        if ((expected == null) != (actual == null)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+        if (expected != null && !expected.equals(actual)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package ntysdd;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * 多线程累加的DoubleDouble，参照java.util.concurrent.atomic.DoubleAdder
+ * 没有竞争时所有线程都加到同一个单元上，发生竞争时把线程分散到多个单元上，
+ * 单元的数量最多是不小于CPU数的2的整数幂，单元前后都有填充，避免伪共享
+ * 每个单元的和是hi + lo，两个字段保存double的位，各自用CAS更新，不加锁，不生成新对象：
+ * 加上x时先用CAS把hi改成hi + x，再把这次加法的舍入误差（TwoSum）用CAS加到lo上，
+ * DoubleDouble的第二部分也直接加到lo上
+ * lo的绝对值超过hi的ulp时，把lo取出来加到hi上，使hi + lo接近规格化，
+ * 所以每次add的误差与hi的ulp乘以2^-53相当
+ * sum()把每个单元的hi和lo规格化之后，用MutableDoubleDouble依次合并
+ * 注意：
+ * sum()不是原子的快照，与其他线程的add同时执行时不保证包含正在执行的add，
+ * 也可能暂时不包含正在从lo移到hi的部分
+ * 结果与add的顺序和单元的划分有关，与依次调用DoubleDouble.add的结果不一定相同
+ */
+public final strictfp class DoubleDoubleAdder {
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    private static final AtomicIntegerFieldUpdater<DoubleDoubleAdder> CELLS_BUSY =
+            AtomicIntegerFieldUpdater.newUpdater(DoubleDoubleAdder.class, "cellsBusy");
+
+    private static final ThreadLocal<ThreadState> STATE = ThreadLocal.withInitial(ThreadState::new);
+
+    private static final class ThreadState {
+        // 选择单元用的随机数，发生竞争时改变
+        int probe = ThreadLocalRandom.current().nextInt() | 1;
+    }
+
+    // 填充放在父类和子类中，字段的顺序不会被JVM重排
+    private abstract static class CellPadding {
+        long p01, p02, p03, p04, p05, p06, p07;
+    }
+
+    private abstract static class CellFields extends CellPadding {
+        static final AtomicLongFieldUpdater<CellFields> HI =
+                AtomicLongFieldUpdater.newUpdater(CellFields.class, "hi");
+        static final AtomicLongFieldUpdater<CellFields> LO =
+                AtomicLongFieldUpdater.newUpdater(CellFields.class, "lo");
+
+        // 单元的和是hi + lo，保存的是double的位，不保证规格化
+        volatile long hi;
+        volatile long lo;
+    }
+
+    private static final class Cell extends CellFields {
+        long p11, p12, p13, p14, p15, p16, p17;
+
+        // 把x + y加到单元上，y只加到lo上，hi被其他线程修改时返回false
+        boolean tryAdd(double x, double y) {
+            long h = hi;
+            double a = Double.longBitsToDouble(h);
+            double s = a + x;
+            if (!HI.compareAndSet(this, h, Double.doubleToRawLongBits(s))) {
+                return false;
+            }
+            addLow(DoubleDouble.sumError(a, x, s), s);
+            if (y != 0) {
+                addLow(y, s);
+            }
+            return true;
+        }
+
+        // 把e加到lo上，s是hi刚更新后的值
+        // lo的绝对值超过s的ulp时，把lo换成0，加到hi上，误差再加到lo上
+        private void addLow(double e, double s) {
+            while (e != 0) {
+                double l;
+                long bits;
+                for (; ; ) {
+                    long old = lo;
+                    l = Double.longBitsToDouble(old) + e;
+                    bits = Double.doubleToRawLongBits(l);
+                    if (LO.compareAndSet(this, old, bits)) {
+                        break;
+                    }
+                }
+                if (!(Math.abs(l) > Math.ulp(s)) || !LO.compareAndSet(this, bits, 0L)) {
+                    // lo不大，或者已经被其他线程修改，由其他线程处理
+                    return;
+                }
+                for (; ; ) {
+                    long h = hi;
+                    double a = Double.longBitsToDouble(h);
+                    s = a + l;
+                    if (HI.compareAndSet(this, h, Double.doubleToRawLongBits(s))) {
+                        e = DoubleDouble.sumError(a, l, s);
+                        break;
+                    }
+                }
+            }
+        }
+
+        // 单元的和，reset为true时同时把单元清零
+        MutableDoubleDouble load(MutableDoubleDouble value, boolean reset) {
+            long h = reset ? HI.getAndSet(this, 0L) : hi;
+            long l = reset ? LO.getAndSet(this, 0L) : lo;
+            return value.setSum(Double.longBitsToDouble(h), Double.longBitsToDouble(l));
+        }
+    }
+
+    // 没有竞争时使用的单元
+    private final Cell base = new Cell();
+    private volatile Cell[] cells;
+    private volatile int cellsBusy;
+
+    /**
+     * 创建一个值为0的累加器
+     */
+    public DoubleDoubleAdder() {
+    }
+
+    /**
+     * 加上一个double
+     */
+    public void add(double x) {
+        add(x, 0.0);
+    }
+
+    /**
+     * 加上一个long
+     */
+    public void add(long x) {
+        if (DoubleDouble.canLongBeConvertedToDoubleExactly(x)) {
+            add((double) x, 0.0);
+            return;
+        }
+        // 与DoubleDouble.valueOf(long)相同，拆成两个精确的double
+        int part1 = ((int) x & 0x7fffffff);
+        long part2 = x - part1;
+        add((double) part2, (double) part1);
+    }
+
+    /**
+     * 加上一个DoubleDouble
+     */
+    public void add(DoubleDouble x) {
+        add(x.getFirst(), x.getSecond());
+    }
+
+    /**
+     * 返回当前的和
+     */
+    public DoubleDouble sum() {
+        return sum(false);
+    }
+
+    /**
+     * 返回当前的和并重置为0，与其他线程的add同时执行时，每个add的值只会被计入一次
+     */
+    public DoubleDouble sumThenReset() {
+        return sum(true);
+    }
+
+    /**
+     * 重置为0
+     */
+    public void reset() {
+        sum(true);
+    }
+
+    /**
+     * 返回sum()的第一部分
+     */
+    public double doubleValue() {
+        return sum().getFirst();
+    }
+
+    @Override
+    public String toString() {
+        return sum().toString();
+    }
+
+    private DoubleDouble sum(boolean reset) {
+        MutableDoubleDouble result = new MutableDoubleDouble();
+        MutableDoubleDouble t = new MutableDoubleDouble();
+        result.add(base.load(t, reset));
+        Cell[] cs = cells;
+        if (cs != null) {
+            for (Cell c : cs) {
+                result.add(c.load(t, reset));
+            }
+        }
+        return result.toDoubleDouble();
+    }
+
+    // 先尝试base，发生竞争之后使用cells
+    private void add(double x, double y) {
+        Cell[] cs = cells;
+        if (cs == null && base.tryAdd(x, y)) {
+            return;
+        }
+        ThreadState state = STATE.get();
+        boolean collided = false;
+        for (; ; ) {
+            cs = cells;
+            if (cs == null) {
+                if (base.tryAdd(x, y)) {
+                    return;
+                }
+                if (cellsBusy == 0 && CELLS_BUSY.compareAndSet(this, 0, 1)) {
+                    try {
+                        if (cells == null) {
+                            cells = new Cell[]{new Cell(), new Cell()};
+                        }
+                    } finally {
+                        cellsBusy = 0;
+                    }
+                }
+                continue;
+            }
+            Cell c = cs[state.probe & (cs.length - 1)];
+            if (c.tryAdd(x, y)) {
+                return;
+            }
+            if (collided && cs.length < NCPU && cellsBusy == 0 && CELLS_BUSY.compareAndSet(this, 0, 1)) {
+                // 连续发生竞争，单元的数量加倍
+                try {
+                    if (cells == cs) {
+                        Cell[] expanded = new Cell[cs.length * 2];
+                        System.arraycopy(cs, 0, expanded, 0, cs.length);
+                        for (int i = cs.length; i < expanded.length; i++) {
+                            expanded[i] = new Cell();
+                        }
+                        cells = expanded;
+                    }
+                } finally {
+                    cellsBusy = 0;
+                }
+                collided = false;
+                continue;
+            }
+            collided = true;
+            // xorshift，换一个单元
+            int h = state.probe;
+            h ^= h << 13;
+            h ^= h >>> 17;
+            h ^= h << 5;
+            state.probe = h;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package ntysdd;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+public class DoubleDoubleAdderTest {
+    public static void test001() {
+        // 只有一个线程时，误差与依次用DoubleDouble.add相加的误差相当：
+        // 每次add的误差不超过当时的和的绝对值乘以2^-104
+        Random random = new Random(0);
+        DoubleDoubleAdder adder = new DoubleDoubleAdder();
+        assertEquals(DoubleDouble.ZERO, adder.sum());
+        BigDecimal exact = BigDecimal.ZERO;
+        BigDecimal bound = BigDecimal.ZERO;
+        int n = 10000;
+        for (int i = 0; i < n; i++) {
+            double v = (random.nextDouble() - 0.5) * StrictMath.pow(2, random.nextInt(200) - 100);
+            switch (random.nextInt(3)) {
+                case 0:
+                    exact = exact.add(new BigDecimal(v));
+                    adder.add(v);
+                    break;
+                case 1:
+                    long l = random.nextLong() >> random.nextInt(64);
+                    exact = exact.add(BigDecimal.valueOf(l));
+                    adder.add(l);
+                    break;
+                default:
+                    DoubleDouble d = DoubleDouble.add(v, v * 1E-17 * random.nextDouble());
+                    exact = exact.add(d.toBigDecimal());
+                    adder.add(d);
+                    break;
+            }
+            bound = bound.max(exact.abs());
+        }
+        bound = bound.multiply(new BigDecimal(StrictMath.pow(2, -104))).multiply(BigDecimal.valueOf(n));
+        DoubleDouble sum = adder.sum();
+        assertEquals(true, sum.toBigDecimal().subtract(exact).abs().compareTo(bound) <= 0);
+        assertEquals(sum.getFirst(), adder.doubleValue());
+        assertEquals(sum.toString(), adder.toString());
+
+        assertEquals(sum, adder.sumThenReset());
+        assertEquals(DoubleDouble.ZERO, adder.sum());
+        adder.add(1E30);
+        adder.add(1.0);
+        adder.add(-1E30);
+        assertEquals(DoubleDouble.ONE, adder.sum());
+        adder.reset();
+        assertEquals(DoubleDouble.ZERO, adder.sum());
+        adder.add(Double.NaN);
+        assertEquals(DoubleDouble.valueOf(Double.NaN), adder.sum());
+    }
+
+    public static void test002() throws Exception {
+        // 多个线程同时累加，整数的和是精确的
+        int threads = 8;
+        int count = 200000;
+        DoubleDoubleAdder adder = new DoubleDoubleAdder();
+        run(threads, t -> {
+            for (int i = 1; i <= count; i++) {
+                adder.add(1E20);
+                adder.add((double) i);
+                adder.add(-1E20);
+            }
+        });
+        assertEquals(DoubleDouble.valueOf((long) threads * count * (count + 1) / 2), adder.sum());
+
+        // 误差和DoubleDouble逐个相加的误差相当
+        DoubleDoubleAdder harmonic = new DoubleDoubleAdder();
+        run(threads, t -> {
+            for (int i = t + 1; i <= 1_000_000; i += threads) {
+                harmonic.add(1.0 / i);
+            }
+        });
+        double[] values = new double[1_000_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1.0 / (i + 1);
+        }
+        BigDecimal exact = DoubleExpansion.sum(values).toBigDecimal();
+        BigDecimal error = harmonic.sum().toBigDecimal().subtract(exact).abs();
+        assertEquals(true, error.compareTo(exact.multiply(new BigDecimal(StrictMath.pow(2, -100)))) <= 0);
+    }
+
+    public static void test003() throws Exception {
+        // sumThenReset与add同时执行时，每个值只被计入一次
+        int threads = 4;
+        int count = 100000;
+        DoubleDoubleAdder adder = new DoubleDoubleAdder();
+        DoubleDoubleAccumulator total = new DoubleDoubleAccumulator();
+        CountDownLatch done = new CountDownLatch(threads);
+        Thread reader = new Thread(() -> {
+            while (done.getCount() != 0) {
+                total.accept(adder.sumThenReset());
+            }
+        });
+        reader.start();
+        run(threads, t -> {
+            try {
+                for (int i = 0; i < count; i++) {
+                    adder.add(DoubleDouble.add(1.0, 0x1p-70));
+                }
+            } finally {
+                done.countDown();
+            }
+        });
+        reader.join();
+        total.accept(adder.sumThenReset());
+        long n = (long) threads * count;
+        assertEquals(DoubleDouble.add(n, n * 0x1p-70), total.get());
+    }
+
+    private interface Task {
+        void run(int thread);
+    }
+
+    private static void run(int threads, Task task) throws Exception {
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            workers[t] = new Thread(() -> task.run(id));
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Method[] methods = Arrays.stream(DoubleDoubleAdderTest.class.getMethods())
+                .filter(m -> m.getName().matches("test[0-9]+")
+                        && m.getParameterCount() == 0)
+                .sorted(Comparator.comparing(Method::getName))
+                .toArray(Method[]::new);
+        for (Method method : methods) {
+            method.invoke(null);
+        }
+    }
+
+    private static void assertEquals(Object expected, Object actual) {
+        if ((expected == null) != (actual == null)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+        if (expected != null && !expected.equals(actual)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+    }
+}
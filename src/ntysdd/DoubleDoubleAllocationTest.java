@@ -0,0 +1,543 @@
+package ntysdd;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+/*
+ * 检查预热之后每个操作分配的字节数没有超过预算，
+ * 修改代码之后逃逸分析失效、开始分配新对象时测试失败
+ * 预算按照当前的实现确定，一个DoubleDouble对象是32字节，
+ * 没有FMA时有些操作走不同的路径，预算也不同
+ * 用-Xint运行、或者JVM不支持统计线程分配的字节数时跳过
+ */
+public class DoubleDoubleAllocationTest {
+    private static final int SIZE = 1024;
+    // 每轮执行的次数
+    private static final int RUNS = 10;
+    // 最多执行的轮数，等待JIT编译完成
+    private static final int MAX_ROUNDS = 300;
+
+    private static final double[] XS = new double[SIZE];
+    private static final double[] YS = new double[SIZE];
+    private static final long[] LS = new long[SIZE];
+    private static final DoubleDouble[] DXS = new DoubleDouble[SIZE];
+    private static final DoubleDouble[] DYS = new DoubleDouble[SIZE];
+    private static final DoubleDouble[] DZS = new DoubleDouble[SIZE];
+    private static final String[] TEXTS = new String[SIZE];
+
+    static {
+        Random random = new Random(0);
+        for (int i = 0; i < SIZE; i++) {
+            XS[i] = random.nextDouble() + 0.5;
+            YS[i] = random.nextDouble() + 0.5;
+            LS[i] = (random.nextLong() >>> 2) + (1L << 61);
+            DXS[i] = DoubleDouble.add(XS[i], random.nextDouble() * 1E-17);
+            DYS[i] = DoubleDouble.add(YS[i], random.nextDouble() * 1E-17);
+            DZS[i] = DoubleDouble.add(random.nextDouble(), random.nextDouble() * 1E-17);
+            TEXTS[i] = i % 2 == 0 ? Double.toString(XS[i]) : DXS[i].toString();
+        }
+    }
+
+    private abstract static class Operation {
+        final String name;
+        // 每个操作最多分配的字节数
+        final long budget;
+
+        Operation(String name, long budget) {
+            this.name = name;
+            this.budget = budget;
+        }
+
+        // 执行SIZE次操作，返回结果防止被优化掉
+        abstract double run();
+    }
+
+    public static void test001() {
+        // DoubleDouble的单个操作
+        checkBudgets(new Operation[]{
+                new Operation("DoubleDouble.valueOf(double)", 0) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DoubleDouble.valueOf(XS[i]).getFirst();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.valueOf(long)", 32) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DoubleDouble.valueOf(LS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.add(double, double)", 0) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DoubleDouble.add(XS[i], YS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.mul(double, double)", 0) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DoubleDouble.mul(XS[i], YS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.add(double)", 32) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DXS[i].add(YS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.add(long)", 64) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DXS[i].add(LS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.add(DoubleDouble)", 32) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DXS[i].add(DYS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.neg()", 0) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DXS[i].neg().getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.sub(double)", 32) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DXS[i].sub(YS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.sub(DoubleDouble)", 64) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DXS[i].sub(DYS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.mul(double)", 96) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DXS[i].mul(YS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.mul(long)", 800) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DXS[i].mul(LS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.mul(DoubleDouble)", 800) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DXS[i].mul(DYS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.div(double)", 32) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DXS[i].div(YS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.div(long)", 64) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DXS[i].div(LS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.div(DoubleDouble)", 32) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DXS[i].div(DYS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.reciprocal(double)", Fma.isAvailable() ? 96 : 160) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DoubleDouble.reciprocal(XS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.reciprocal(DoubleDouble)", 32) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DoubleDouble.reciprocal(DXS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.sqrt(double)", 256) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DoubleDouble.sqrt(XS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.sqrt(DoubleDouble)", 256) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DoubleDouble.sqrt(DXS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.rsqrt(DoubleDouble)", 768) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DoubleDouble.rsqrt(DXS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.cbrt(DoubleDouble)", 384) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DoubleDouble.cbrt(DXS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.log(double)", 2688) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DoubleDouble.log(XS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.parse(CharSequence)", 32) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DoubleDouble.parse(TEXTS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+        });
+    }
+
+    public static void test002() {
+        // 连续的操作，中间结果不应该增加额外的分配
+        checkBudgets(new Operation[]{
+                new Operation("a.mul(b).add(c)", 832) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DXS[i].mul(DYS[i]).add(DZS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("a.mul(x).add(c)", 128) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DXS[i].mul(YS[i]).add(DZS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("a.add(b).div(c)", 64) {
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DXS[i].add(DYS[i]).div(DZS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+        });
+    }
+
+    public static void test003() {
+        // 可变类型不分配新对象
+        checkBudgets(new Operation[]{
+                new Operation("MutableDoubleDouble.add(DoubleDouble)", 0) {
+                    private final MutableDoubleDouble m = new MutableDoubleDouble();
+
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += m.set(DXS[i]).add(DYS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("MutableDoubleDouble.mul(DoubleDouble)", 0) {
+                    private final MutableDoubleDouble m = new MutableDoubleDouble();
+
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += m.set(DXS[i]).mul(DYS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("MutableDoubleDouble.mul(double).add(DoubleDouble)", 0) {
+                    private final MutableDoubleDouble m = new MutableDoubleDouble();
+
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += m.set(DXS[i]).mul(YS[i]).add(DZS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("MutableDoubleDouble.setSqrt(DoubleDouble)", 0) {
+                    private final MutableDoubleDouble m = new MutableDoubleDouble();
+
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += m.setSqrt(DXS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("MutableDoubleDouble.setRsqrt(DoubleDouble)", 0) {
+                    private final MutableDoubleDouble m = new MutableDoubleDouble();
+
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += m.setRsqrt(DXS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("MutableDoubleDouble.setLog(double)", 0) {
+                    private final MutableDoubleDouble m = new MutableDoubleDouble();
+
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += m.setLog(XS[i]).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDoubleAccumulator.accept(double)", 0) {
+                    private final DoubleDoubleAccumulator sum = new DoubleDoubleAccumulator();
+
+                    @Override
+                    double run() {
+                        sum.reset();
+                        for (int i = 0; i < SIZE; i++) {
+                            sum.accept(XS[i]);
+                        }
+                        return sum.get().getSecond();
+                    }
+                },
+                new Operation("DoubleDoubleAdder.add(double)", 0) {
+                    private final DoubleDoubleAdder sum = new DoubleDoubleAdder();
+
+                    @Override
+                    double run() {
+                        sum.reset();
+                        for (int i = 0; i < SIZE; i++) {
+                            sum.add(XS[i]);
+                        }
+                        return sum.sum().getSecond();
+                    }
+                },
+        });
+    }
+
+    public static void test004() {
+        // 写到调用者提供的缓冲区时不分配新对象
+        checkBudgets(new Operation[]{
+                new Operation("DoubleDouble.appendTo(StringBuilder)", 0) {
+                    private final StringBuilder sb = new StringBuilder(64);
+
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            sb.setLength(0);
+                            s += DXS[i].appendTo(sb).length();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("MutableDoubleDouble.writeTo(ByteBuffer).readFrom(ByteBuffer)", 0) {
+                    private final ByteBuffer buf = ByteBuffer.allocate(SIZE * DoubleDouble.BYTES);
+                    private final MutableDoubleDouble m = new MutableDoubleDouble();
+
+                    @Override
+                    double run() {
+                        buf.clear();
+                        for (int i = 0; i < SIZE; i++) {
+                            m.set(DXS[i]).writeTo(buf);
+                        }
+                        buf.flip();
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += m.readFrom(buf).getSecond();
+                        }
+                        return s;
+                    }
+                },
+                new Operation("DoubleDouble.format(int, char[])", 0) {
+                    private final char[] buf = new char[64];
+
+                    @Override
+                    double run() {
+                        double s = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            s += DXS[i].format(20, buf);
+                        }
+                        return s;
+                    }
+                },
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        Method[] methods = Arrays.stream(DoubleDoubleAllocationTest.class.getMethods())
+                .filter(m -> m.getName().matches("test[0-9]+")
+                        && m.getParameterCount() == 0)
+                .sorted(Comparator.comparing(Method::getName))
+                .toArray(Method[]::new);
+        for (Method method : methods) {
+            method.invoke(null);
+        }
+    }
+
+    private static void checkBudgets(Operation[] operations) {
+        if (ManagementFactory.getCompilationMXBean() == null || allocatedBytes() < 0) {
+            return;
+        }
+        double sink = 0;
+        for (Operation operation : operations) {
+            double best = Double.POSITIVE_INFINITY;
+            for (int round = 0; round < MAX_ROUNDS; round++) {
+                long before = allocatedBytes();
+                for (int i = 0; i < RUNS; i++) {
+                    sink += operation.run();
+                }
+                best = Math.min(best, (double) (allocatedBytes() - before) / (RUNS * SIZE));
+                // 每个操作允许多出1个字节，用来容纳每轮中固定的少量分配，例如最后的结果
+                if (best <= operation.budget + 1) {
+                    break;
+                }
+            }
+            if (best > operation.budget + 1) {
+                throw new AssertionError(operation.name + ": " + best
+                        + " bytes/op, budget: " + operation.budget);
+            }
+        }
+        if (sink == 42) {
+            System.out.println(sink);
+        }
+    }
+
+    // 当前线程累计分配的字节数，不支持时返回-1
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        if (!sunBean.isThreadAllocatedMemorySupported() || !sunBean.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
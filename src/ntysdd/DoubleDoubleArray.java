@@ -0,0 +1,238 @@
+package ntysdd;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * DoubleDouble数组，用两个double数组分别保存第一部分和第二部分
+ * 适用情况：需要保存大量DoubleDouble，又不想为每个元素生成一个对象
+ * 每个元素只占16字节，遍历时访问的是连续的double数组
+ * 注意：
+ * slice返回的是视图，与原数组共享存储
+ * 这个类不是线程安全的
+ */
+public final strictfp class DoubleDoubleArray {
+    private final double[] first;
+    private final double[] second;
+    private final int offset;
+    private final int length;
+
+    /**
+     * 创建一个长度为length的数组，所有元素为0
+     */
+    public DoubleDoubleArray(int length) {
+        this(new double[length], new double[length], 0, length);
+    }
+
+    private DoubleDoubleArray(double[] first, double[] second, int offset, int length) {
+        this.first = first;
+        this.second = second;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    // 直接使用两个数组作为存储，不复制，要求每个元素已经规格化，供同一个包中的类使用
+    static DoubleDoubleArray wrap(double[] first, double[] second, int length) {
+        return new DoubleDoubleArray(first, second, 0, length);
+    }
+
+    /**
+     * 用DoubleDouble[]创建数组，会复制所有元素
+     */
+    public static DoubleDoubleArray valueOf(DoubleDouble[] values) {
+        DoubleDoubleArray array = new DoubleDoubleArray(values.length);
+        for (int i = 0; i < values.length; i++) {
+            array.set(i, values[i]);
+        }
+        return array;
+    }
+
+    /**
+     * 用double[]创建数组，会复制所有元素
+     */
+    public static DoubleDoubleArray valueOf(double[] values) {
+        DoubleDoubleArray array = new DoubleDoubleArray(values.length);
+        for (int i = 0; i < values.length; i++) {
+            array.set(i, values[i]);
+        }
+        return array;
+    }
+
+    /**
+     * 返回数组长度
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * 返回第index个元素
+     */
+    public DoubleDouble get(int index) {
+        int i = index(index);
+        return DoubleDouble.ofNormalized(first[i], second[i]);
+    }
+
+    /**
+     * 将第index个元素保存到dst中，不生成新对象
+     */
+    public MutableDoubleDouble get(int index, MutableDoubleDouble dst) {
+        int i = index(index);
+        return dst.setNormalized(first[i], second[i]);
+    }
+
+    /**
+     * 返回第index个元素的第一部分
+     */
+    public double getFirst(int index) {
+        return first[index(index)];
+    }
+
+    /**
+     * 返回第index个元素的第二部分
+     */
+    public double getSecond(int index) {
+        return second[index(index)];
+    }
+
+    /**
+     * 设置第index个元素
+     */
+    public void set(int index, DoubleDouble value) {
+        int i = index(index);
+        first[i] = value.getFirst();
+        second[i] = value.getSecond();
+    }
+
+    /**
+     * 设置第index个元素
+     */
+    public void set(int index, MutableDoubleDouble value) {
+        int i = index(index);
+        first[i] = value.getFirst();
+        second[i] = value.getSecond();
+    }
+
+    /**
+     * 设置第index个元素，与DoubleDouble.valueOf(double)相同
+     */
+    public void set(int index, double value) {
+        int i = index(index);
+        if (Double.isNaN(value)) {
+            first[i] = Double.NaN;
+            second[i] = Double.NaN;
+        } else {
+            first[i] = value;
+            second[i] = 0;
+        }
+    }
+
+    /**
+     * 将所有元素设置为value
+     */
+    public void fill(DoubleDouble value) {
+        double f = value.getFirst();
+        double s = value.getSecond();
+        int end = offset + length;
+        Arrays.fill(first, offset, end, f);
+        Arrays.fill(second, offset, end, s);
+    }
+
+    /**
+     * 从src的srcPos开始复制length个元素到dst的dstPos开始的位置
+     * 与System.arraycopy类似，src和dst共享存储时也能正确复制
+     */
+    public static void copy(DoubleDoubleArray src, int srcPos,
+                            DoubleDoubleArray dst, int dstPos, int length) {
+        if (length < 0 || srcPos < 0 || dstPos < 0
+                || srcPos > src.length - length || dstPos > dst.length - length) {
+            throw new IndexOutOfBoundsException("srcPos: " + srcPos + ", dstPos: " + dstPos
+                    + ", length: " + length);
+        }
+        System.arraycopy(src.first, src.offset + srcPos, dst.first, dst.offset + dstPos, length);
+        System.arraycopy(src.second, src.offset + srcPos, dst.second, dst.offset + dstPos, length);
+    }
+
+    /**
+     * 复制一份新的数组
+     */
+    public DoubleDoubleArray copy() {
+        DoubleDoubleArray result = new DoubleDoubleArray(length);
+        copy(this, 0, result, 0, length);
+        return result;
+    }
+
+    /**
+     * 返回[from, to)范围内元素的视图，修改视图会修改原数组
+     */
+    public DoubleDoubleArray slice(int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("from: " + from + ", to: " + to + ", length: " + length);
+        }
+        return new DoubleDoubleArray(first, second, offset + from, to - from);
+    }
+
+    /**
+     * 转成DoubleDouble[]
+     */
+    public DoubleDouble[] toArray() {
+        DoubleDouble[] result = new DoubleDouble[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = DoubleDouble.ofNormalized(first[offset + i], second[offset + i]);
+        }
+        return result;
+    }
+
+    /**
+     * 依次写入所有元素，每个16字节，格式与DoubleDouble.writeTo(ByteBuffer)相同
+     * 剩余空间不足时抛出BufferOverflowException，不写入任何内容
+     */
+    public ByteBuffer writeTo(ByteBuffer buf) {
+        DoubleDoubleCodec.write(buf, first, second, offset, length);
+        return buf;
+    }
+
+    /**
+     * 依次读取length()个元素，覆盖原来的内容，返回this
+     * 剩余不足length() * 16字节时抛出BufferUnderflowException，数组不变，
+     * 某个元素不满足first + second == first时抛出IllegalArgumentException，数组中的内容不确定，
+     * 这两种情况下position不变
+     */
+    public DoubleDoubleArray readFrom(ByteBuffer buf) {
+        DoubleDoubleCodec.read(buf, first, second, offset, length);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < length; i++) {
+            if (i != 0) {
+                sb.append(", ");
+            }
+            sb.append(get(i));
+        }
+        return sb.append(']').toString();
+    }
+
+    // 以下方法供同一个包中的批量计算使用，返回的是底层数组，下标需要加上offset
+
+    double[] firstArray() {
+        return first;
+    }
+
+    double[] secondArray() {
+        return second;
+    }
+
+    int offset() {
+        return offset;
+    }
+
+    private int index(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index: " + index + ", length: " + length);
+        }
+        return offset + index;
+    }
+}
@@ -0,0 +1,99 @@
+package ntysdd;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Comparator;
+
+public class DoubleDoubleArrayTest {
+    private static final DoubleDouble ONE_THIRD = DoubleDouble.ONE.div(3);
+
+    public static void test001() {
+        DoubleDoubleArray array = new DoubleDoubleArray(4);
+        assertEquals(4, array.length());
+        for (int i = 0; i < array.length(); i++) {
+            assertEquals(DoubleDouble.ZERO, array.get(i));
+        }
+        array.set(0, ONE_THIRD);
+        array.set(1, -0.0);
+        array.set(2, Double.NaN);
+        array.set(3, new MutableDoubleDouble(ONE_THIRD).neg());
+        assertEquals(ONE_THIRD, array.get(0));
+        assertEquals(ONE_THIRD.getFirst(), array.getFirst(0));
+        assertEquals(ONE_THIRD.getSecond(), array.getSecond(0));
+        assertEquals(DoubleDouble.valueOf(-0.0), array.get(1));
+        assertEquals(DoubleDouble.valueOf(Double.NaN), array.get(2));
+        assertEquals(ONE_THIRD.neg(), array.get(3));
+        assertEquals(ONE_THIRD, array.get(0, new MutableDoubleDouble()).toDoubleDouble());
+
+        DoubleDouble[] values = array.toArray();
+        assertEquals(4, values.length);
+        assertEquals(Arrays.asList(values), Arrays.asList(DoubleDoubleArray.valueOf(values).toArray()));
+
+        assertThrows(() -> array.get(4));
+        assertThrows(() -> array.get(-1));
+        assertThrows(() -> array.set(4, 1.0));
+    }
+
+    public static void test002() {
+        DoubleDoubleArray array = DoubleDoubleArray.valueOf(new double[]{0, 1, 2, 3, 4, 5, 6, 7});
+        DoubleDoubleArray slice = array.slice(2, 6);
+        assertEquals(4, slice.length());
+        assertEquals(DoubleDouble.TWO, slice.get(0));
+        slice.fill(ONE_THIRD);
+        assertEquals(DoubleDouble.ONE, array.get(1));
+        assertEquals(ONE_THIRD, array.get(2));
+        assertEquals(ONE_THIRD, array.get(5));
+        assertEquals(DoubleDouble.valueOf(6), array.get(6));
+        assertEquals(ONE_THIRD, slice.slice(1, 2).get(0));
+        assertThrows(() -> slice.get(4));
+        assertThrows(() -> array.slice(3, 9));
+        assertThrows(() -> array.slice(5, 4));
+
+        DoubleDoubleArray copy = slice.copy();
+        copy.set(0, 1.0);
+        assertEquals(ONE_THIRD, slice.get(0));
+        assertEquals(DoubleDouble.ONE, copy.get(0));
+    }
+
+    public static void test003() {
+        DoubleDoubleArray array = DoubleDoubleArray.valueOf(new double[]{0, 1, 2, 3, 4, 5, 6, 7});
+        // 重叠的复制
+        DoubleDoubleArray.copy(array, 0, array, 2, 6);
+        assertEquals("[0, 1, 0, 1, 2, 3, 4, 5]", array.toString());
+        DoubleDoubleArray.copy(array.slice(4, 8), 0, array, 0, 2);
+        assertEquals("[2, 3, 0, 1, 2, 3, 4, 5]", array.toString());
+        assertThrows(() -> DoubleDoubleArray.copy(array, 4, array, 0, 5));
+        assertThrows(() -> DoubleDoubleArray.copy(array, 0, array, 0, -1));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Method[] methods = Arrays.stream(DoubleDoubleArrayTest.class.getMethods())
+                .filter(m -> m.getName().matches("test[0-9]+")
+                        && m.getParameterCount() == 0)
+                .sorted(Comparator.comparing(Method::getName))
+                .toArray(Method[]::new);
+        for (Method method : methods) {
+            method.invoke(null);
+        }
+    }
+
+    private static void assertThrows(Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (IndexOutOfBoundsException expected) {
+            return;
+        }
+        throw new AssertionError("expected IndexOutOfBoundsException");
+    }
+
+    private static void assertEquals(Object expected, Object actual) {
+        if ((expected == null) != (actual == null)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+        if (expected != null && !expected.equals(actual)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package ntysdd;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/*
+ * DoubleDouble的16字节二进制表示：先first后second，各8字节，是IEEE 754的位模式，
+ * 字节序固定为大端序，与buf.order()无关，与DataOutput.writeDouble相同
+ * 每个值只有一种表示：NaN写成两个Double.NaN，second为0（包括-0.0）或者first为无穷大时second写成+0.0
+ * 读取时检查规格化要求，不满足时抛出IllegalArgumentException
+ * ByteBuffer的方法都是先检查长度，读写成功后才移动position
+ */
+final strictfp class DoubleDoubleCodec {
+    static final int BYTES = 16;
+
+    private DoubleDoubleCodec() {
+    }
+
+    static void write(ByteBuffer buf, double first, double second) {
+        int p = buf.position();
+        if (buf.remaining() < BYTES) {
+            throw new BufferOverflowException();
+        }
+        put(buf, p, first, second, buf.order() == ByteOrder.BIG_ENDIAN);
+        buf.position(p + BYTES);
+    }
+
+    static DoubleDouble read(ByteBuffer buf) {
+        int p = buf.position();
+        if (buf.remaining() < BYTES) {
+            throw new BufferUnderflowException();
+        }
+        boolean bigEndian = buf.order() == ByteOrder.BIG_ENDIAN;
+        double first = getDouble(buf, p, bigEndian);
+        double second = getDouble(buf, p + 8, bigEndian);
+        check(first, second);
+        buf.position(p + BYTES);
+        return DoubleDouble.ofNormalized(first, second);
+    }
+
+    static MutableDoubleDouble read(ByteBuffer buf, MutableDoubleDouble dst) {
+        int p = buf.position();
+        if (buf.remaining() < BYTES) {
+            throw new BufferUnderflowException();
+        }
+        boolean bigEndian = buf.order() == ByteOrder.BIG_ENDIAN;
+        double first = getDouble(buf, p, bigEndian);
+        double second = getDouble(buf, p + 8, bigEndian);
+        check(first, second);
+        buf.position(p + BYTES);
+        if (Double.isNaN(first) || Double.isNaN(second)) {
+            return dst.setNormalized(Double.NaN, Double.NaN);
+        }
+        if (second == 0 || Double.isInfinite(first)) {
+            return dst.setNormalized(first, 0);
+        }
+        return dst.setNormalized(first, second);
+    }
+
+    // 写入first[offset, offset + length)和second中对应的元素
+    static void write(ByteBuffer buf, double[] first, double[] second, int offset, int length) {
+        int p = buf.position();
+        if (buf.remaining() / BYTES < length) {
+            throw new BufferOverflowException();
+        }
+        boolean bigEndian = buf.order() == ByteOrder.BIG_ENDIAN;
+        for (int i = 0; i < length; i++) {
+            put(buf, p + i * BYTES, first[offset + i], second[offset + i], bigEndian);
+        }
+        buf.position(p + length * BYTES);
+    }
+
+    // 读取length个值到first[offset, offset + length)和second中，失败时数组中的内容不确定
+    static void read(ByteBuffer buf, double[] first, double[] second, int offset, int length) {
+        int p = buf.position();
+        if (buf.remaining() / BYTES < length) {
+            throw new BufferUnderflowException();
+        }
+        boolean bigEndian = buf.order() == ByteOrder.BIG_ENDIAN;
+        for (int i = 0; i < length; i++) {
+            int index = p + i * BYTES;
+            double f = getDouble(buf, index, bigEndian);
+            double s = getDouble(buf, index + 8, bigEndian);
+            if (!(f + s == f)) {
+                check(f, s);
+                f = Double.NaN;
+                s = Double.NaN;
+            } else if (s == 0 || Double.isInfinite(f)) {
+                s = 0;
+            }
+            first[offset + i] = f;
+            second[offset + i] = s;
+        }
+        buf.position(p + length * BYTES);
+    }
+
+    static void write(DataOutput out, double first, double second) throws IOException {
+        if (Double.isNaN(first) || Double.isNaN(second)) {
+            out.writeDouble(Double.NaN);
+            out.writeDouble(Double.NaN);
+        } else if (second == 0 || Double.isInfinite(first)) {
+            out.writeDouble(first);
+            out.writeDouble(0);
+        } else {
+            out.writeDouble(first);
+            out.writeDouble(second);
+        }
+    }
+
+    static DoubleDouble read(DataInput in) throws IOException {
+        double first = in.readDouble();
+        double second = in.readDouble();
+        check(first, second);
+        return DoubleDouble.ofNormalized(first, second);
+    }
+
+    private static void put(ByteBuffer buf, int index, double first, double second, boolean bigEndian) {
+        long f;
+        long s;
+        if (Double.isNaN(first) || Double.isNaN(second)) {
+            f = Double.doubleToRawLongBits(Double.NaN);
+            s = f;
+        } else if (second == 0 || Double.isInfinite(first)) {
+            f = Double.doubleToRawLongBits(first);
+            s = 0;
+        } else {
+            f = Double.doubleToRawLongBits(first);
+            s = Double.doubleToRawLongBits(second);
+        }
+        if (!bigEndian) {
+            f = Long.reverseBytes(f);
+            s = Long.reverseBytes(s);
+        }
+        buf.putLong(index, f);
+        buf.putLong(index + 8, s);
+    }
+
+    private static double getDouble(ByteBuffer buf, int index, boolean bigEndian) {
+        long bits = buf.getLong(index);
+        return Double.longBitsToDouble(bigEndian ? bits : Long.reverseBytes(bits));
+    }
+
+    // 任何一部分是NaN时表示NaN，否则要求first + second == first（first为0时second也只能是0）
+    private static void check(double first, double second) {
+        if (Double.isNaN(first) || Double.isNaN(second)) {
+            return;
+        }
+        if (first + second != first) {
+            throw new IllegalArgumentException("not normalized: first = " + first + ", second = " + second);
+        }
+    }
+}
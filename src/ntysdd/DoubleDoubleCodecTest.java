@@ -0,0 +1,240 @@
+package ntysdd;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+public class DoubleDoubleCodecTest {
+    private static final DoubleDouble[] VALUES = {
+            DoubleDouble.ZERO, DoubleDouble.valueOf(-0.0), DoubleDouble.ONE, DoubleDouble.parse("0.1"),
+            DoubleDouble.parse("-3.14159265358979323846264338327950288"), DoubleDouble.valueOf(Long.MAX_VALUE),
+            DoubleDouble.valueOf(Double.MIN_VALUE), DoubleDouble.valueOf(Double.MAX_VALUE),
+            DoubleDouble.valueOf(Double.NaN), DoubleDouble.valueOf(Double.POSITIVE_INFINITY),
+            DoubleDouble.valueOf(Double.NEGATIVE_INFINITY),
+    };
+
+    public static void test001() throws IOException {
+        for (DoubleDouble x : VALUES) {
+            // 字节与DataOutput相同，与buf.order()无关
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeDouble(x.getFirst());
+            out.writeDouble(x.getSecond());
+            byte[] expected = bytes.toByteArray();
+            bytes.reset();
+            x.writeTo(out);
+            assertEquals(true, Arrays.equals(expected, bytes.toByteArray()));
+            assertEquals(x, DoubleDouble.readFrom(new DataInputStream(new ByteArrayInputStream(expected))));
+
+            for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+                ByteBuffer buf = ByteBuffer.allocate(20).order(order);
+                buf.position(3);
+                assertEquals(buf, x.writeTo(buf));
+                assertEquals(19, buf.position());
+                assertEquals(true, Arrays.equals(expected, Arrays.copyOfRange(buf.array(), 3, 19)));
+                buf.position(3);
+                assertEquals(x, DoubleDouble.readFrom(buf));
+                assertEquals(19, buf.position());
+                buf.position(3);
+                MutableDoubleDouble m = new MutableDoubleDouble().readFrom(buf);
+                assertEquals(x, m.toDoubleDouble());
+                buf.clear();
+                m.writeTo(buf);
+                assertEquals(true, Arrays.equals(expected, Arrays.copyOf(buf.array(), 16)));
+            }
+        }
+
+        // 同一个值只有一种表示
+        double[] first = {1.0, Double.NaN, 1.0, Double.POSITIVE_INFINITY, 0.0};
+        double[] second = {-0.0, 1.0, Double.NaN, 3.0, -0.0};
+        DoubleDouble[] canonical = {
+                DoubleDouble.ONE, DoubleDouble.valueOf(Double.NaN), DoubleDouble.valueOf(Double.NaN),
+                DoubleDouble.valueOf(Double.POSITIVE_INFINITY), DoubleDouble.ZERO,
+        };
+        ByteBuffer buf = DoubleDoubleArray.wrap(first, second, first.length).writeTo(ByteBuffer.allocate(80));
+        ByteBuffer expected = ByteBuffer.allocate(80);
+        for (DoubleDouble x : canonical) {
+            x.writeTo(expected);
+        }
+        assertEquals(expected.flip(), buf.flip());
+        DoubleDoubleArray array = new DoubleDoubleArray(first.length).readFrom(buf);
+        for (int i = 0; i < canonical.length; i++) {
+            assertEquals(canonical[i], array.get(i));
+            assertEquals(canonical[i].getSecond(), array.getSecond(i));
+        }
+    }
+
+    public static void test002() throws IOException {
+        // 不满足规格化要求
+        double[][] invalid = {{1.0, 1.0}, {0.0, Double.MIN_VALUE}, {1.0, Double.POSITIVE_INFINITY},
+                {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY}, {1.0, 0x1p-52}};
+        for (double[] pair : invalid) {
+            for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+                ByteBuffer buf = ByteBuffer.allocate(48).order(order);
+                DoubleDouble.ONE.writeTo(buf);
+                if (order == ByteOrder.BIG_ENDIAN) {
+                    buf.putDouble(pair[0]).putDouble(pair[1]);
+                } else {
+                    buf.putLong(Long.reverseBytes(Double.doubleToRawLongBits(pair[0])));
+                    buf.putLong(Long.reverseBytes(Double.doubleToRawLongBits(pair[1])));
+                }
+                buf.position(16);
+                try {
+                    DoubleDouble.readFrom(buf);
+                    throw new AssertionError(Arrays.toString(pair));
+                } catch (IllegalArgumentException e) {
+                    assertEquals(16, buf.position());
+                }
+                MutableDoubleDouble m = new MutableDoubleDouble(2.0);
+                try {
+                    m.readFrom(buf);
+                    throw new AssertionError(Arrays.toString(pair));
+                } catch (IllegalArgumentException e) {
+                    assertEquals(16, buf.position());
+                    assertEquals(DoubleDouble.TWO, m.toDoubleDouble());
+                }
+                buf.position(0);
+                try {
+                    new DoubleDoubleArray(2).readFrom(buf);
+                    throw new AssertionError(Arrays.toString(pair));
+                } catch (IllegalArgumentException e) {
+                    assertEquals(0, buf.position());
+                }
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeDouble(pair[0]);
+            out.writeDouble(pair[1]);
+            try {
+                DoubleDouble.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+                throw new AssertionError(Arrays.toString(pair));
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+
+        // 长度不够
+        ByteBuffer buf = ByteBuffer.allocate(31);
+        DoubleDouble.ONE.writeTo(buf);
+        try {
+            DoubleDouble.ONE.writeTo(buf);
+            throw new AssertionError();
+        } catch (BufferOverflowException e) {
+            assertEquals(16, buf.position());
+        }
+        buf.position(16);
+        try {
+            DoubleDouble.readFrom(buf);
+            throw new AssertionError();
+        } catch (BufferUnderflowException e) {
+            assertEquals(16, buf.position());
+        }
+        buf.position(0);
+        try {
+            new DoubleDoubleArray(2).writeTo(buf);
+            throw new AssertionError();
+        } catch (BufferOverflowException e) {
+            assertEquals(0, buf.position());
+        }
+        DoubleDoubleArray array = new DoubleDoubleArray(2);
+        array.set(1, 5.0);
+        try {
+            array.readFrom(buf);
+            throw new AssertionError();
+        } catch (BufferUnderflowException e) {
+            assertEquals(0, buf.position());
+            assertEquals(DoubleDouble.valueOf(5.0), array.get(1));
+        }
+        try {
+            DoubleDouble.readFrom(new DataInputStream(new ByteArrayInputStream(new byte[15])));
+            throw new AssertionError();
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    public static void test003() {
+        // 批量读写与逐个读写的结果相同
+        Random random = new Random(3);
+        int n = 1000;
+        DoubleDoubleArray values = new DoubleDoubleArray(n);
+        for (int i = 0; i < n; i++) {
+            DoubleDouble x = random.nextInt(20) == 0 ? VALUES[random.nextInt(VALUES.length)]
+                    : DoubleDouble.add(random.nextDouble() - 0.5, (random.nextDouble() - 0.5) * 1E-17)
+                    .mul(Math.scalb(1.0, random.nextInt(200) - 100));
+            values.set(i, x);
+        }
+        ByteBuffer expected = ByteBuffer.allocate(n * 16);
+        for (int i = 0; i < n; i++) {
+            values.get(i).writeTo(expected);
+        }
+        expected.flip();
+        ByteBuffer[] buffers = {
+                ByteBuffer.allocate(n * 16 + 8), ByteBuffer.allocateDirect(n * 16 + 8),
+                ByteBuffer.allocate(n * 16 + 8).order(ByteOrder.LITTLE_ENDIAN),
+                ByteBuffer.allocateDirect(n * 16 + 8).order(ByteOrder.LITTLE_ENDIAN),
+        };
+        for (ByteBuffer buf : buffers) {
+            // 从不对齐的位置开始
+            buf.position(5);
+            values.writeTo(buf);
+            assertEquals(5 + n * 16, buf.position());
+            buf.flip().position(5);
+            assertEquals(expected, buf.slice());
+
+            DoubleDoubleArray result = new DoubleDoubleArray(n).readFrom(buf);
+            assertEquals(5 + n * 16, buf.position());
+            for (int i = 0; i < n; i++) {
+                assertEquals(values.get(i), result.get(i));
+            }
+
+            // slice只读写视图中的元素
+            buf.position(5);
+            DoubleDoubleArray target = new DoubleDoubleArray(n);
+            target.slice(100, 300).readFrom(buf);
+            assertEquals(DoubleDouble.ZERO, target.get(99));
+            assertEquals(values.get(0), target.get(100));
+            assertEquals(values.get(199), target.get(299));
+            assertEquals(DoubleDouble.ZERO, target.get(300));
+            buf.clear();
+            values.slice(10, 20).writeTo(buf);
+            buf.flip();
+            for (int i = 10; i < 20; i++) {
+                assertEquals(values.get(i), DoubleDouble.readFrom(buf));
+            }
+            assertEquals(0, buf.remaining());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Method[] methods = Arrays.stream(DoubleDoubleCodecTest.class.getMethods())
+                .filter(m -> m.getName().matches("test[0-9]+")
+                        && m.getParameterCount() == 0)
+                .sorted(Comparator.comparing(Method::getName))
+                .toArray(Method[]::new);
+        for (Method method : methods) {
+            method.invoke(null);
+        }
+    }
+
+    private static void assertEquals(Object expected, Object actual) {
+        if ((expected == null) != (actual == null)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+        if (expected != null && !expected.equals(actual)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+    }
+}
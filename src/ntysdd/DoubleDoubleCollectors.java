@@ -0,0 +1,75 @@
+package ntysdd;
+
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collector;
+import java.util.stream.DoubleStream;
+
+/**
+ * 把Stream和DoubleStream求和成DoubleDouble
+ * 每个线程使用自己的DoubleDoubleAccumulator，累加时不生成新对象，
+ * 并行计算时用DoubleDouble.add(DoubleDouble)合并各个线程的部分和
+ * 顺序执行时结果与从DoubleDouble.ZERO开始依次add相同，
+ * 并行执行时结果与划分方式有关，但是误差和DoubleDouble逐个相加的误差相当，远小于DoubleStream.sum()
+ * 需要结果与划分方式无关时使用summingExact()和sumExact，结果是精确的和舍入到最近的DoubleDouble
+ */
+public final strictfp class DoubleDoubleCollectors {
+    private DoubleDoubleCollectors() {
+    }
+
+    /**
+     * 对DoubleDouble求和，空的Stream的和是DoubleDouble.ZERO
+     */
+    public static Collector<DoubleDouble, ?, DoubleDouble> summing() {
+        return Collector.of(DoubleDoubleAccumulator::new,
+                DoubleDoubleAccumulator::accept,
+                DoubleDoubleCollectors::combine,
+                DoubleDoubleAccumulator::get);
+    }
+
+    /**
+     * 对mapper的结果求和，空的Stream的和是DoubleDouble.ZERO
+     */
+    public static <T> Collector<T, ?, DoubleDouble> summingDouble(ToDoubleFunction<? super T> mapper) {
+        return Collector.of(DoubleDoubleAccumulator::new,
+                (acc, t) -> acc.accept(mapper.applyAsDouble(t)),
+                DoubleDoubleCollectors::combine,
+                DoubleDoubleAccumulator::get);
+    }
+
+    /**
+     * 对DoubleStream求和，可以是并行的Stream
+     */
+    public static DoubleDouble sum(DoubleStream stream) {
+        return stream.collect(DoubleDoubleAccumulator::new,
+                DoubleDoubleAccumulator::accept,
+                DoubleDoubleAccumulator::combine).get();
+    }
+
+    /**
+     * 对DoubleDouble精确求和，结果与顺序和并行的划分方式无关
+     */
+    public static Collector<DoubleDouble, ?, DoubleDouble> summingExact() {
+        return Collector.of(DoubleDoubleExactAccumulator::new,
+                DoubleDoubleExactAccumulator::accept,
+                (lhs, rhs) -> {
+                    lhs.combine(rhs);
+                    return lhs;
+                },
+                DoubleDoubleExactAccumulator::get,
+                Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * 对DoubleStream精确求和，结果与顺序和并行的划分方式无关
+     */
+    public static DoubleDouble sumExact(DoubleStream stream) {
+        return stream.collect(DoubleDoubleExactAccumulator::new,
+                DoubleDoubleExactAccumulator::accept,
+                DoubleDoubleExactAccumulator::combine).get();
+    }
+
+    private static DoubleDoubleAccumulator combine(DoubleDoubleAccumulator lhs, DoubleDoubleAccumulator rhs) {
+        lhs.combine(rhs);
+        return lhs;
+    }
+}
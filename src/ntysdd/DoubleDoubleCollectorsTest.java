@@ -0,0 +1,112 @@
+package ntysdd;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import java.util.stream.Stream;
+
+public class DoubleDoubleCollectorsTest {
+    private static double[] randomDoubles(Random random, int length) {
+        double[] values = new double[length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (random.nextDouble() - 0.5) * StrictMath.pow(2, random.nextInt(120) - 60);
+        }
+        return values;
+    }
+
+    public static void test001() {
+        // 顺序执行时与依次add相同
+        Random random = new Random(0);
+        double[] values = randomDoubles(random, 10000);
+        DoubleDouble expected = DoubleDouble.ZERO;
+        for (double v : values) {
+            expected = expected.add(v);
+        }
+        assertEquals(expected, DoubleDoubleCollectors.sum(DoubleStream.of(values)));
+        assertEquals(expected, Arrays.stream(values).boxed()
+                .collect(DoubleDoubleCollectors.summingDouble(Double::doubleValue)));
+
+        List<DoubleDouble> list = Arrays.stream(values)
+                .mapToObj(v -> DoubleDouble.add(v, v * 0x1.3p-60))
+                .collect(Collectors.toList());
+        DoubleDouble expected2 = DoubleDouble.ZERO;
+        for (DoubleDouble d : list) {
+            expected2 = expected2.add(d);
+        }
+        assertEquals(expected2, list.stream().collect(DoubleDoubleCollectors.summing()));
+
+        // 空的Stream
+        assertEquals(DoubleDouble.ZERO, DoubleDoubleCollectors.sum(DoubleStream.empty()));
+        assertEquals(DoubleDouble.ZERO, Stream.<DoubleDouble>empty().collect(DoubleDoubleCollectors.summing()));
+    }
+
+    public static void test002() {
+        // 并行执行时误差仍然很小
+        Random random = new Random(1);
+        double[] values = randomDoubles(random, 200000);
+        DoubleExpansion exact = DoubleExpansion.sum(values);
+        BigDecimal bound = new BigDecimal(StrictMath.pow(2, -100));
+        for (int i = 0; i < 10; i++) {
+            DoubleDouble sum = DoubleDoubleCollectors.sum(DoubleStream.of(values).parallel());
+            assertError(exact, sum, bound);
+            DoubleDouble sum2 = Arrays.stream(values).boxed().parallel()
+                    .collect(DoubleDoubleCollectors.summingDouble(Double::doubleValue));
+            assertError(exact, sum2, bound);
+            DoubleDouble sum3 = Arrays.stream(values).parallel()
+                    .mapToObj(DoubleDouble::valueOf)
+                    .collect(DoubleDoubleCollectors.summing());
+            assertError(exact, sum3, bound);
+        }
+
+        // 完全抵消
+        double[] cancel = {1E30, 1.0, -1E30, 3E-20};
+        assertEquals(DoubleDouble.add(1.0, 3E-20), DoubleDoubleCollectors.sum(DoubleStream.of(cancel)));
+    }
+
+    public static void test003() {
+        // 特殊值
+        assertEquals(DoubleDouble.valueOf(Double.NaN),
+                DoubleDoubleCollectors.sum(DoubleStream.of(1, Double.NaN, 2).parallel()));
+        assertEquals(DoubleDouble.valueOf(Double.NaN),
+                DoubleDoubleCollectors.sum(DoubleStream.of(Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY)));
+        assertEquals(DoubleDouble.valueOf(Double.POSITIVE_INFINITY),
+                DoubleDoubleCollectors.sum(DoubleStream.of(1, Double.POSITIVE_INFINITY, 2).parallel()));
+        assertEquals(DoubleDouble.valueOf(Double.POSITIVE_INFINITY),
+                DoubleDoubleCollectors.sum(DoubleStream.of(Double.MAX_VALUE, Double.MAX_VALUE)));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Method[] methods = Arrays.stream(DoubleDoubleCollectorsTest.class.getMethods())
+                .filter(m -> m.getName().matches("test[0-9]+")
+                        && m.getParameterCount() == 0)
+                .sorted(Comparator.comparing(Method::getName))
+                .toArray(Method[]::new);
+        for (Method method : methods) {
+            method.invoke(null);
+        }
+    }
+
+    private static void assertError(DoubleExpansion expected, DoubleDouble actual, BigDecimal bound) {
+        BigDecimal exact = expected.toBigDecimal();
+        BigDecimal error = actual.toBigDecimal().subtract(exact).abs();
+        if (error.compareTo(exact.abs().multiply(bound)) > 0) {
+            throw new AssertionError("expected: " + expected + ", actual: " + actual);
+        }
+    }
+
+    private static void assertEquals(Object expected, Object actual) {
+        if ((expected == null) != (actual == null)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+        if (expected != null && !expected.equals(actual)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+    }
+}
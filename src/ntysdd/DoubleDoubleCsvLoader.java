@@ -0,0 +1,354 @@
+package ntysdd;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 从ASCII文本（例如CSV文件）中读取一列十进制数，直接解析字节，不为每个字段生成String
+ * 每一行是用separator分隔的若干字段，取第column个（从0开始），行尾可以是\n或者\r\n，空行跳过
+ * 文本按行的边界分成若干段，在ForkJoinPool.commonPool()中并行解析，
+ * 结果可以是DoubleDoubleArray（两个double数组），也可以直接求和，
+ * 求和用DoubleDoubleExactAccumulator，结果与划分方式和线程数无关
+ * 文件每次映射一段到内存，超过2GB的文件也可以读取
+ * 注意：
+ * 字段的格式与DoubleDouble.parse(CharSequence)相同，前后不能有空格，不支持带引号的字段
+ * 格式不对、或者某一行没有第column个字段时抛出NumberFormatException，消息中有这一行开始的位置
+ */
+public final strictfp class DoubleDoubleCsvLoader {
+    // 每个任务至少解析这么多字节
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    // 每次映射到内存的最大字节数
+    private static final int MAP_SIZE = 1 << 30;
+
+    private DoubleDoubleCsvLoader() {
+    }
+
+    /**
+     * 读取buf中从position到limit的文本的第column列，不改变buf的position
+     * header为true时跳过第一行
+     */
+    public static DoubleDoubleArray loadColumn(ByteBuffer buf, char separator, int column, boolean header) {
+        ArraySink sink = new ArraySink();
+        parse(buf, 0, separator, column, header, sink);
+        return sink.toArray();
+    }
+
+    /**
+     * 对buf中从position到limit的文本的第column列求和，不改变buf的position
+     * header为true时跳过第一行
+     */
+    public static DoubleDouble sumColumn(ByteBuffer buf, char separator, int column, boolean header) {
+        SumSink sink = new SumSink();
+        parse(buf, 0, separator, column, header, sink);
+        return sink.sum.get();
+    }
+
+    /**
+     * 读取channel从当前位置到结尾的文本的第column列，不改变channel的位置
+     */
+    public static DoubleDoubleArray loadColumn(FileChannel channel, char separator, int column, boolean header)
+            throws IOException {
+        ArraySink sink = new ArraySink();
+        parse(channel, separator, column, header, sink, MAP_SIZE);
+        return sink.toArray();
+    }
+
+    /**
+     * 对channel从当前位置到结尾的文本的第column列求和，不改变channel的位置
+     */
+    public static DoubleDouble sumColumn(FileChannel channel, char separator, int column, boolean header)
+            throws IOException {
+        SumSink sink = new SumSink();
+        parse(channel, separator, column, header, sink, MAP_SIZE);
+        return sink.sum.get();
+    }
+
+    /**
+     * 读取文件的第column列
+     */
+    public static DoubleDoubleArray loadColumn(Path file, char separator, int column, boolean header)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return loadColumn(channel, separator, column, header);
+        }
+    }
+
+    /**
+     * 对文件的第column列求和
+     */
+    public static DoubleDouble sumColumn(Path file, char separator, int column, boolean header)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return sumColumn(channel, separator, column, header);
+        }
+    }
+
+    // 每次映射不超过mapSize字节，在最后一个换行处截断，剩下的部分下一次再映射
+    static void parse(FileChannel channel, char separator, int column, boolean header, Sink sink, int mapSize)
+            throws IOException {
+        long position = channel.position();
+        long size = channel.size();
+        while (position < size) {
+            long length = Math.min(size - position, mapSize);
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            int end = (int) length;
+            if (position + length < size) {
+                end = lastLineEnd(buf, end);
+                if (end == 0) {
+                    throw new IOException("line too long at byte " + position);
+                }
+                buf.limit(end);
+            }
+            parse(buf, position, separator, column, header, sink);
+            header = false;
+            position += end;
+        }
+    }
+
+    private static void parse(ByteBuffer buf, long base, char separator, int column, boolean header, Sink sink) {
+        if (column < 0) {
+            throw new IllegalArgumentException("column: " + column);
+        }
+        if (separator > 0x7f) {
+            throw new IllegalArgumentException("separator is not ASCII: " + separator);
+        }
+        int from = buf.position();
+        int to = buf.limit();
+        if (header) {
+            from = nextLine(buf, from, to);
+        }
+        ParseTask task = new ParseTask(buf, base, (byte) separator, column, from, to, sink);
+        Sink result;
+        try {
+            result = ForkJoinPool.commonPool().invoke(task);
+        } catch (NumberFormatException e) {
+            // 其他线程中抛出的异常被ForkJoinPool包装成了没有消息的同类型异常，把消息找回来
+            Throwable cause = e.getCause();
+            if (e.getMessage() == null && cause instanceof NumberFormatException) {
+                NumberFormatException rethrown = new NumberFormatException(cause.getMessage());
+                rethrown.initCause(cause);
+                throw rethrown;
+            }
+            throw e;
+        }
+        if (result != sink) {
+            sink.merge(result);
+        }
+    }
+
+    // 下一行开始的位置，没有换行时返回to
+    private static int nextLine(ByteBuffer buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return to;
+    }
+
+    // 最后一个换行之后的位置，没有换行时返回0
+    private static int lastLineEnd(ByteBuffer buf, int to) {
+        for (int i = to - 1; i >= 0; i--) {
+            if (buf.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    // 解析出来的值的去处，每个任务有自己的实例，最后按顺序合并
+    abstract static class Sink {
+        abstract void accept(double first, double second);
+
+        // 创建一个同样类型的空实例
+        abstract Sink create();
+
+        // 把other的值接在this的后面
+        abstract void merge(Sink other);
+    }
+
+    static final class SumSink extends Sink {
+        final DoubleDoubleExactAccumulator sum = new DoubleDoubleExactAccumulator();
+
+        @Override
+        void accept(double first, double second) {
+            sum.accept(first);
+            // 第二部分为0时总是+0.0，跳过它，否则-0的和会变成+0
+            if (second != 0) {
+                sum.accept(second);
+            }
+        }
+
+        @Override
+        Sink create() {
+            return new SumSink();
+        }
+
+        @Override
+        void merge(Sink other) {
+            sum.combine(((SumSink) other).sum);
+        }
+    }
+
+    // 分块保存，合并时只连接块的列表，最后一次复制到结果中
+    static final class ArraySink extends Sink {
+        private static final int BLOCK_SIZE = 1 << 12;
+
+        private final ArrayList<double[]> firstBlocks = new ArrayList<>();
+        private final ArrayList<double[]> secondBlocks = new ArrayList<>();
+        private final ArrayList<Integer> blockLengths = new ArrayList<>();
+        private double[] first;
+        private double[] second;
+        private int length;
+        private long size;
+
+        @Override
+        void accept(double first, double second) {
+            if (this.first == null || length == this.first.length) {
+                flush();
+                this.first = new double[BLOCK_SIZE];
+                this.second = new double[BLOCK_SIZE];
+            }
+            this.first[length] = first;
+            this.second[length] = second;
+            length++;
+            size++;
+        }
+
+        private void flush() {
+            if (length != 0) {
+                firstBlocks.add(first);
+                secondBlocks.add(second);
+                blockLengths.add(length);
+            }
+            first = null;
+            second = null;
+            length = 0;
+        }
+
+        @Override
+        Sink create() {
+            return new ArraySink();
+        }
+
+        @Override
+        void merge(Sink other) {
+            ArraySink rhs = (ArraySink) other;
+            flush();
+            rhs.flush();
+            firstBlocks.addAll(rhs.firstBlocks);
+            secondBlocks.addAll(rhs.secondBlocks);
+            blockLengths.addAll(rhs.blockLengths);
+            size += rhs.size;
+        }
+
+        DoubleDoubleArray toArray() {
+            flush();
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new OutOfMemoryError("too many values: " + size);
+            }
+            double[] first = new double[(int) size];
+            double[] second = new double[(int) size];
+            int pos = 0;
+            for (int i = 0; i < blockLengths.size(); i++) {
+                int n = blockLengths.get(i);
+                System.arraycopy(firstBlocks.get(i), 0, first, pos, n);
+                System.arraycopy(secondBlocks.get(i), 0, second, pos, n);
+                pos += n;
+            }
+            return DoubleDoubleArray.wrap(first, second, pos);
+        }
+    }
+
+    /*
+     * 解析[from, to)之间的行，from是一行的开始，to是一行的结尾之后或者文本的结尾
+     * 太长时在中间之后的第一个换行处分成两半
+     */
+    private static final class ParseTask extends RecursiveTask<Sink> {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer buf;
+        private final long base;
+        private final byte separator;
+        private final int column;
+        private final int from;
+        private final int to;
+        private final Sink sink;
+
+        ParseTask(ByteBuffer buf, long base, byte separator, int column, int from, int to, Sink sink) {
+            this.buf = buf;
+            this.base = base;
+            this.separator = separator;
+            this.column = column;
+            this.from = from;
+            this.to = to;
+            this.sink = sink;
+        }
+
+        @Override
+        protected Sink compute() {
+            if (to - from > PARALLEL_THRESHOLD) {
+                int mid = nextLine(buf, from + (to - from) / 2, to);
+                if (mid < to) {
+                    ParseTask left = new ParseTask(buf, base, separator, column, from, mid, sink.create());
+                    ParseTask right = new ParseTask(buf, base, separator, column, mid, to, sink.create());
+                    right.fork();
+                    Sink result = left.compute();
+                    result.merge(right.join());
+                    return result;
+                }
+            }
+            parseLines();
+            return sink;
+        }
+
+        private void parseLines() {
+            MutableDoubleDouble value = new MutableDoubleDouble();
+            int i = from;
+            while (i < to) {
+                int end = i;
+                while (end < to && buf.get(end) != '\n') {
+                    end++;
+                }
+                int lineEnd = end;
+                if (lineEnd > i && buf.get(lineEnd - 1) == '\r') {
+                    lineEnd--;
+                }
+                if (lineEnd > i) {
+                    parseLine(i, lineEnd, value);
+                    sink.accept(value.getFirst(), value.getSecond());
+                }
+                i = end + 1;
+            }
+        }
+
+        private void parseLine(int lineStart, int lineEnd, MutableDoubleDouble value) {
+            int start = lineStart;
+            for (int c = 0; c < column; c++) {
+                while (start < lineEnd && buf.get(start) != separator) {
+                    start++;
+                }
+                if (start == lineEnd) {
+                    throw new NumberFormatException("line at byte " + (base + lineStart)
+                            + ": no column " + column);
+                }
+                start++;
+            }
+            int end = start;
+            while (end < lineEnd && buf.get(end) != separator) {
+                end++;
+            }
+            try {
+                DoubleDoubleParser.parse(buf, start, end, value);
+            } catch (NumberFormatException e) {
+                throw new NumberFormatException("line at byte " + (base + lineStart) + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package ntysdd;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+public class DoubleDoubleCsvLoaderTest {
+    public static void test001() {
+        String text = "id,price,qty\r\n"
+                + "1,0.1,3\r\n"
+                + "2,-1.5E-3,4\n"
+                + "\n"
+                + "3,123456789.123456789123456789,5\r\n"
+                + "\r\n"
+                + "4,NaN,6";
+        ByteBuffer buf = ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+        DoubleDoubleArray prices = DoubleDoubleCsvLoader.loadColumn(buf, ',', 1, true);
+        assertEquals(4, prices.length());
+        assertEquals(DoubleDouble.parse("0.1"), prices.get(0));
+        assertEquals(DoubleDouble.parse("-1.5E-3"), prices.get(1));
+        assertEquals(DoubleDouble.parse("123456789.123456789123456789"), prices.get(2));
+        assertEquals(DoubleDouble.valueOf(Double.NaN), prices.get(3));
+        assertEquals(0, buf.position());
+
+        assertEquals(DoubleDouble.valueOf(18), DoubleDoubleCsvLoader.sumColumn(buf, ',', 2, true));
+        assertEquals(DoubleDouble.valueOf(10), DoubleDoubleCsvLoader.sumColumn(buf, ',', 0, true));
+        assertEquals(0, DoubleDoubleCsvLoader.loadColumn(ByteBuffer.allocate(0), ',', 0, true).length());
+
+        // 全是-0时和也是-0
+        ByteBuffer zeros = ByteBuffer.wrap("-0\n-0.0\n-0E5\n".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(DoubleDouble.valueOf(-0.0), DoubleDoubleCsvLoader.sumColumn(zeros, ',', 0, false));
+        zeros = ByteBuffer.wrap("-0\n0\n".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(DoubleDouble.ZERO, DoubleDoubleCsvLoader.sumColumn(zeros, ',', 0, false));
+
+        // 只读取position到limit之间的部分
+        buf.position(text.indexOf("2,"));
+        buf.limit(text.indexOf("\n3,") + 1);
+        assertEquals(DoubleDouble.valueOf(4), DoubleDoubleCsvLoader.sumColumn(buf, ',', 2, false));
+
+        String[] invalid = {"1,2\n3\n", "1,2\n3,x\n", "1,2\n3, 4\n", "1,2\n3,\n"};
+        for (String s : invalid) {
+            ByteBuffer b = ByteBuffer.wrap(s.getBytes(StandardCharsets.US_ASCII));
+            try {
+                DoubleDoubleCsvLoader.loadColumn(b, ',', 1, false);
+                throw new AssertionError(s);
+            } catch (NumberFormatException e) {
+                if (!e.getMessage().startsWith("line at byte 4:")) {
+                    throw new AssertionError(e.getMessage());
+                }
+            }
+        }
+    }
+
+    public static void test002() throws Exception {
+        // 足够大，会被分成多个任务并行解析
+        Random random = new Random(2);
+        StringBuilder sb = new StringBuilder();
+        List<DoubleDouble> expected = new ArrayList<>();
+        DoubleDoubleExactAccumulator sum = new DoubleDoubleExactAccumulator();
+        for (int i = 0; i < 100000; i++) {
+            String field;
+            switch (random.nextInt(3)) {
+                case 0:
+                    field = Integer.toString(random.nextInt(2000000) - 1000000);
+                    break;
+                case 1:
+                    field = Double.toString((random.nextDouble() - 0.5) * 1E6);
+                    break;
+                default:
+                    field = DoubleDouble.add(random.nextDouble(), random.nextDouble() * 1E-17).toString();
+                    break;
+            }
+            DoubleDouble value = DoubleDouble.parse(field);
+            expected.add(value);
+            sum.accept(value);
+            sb.append(i).append(';').append(field).append(';').append("x").append(random.nextBoolean() ? "\r\n" : "\n");
+        }
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+
+        for (ByteBuffer buf : new ByteBuffer[]{ByteBuffer.wrap(bytes), direct}) {
+            DoubleDoubleArray values = DoubleDoubleCsvLoader.loadColumn(buf, ';', 1, false);
+            assertEquals(expected.size(), values.length());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), values.get(i));
+            }
+            assertEquals(sum.get(), DoubleDoubleCsvLoader.sumColumn(buf, ';', 1, false));
+            assertEquals(sum.get(), new ForkJoinPool(3).invoke(ForkJoinTask.adapt(
+                    () -> DoubleDoubleCsvLoader.sumColumn(buf, ';', 1, false))));
+        }
+
+        Path file = Files.createTempFile("jdd", ".csv");
+        try {
+            Files.write(file, bytes);
+            DoubleDoubleArray values = DoubleDoubleCsvLoader.loadColumn(file, ';', 1, false);
+            assertEquals(expected.size(), values.length());
+            assertEquals(expected.get(expected.size() - 1), values.get(expected.size() - 1));
+            assertEquals(sum.get(), DoubleDoubleCsvLoader.sumColumn(file, ';', 1, false));
+            // 每次只映射一小段
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                for (int mapSize : new int[]{1000, 4096, 100000}) {
+                    DoubleDoubleCsvLoader.ArraySink sink = new DoubleDoubleCsvLoader.ArraySink();
+                    DoubleDoubleCsvLoader.parse(channel, ';', 1, false, sink, mapSize);
+                    values = sink.toArray();
+                    assertEquals(expected.size(), values.length());
+                    for (int i = 0; i < expected.size(); i++) {
+                        assertEquals(expected.get(i), values.get(i));
+                    }
+                }
+                try {
+                    DoubleDoubleCsvLoader.parse(channel, ';', 1, false, new DoubleDoubleCsvLoader.SumSink(), 10);
+                    throw new AssertionError();
+                } catch (IOException e) {
+                    // expected
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Method[] methods = Arrays.stream(DoubleDoubleCsvLoaderTest.class.getMethods())
+                .filter(m -> m.getName().matches("test[0-9]+")
+                        && m.getParameterCount() == 0)
+                .sorted(Comparator.comparing(Method::getName))
+                .toArray(Method[]::new);
+        for (Method method : methods) {
+            method.invoke(null);
+        }
+    }
+
+    private static void assertEquals(Object expected, Object actual) {
+        if ((expected == null) != (actual == null)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+        if (expected != null && !expected.equals(actual)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+    }
+}
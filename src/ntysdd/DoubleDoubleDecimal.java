@@ -0,0 +1,841 @@
+package ntysdd;
+
+import java.io.IOException;
+
+/**
+ * DoubleDouble转成十进制表示，只使用基本类型的运算，不使用BigDecimal
+ * 结果写到每个线程自己的缓冲区中，追加到StringBuilder或者复制到调用者的数组时不生成新对象
+ * 最短的意思是：按照first = round(d)、second = round(d - first)把十进制数d解析回来，
+ * 得到的仍然是原来的DoubleDouble，并且没有位数更少的d满足这个条件
+ * 先精确地求出满足条件的区间，再按照Burger和Dybvig的方法逐位生成数字，
+ * 位数相同时取离原来的值最近的数
+ * 常见的情况（值小于2^63，小数部分不超过116位）用两个long表示的定点数计算，
+ * 其他情况用定长int数组表示的大整数，每个线程复用自己的实例
+ * 指定有效数字的位数时，按照精确值逐位生成，再四舍五入
+ * 注意：
+ * second为0时，区间只有Double.MIN_VALUE那么宽，输出的通常是first的精确值
+ */
+final strictfp class DoubleDoubleDecimal {
+    private static final ThreadLocal<DoubleDoubleDecimal> INSTANCE =
+            ThreadLocal.withInitial(DoubleDoubleDecimal::new);
+
+    // 精确值的最高位不超过10^308，最低位不低于2^-1074，有效数字不超过1400位
+    // 最短表示的区间宽度不小于2^-1075，有效数字不超过640位
+    private static final int MAX_DIGITS = 1400;
+
+    private static final long LOW_MASK = (1L << 60) - 1;
+
+    private static final int[] POW_10 = {
+            1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000, 1000000000,
+    };
+
+    // 数字，值为0.d1d2...dn * 10^exponent
+    private final char[] digits = new char[MAX_DIGITS];
+    private int length;
+    private int exponent;
+    private final char[] text = new char[MAX_DIGITS + 32];
+
+    private final Big r = new Big();
+    private final Big s = new Big();
+    private final Big mp = new Big();
+    private final Big mm = new Big();
+    private final Big t = new Big();
+    // 区间的边界是否在区间内
+    private boolean lowOk;
+    private boolean highOk;
+
+    private DoubleDoubleDecimal() {
+    }
+
+    /**
+     * 返回DoubleDouble.toString()的结果
+     */
+    static String toString(double first, double second) {
+        String special = special(first, second);
+        if (special != null) {
+            return special;
+        }
+        if (isLong(first, second)) {
+            return Long.toString(toLong(first, second));
+        }
+        DoubleDoubleDecimal decimal = INSTANCE.get();
+        decimal.shortest(first, second);
+        return new String(decimal.text, 0, decimal.layout(first < 0));
+    }
+
+    /**
+     * 把DoubleDouble.toString()的结果追加到sb，不生成新对象
+     */
+    static void appendTo(StringBuilder sb, double first, double second) {
+        String special = special(first, second);
+        if (special != null) {
+            sb.append(special);
+            return;
+        }
+        if (isLong(first, second)) {
+            sb.append(toLong(first, second));
+            return;
+        }
+        DoubleDoubleDecimal decimal = INSTANCE.get();
+        decimal.shortest(first, second);
+        sb.append(decimal.text, 0, decimal.layout(first < 0));
+    }
+
+    /**
+     * 把DoubleDouble.toString()的结果逐个字符追加到out
+     */
+    static void appendTo(Appendable out, double first, double second) throws IOException {
+        if (out instanceof StringBuilder) {
+            appendTo((StringBuilder) out, first, second);
+            return;
+        }
+        String special = special(first, second);
+        if (special != null) {
+            out.append(special);
+            return;
+        }
+        DoubleDoubleDecimal decimal = INSTANCE.get();
+        int length;
+        if (isLong(first, second)) {
+            length = decimal.writeLong(toLong(first, second));
+        } else {
+            decimal.shortest(first, second);
+            length = decimal.layout(first < 0);
+        }
+        for (int i = 0; i < length; i++) {
+            out.append(decimal.text[i]);
+        }
+    }
+
+    /**
+     * 四舍五入到n位有效数字，写到buf中，返回长度，见DoubleDouble.format(int, char[])
+     */
+    static int format(double first, double second, int n, char[] buf) {
+        if (n < 1) {
+            throw new IllegalArgumentException("digits: " + n);
+        }
+        String special = special(first, second);
+        int length;
+        DoubleDoubleDecimal decimal = INSTANCE.get();
+        if (special != null) {
+            length = special.length();
+            special.getChars(0, length, decimal.text, 0);
+        } else {
+            decimal.round(first, second, Math.min(n, MAX_DIGITS));
+            length = decimal.layout(first < 0);
+        }
+        if (length > buf.length) {
+            throw new IndexOutOfBoundsException("length: " + length + ", buf.length: " + buf.length);
+        }
+        System.arraycopy(decimal.text, 0, buf, 0, length);
+        return length;
+    }
+
+    // 0、无穷大和NaN的表示，其他情况返回null
+    private static String special(double first, double second) {
+        if (first == 0 && second == 0) {
+            return Math.copySign(1, first) < 0 ? "-0" : "0";
+        }
+        if (Double.isNaN(first) || Double.isNaN(second)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(first)) {
+            return first > 0 ? "Infinity" : "-Infinity";
+        }
+        if (Double.isInfinite(second)) {
+            throw new AssertionError();
+        }
+        return null;
+    }
+
+    // first + second是否是long范围内的整数
+    private static boolean isLong(double first, double second) {
+        if (first != Math.rint(first) || second != Math.rint(second)) {
+            return false;
+        }
+        if (first == 0x1p63) {
+            return second < 0;
+        }
+        if (first == -0x1p63) {
+            return second >= 0;
+        }
+        return -0x1p63 < first && first < 0x1p63;
+    }
+
+    private static long toLong(double first, double second) {
+        if (first == 0x1p63) {
+            return Long.MAX_VALUE + ((long) second + 1);
+        }
+        return (long) first + (long) second;
+    }
+
+    /**
+     * 生成|first + second|的最短表示，first和second都是有限的，first不为0
+     */
+    private void shortest(double first, double second) {
+        if (first < 0) {
+            first = -first;
+            second = -second;
+        }
+        int q = interval(first, second);
+        if (q < 0 && first < 0x1p63 && fixedPoint(-q)) {
+            return;
+        }
+        generate(first, q);
+    }
+
+    /**
+     * 求出值r和上下的余量mp、mm，都是2^q的整数倍，返回q
+     */
+    private int interval(double first, double second) {
+        int firstUlp = ulpExponent(first);
+        if (second == 0 && firstUlp >= -323) {
+            // 区间的半径不超过2^-1075，而其他位数不多于first的精确值的十进制数与first至少相差10^firstUlp，
+            // 所以结果就是first的精确值
+            int q = Math.min(firstUlp, 0);
+            r.setDouble(first, firstUlp - q);
+            mp.setZero();
+            mm.setZero();
+            lowOk = true;
+            highOk = true;
+            return q;
+        }
+        int secondUlp = second == 0 ? -1074 : ulpExponent(second);
+        int q = Math.min(firstUlp, secondUlp) - 2;
+        r.setDouble(first, firstUlp - q);
+        t.setDouble(Math.abs(second), secondUlp - q);
+        if (second >= 0) {
+            r.add(t);
+        } else {
+            r.sub(t);
+        }
+
+        // first的舍入区间与first + second的舍入区间的交集
+        // 上界：min(first + gapUp(first) / 2, first + second + gapUp(second) / 2)
+        boolean firstEven = (Double.doubleToRawLongBits(first) & 1) == 0;
+        boolean secondEven = (Double.doubleToRawLongBits(second) & 1) == 0;
+        boolean firstPow2 = isNormalPowerOfTwo(first);
+        boolean secondPow2 = second != 0 && isNormalPowerOfTwo(second);
+        mp.setPow2(firstUlp - 1 - q);
+        if (second >= 0) {
+            mp.sub(t);
+        } else {
+            mp.add(t);
+        }
+        s.setPow2((second < 0 && secondPow2 ? secondUlp - 2 : secondUlp - 1) - q);
+        highOk = intersect(mp, s, firstEven, secondEven);
+        if (mp.isZero()) {
+            // second恰好使first + second是first与下一个数的中点，再往上first会变成下一个数，
+            // 但是second也会变成中点，规格化之后仍然是原来的值，所以上界由新的second的舍入区间决定
+            mp.setPow2((secondPow2 ? secondUlp - 2 : secondUlp - 1) - q);
+            highOk = secondEven;
+        }
+        // 下界：max(first - gapDown(first) / 2, first + second - gapDown(second) / 2)
+        mm.setPow2((firstPow2 ? firstUlp - 2 : firstUlp - 1) - q);
+        if (second >= 0) {
+            mm.add(t);
+        } else {
+            mm.sub(t);
+        }
+        s.setPow2((second > 0 && secondPow2 ? secondUlp - 2 : secondUlp - 1) - q);
+        lowOk = intersect(mm, s, firstEven, secondEven);
+        if (mm.isZero()) {
+            mm.setPow2((secondPow2 ? secondUlp - 2 : secondUlp - 1) - q);
+            lowOk = secondEven;
+        }
+        return q;
+    }
+
+    /**
+     * 常见情况的快速路径：值小于2^63，区间在两个相邻的整数之间，小数部分不超过116位
+     * 整数部分直接转成十进制，小数部分用两个long表示的定点数逐位生成，每次乘10之后取小数点以上的部分
+     * 返回false时什么也没有做
+     */
+    private boolean fixedPoint(int p) {
+        if (p > 116 || mp.bitLength() > p || mm.bitLength() > p) {
+            return false;
+        }
+        if (p < 60) {
+            r.shiftLeft(60 - p);
+            mp.shiftLeft(60 - p);
+            mm.shiftLeft(60 - p);
+            p = 60;
+        }
+        if (r.bitLength() > p + 63) {
+            return false;
+        }
+        // 2^60进制，x = xh * 2^60 + xl
+        long integer = r.bits(p, 63);
+        long xl = r.bits(0, 60);
+        long xh = r.bits(60, p - 60);
+        long pl = mp.bits(0, 60);
+        long ph = mp.bits(60, p - 60);
+        long ml = mm.bits(0, 60);
+        long mh = mm.bits(60, p - 60);
+        int shift = p - 60;
+        long one = 1L << shift;
+        // 区间不能包含整数
+        int low = compare(xh, xl, mh, ml);
+        if (lowOk ? low <= 0 : low < 0) {
+            return false;
+        }
+        long sl = xl + pl;
+        long sh = xh + ph + (sl >>> 60);
+        if (highOk ? sh >= one : sh > one || sh == one && (sl & LOW_MASK) != 0) {
+            return false;
+        }
+
+        length = 0;
+        exponent = 0;
+        if (integer != 0) {
+            int n = 0;
+            for (long v = integer; v != 0; v /= 10) {
+                n++;
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                digits[i] = (char) ('0' + integer % 10);
+                integer /= 10;
+            }
+            length = n;
+            exponent = n;
+        }
+        boolean sameMargin = ph == mh && pl == ml;
+        for (; ; ) {
+            long t = xl * 10;
+            xl = t & LOW_MASK;
+            xh = xh * 10 + (t >>> 60);
+            t = pl * 10;
+            pl = t & LOW_MASK;
+            ph = ph * 10 + (t >>> 60);
+            if (sameMargin) {
+                ml = pl;
+                mh = ph;
+            } else {
+                t = ml * 10;
+                ml = t & LOW_MASK;
+                mh = mh * 10 + (t >>> 60);
+            }
+            int d = (int) (xh >>> shift);
+            xh &= one - 1;
+            low = compare(xh, xl, mh, ml);
+            boolean tc1 = lowOk ? low <= 0 : low < 0;
+            sl = xl + pl;
+            sh = xh + ph + (sl >>> 60);
+            sl &= LOW_MASK;
+            boolean tc2 = highOk ? sh >= one : sh > one || sh == one && sl != 0;
+            if (!tc1 && !tc2) {
+                if (length == 0 && d == 0) {
+                    // 小数点后面的0
+                    exponent--;
+                } else {
+                    digits[length++] = (char) ('0' + d);
+                }
+                continue;
+            }
+            if (tc1 && tc2) {
+                // 两个都在区间内，取近的，一样近时取偶数
+                int c = compare((xh << 1) | (xl >>> 59), (xl << 1) & LOW_MASK, one, 0);
+                if (c > 0 || c == 0 && (d & 1) != 0) {
+                    d++;
+                }
+            } else if (tc2) {
+                d++;
+            }
+            digits[length++] = (char) ('0' + d);
+            return true;
+        }
+    }
+
+    private static int compare(long ah, long al, long bh, long bl) {
+        if (ah != bh) {
+            return ah < bh ? -1 : 1;
+        }
+        return al == bl ? 0 : al < bl ? -1 : 1;
+    }
+
+    /**
+     * 一般情况，值为r / s，上下的余量为mp / s和mm / s，其中s = 2^-q * 10^k
+     */
+    private void generate(double first, int q) {
+        if (q >= 0) {
+            r.shiftLeft(q);
+            mp.shiftLeft(q);
+            mm.shiftLeft(q);
+            s.setPow2(0);
+        } else {
+            s.setPow2(-q);
+        }
+        boolean sameMargin = mp.compareTo(mm) == 0;
+        Big m = sameMargin ? mp : mm;
+
+        // 使10^(k - 1) <= r + mp < 10^k
+        int k = (int) Math.ceil(Math.log10(first));
+        // s是2的整数幂时，商就是高位
+        int pow2 = Math.max(-q, 0);
+        if (k > 0) {
+            s.mulPow10(k);
+            pow2 = -1;
+        } else {
+            r.mulPow10(-k);
+            mp.mulPow10(-k);
+            if (!sameMargin) {
+                mm.mulPow10(-k);
+            }
+        }
+        while (compareSum(r, mp, s) >= (highOk ? 0 : 1)) {
+            s.mulPow10(1);
+            pow2 = -1;
+            k++;
+        }
+        for (; ; ) {
+            t.set(r);
+            t.add(mp);
+            t.mulPow10(1);
+            if (t.compareTo(s) >= (highOk ? 0 : 1)) {
+                break;
+            }
+            r.mulPow10(1);
+            mp.mulPow10(1);
+            if (!sameMargin) {
+                mm.mulPow10(1);
+            }
+            k--;
+        }
+        exponent = k;
+
+        length = 0;
+        for (; ; ) {
+            r.mulPow10(1);
+            mp.mulPow10(1);
+            if (!sameMargin) {
+                mm.mulPow10(1);
+            }
+            int d = pow2 >= 0 ? r.takeHighBits(pow2) : r.divRem(s);
+            int low = r.compareTo(m);
+            boolean tc1 = lowOk ? low <= 0 : low < 0;
+            boolean tc2 = compareSum(r, mp, s) >= (highOk ? 0 : 1);
+            if (!tc1 && !tc2) {
+                digits[length++] = (char) ('0' + d);
+                continue;
+            }
+            if (tc1 && tc2) {
+                // 两个都在区间内，取近的，一样近时取偶数
+                t.set(r);
+                t.shiftLeft(1);
+                int c = t.compareTo(s);
+                if (c > 0 || c == 0 && (d & 1) != 0) {
+                    d++;
+                }
+            } else if (tc2) {
+                d++;
+            }
+            digits[length++] = (char) ('0' + d);
+            break;
+        }
+    }
+
+    /**
+     * 把|first + second|的精确值四舍五入到n位有效数字，一样近时取偶数，去掉末尾的0
+     */
+    private void round(double first, double second, int n) {
+        if (first < 0) {
+            first = -first;
+            second = -second;
+        }
+        int firstUlp = ulpExponent(first);
+        int q = firstUlp;
+        r.setDouble(first, 0);
+        if (second != 0) {
+            int secondUlp = ulpExponent(second);
+            q = Math.min(firstUlp, secondUlp);
+            r.shiftLeft(firstUlp - q);
+            t.setDouble(Math.abs(second), secondUlp - q);
+            if (second > 0) {
+                r.add(t);
+            } else {
+                r.sub(t);
+            }
+        }
+        if (q >= 0) {
+            r.shiftLeft(q);
+            s.setPow2(0);
+        } else {
+            s.setPow2(-q);
+        }
+
+        // 使10^(k - 1) <= r / s < 10^k
+        int k = (int) Math.ceil(Math.log10(first));
+        int pow2 = Math.max(-q, 0);
+        if (k > 0) {
+            s.mulPow10(k);
+            pow2 = -1;
+        } else {
+            r.mulPow10(-k);
+        }
+        while (r.compareTo(s) >= 0) {
+            s.mulPow10(1);
+            pow2 = -1;
+            k++;
+        }
+        for (; ; ) {
+            t.set(r);
+            t.mulPow10(1);
+            if (t.compareTo(s) >= 0) {
+                break;
+            }
+            r.set(t);
+            k--;
+        }
+        exponent = k;
+
+        // 精确值是有限小数，位数不超过MAX_DIGITS
+        length = 0;
+        while (length < n && !r.isZero()) {
+            r.mulPow10(1);
+            int d = pow2 >= 0 ? r.takeHighBits(pow2) : r.divRem(s);
+            digits[length++] = (char) ('0' + d);
+        }
+        if (!r.isZero()) {
+            t.set(r);
+            t.shiftLeft(1);
+            int c = t.compareTo(s);
+            if (c > 0 || c == 0 && (digits[length - 1] & 1) != 0) {
+                int i = length - 1;
+                while (i >= 0 && digits[i] == '9') {
+                    i--;
+                }
+                if (i < 0) {
+                    digits[0] = '1';
+                    length = 1;
+                    exponent++;
+                } else {
+                    digits[i]++;
+                    length = i + 1;
+                }
+            }
+        }
+        while (digits[length - 1] == '0') {
+            length--;
+        }
+    }
+
+    // 两个余量取小的，返回边界是否在区间内
+    private static boolean intersect(Big margin, Big other, boolean firstEven, boolean secondEven) {
+        int c = margin.compareTo(other);
+        if (c < 0) {
+            return firstEven;
+        }
+        margin.set(other);
+        return c == 0 ? firstEven && secondEven : secondEven;
+    }
+
+    // (a + b)与c比较
+    private int compareSum(Big a, Big b, Big c) {
+        t.set(a);
+        t.add(b);
+        return t.compareTo(c);
+    }
+
+    /**
+     * 把数字按照BigDecimal.toString()的格式写到text中，返回长度
+     * 与toString()一致，long范围内的整数不用科学计数法
+     */
+    private int layout(boolean negative) {
+        char[] text = this.text;
+        int pos = 0;
+        if (negative) {
+            text[pos++] = '-';
+        }
+        if (length <= exponent && isLongDigits(negative)) {
+            System.arraycopy(digits, 0, text, pos, length);
+            pos += length;
+            for (int i = length; i < exponent; i++) {
+                text[pos++] = '0';
+            }
+            return pos;
+        }
+        int adjusted = exponent - 1;
+        if (length < exponent || adjusted < -6) {
+            // 科学计数法
+            text[pos++] = digits[0];
+            if (length > 1) {
+                text[pos++] = '.';
+                System.arraycopy(digits, 1, text, pos, length - 1);
+                pos += length - 1;
+            }
+            text[pos++] = 'E';
+            text[pos++] = adjusted < 0 ? '-' : '+';
+            return writeDigits(Math.abs(adjusted), pos);
+        }
+        if (exponent > 0) {
+            System.arraycopy(digits, 0, text, pos, exponent);
+            pos += exponent;
+            if (length == exponent) {
+                return pos;
+            }
+            text[pos++] = '.';
+            System.arraycopy(digits, exponent, text, pos, length - exponent);
+            return pos + length - exponent;
+        }
+        text[pos++] = '0';
+        text[pos++] = '.';
+        for (int i = exponent; i < 0; i++) {
+            text[pos++] = '0';
+        }
+        System.arraycopy(digits, 0, text, pos, length);
+        return pos + length;
+    }
+
+    // 整数digits * 10^(exponent - length)是否在long的范围内
+    private boolean isLongDigits(boolean negative) {
+        if (exponent < 19) {
+            return true;
+        }
+        if (exponent > 19) {
+            return false;
+        }
+        String limit = negative ? "9223372036854775808" : "9223372036854775807";
+        for (int i = 0; i < 19; i++) {
+            char c = i < length ? digits[i] : '0';
+            if (c != limit.charAt(i)) {
+                return c < limit.charAt(i);
+            }
+        }
+        return true;
+    }
+
+    private int writeLong(long value) {
+        int pos = 0;
+        if (value < 0) {
+            text[pos++] = '-';
+            if (value == Long.MIN_VALUE) {
+                "9223372036854775808".getChars(0, 19, text, pos);
+                return pos + 19;
+            }
+            value = -value;
+        }
+        return writeDigits(value, pos);
+    }
+
+    // 把非负整数写到text[pos]开始的位置，返回结束的位置
+    private int writeDigits(long value, int pos) {
+        int n = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            n++;
+        }
+        for (int i = pos + n - 1; i >= pos; i--) {
+            text[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + n;
+    }
+
+    // x的最低位的指数
+    private static int ulpExponent(double x) {
+        return Math.max(Math.getExponent(x), Double.MIN_EXPONENT) - 52;
+    }
+
+    // x是2的整数幂并且是正规数，这时下面的间距只有上面的一半
+    private static boolean isNormalPowerOfTwo(double x) {
+        long bits = Double.doubleToRawLongBits(x);
+        return (bits & 0xfffffffffffffL) == 0 && Math.getExponent(x) > Double.MIN_EXPONENT;
+    }
+
+    /**
+     * 非负的大整数，小端，每个元素32位
+     */
+    private static final class Big {
+        // 中间结果小于2^2110
+        private static final int CAPACITY = 72;
+        private static final long MASK = 0xffffffffL;
+
+        private final int[] limbs = new int[CAPACITY];
+        private int length;
+
+        void set(Big other) {
+            System.arraycopy(other.limbs, 0, limbs, 0, other.length);
+            length = other.length;
+        }
+
+        boolean isZero() {
+            return length == 0;
+        }
+
+        void setZero() {
+            length = 0;
+        }
+
+        int bitLength() {
+            return length == 0 ? 0 : 32 * length - Integer.numberOfLeadingZeros(limbs[length - 1]);
+        }
+
+        // 从第from位开始的count位，count不超过63
+        long bits(int from, int count) {
+            long result = 0;
+            int index = from >>> 5;
+            int shift = from & 31;
+            for (int i = 0; i < 3 && index + i < length; i++) {
+                long limb = limbs[index + i] & MASK;
+                int position = 32 * i - shift;
+                if (position >= 64) {
+                    break;
+                }
+                result |= position >= 0 ? limb << position : limb >>> -position;
+            }
+            return count == 0 ? 0 : result & (-1L >>> (64 - count));
+        }
+
+        // 返回第n位以上的部分，并把这部分清0
+        int takeHighBits(int n) {
+            int index = n >>> 5;
+            if (index >= length) {
+                return 0;
+            }
+            int shift = n & 31;
+            long high = (limbs[index] & MASK) >>> shift;
+            if (index + 1 < length) {
+                high |= (limbs[index + 1] & MASK) << (32 - shift);
+            }
+            limbs[index] &= (int) ((1L << shift) - 1);
+            length = index + 1;
+            trim();
+            return (int) high;
+        }
+
+        void setPow2(int n) {
+            int index = n >>> 5;
+            for (int i = 0; i < index; i++) {
+                limbs[i] = 0;
+            }
+            limbs[index] = 1 << (n & 31);
+            length = index + 1;
+        }
+
+        // 设为x的有效数字左移shift位，x是正的有限值
+        void setDouble(double x, int shift) {
+            long bits = Double.doubleToRawLongBits(x);
+            long m = bits & 0xfffffffffffffL;
+            if ((bits & 0x7ff0000000000000L) != 0) {
+                m |= 1L << 52;
+            }
+            limbs[0] = (int) m;
+            limbs[1] = (int) (m >>> 32);
+            length = 2;
+            trim();
+            shiftLeft(shift);
+        }
+
+        void shiftLeft(int n) {
+            if (length == 0 || n == 0) {
+                return;
+            }
+            int words = n >>> 5;
+            int bits = n & 31;
+            int[] a = limbs;
+            if (bits == 0) {
+                System.arraycopy(a, 0, a, words, length);
+            } else {
+                a[length + words] = a[length - 1] >>> (32 - bits);
+                for (int i = length - 1; i > 0; i--) {
+                    a[i + words] = (a[i] << bits) | (a[i - 1] >>> (32 - bits));
+                }
+                a[words] = a[0] << bits;
+                length++;
+            }
+            for (int i = 0; i < words; i++) {
+                a[i] = 0;
+            }
+            length += words;
+            trim();
+        }
+
+        void mulPow10(int n) {
+            while (n >= 9) {
+                mulSmall(POW_10[9]);
+                n -= 9;
+            }
+            if (n > 0) {
+                mulSmall(POW_10[n]);
+            }
+        }
+
+        private void mulSmall(int m) {
+            long carry = 0;
+            int[] a = limbs;
+            for (int i = 0; i < length; i++) {
+                long p = (a[i] & MASK) * m + carry;
+                a[i] = (int) p;
+                carry = p >>> 32;
+            }
+            if (carry != 0) {
+                a[length++] = (int) carry;
+            }
+        }
+
+        void add(Big other) {
+            int[] a = limbs;
+            int[] b = other.limbs;
+            int n = Math.max(length, other.length);
+            long carry = 0;
+            for (int i = 0; i < n; i++) {
+                long x = i < length ? a[i] & MASK : 0;
+                long y = i < other.length ? b[i] & MASK : 0;
+                long sum = x + y + carry;
+                a[i] = (int) sum;
+                carry = sum >>> 32;
+            }
+            length = n;
+            if (carry != 0) {
+                a[length++] = (int) carry;
+            }
+        }
+
+        // 减去other，this不小于other
+        void sub(Big other) {
+            int[] a = limbs;
+            int[] b = other.limbs;
+            long borrow = 0;
+            for (int i = 0; i < length; i++) {
+                long y = i < other.length ? b[i] & MASK : 0;
+                long diff = (a[i] & MASK) - y - borrow;
+                a[i] = (int) diff;
+                borrow = diff >>> 63;
+            }
+            if (borrow != 0) {
+                throw new AssertionError();
+            }
+            trim();
+        }
+
+        int compareTo(Big other) {
+            if (length != other.length) {
+                return length < other.length ? -1 : 1;
+            }
+            for (int i = length - 1; i >= 0; i--) {
+                if (limbs[i] != other.limbs[i]) {
+                    return Integer.compareUnsigned(limbs[i], other.limbs[i]) < 0 ? -1 : 1;
+                }
+            }
+            return 0;
+        }
+
+        // 除以divisor，自身变为余数，返回商，商小于10
+        int divRem(Big divisor) {
+            int d = 0;
+            while (compareTo(divisor) >= 0) {
+                sub(divisor);
+                d++;
+            }
+            if (d > 9) {
+                throw new AssertionError();
+            }
+            return d;
+        }
+
+        private void trim() {
+            while (length > 0 && limbs[length - 1] == 0) {
+                length--;
+            }
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package ntysdd;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+public class DoubleDoubleDecimalTest {
+    public static void test001() {
+        assertEquals("0", DoubleDouble.ZERO.toString());
+        assertEquals("-0", DoubleDouble.valueOf(-0.0).toString());
+        assertEquals("NaN", DoubleDouble.valueOf(Double.NaN).toString());
+        assertEquals("-Infinity", DoubleDouble.valueOf(Double.NEGATIVE_INFINITY).toString());
+        assertEquals("9223372036854775807", DoubleDouble.valueOf(Long.MAX_VALUE).toString());
+        assertEquals("-9223372036854775808", DoubleDouble.valueOf(Long.MIN_VALUE).toString());
+        assertEquals("0.5", DoubleDouble.valueOf(0.5).toString());
+        assertEquals("-1.5", DoubleDouble.valueOf(-1.5).toString());
+        assertEquals("1E+20", DoubleDouble.valueOf(1E20).toString());
+        assertEquals("1180591620717411303424", DoubleDouble.valueOf(0x1p70).toString());
+        assertEquals("9223372036854775808.5", DoubleDouble.add(0x1p63, 0.5).toString());
+        assertEquals("0.000001", nearest("0.000001").toString());
+        assertEquals("1E-7", nearest("1E-7").toString());
+        assertEquals("-1.234E-300", nearest("-1.234E-300").toString());
+        assertEquals("1.7976931348623157E+308", nearest("1.7976931348623157E308").toString());
+        // second为0时输出first的精确值
+        assertEquals(new BigDecimal(0.1).toString(), DoubleDouble.valueOf(0.1).toString());
+        assertEquals("5E-324", DoubleDouble.valueOf(Double.MIN_VALUE).toString());
+
+        String[] decimals = {
+                "0.1", "-0.3", "3.14159265358979323846264338328", "2.71828182845904523536028747135",
+                "12345.678901234567890123456789", "1E-300", "6.02214076E+23", "0.00001234",
+        };
+        for (String s : decimals) {
+            assertEquals(s, nearest(s).toString());
+        }
+    }
+
+    public static void test002() {
+        // 随机的值可以解析回原来的DoubleDouble，并且少一位时不行
+        Random random = new Random(0);
+        for (int i = 0; i < 20000; i++) {
+            double first;
+            switch (random.nextInt(3)) {
+                case 0:
+                    first = Double.longBitsToDouble(random.nextLong() & 0x7fefffffffffffffL);
+                    break;
+                case 1:
+                    first = Math.scalb(1 + random.nextDouble(), random.nextInt(100) - 50);
+                    break;
+                default:
+                    first = random.nextInt(1 << 20) * 0.001;
+                    break;
+            }
+            if (random.nextBoolean()) {
+                first = -first;
+            }
+            double ulp = Math.ulp(first);
+            double second;
+            switch (random.nextInt(4)) {
+                case 0:
+                    second = 0;
+                    break;
+                case 1:
+                    second = (random.nextDouble() - 0.5) * ulp;
+                    break;
+                case 2:
+                    second = Math.scalb(random.nextDouble() - 0.5, random.nextInt(200) - 100) * ulp;
+                    break;
+                default:
+                    second = (random.nextInt(5) - 2) * ulp / 4;
+                    break;
+            }
+            if (first + second != first) {
+                continue;
+            }
+            checkShortest(DoubleDouble.add(first, second));
+        }
+    }
+
+    public static void test003() {
+        // 边界附近
+        double[] firsts = {
+                1, 2, 0.5, 3, 10, 0.1, Double.MAX_VALUE, Double.MIN_NORMAL, Double.MIN_VALUE,
+                Double.MIN_NORMAL * 2, 0x1p-1000, 0x1p1000, Math.nextDown(1.0), Math.nextUp(1.0), 1E22, 1E23,
+        };
+        for (double first : firsts) {
+            double ulp = Math.ulp(first);
+            double[] seconds = {
+                    0, ulp / 2, -ulp / 2, ulp / 4, -ulp / 4, Math.nextDown(ulp / 2), -Math.nextDown(ulp / 2),
+                    Math.nextDown(ulp / 4), -Math.nextDown(ulp / 4), Double.MIN_VALUE, -Double.MIN_VALUE,
+                    ulp * 0x1p-60, -ulp * 0x1p-60,
+            };
+            for (double second : seconds) {
+                for (int sign = -1; sign <= 1; sign += 2) {
+                    if (first + second == first && !Double.isInfinite(first + second)) {
+                        checkShortest(DoubleDouble.add(sign * first, sign * second));
+                    }
+                }
+            }
+        }
+    }
+
+    public static void test004() {
+        // appendTo与toString()相同
+        Random random = new Random(4);
+        StringBuilder sb = new StringBuilder();
+        StringWriter writer = new StringWriter();
+        for (int i = 0; i < 5000; i++) {
+            DoubleDouble x = randomDoubleDouble(random);
+            sb.setLength(0);
+            sb.append('[');
+            assertEquals("[" + x, x.appendTo(sb).toString());
+            writer.getBuffer().setLength(0);
+            try {
+                x.appendTo((Appendable) writer);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            assertEquals(x.toString(), writer.toString());
+        }
+    }
+
+    public static void test005() {
+        // format与BigDecimal的舍入结果相同
+        Random random = new Random(5);
+        char[] buf = new char[1500];
+        for (int i = 0; i < 5000; i++) {
+            DoubleDouble x = randomDoubleDouble(random);
+            int digits = 1 + random.nextInt(random.nextBoolean() ? 40 : 1400);
+            String s = new String(buf, 0, x.format(digits, buf));
+            BigDecimal expected = x.toBigDecimal().round(new MathContext(digits)).stripTrailingZeros();
+            assertEquals(expected, new BigDecimal(s).stripTrailingZeros());
+            if (expected.scale() > 0 || expected.compareTo(new BigDecimal(Long.MAX_VALUE)) > 0
+                    || expected.compareTo(new BigDecimal(Long.MIN_VALUE)) < 0) {
+                assertEquals(expected.toString(), s);
+            } else {
+                assertEquals(expected.toBigInteger().toString(), s);
+            }
+        }
+    }
+
+    public static void test006() {
+        char[] buf = new char[64];
+        assertEquals("0.3333", format(DoubleDouble.ONE.div(3.0), 4, buf));
+        assertEquals("0.6667", format(DoubleDouble.TWO.div(3.0), 4, buf));
+        assertEquals("0.33333333333333333333333333333333", format(DoubleDouble.ONE.div(3.0), 32, new char[34]));
+        assertEquals("0.1", format(DoubleDouble.valueOf(0.1), 10, buf));
+        assertEquals("0.1000000000000000055511151231257827", format(DoubleDouble.valueOf(0.1), 34, buf));
+        // 一样近时取偶数
+        assertEquals("2", format(DoubleDouble.valueOf(2.5), 1, buf));
+        assertEquals("4", format(DoubleDouble.valueOf(3.5), 1, buf));
+        assertEquals("-0.12", format(DoubleDouble.valueOf(-0.125), 2, buf));
+        // 进位
+        assertEquals("1000", format(DoubleDouble.valueOf(999.5), 3, buf));
+        assertEquals("1E+20", format(DoubleDouble.valueOf(99999E15), 3, buf));
+        assertEquals("1E-7", format(DoubleDouble.valueOf(0.99999E-7), 3, buf));
+        assertEquals("9223372036854775807", format(DoubleDouble.valueOf(Long.MAX_VALUE), 30, buf));
+        assertEquals("1.84E+19", format(DoubleDouble.valueOf(0x1p64), 3, buf));
+        assertEquals("-9220000000000000000", format(DoubleDouble.valueOf(-0x1p63), 3, buf));
+        assertEquals("-0", format(DoubleDouble.valueOf(-0.0), 3, buf));
+        assertEquals("NaN", format(DoubleDouble.valueOf(Double.NaN), 3, buf));
+        assertEquals("Infinity", format(DoubleDouble.valueOf(Double.POSITIVE_INFINITY), 3, buf));
+
+        try {
+            DoubleDouble.ONE.format(0, buf);
+            throw new AssertionError();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            DoubleDouble.ONE.div(3.0).format(32, new char[33]);
+            throw new AssertionError();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Method[] methods = Arrays.stream(DoubleDoubleDecimalTest.class.getMethods())
+                .filter(m -> m.getName().matches("test[0-9]+")
+                        && m.getParameterCount() == 0)
+                .sorted(Comparator.comparing(Method::getName))
+                .toArray(Method[]::new);
+        for (Method method : methods) {
+            method.invoke(null);
+        }
+    }
+
+    private static void checkShortest(DoubleDouble x) {
+        String s = x.toString();
+        BigDecimal d = new BigDecimal(s);
+        if (!x.equals(nearest(d)) && !(x.getFirst() == 0 && d.signum() == 0)) {
+            throw new AssertionError("x: (" + x.getFirst() + ", " + x.getSecond() + "), toString: " + s);
+        }
+        int precision = d.stripTrailingZeros().precision();
+        if (precision > 1) {
+            BigDecimal exact = new BigDecimal(x.getFirst()).add(new BigDecimal(x.getSecond()));
+            for (RoundingMode mode : new RoundingMode[]{RoundingMode.FLOOR, RoundingMode.CEILING}) {
+                BigDecimal shorter = exact.round(new MathContext(precision - 1, mode));
+                if (x.equals(nearest(shorter))) {
+                    throw new AssertionError("x: (" + x.getFirst() + ", " + x.getSecond()
+                            + "), toString: " + s + ", shorter: " + shorter);
+                }
+            }
+        }
+    }
+
+    private static DoubleDouble randomDoubleDouble(Random random) {
+        for (; ; ) {
+            double first;
+            switch (random.nextInt(3)) {
+                case 0:
+                    first = Double.longBitsToDouble(random.nextLong() & 0x7fefffffffffffffL);
+                    break;
+                case 1:
+                    first = Math.scalb(1 + random.nextDouble(), random.nextInt(140) - 70);
+                    break;
+                default:
+                    first = random.nextInt(1 << 20) * 0.001;
+                    break;
+            }
+            if (random.nextBoolean()) {
+                first = -first;
+            }
+            double second = Math.scalb(random.nextDouble() - 0.5, random.nextInt(120) - 60) * Math.ulp(first);
+            if (random.nextInt(4) == 0) {
+                second = 0;
+            }
+            if (first + second == first) {
+                return DoubleDouble.add(first, second);
+            }
+        }
+    }
+
+    private static String format(DoubleDouble x, int digits, char[] buf) {
+        return new String(buf, 0, x.format(digits, buf));
+    }
+
+    private static DoubleDouble nearest(String s) {
+        return nearest(new BigDecimal(s));
+    }
+
+    // 离d最近的DoubleDouble：first = round(d)，second = round(d - first)
+    private static DoubleDouble nearest(BigDecimal d) {
+        double first = round(d);
+        double second = round(d.subtract(new BigDecimal(first)));
+        return DoubleDouble.add(first, second);
+    }
+
+    // 精确地舍入到最近的double，一样近时取偶数
+    private static double round(BigDecimal d) {
+        double x = d.doubleValue();
+        double best = x;
+        BigDecimal bestError = null;
+        for (double c : new double[]{Math.nextDown(x), x, Math.nextUp(x)}) {
+            if (Double.isInfinite(c)) {
+                continue;
+            }
+            BigDecimal error = d.subtract(new BigDecimal(c)).abs();
+            int cmp = bestError == null ? -1 : error.compareTo(bestError);
+            if (cmp < 0 || cmp == 0 && (Double.doubleToRawLongBits(c) & 1) == 0) {
+                best = c;
+                bestError = error;
+            }
+        }
+        return best;
+    }
+
+    private static void assertEquals(Object expected, Object actual) {
+        if ((expected == null) != (actual == null)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+        if (expected != null && !expected.equals(actual)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+    }
+}
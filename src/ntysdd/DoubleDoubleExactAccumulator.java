@@ -0,0 +1,298 @@
+package ntysdd;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.DoubleConsumer;
+
+/**
+ * 精确求和的累加器，结果是精确的和舍入到最近的DoubleDouble
+ * 适用情况：要求结果与求和的顺序无关，例如并行求和时，无论怎样划分、用多少线程，结果的每一位都相同
+ * 内部是覆盖整个double范围的定点数：从2^-1074开始，每32位一段，每段保存在一个long中，
+ * 一个double只会加到相邻的三段上，不需要逐段比较和传播进位，大约每2^30次累加之后处理一次进位
+ * 只有0、无穷大和NaN需要单独处理
+ * 和DoubleDoubleAccumulator相比，每一步稍慢，但是结果是精确的，合并的顺序也不影响结果
+ * 注意：
+ * 这个类不是线程安全的，并行计算时每个线程使用自己的累加器，最后用combine合并
+ * 输入中有NaN，或者同时有正无穷和负无穷时结果是NaN，否则有无穷时结果是对应的无穷
+ * 精确的和超出DoubleDouble的范围时结果是对应的无穷
+ */
+public final strictfp class DoubleDoubleExactAccumulator implements DoubleConsumer {
+    // 2^-1074到2^1024共2098位，再加上进位需要的空间
+    private static final int LIMBS = 68;
+    private static final long MASK = 0xffffffffL;
+    // 每段在两次进位之间最多累加的次数，保证不会溢出
+    private static final int CARRY_INTERVAL = 1 << 30;
+    // 并行求和时每个任务的最小长度
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    private final long[] limbs = new long[LIMBS];
+    private int pending;
+    private boolean nan;
+    private boolean positiveInfinity;
+    private boolean negativeInfinity;
+    // 除了-0.0以外是否还累加过其他数，用来决定结果是+0还是-0
+    private boolean empty = true;
+    private boolean negativeZero;
+
+    /**
+     * 创建一个值为0的累加器
+     */
+    public DoubleDoubleExactAccumulator() {
+    }
+
+    /**
+     * 精确地加上一个double
+     */
+    @Override
+    public void accept(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        int biased = (int) (bits >>> 52) & 0x7ff;
+        long m = bits & 0xfffffffffffffL;
+        if (biased == 0x7ff) {
+            if (m != 0) {
+                nan = true;
+            } else if (value > 0) {
+                positiveInfinity = true;
+            } else {
+                negativeInfinity = true;
+            }
+            return;
+        }
+        if (biased == 0 && m == 0) {
+            if (empty) {
+                negativeZero = bits < 0;
+                empty = false;
+            } else if (bits >= 0) {
+                negativeZero = false;
+            }
+            return;
+        }
+        empty = false;
+        negativeZero = false;
+        // value = m * 2^(shift - 1074)
+        int shift;
+        if (biased == 0) {
+            shift = 0;
+        } else {
+            m |= 1L << 52;
+            shift = biased - 1;
+        }
+        int index = shift >>> 5;
+        int r = shift & 31;
+        long lo = (m << r) & MASK;
+        long mid;
+        long hi;
+        if (r == 0) {
+            mid = m >>> 32;
+            hi = 0;
+        } else {
+            mid = (m >>> (32 - r)) & MASK;
+            hi = m >>> (64 - r);
+        }
+        long[] limbs = this.limbs;
+        if (bits < 0) {
+            limbs[index] -= lo;
+            limbs[index + 1] -= mid;
+            limbs[index + 2] -= hi;
+        } else {
+            limbs[index] += lo;
+            limbs[index + 1] += mid;
+            limbs[index + 2] += hi;
+        }
+        if (++pending == CARRY_INTERVAL) {
+            carry();
+        }
+    }
+
+    /**
+     * 精确地加上一个long
+     */
+    public void accept(long value) {
+        // 两部分都可以精确地转换成double
+        accept((double) (value & ~MASK));
+        accept((double) (value & MASK));
+    }
+
+    /**
+     * 精确地加上一个DoubleDouble
+     */
+    public void accept(DoubleDouble value) {
+        accept(value.getFirst());
+        // 第二部分为0时总是+0.0，跳过它，否则-0.0的和会变成+0.0
+        if (value.getSecond() != 0) {
+            accept(value.getSecond());
+        }
+    }
+
+    /**
+     * 精确地加上另一个累加器的和，other不变
+     */
+    public void combine(DoubleDoubleExactAccumulator other) {
+        carry();
+        other.carry();
+        for (int i = 0; i < LIMBS; i++) {
+            limbs[i] += other.limbs[i];
+        }
+        pending = 1;
+        nan |= other.nan;
+        positiveInfinity |= other.positiveInfinity;
+        negativeInfinity |= other.negativeInfinity;
+        if (!other.empty) {
+            negativeZero = empty ? other.negativeZero : negativeZero && other.negativeZero;
+            empty = false;
+        }
+    }
+
+    /**
+     * 返回精确的和舍入到最近的DoubleDouble，舍入的方式与DoubleExpansion.toDoubleDouble()相同
+     */
+    public DoubleDouble get() {
+        if (nan || positiveInfinity && negativeInfinity) {
+            return DoubleDouble.valueOf(Double.NaN);
+        }
+        if (positiveInfinity) {
+            return DoubleDouble.valueOf(Double.POSITIVE_INFINITY);
+        }
+        if (negativeInfinity) {
+            return DoubleDouble.valueOf(Double.NEGATIVE_INFINITY);
+        }
+        long[] v = limbs.clone();
+        carry(v);
+        int top = LIMBS - 1;
+        while (top >= 0 && v[top] == 0) {
+            top--;
+        }
+        if (top < 0) {
+            return DoubleDouble.valueOf(negativeZero ? -0.0 : 0.0);
+        }
+        boolean negative = v[top] < 0;
+        if (negative) {
+            for (int i = 0; i <= top; i++) {
+                v[i] = -v[i];
+            }
+            carry(v);
+            while (v[top] == 0) {
+                top--;
+            }
+        }
+        DoubleDouble result = round(v, top);
+        return negative ? result.neg() : result;
+    }
+
+    /**
+     * 重置为0
+     */
+    public void reset() {
+        Arrays.fill(limbs, 0);
+        pending = 0;
+        nan = false;
+        positiveInfinity = false;
+        negativeInfinity = false;
+        empty = true;
+        negativeZero = false;
+    }
+
+    @Override
+    public String toString() {
+        return get().toString();
+    }
+
+    /**
+     * 并行地精确求和，使用ForkJoinPool.commonPool()，结果与划分方式和线程数无关
+     */
+    public static DoubleDouble parallelSum(double[] values) {
+        return parallelSum(values, 0, values.length);
+    }
+
+    /**
+     * 并行地精确求和values[from]到values[to - 1]，结果与划分方式和线程数无关
+     */
+    public static DoubleDouble parallelSum(double[] values, int from, int to) {
+        if (from < 0 || from > to || to > values.length) {
+            throw new IndexOutOfBoundsException("from: " + from + ", to: " + to + ", length: " + values.length);
+        }
+        return ForkJoinPool.commonPool().invoke(new SumTask(values, from, to)).get();
+    }
+
+    /**
+     * 精确求和values[from]到values[to - 1]
+     */
+    public static DoubleDouble sum(double[] values, int from, int to) {
+        if (from < 0 || from > to || to > values.length) {
+            throw new IndexOutOfBoundsException("from: " + from + ", to: " + to + ", length: " + values.length);
+        }
+        DoubleDoubleExactAccumulator acc = new DoubleDoubleExactAccumulator();
+        for (int i = from; i < to; i++) {
+            acc.accept(values[i]);
+        }
+        return acc.get();
+    }
+
+    private static final class SumTask extends RecursiveTask<DoubleDoubleExactAccumulator> {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] values;
+        private final int from;
+        private final int to;
+
+        SumTask(double[] values, int from, int to) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected DoubleDoubleExactAccumulator compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                DoubleDoubleExactAccumulator acc = new DoubleDoubleExactAccumulator();
+                for (int i = from; i < to; i++) {
+                    acc.accept(values[i]);
+                }
+                return acc;
+            }
+            int middle = (from + to) >>> 1;
+            SumTask left = new SumTask(values, from, middle);
+            left.fork();
+            DoubleDoubleExactAccumulator right = new SumTask(values, middle, to).compute();
+            DoubleDoubleExactAccumulator result = left.join();
+            result.combine(right);
+            return result;
+        }
+    }
+
+    private void carry() {
+        if (pending != 0) {
+            carry(limbs);
+            pending = 0;
+        }
+    }
+
+    // 处理进位之后，除了最高的一段以外每段都在[0, 2^32)中，最高的一段有符号
+    private static void carry(long[] v) {
+        for (int i = 0; i < LIMBS - 1; i++) {
+            long c = v[i] >> 32;
+            v[i] -= c << 32;
+            v[i + 1] += c;
+        }
+    }
+
+    // v是正数，每段都在[0, 2^32)中，v[top]是最高的非0段
+    private static DoubleDouble round(long[] v, int top) {
+        int highestBit = 32 * top + 63 - Long.numberOfLeadingZeros(v[top]) - 1074;
+        if (highestBit >= 1024) {
+            return DoubleDouble.valueOf(Double.POSITIVE_INFINITY);
+        }
+        // 每段转成double都是精确的，并且互不重叠
+        double[] parts = new double[top + 1];
+        for (int i = 0; i <= top; i++) {
+            parts[i] = Math.scalb((double) v[i], 32 * i - 1074);
+        }
+        try {
+            return DoubleExpansion.sum(parts).toDoubleDouble();
+        } catch (ArithmeticException e) {
+            // 舍入之后超出了double的范围
+            return DoubleDouble.valueOf(Double.POSITIVE_INFINITY);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package ntysdd;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.DoubleStream;
+
+public class DoubleDoubleExactAccumulatorTest {
+    // 指数覆盖几乎整个double的范围，包括次正规数，留出空间使和不会上溢
+    private static double[] randomDoubles(Random random, int length) {
+        double[] values = new double[length];
+        for (int i = 0; i < values.length; i++) {
+            double v;
+            switch (random.nextInt(4)) {
+                case 0:
+                    v = Math.scalb(random.nextDouble(), random.nextInt(2070) - 1074);
+                    break;
+                case 1:
+                    v = Double.longBitsToDouble(random.nextLong() & 0xfffffffffffffL);
+                    break;
+                default:
+                    v = Math.scalb(random.nextDouble(), random.nextInt(200) - 100);
+                    break;
+            }
+            values[i] = random.nextBoolean() ? v : -v;
+        }
+        return values;
+    }
+
+    public static void test001() {
+        // 与DoubleExpansion的精确和相同
+        Random random = new Random(0);
+        for (int round = 0; round < 200; round++) {
+            double[] values = randomDoubles(random, random.nextInt(300));
+            DoubleDoubleExactAccumulator acc = new DoubleDoubleExactAccumulator();
+            for (double v : values) {
+                acc.accept(v);
+            }
+            DoubleDouble expected = values.length == 0 ? DoubleDouble.ZERO : DoubleExpansion.sum(values).toDoubleDouble();
+            assertEquals(expected, acc.get());
+            assertEquals(expected, DoubleDoubleExactAccumulator.sum(values, 0, values.length));
+        }
+    }
+
+    public static void test002() {
+        // 顺序和划分方式不影响结果
+        Random random = new Random(1);
+        double[] values = randomDoubles(random, 100000);
+        DoubleDouble expected = DoubleExpansion.sum(values).toDoubleDouble();
+        assertEquals(expected, DoubleDoubleExactAccumulator.parallelSum(values));
+        assertEquals(expected, new ForkJoinPool(3).invoke(
+                ForkJoinTask.adapt(() -> DoubleDoubleExactAccumulator.parallelSum(values))));
+        assertEquals(expected, DoubleDoubleCollectors.sumExact(DoubleStream.of(values).parallel()));
+        assertEquals(expected, Arrays.stream(values).parallel().mapToObj(DoubleDouble::valueOf)
+                .collect(DoubleDoubleCollectors.summingExact()));
+        for (int round = 0; round < 20; round++) {
+            double[] shuffled = values.clone();
+            for (int i = shuffled.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                double t = shuffled[i];
+                shuffled[i] = shuffled[j];
+                shuffled[j] = t;
+            }
+            // 随机划分成若干段，每段单独累加之后合并
+            DoubleDoubleExactAccumulator total = new DoubleDoubleExactAccumulator();
+            int from = 0;
+            while (from < shuffled.length) {
+                int to = Math.min(shuffled.length, from + random.nextInt(20000));
+                DoubleDoubleExactAccumulator part = new DoubleDoubleExactAccumulator();
+                for (int i = from; i < to; i++) {
+                    part.accept(shuffled[i]);
+                }
+                total.combine(part);
+                from = to;
+            }
+            assertEquals(expected, total.get());
+            assertEquals(expected, DoubleDoubleExactAccumulator.parallelSum(shuffled));
+        }
+    }
+
+    public static void test003() {
+        // 特殊值
+        assertEquals(DoubleDouble.ZERO, new DoubleDoubleExactAccumulator().get());
+        assertEquals(DoubleDouble.valueOf(-0.0), sum(-0.0, -0.0));
+        assertEquals(DoubleDouble.ZERO, sum(-0.0, 0.0));
+        assertEquals(DoubleDouble.ZERO, sum(1.0, -1.0));
+        assertEquals(DoubleDouble.valueOf(Double.NaN), sum(1, Double.NaN, 2));
+        assertEquals(DoubleDouble.valueOf(Double.NaN), sum(Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY));
+        assertEquals(DoubleDouble.valueOf(Double.NEGATIVE_INFINITY), sum(1, Double.NEGATIVE_INFINITY, 2));
+        assertEquals(DoubleDouble.valueOf(Double.POSITIVE_INFINITY), sum(Double.MAX_VALUE, Double.MAX_VALUE));
+        assertEquals(DoubleDouble.valueOf(Double.NEGATIVE_INFINITY), sum(-Double.MAX_VALUE, -Double.MAX_VALUE));
+        // 中间结果超出范围，最终结果不超出
+        assertEquals(DoubleDouble.valueOf(Double.MAX_VALUE),
+                sum(Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE));
+        assertEquals(DoubleDouble.valueOf(Double.MIN_VALUE),
+                sum(Double.MAX_VALUE, Double.MIN_VALUE, -Double.MAX_VALUE));
+        // 完全抵消
+        assertEquals(DoubleDouble.add(1.0, 3E-20), sum(1E300, 1.0, -1E300, 3E-20));
+        assertEquals(DoubleDouble.valueOf(-3.0), sum(Double.MIN_VALUE, -3.0, -Double.MIN_VALUE));
+
+        DoubleDoubleExactAccumulator lhs = new DoubleDoubleExactAccumulator();
+        DoubleDoubleExactAccumulator rhs = new DoubleDoubleExactAccumulator();
+        lhs.accept(-0.0);
+        lhs.combine(rhs);
+        assertEquals(DoubleDouble.valueOf(-0.0), lhs.get());
+        rhs.accept(0.0);
+        lhs.combine(rhs);
+        assertEquals(DoubleDouble.ZERO, lhs.get());
+        lhs.accept(Double.NaN);
+        lhs.reset();
+        assertEquals(DoubleDouble.ZERO, lhs.get());
+    }
+
+    public static void test004() {
+        // long和DoubleDouble
+        long[] longs = {0, 1, -1, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE - 1, Long.MIN_VALUE + 1,
+                (long) StrictMath.pow(2, 53) + 1, -(long) StrictMath.pow(2, 53) - 1};
+        for (long x : longs) {
+            for (long y : longs) {
+                DoubleDoubleExactAccumulator acc = new DoubleDoubleExactAccumulator();
+                acc.accept(x);
+                acc.accept(y);
+                DoubleExpansion expected = DoubleExpansion.valueOf(x).add(DoubleExpansion.valueOf(y));
+                assertEquals(expected.toDoubleDouble(), acc.get());
+            }
+        }
+        DoubleDoubleExactAccumulator acc = new DoubleDoubleExactAccumulator();
+        acc.accept(DoubleDouble.add(1.0, 1E-20));
+        acc.accept(DoubleDouble.add(-1.0, 1E-20));
+        assertEquals(DoubleDouble.valueOf(2E-20), acc.get());
+
+        // DoubleDouble的-0.0
+        acc = new DoubleDoubleExactAccumulator();
+        acc.accept(DoubleDouble.valueOf(-0.0));
+        assertEquals(DoubleDouble.valueOf(-0.0), acc.get());
+        acc.accept(DoubleDouble.valueOf(-0.0));
+        assertEquals(DoubleDouble.valueOf(-0.0), acc.get());
+        acc.accept(DoubleDouble.ZERO);
+        assertEquals(DoubleDouble.ZERO, acc.get());
+    }
+
+    public static void test005() {
+        double[] values = {1, 2, 3};
+        assertEquals(DoubleDouble.valueOf(5), DoubleDoubleExactAccumulator.parallelSum(values, 1, 3));
+        assertEquals(DoubleDouble.ZERO, DoubleDoubleExactAccumulator.sum(values, 3, 3));
+        int[][] ranges = {{-1, 2}, {2, 1}, {0, 4}};
+        for (int[] range : ranges) {
+            try {
+                DoubleDoubleExactAccumulator.parallelSum(values, range[0], range[1]);
+                throw new AssertionError();
+            } catch (IndexOutOfBoundsException e) {
+                // expected
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Method[] methods = Arrays.stream(DoubleDoubleExactAccumulatorTest.class.getMethods())
+                .filter(m -> m.getName().matches("test[0-9]+")
+                        && m.getParameterCount() == 0)
+                .sorted(Comparator.comparing(Method::getName))
+                .toArray(Method[]::new);
+        for (Method method : methods) {
+            method.invoke(null);
+        }
+    }
+
+    private static DoubleDouble sum(double... values) {
+        DoubleDoubleExactAccumulator acc = new DoubleDoubleExactAccumulator();
+        for (double v : values) {
+            acc.accept(v);
+        }
+        return acc.get();
+    }
+
+    private static void assertEquals(Object expected, Object actual) {
+        if ((expected == null) != (actual == null)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+        if (expected != null && !expected.equals(actual)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package ntysdd;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+
+/**
+ * 把十进制文本解析成DoubleDouble，与DoubleDoubleDecimal的输出对应
+ * 结果是十进制数d的first = round(d)、second = round(d - first)规范化之后的值，
+ * 所以toString()的结果可以解析回原来的DoubleDouble
+ * 有效数字不超过15位、10的指数不超过22时，d和10的幂都是精确的double，
+ * 一次乘法或除法得到round(d)，再用精确的余数求second
+ * 有效数字不超过36位、10的指数不超过44时，用浮点数展开精确地计算误差，逐步修正结果，
+ * 离舍入的边界太近时和其他情况一样用BigDecimal
+ * 每个线程复用自己的实例，常见的情况不生成中间对象
+ */
+final strictfp class DoubleDoubleParser {
+    private static final ThreadLocal<DoubleDoubleParser> INSTANCE =
+            ThreadLocal.withInitial(DoubleDoubleParser::new);
+
+    // 舍入的边界最多有1400位有效数字，更多的位只影响舍入的方向，用一个非0的数字代替
+    private static final int MAX_DIGITS = 1400;
+
+    private static final int FAST_DIGITS = 15;
+    private static final int FAST_EXPONENT = 22;
+    private static final int EXPANSION_DIGITS = 36;
+    private static final int EXPANSION_EXPONENT = 44;
+    // 展开的最大部分与整个数的相对误差，加上除以10的幂时的误差，留出足够的余量
+    private static final double MARGIN = 0x1p-48;
+    private static final int MAX_STEPS = 4;
+
+    private static final long[] LONG_POW_10 = new long[19];
+    // 10^k = POW_10_HIGH[k] + POW_10_LOW[k]，是两个精确的double的积
+    private static final double[] POW_10_HIGH = new double[EXPANSION_EXPONENT + 1];
+    private static final double[] POW_10_LOW = new double[EXPANSION_EXPONENT + 1];
+
+    static {
+        LONG_POW_10[0] = 1;
+        for (int i = 1; i < LONG_POW_10.length; i++) {
+            LONG_POW_10[i] = LONG_POW_10[i - 1] * 10;
+        }
+        // 10^22以内是精确的double，更大的是两个精确的double的积
+        double p = 1;
+        for (int i = 0; i <= FAST_EXPONENT; i++) {
+            POW_10_HIGH[i] = p;
+            p *= 10;
+        }
+        for (int i = FAST_EXPONENT + 1; i <= EXPANSION_EXPONENT; i++) {
+            double a = POW_10_HIGH[FAST_EXPONENT];
+            double b = POW_10_HIGH[i - FAST_EXPONENT];
+            POW_10_HIGH[i] = a * b;
+            POW_10_LOW[i] = DoubleDouble.productError(a, b, POW_10_HIGH[i]);
+        }
+    }
+
+    private final char[] digits = new char[MAX_DIGITS + 1];
+    // 有效数字的个数，不含开头和末尾的0
+    private int length;
+    // 值为digits表示的整数乘以10^exponent
+    private int exponent;
+    private boolean negative;
+
+    private CharSequence sequence;
+    private char[] chars;
+    private ByteBuffer bytes;
+
+    private final double[] value = new double[32];
+    private final double[] residual = new double[32];
+    private final double[] work = new double[32];
+
+    private double first;
+    private double second;
+
+    private DoubleDoubleParser() {
+    }
+
+    /**
+     * 解析s，见DoubleDouble.parse(CharSequence)
+     */
+    static DoubleDouble parse(CharSequence s) {
+        DoubleDoubleParser parser = INSTANCE.get();
+        parser.sequence = s;
+        try {
+            parser.parse(0, s.length());
+        } finally {
+            parser.sequence = null;
+        }
+        return DoubleDouble.ofNormalized(parser.first, parser.second);
+    }
+
+    /**
+     * 解析buf[from]到buf[to - 1]，见DoubleDouble.parse(char[], int, int)
+     */
+    static DoubleDouble parse(char[] buf, int from, int to) {
+        if (from < 0 || to > buf.length || from > to) {
+            throw new IndexOutOfBoundsException("from: " + from + ", to: " + to
+                    + ", length: " + buf.length);
+        }
+        DoubleDoubleParser parser = INSTANCE.get();
+        parser.chars = buf;
+        try {
+            parser.parse(from, to);
+        } finally {
+            parser.chars = null;
+        }
+        return DoubleDouble.ofNormalized(parser.first, parser.second);
+    }
+
+    /**
+     * 解析buf[from]到buf[to - 1]中的ASCII字符，结果存放在dst中，不生成新对象
+     * 只按绝对位置读取，不改变buf的position，多个线程可以同时解析同一个buf
+     */
+    static MutableDoubleDouble parse(ByteBuffer buf, int from, int to, MutableDoubleDouble dst) {
+        DoubleDoubleParser parser = INSTANCE.get();
+        parser.bytes = buf;
+        try {
+            parser.parse(from, to);
+        } finally {
+            parser.bytes = null;
+        }
+        return dst.setNormalized(parser.first, parser.second);
+    }
+
+    private char charAt(int i) {
+        if (chars != null) {
+            return chars[i];
+        }
+        if (bytes != null) {
+            return (char) (bytes.get(i) & 0xff);
+        }
+        return sequence.charAt(i);
+    }
+
+    // 格式与BigDecimal(String)相同，另外可以是NaN和Infinity，结果存放在first和second中
+    private void parse(int from, int to) {
+        int i = from;
+        negative = false;
+        if (i < to && (charAt(i) == '+' || charAt(i) == '-')) {
+            negative = charAt(i) == '-';
+            i++;
+        }
+        if (i < to && (charAt(i) == 'N' || charAt(i) == 'I')) {
+            if (matches(i, to, "NaN")) {
+                first = Double.NaN;
+                second = Double.NaN;
+                return;
+            }
+            if (matches(i, to, "Infinity")) {
+                first = negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+                second = 0;
+                return;
+            }
+            throw error(from, to);
+        }
+
+        length = 0;
+        exponent = 0;
+        boolean point = false;
+        boolean anyDigit = false;
+        boolean sticky = false;
+        for (; i < to; i++) {
+            char c = charAt(i);
+            if (c >= '0' && c <= '9') {
+                anyDigit = true;
+                if (point) {
+                    exponent--;
+                }
+                if (length == 0 && c == '0') {
+                    continue;
+                }
+                if (length < MAX_DIGITS) {
+                    digits[length++] = c;
+                } else {
+                    exponent++;
+                    sticky |= c != '0';
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (!anyDigit) {
+            throw error(from, to);
+        }
+        if (i < to && (charAt(i) == 'e' || charAt(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (charAt(i) == '+' || charAt(i) == '-')) {
+                negativeExponent = charAt(i) == '-';
+                i++;
+            }
+            if (i == to) {
+                throw error(from, to);
+            }
+            int e = 0;
+            for (; i < to; i++) {
+                char c = charAt(i);
+                if (c < '0' || c > '9') {
+                    throw error(from, to);
+                }
+                // 超出范围的指数不影响结果，只要不溢出
+                if (e < 100000000) {
+                    e = e * 10 + (c - '0');
+                }
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+        if (i != to) {
+            throw error(from, to);
+        }
+        if (sticky) {
+            digits[length++] = '1';
+            exponent--;
+        } else {
+            while (length > 0 && digits[length - 1] == '0') {
+                length--;
+                exponent++;
+            }
+        }
+        convert();
+    }
+
+    private boolean matches(int from, int to, String s) {
+        if (to - from != s.length()) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (charAt(from + i) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private NumberFormatException error(int from, int to) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            sb.append(charAt(i));
+        }
+        return new NumberFormatException("For input string: \"" + sb + "\"");
+    }
+
+    private void convert() {
+        if (length == 0) {
+            first = negative ? -0.0 : 0.0;
+            second = 0;
+            return;
+        }
+        if (length + exponent > 309) {
+            // 至少是10^309
+            first = Double.POSITIVE_INFINITY;
+            second = 0;
+        } else if (length + exponent < -324) {
+            // 小于10^-325，不到Double.MIN_VALUE的一半
+            first = 0;
+            second = 0;
+        } else if (!fastPath() && !expansionPath()) {
+            bigDecimalPath();
+        }
+        if (negative) {
+            first = -first;
+            second = -second;
+        }
+    }
+
+    // first = round(d)，second = round(d - first)，second正好是半个间隔时需要规范化
+    private void setResult(double f, double s) {
+        double sum = f + s;
+        if (Double.isInfinite(sum)) {
+            first = sum;
+            second = 0;
+        } else {
+            first = sum;
+            second = DoubleDouble.addError(f, s, sum);
+        }
+    }
+
+    // digits[from]到digits[to - 1]表示的整数，不超过18位
+    private long toLong(int from, int to) {
+        long v = 0;
+        for (int i = from; i < to; i++) {
+            v = v * 10 + (digits[i] - '0');
+        }
+        return v;
+    }
+
+    /*
+     * 乘法的结果就是round(d)，舍入误差精确地就是d - round(d)
+     * 除法的结果也是round(d)，余数d - first * p可以精确地表示，除以p得到round(d - first)
+     */
+    private boolean fastPath() {
+        if (length > FAST_DIGITS || exponent < -FAST_EXPONENT || exponent > FAST_EXPONENT) {
+            return false;
+        }
+        double d = toLong(0, length);
+        if (exponent >= 0) {
+            double p = POW_10_HIGH[exponent];
+            double f = d * p;
+            setResult(f, DoubleDouble.productError(d, p, f));
+        } else {
+            double p = POW_10_HIGH[-exponent];
+            double f = d / p;
+            double product = f * p;
+            double r = (d - product) - DoubleDouble.productError(f, p, product);
+            setResult(f, r / p);
+        }
+        return true;
+    }
+
+    /*
+     * d = value / p，value和p都精确地表示成浮点数展开
+     * 先取first的近似值，用精确的余数value - first * p判断它是不是round(d)，不是的话移到相邻的double，
+     * second也一样处理，误差离半个间隔太近时返回false
+     */
+    private boolean expansionPath() {
+        if (length > EXPANSION_DIGITS || exponent < -EXPANSION_EXPONENT || exponent > EXPANSION_EXPONENT) {
+            return false;
+        }
+        double[] value = this.value;
+        int n;
+        if (length <= 18) {
+            n = growLong(value, 0, toLong(0, length));
+        } else {
+            long high = toLong(0, length - 18);
+            double pow = LONG_POW_10[18];
+            double hh = (double) high;
+            double hl = (double) (high - (long) hh);
+            n = growProduct(value, 0, hh, pow);
+            n = growProduct(value, n, hl, pow);
+            n = growLong(value, n, toLong(length - 18, length));
+        }
+        n = DoubleExpansion.compress(value, n);
+        double ph = 1;
+        double pl = 0;
+        if (exponent > 0) {
+            // 乘以10的幂也是精确的
+            double[] work = this.work;
+            int m = 0;
+            for (int i = 0; i < n; i++) {
+                m = growProduct(work, m, value[i], POW_10_HIGH[exponent]);
+                m = growProduct(work, m, value[i], POW_10_LOW[exponent]);
+            }
+            n = DoubleExpansion.compress(work, m);
+            System.arraycopy(work, 0, value, 0, n);
+        } else if (exponent < 0) {
+            ph = POW_10_HIGH[-exponent];
+            pl = POW_10_LOW[-exponent];
+        }
+
+        double f = value[n - 1] / ph;
+        double r;
+        int rn;
+        for (int step = 0; ; step++) {
+            if (step == MAX_STEPS) {
+                return false;
+            }
+            rn = subtractProduct(value, n, residual, f, ph, pl);
+            r = rn == 0 ? 0 : residual[rn - 1] / ph;
+            if (r == 0) {
+                setResult(f, 0);
+                return true;
+            }
+            double next = r > 0 ? Math.nextUp(f) : Math.nextDown(f);
+            int c = compareHalfGap(r, next - f);
+            if (c < 0) {
+                break;
+            }
+            if (c == 0) {
+                return false;
+            }
+            f = next;
+        }
+        double s = r;
+        for (int step = 0; ; step++) {
+            if (step == MAX_STEPS) {
+                return false;
+            }
+            int wn = subtractProduct(residual, rn, work, s, ph, pl);
+            double e = wn == 0 ? 0 : work[wn - 1] / ph;
+            if (e == 0) {
+                break;
+            }
+            double next = e > 0 ? Math.nextUp(s) : Math.nextDown(s);
+            int c = compareHalfGap(e, next - s);
+            if (c < 0) {
+                break;
+            }
+            if (c == 0) {
+                return false;
+            }
+            s = next;
+        }
+        setResult(f, s);
+        return true;
+    }
+
+    // 误差error与半个间隔gap / 2比较，离得太近时返回0
+    private static int compareHalfGap(double error, double gap) {
+        double a = Math.abs(error);
+        double half = Math.abs(gap) / 2;
+        if (a < half * (1 - MARGIN)) {
+            return -1;
+        }
+        if (a > half * (1 + MARGIN)) {
+            return 1;
+        }
+        return 0;
+    }
+
+    // 把src的前n个部分复制到dst，减去x * (ph + pl)，压缩之后返回部分数
+    private static int subtractProduct(double[] src, int n, double[] dst, double x, double ph, double pl) {
+        System.arraycopy(src, 0, dst, 0, n);
+        n = growProduct(dst, n, -x, ph);
+        if (pl != 0) {
+            n = growProduct(dst, n, -x, pl);
+        }
+        return DoubleExpansion.compress(dst, n);
+    }
+
+    // 把a * b精确地加到展开e上
+    private static int growProduct(double[] e, int n, double a, double b) {
+        double p = a * b;
+        if (p == 0) {
+            return n;
+        }
+        n = DoubleExpansion.grow(e, n, DoubleDouble.productError(a, b, p));
+        return DoubleExpansion.grow(e, n, p);
+    }
+
+    // 把不超过18位的非负整数精确地加到展开e上
+    private static int growLong(double[] e, int n, long v) {
+        double high = (double) v;
+        n = DoubleExpansion.grow(e, n, (double) (v - (long) high));
+        return DoubleExpansion.grow(e, n, high);
+    }
+
+    private void bigDecimalPath() {
+        BigDecimal d = new BigDecimal(digits, 0, length).scaleByPowerOfTen(exponent);
+        double f = d.doubleValue();
+        if (Double.isInfinite(f)) {
+            first = f;
+            second = 0;
+            return;
+        }
+        setResult(f, d.subtract(new BigDecimal(f)).doubleValue());
+    }
+}
@@ -0,0 +1,200 @@
+package ntysdd;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+public class DoubleDoubleParserTest {
+    public static void test001() {
+        assertEquals(DoubleDouble.ZERO, DoubleDouble.parse("0"));
+        assertEquals(DoubleDouble.valueOf(-0.0), DoubleDouble.parse("-0.000"));
+        assertEquals(DoubleDouble.valueOf(-0.0), DoubleDouble.parse("-1E-400"));
+        assertEquals(DoubleDouble.valueOf(Double.NaN), DoubleDouble.parse("NaN"));
+        assertEquals(DoubleDouble.valueOf(Double.POSITIVE_INFINITY), DoubleDouble.parse("Infinity"));
+        assertEquals(DoubleDouble.valueOf(Double.NEGATIVE_INFINITY), DoubleDouble.parse("-Infinity"));
+        assertEquals(DoubleDouble.valueOf(Double.POSITIVE_INFINITY), DoubleDouble.parse("1E309"));
+        assertEquals(DoubleDouble.valueOf(Double.POSITIVE_INFINITY), DoubleDouble.parse("1E999999999999"));
+        assertEquals(DoubleDouble.ONE, DoubleDouble.parse("+1"));
+        assertEquals(DoubleDouble.valueOf(0.5), DoubleDouble.parse(".5"));
+        assertEquals(DoubleDouble.valueOf(12), DoubleDouble.parse("12."));
+        assertEquals(DoubleDouble.valueOf(1234.5), DoubleDouble.parse("1.2345e3"));
+        assertEquals(DoubleDouble.valueOf(Long.MAX_VALUE), DoubleDouble.parse("9223372036854775807"));
+        assertEquals(DoubleDouble.valueOf(Long.MIN_VALUE), DoubleDouble.parse("-9223372036854775808"));
+        assertEquals(DoubleDouble.valueOf(Double.MIN_VALUE), DoubleDouble.parse("4.9E-324"));
+        assertEquals(DoubleDouble.valueOf(Double.MAX_VALUE), DoubleDouble.parse(new BigDecimal(Double.MAX_VALUE).toString()));
+
+        String[] decimals = {
+                "0.1", "-0.3", "3.14159265358979323846264338327950288", "1E23", "6.02214076E+23",
+                "123456789012345678901234567890", "0.000000000000000000000000000000000000000000000001",
+                "1E-300", "2.2250738585072011E-308", "1.7976931348623158E308", "9007199254740993",
+        };
+        for (String s : decimals) {
+            assertEquals(nearest(new BigDecimal(s)), DoubleDouble.parse(s));
+        }
+
+        char[] buf = "[-1.25E-1]".toCharArray();
+        assertEquals(DoubleDouble.valueOf(-0.125), DoubleDouble.parse(buf, 1, buf.length - 1));
+        assertEquals(DoubleDouble.parse("1.3"), DoubleDouble.parse(new StringBuilder("1.3")));
+
+        String[] invalid = {"", "-", ".", "e5", "1e", "1e+", "1.2.3", "1 ", " 1", "0x10", "Inf", "nan", "1,5", "--1"};
+        for (String s : invalid) {
+            try {
+                DoubleDouble.parse(s);
+                throw new AssertionError(s);
+            } catch (NumberFormatException e) {
+                // expected
+            }
+        }
+        int[][] ranges = {{-1, 2}, {2, 1}, {0, 11}};
+        for (int[] range : ranges) {
+            try {
+                DoubleDouble.parse(buf, range[0], range[1]);
+                throw new AssertionError();
+            } catch (IndexOutOfBoundsException e) {
+                // expected
+            }
+        }
+    }
+
+    public static void test002() {
+        // toString()的结果可以解析回原来的值
+        Random random = new Random(2);
+        for (int i = 0; i < 20000; i++) {
+            DoubleDouble x = randomDoubleDouble(random);
+            assertEquals(x, DoubleDouble.parse(x.toString()));
+        }
+    }
+
+    public static void test003() {
+        // 随机的十进制数，覆盖各种位数和指数
+        Random random = new Random(3);
+        for (int i = 0; i < 5000; i++) {
+            int length = 1 + random.nextInt(random.nextBoolean() ? 20 : 60);
+            StringBuilder sb = new StringBuilder();
+            if (random.nextBoolean()) {
+                sb.append('-');
+            }
+            sb.append((char) ('1' + random.nextInt(9)));
+            for (int j = 1; j < length; j++) {
+                // 多一些0和9，使数接近舍入的边界
+                int c = random.nextInt(14);
+                sb.append(c < 10 ? (char) ('0' + c) : c < 12 ? '0' : '9');
+            }
+            int exponent = random.nextBoolean() ? random.nextInt(100) - 50 : random.nextInt(660) - 340;
+            sb.append('E').append(exponent);
+            String s = sb.toString();
+            assertEquals(s, nearest(new BigDecimal(s)), DoubleDouble.parse(s));
+        }
+    }
+
+    public static void test004() {
+        // 正好在舍入的边界上，以及离边界很近
+        Random random = new Random(4);
+        BigDecimal tiny = new BigDecimal("1E-1200");
+        for (int i = 0; i < 1000; i++) {
+            DoubleDouble x = randomDoubleDouble(random);
+            double second = x.getSecond();
+            if (second == 0 || Math.getExponent(second) < -1000) {
+                continue;
+            }
+            BigDecimal exact = x.toBigDecimal();
+            BigDecimal[] boundaries = {
+                    exact.add(new BigDecimal(Math.ulp(second) / 2)),
+                    exact.subtract(new BigDecimal(Math.ulp(second) / 2)),
+                    exact.add(new BigDecimal(Math.ulp(x.getFirst()) / 2)),
+            };
+            for (BigDecimal b : boundaries) {
+                for (BigDecimal d : new BigDecimal[]{b, b.add(tiny), b.subtract(tiny)}) {
+                    String s = d.toString();
+                    assertEquals(s, nearest(d), DoubleDouble.parse(s));
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Method[] methods = Arrays.stream(DoubleDoubleParserTest.class.getMethods())
+                .filter(m -> m.getName().matches("test[0-9]+")
+                        && m.getParameterCount() == 0)
+                .sorted(Comparator.comparing(Method::getName))
+                .toArray(Method[]::new);
+        for (Method method : methods) {
+            method.invoke(null);
+        }
+    }
+
+    private static DoubleDouble randomDoubleDouble(Random random) {
+        for (; ; ) {
+            double first;
+            switch (random.nextInt(3)) {
+                case 0:
+                    first = Double.longBitsToDouble(random.nextLong() & 0x7fefffffffffffffL);
+                    break;
+                case 1:
+                    first = Math.scalb(1 + random.nextDouble(), random.nextInt(140) - 70);
+                    break;
+                default:
+                    first = random.nextInt(1 << 20) * 0.001;
+                    break;
+            }
+            if (random.nextBoolean()) {
+                first = -first;
+            }
+            double second = Math.scalb(random.nextDouble() - 0.5, random.nextInt(120) - 60) * Math.ulp(first);
+            if (random.nextInt(4) == 0) {
+                second = 0;
+            }
+            if (first + second == first) {
+                return DoubleDouble.add(first, second);
+            }
+        }
+    }
+
+    // 离d最近的DoubleDouble：first = round(d)，second = round(d - first)
+    private static DoubleDouble nearest(BigDecimal d) {
+        double first = round(d);
+        if (Double.isInfinite(first)) {
+            return DoubleDouble.valueOf(first);
+        }
+        if (first == 0) {
+            return DoubleDouble.valueOf(d.signum() < 0 ? -0.0 : 0.0);
+        }
+        double second = round(d.subtract(new BigDecimal(first)));
+        return DoubleDouble.add(first, second);
+    }
+
+    // 精确地舍入到最近的double，一样近时取偶数
+    private static double round(BigDecimal d) {
+        double x = d.doubleValue();
+        if (Double.isInfinite(x)) {
+            return x;
+        }
+        double best = x;
+        BigDecimal bestError = null;
+        for (double c : new double[]{Math.nextDown(x), x, Math.nextUp(x)}) {
+            if (Double.isInfinite(c)) {
+                continue;
+            }
+            BigDecimal error = d.subtract(new BigDecimal(c)).abs();
+            int cmp = bestError == null ? -1 : error.compareTo(bestError);
+            if (cmp < 0 || cmp == 0 && (Double.doubleToRawLongBits(c) & 1) == 0) {
+                best = c;
+                bestError = error;
+            }
+        }
+        return best;
+    }
+
+    private static void assertEquals(Object expected, Object actual) {
+        assertEquals("", expected, actual);
+    }
+
+    private static void assertEquals(String message, Object expected, Object actual) {
+        if ((expected == null) != (actual == null) || expected != null && !expected.equals(actual)) {
+            String msg = message + " expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+    }
+}
@@ -592,6 +592,289 @@ public class DoubleDoubleTest {
         assertEquals(NEG_INF, NEG_INF.mul(Long.MAX_VALUE));
     }
 
+    public static void test017() {
+        assertSameObject(ZERO, DoubleDouble.sum(new double[0]));
+        assertEquals(NEG_ZERO, DoubleDouble.sum(new double[]{-0.0, -0.0}));
+        assertEquals(ZERO, DoubleDouble.sum(new double[]{-0.0, 0.0}));
+        assertEquals(DoubleDouble.valueOf(Double.NaN), DoubleDouble.sum(new double[]{1, Double.NaN, 2}));
+        assertEquals(DoubleDouble.valueOf(Double.NaN),
+                DoubleDouble.sum(new double[]{Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY}));
+        assertEquals(DoubleDouble.valueOf(Double.POSITIVE_INFINITY),
+                DoubleDouble.sum(new double[]{1, Double.POSITIVE_INFINITY, 1E300}));
+        assertEquals(DoubleDouble.add(1.0, 1E-30), DoubleDouble.sum(new double[]{1E30, 1, 1E-30, -1E30}));
+        assertEquals(DoubleDouble.valueOf(3), DoubleDouble.sum(new double[]{5, 1, 2, 9}, 1, 3));
+        try {
+            DoubleDouble.sum(new double[3], 2, 4);
+            throw new AssertionError();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+
+        // 和BigDecimal精确求和的结果比较，包括大量相互抵消的情况
+        Random random = new Random(0);
+        for (int round = 0; round < 20; round++) {
+            int n = 1 + random.nextInt(100000);
+            double[] v = new double[n];
+            BigDecimal exact = BigDecimal.ZERO;
+            for (int i = 0; i < n; i++) {
+                double x = (random.nextDouble() - 0.5) * StrictMath.pow(2, random.nextInt(80) - 40);
+                if (round % 2 == 1 && i % 2 == 1) {
+                    x = -v[i - 1] * (1 + random.nextGaussian() * 1E-12);
+                }
+                v[i] = x;
+                exact = exact.add(new BigDecimal(x));
+            }
+            double[] copy = v.clone();
+            DoubleDouble sum = DoubleDouble.sum(v);
+            assertEquals(Arrays.toString(copy), Arrays.toString(v));
+            DoubleDouble expected = fromBigDecimal(exact);
+            BigDecimal error = sum.toBigDecimal().subtract(exact).abs();
+            BigDecimal bound = exact.abs().multiply(new BigDecimal(StrictMath.pow(2, -104)));
+            if (!expected.equals(sum) && error.compareTo(bound) > 0) {
+                throw new AssertionError("expected: " + expected + ", actual: " + sum);
+            }
+        }
+    }
+
+    public static void test018() {
+        // 大数组的排序与原来用Double[]和Comparator排序的结果相同
+        Random random = new Random(1);
+        for (int round = 0; round < 100; round++) {
+            double[] v = new double[1 + random.nextInt(1000)];
+            for (int i = 0; i < v.length; i++) {
+                switch (random.nextInt(6)) {
+                    case 0:
+                        v[i] = Double.NaN;
+                        break;
+                    case 1:
+                        v[i] = random.nextBoolean() ? 0.0 : -0.0;
+                        break;
+                    case 2:
+                        v[i] = random.nextInt(5) - 2;
+                        break;
+                    default:
+                        v[i] = random.nextGaussian();
+                        break;
+                }
+            }
+            Double[] boxed = new Double[v.length];
+            for (int i = 0; i < v.length; i++) {
+                boxed[i] = v[i];
+            }
+            Arrays.sort(boxed, Comparator.comparing(x -> -Math.abs(x)));
+            DoubleDouble.sortByAbsMaxFirst(v);
+            for (int i = 0; i < v.length; i++) {
+                assertEquals(Double.doubleToRawLongBits(boxed[i]), Double.doubleToRawLongBits(v[i]));
+            }
+        }
+    }
+
+    public static void test019() {
+        assertSameObject(ZERO, DoubleDouble.dot(new double[0], new double[0]));
+        assertEquals(DoubleDouble.valueOf(Double.NaN),
+                DoubleDouble.dot(new double[]{1, Double.POSITIVE_INFINITY}, new double[]{1, 0}));
+        assertEquals(DoubleDouble.valueOf(Double.POSITIVE_INFINITY),
+                DoubleDouble.dot(new double[]{1E300, 1}, new double[]{1E300, 1}));
+        assertEquals(NEG_ZERO, DoubleDouble.dot(new double[]{-0.0, 0.0}, new double[]{1, -1}));
+        double third = 1.0 / 3;
+        // third * 3 - 1 的精确值
+        assertEquals(DoubleDouble.mul(third, 3).sub(1),
+                DoubleDouble.dot(new double[]{third, 1}, new double[]{3, -1}));
+        assertEquals(DoubleDouble.valueOf(2 * 1 + 4 * 3),
+                DoubleDouble.dot(new double[]{1, 2, 3, 4}, 1, 2, new double[]{3, 2, 1}, 2, -2, 2));
+        assertEquals(DoubleDouble.valueOf(2 * 2 + 3 * 1),
+                DoubleDouble.dot(new double[]{1, 2, 3}, 1, new double[]{2, 1}, 0, 2));
+        try {
+            DoubleDouble.dot(new double[3], 1, 2, new double[3], 0, 1, 2);
+            throw new AssertionError();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        try {
+            DoubleDouble.dot(new double[3], new double[2]);
+            throw new AssertionError();
+        } catch (IllegalArgumentException expected) {
+        }
+
+        // 病态的内积，和BigDecimal精确计算的结果比较
+        Random random = new Random(2);
+        for (int round = 0; round < 20; round++) {
+            int n = 2 * (1 + random.nextInt(5000));
+            double[] x = new double[n];
+            double[] y = new double[n];
+            BigDecimal exact = BigDecimal.ZERO;
+            for (int i = 0; i < n; i++) {
+                if (i % 2 == 0) {
+                    x[i] = (random.nextDouble() - 0.5) * StrictMath.pow(2, random.nextInt(60) - 30);
+                    y[i] = random.nextDouble() - 0.5;
+                } else {
+                    x[i] = -x[i - 1] * (1 + random.nextGaussian() * 1E-10);
+                    y[i] = y[i - 1];
+                }
+                exact = exact.add(new BigDecimal(x[i]).multiply(new BigDecimal(y[i])));
+            }
+            DoubleDouble dot = DoubleDouble.dot(x, y);
+            DoubleDouble expected = fromBigDecimal(exact);
+            BigDecimal error = dot.toBigDecimal().subtract(exact).abs();
+            BigDecimal bound = exact.abs().multiply(new BigDecimal(StrictMath.pow(2, -104)));
+            if (!expected.equals(dot) && error.compareTo(bound) > 0) {
+                throw new AssertionError("expected: " + expected + ", actual: " + dot);
+            }
+        }
+    }
+
+    public static void test020() {
+        // 特殊值与DoubleDouble中精确的方法相同
+        DoubleDouble[] specials = {
+                ZERO, NEG_ZERO, ONE, ONE.div(3),
+                DoubleDouble.valueOf(Double.MAX_VALUE), DoubleDouble.valueOf(Double.MIN_VALUE),
+                DoubleDouble.valueOf(Double.POSITIVE_INFINITY), DoubleDouble.valueOf(Double.NEGATIVE_INFINITY),
+                DoubleDouble.valueOf(Double.NaN),
+        };
+        for (DoubleDouble x : specials) {
+            for (DoubleDouble y : specials) {
+                if (!Double.isFinite(x.getFirst()) || !Double.isFinite(y.getFirst())
+                        || x.getFirst() == 0 || y.getFirst() == 0) {
+                    assertEquals(x.add(y), DoubleDouble.Fast.add(x, y));
+                    assertEquals(x.sub(y), DoubleDouble.Fast.sub(x, y));
+                    assertEquals(x.mul(y), DoubleDouble.Fast.mul(x, y));
+                    assertEquals(x.div(y), DoubleDouble.Fast.div(x, y));
+                    assertEquals(x.add(y.getFirst()), DoubleDouble.Fast.add(x, y.getFirst()));
+                    assertEquals(x.mul(y.getFirst()), DoubleDouble.Fast.mul(x, y.getFirst()));
+                }
+            }
+        }
+        assertEquals(DoubleDouble.valueOf(Double.POSITIVE_INFINITY),
+                DoubleDouble.Fast.mul(DoubleDouble.valueOf(Double.MAX_VALUE), TWO));
+
+        // 误差不超过文档中的上界
+        Random random = new Random(3);
+        MathContext mc = new MathContext(100);
+        BigDecimal u2 = new BigDecimal(StrictMath.pow(2, -106));
+        for (int i = 0; i < 10000; i++) {
+            DoubleDouble x = randomDoubleDouble(random);
+            DoubleDouble y = randomDoubleDouble(random);
+            double d = y.getFirst();
+            BigDecimal bx = x.toBigDecimal();
+            BigDecimal by = y.toBigDecimal();
+            assertRelativeError(bx.add(by), DoubleDouble.Fast.add(x, y), u2.multiply(BigDecimal.valueOf(3)));
+            assertRelativeError(bx.subtract(by), DoubleDouble.Fast.sub(x, y), u2.multiply(BigDecimal.valueOf(3)));
+            assertRelativeError(bx.add(new BigDecimal(d)), DoubleDouble.Fast.add(x, d), u2.multiply(BigDecimal.valueOf(2)));
+            assertRelativeError(bx.multiply(by), DoubleDouble.Fast.mul(x, y), u2.multiply(BigDecimal.valueOf(7)));
+            assertRelativeError(bx.multiply(new BigDecimal(d)), DoubleDouble.Fast.mul(x, d), u2.multiply(BigDecimal.valueOf(2)));
+            assertRelativeError(bx.divide(by, mc), DoubleDouble.Fast.div(x, y), u2.multiply(BigDecimal.valueOf(15)));
+        }
+    }
+
+    public static void test021() {
+        // 被除数和除数的指数很大或者很小时，除法需要缩放
+        double[] highs = {Double.MAX_VALUE, 1E300, 3E250, 1, 1E-250, 1E-300, Double.MIN_NORMAL, 1E-310};
+        BigDecimal bound = new BigDecimal(StrictMath.pow(2, -104));
+        for (double h1 : highs) {
+            for (double h2 : highs) {
+                DoubleDouble a = DoubleDouble.add(h1, h1 * 0x1.5p-60).neg();
+                DoubleDouble b = DoubleDouble.add(h2 / 3, h2 * 0x1.3p-70);
+                DoubleDouble q = a.div(b);
+                assertEquals(q, new MutableDoubleDouble(a).div(b).toDoubleDouble());
+                assertEquals(DoubleDouble.reciprocal(b), new MutableDoubleDouble(b).reciprocal().toDoubleDouble());
+                BigDecimal exact = a.toBigDecimal().divide(b.toBigDecimal(), new MathContext(60));
+                int e = Math.getExponent(q.getFirst());
+                if (e > -900 && e < 1000) {
+                    assertRelativeError(exact, q, bound);
+                } else if (e >= 1000) {
+                    assertEquals(true, q.getFirst() == Double.NEGATIVE_INFINITY && exact.doubleValue() == Double.NEGATIVE_INFINITY
+                            || Math.abs(q.getFirst() / exact.doubleValue() - 1) < 1E-15);
+                } else {
+                    assertEquals(exact.doubleValue(), q.getFirst());
+                }
+            }
+        }
+    }
+
+    public static void test022() {
+        // DoubleDoubleFuzz发现的问题：积接近下溢时，误差已经被舍入成次正规数，可能正好是第一部分的半个ulp，
+        // 以前会抛出AssertionError
+        // 这个范围内第二部分只能是Double.MIN_VALUE的整数倍，误差按Double.MIN_VALUE计算
+        DoubleDouble x = DoubleDouble.add(4.37E-225, 1.3E-241);
+        DoubleDouble y = DoubleDouble.add(1.05E-83, 7.1E-100);
+        BigDecimal bound = new BigDecimal(Double.MIN_VALUE).multiply(BigDecimal.valueOf(4));
+        for (int i = 0; i < 1000; i++) {
+            BigDecimal exact = x.toBigDecimal().multiply(y.toBigDecimal());
+            assertAbsoluteError(exact, x.mul(y), bound);
+            assertEquals(x.mul(y), new MutableDoubleDouble(x).mul(y).toDoubleDouble());
+            exact = new BigDecimal(x.getFirst()).multiply(new BigDecimal(y.getFirst()));
+            assertAbsoluteError(exact, DoubleDouble.mul(x.getFirst(), y.getFirst()), bound);
+            x = x.mul(1.0009765625);
+        }
+    }
+
+    public static void test023() {
+        // DoubleDoubleFuzz发现的问题：两个有限值的积上溢时，以前的结果是NaN，现在是无穷大
+        DoubleDouble big = DoubleDouble.add(2.7236445729564253E307, 1.2403025357238888E291);
+        assertEquals(DoubleDouble.valueOf(Double.NEGATIVE_INFINITY), big.mul(-2.7236445729564253E307));
+        assertEquals(DoubleDouble.valueOf(Double.POSITIVE_INFINITY), big.mul(big));
+        assertEquals(DoubleDouble.valueOf(Double.POSITIVE_INFINITY), big.div(Math.scalb(1.0, -100)));
+        assertEquals(DoubleDouble.valueOf(Double.NEGATIVE_INFINITY), big.neg().div(Math.scalb(1.0, -100)));
+        assertEquals(big.mul(big), new MutableDoubleDouble(big).mul(big).toDoubleDouble());
+        assertEquals(big.mul(-2.7236445729564253E307),
+                new MutableDoubleDouble(big).mul(-2.7236445729564253E307).toDoubleDouble());
+        assertEquals(big.div(Math.scalb(1.0, -100)), new MutableDoubleDouble(big).div(Math.scalb(1.0, -100)).toDoubleDouble());
+    }
+
+    public static void test024() {
+        // DoubleDoubleFuzz发现的问题：以前sqrt在2^565以上返回NaN，sqrt和cbrt在很小的数上失去了第二部分的精度，
+        // 现在指数超出±500时先缩放到1附近
+        BigDecimal bound = new BigDecimal(StrictMath.pow(2, -104));
+        MathContext mc = new MathContext(60);
+        double[] values = {Double.MAX_VALUE, 2.554675596204441E294, 0x1p566, 1E-300, Double.MIN_NORMAL, 6.89163317670267E-310};
+        for (double v : values) {
+            DoubleDouble d = DoubleDouble.add(v, Math.ulp(v) / 4);
+            BigDecimal exact = d.toBigDecimal();
+            assertRelativeError(sqrt(exact, mc), DoubleDouble.sqrt(d), bound);
+            assertRelativeError(sqrt(new BigDecimal(v), mc), DoubleDouble.sqrt(v), bound);
+            DoubleDouble c = DoubleDouble.cbrt(d);
+            BigDecimal cube = c.toBigDecimal().pow(3);
+            assertEquals(true, cube.subtract(exact).abs().compareTo(exact.multiply(bound).multiply(BigDecimal.valueOf(3))) <= 0);
+            assertEquals(DoubleDouble.sqrt(d), new MutableDoubleDouble(d).sqrt().toDoubleDouble());
+            assertEquals(DoubleDouble.sqrt(v), new MutableDoubleDouble().setSqrt(v).toDoubleDouble());
+            assertEquals(c, new MutableDoubleDouble(d).cbrt().toDoubleDouble());
+            assertEquals(DoubleDouble.cbrt(v), new MutableDoubleDouble().setCbrt(v).toDoubleDouble());
+        }
+    }
+
+    private static DoubleDouble randomDoubleDouble(Random random) {
+        double hi = (random.nextDouble() - 0.5) * StrictMath.pow(2, random.nextInt(60) - 30);
+        double lo = hi * (random.nextDouble() - 0.5) * StrictMath.pow(2, -52);
+        return DoubleDouble.add(hi, lo);
+    }
+
+    private static void assertAbsoluteError(BigDecimal expected, DoubleDouble actual, BigDecimal bound) {
+        if (actual.toBigDecimal().subtract(expected).abs().compareTo(bound) > 0) {
+            throw new AssertionError("expected: " + expected + ", actual: " + actual);
+        }
+    }
+
+    // BigDecimal.sqrt是Java 9才有的，这里用牛顿迭代
+    private static BigDecimal sqrt(BigDecimal x, MathContext mc) {
+        if (x.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+        // x = m * 10^(2k)，m在[1, 100)之间，用double的平方根作为初值，每次迭代有效位数加倍
+        int k = Math.floorDiv(x.precision() - x.scale() - 1, 2);
+        BigDecimal m = x.scaleByPowerOfTen(-2 * k);
+        MathContext work = new MathContext(mc.getPrecision() + 10);
+        BigDecimal y = new BigDecimal(Math.sqrt(m.doubleValue()));
+        for (int digits = 8; digits < work.getPrecision(); digits *= 2) {
+            y = y.add(m.divide(y, work)).divide(BigDecimal.valueOf(2), work);
+        }
+        return y.scaleByPowerOfTen(k).round(mc);
+    }
+
+    private static void assertRelativeError(BigDecimal expected, DoubleDouble actual, BigDecimal bound) {
+        BigDecimal error = actual.toBigDecimal().subtract(expected).abs();
+        if (error.compareTo(expected.abs().multiply(bound)) > 0) {
+            throw new AssertionError("expected: " + expected + ", actual: " + actual);
+        }
+    }
+
     public static void test999() {
         Random random = new Random(0);
         long count = 0;
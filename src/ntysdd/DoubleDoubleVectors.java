@@ -0,0 +1,206 @@
+package ntysdd;
+
+/**
+ * DoubleDouble向量的逐元素批量计算
+ * 数据保存在两个double数组中，hi保存第一部分，lo保存第二部分，
+ * 数组中的每个元素都必须是规格化的DoubleDouble，例如来自DoubleDouble.getFirst()和getSecond()
+ * 每个元素的结果与DoubleDouble中对应的方法完全相同，循环中不生成新对象
+ * 输出可以和输入是同一组数组（原地计算）
+ */
+public final strictfp class DoubleDoubleVectors {
+    private DoubleDoubleVectors() {
+    }
+
+    /**
+     * z[i] = x[i].add(y[i])
+     */
+    public static void add(DoubleDoubleArray x, DoubleDoubleArray y, DoubleDoubleArray z) {
+        int length = checkLength(x, y, z);
+        add(x.firstArray(), x.secondArray(), x.offset(),
+                y.firstArray(), y.secondArray(), y.offset(),
+                z.firstArray(), z.secondArray(), z.offset(), length);
+    }
+
+    /**
+     * z[i] = x[i].add(y[i])
+     */
+    public static void add(double[] xHi, double[] xLo, int xOffset,
+                           double[] yHi, double[] yLo, int yOffset,
+                           double[] zHi, double[] zLo, int zOffset, int length) {
+        checkRange(xHi, xLo, xOffset, length);
+        checkRange(yHi, yLo, yOffset, length);
+        checkRange(zHi, zLo, zOffset, length);
+        MutableDoubleDouble m = new MutableDoubleDouble();
+        for (int i = 0; i < length; i++) {
+            m.setNormalized(xHi[xOffset + i], xLo[xOffset + i]).add(yHi[yOffset + i], yLo[yOffset + i]);
+            zHi[zOffset + i] = m.getFirst();
+            zLo[zOffset + i] = m.getSecond();
+        }
+    }
+
+    /**
+     * z[i] = x[i].sub(y[i])
+     */
+    public static void sub(DoubleDoubleArray x, DoubleDoubleArray y, DoubleDoubleArray z) {
+        int length = checkLength(x, y, z);
+        sub(x.firstArray(), x.secondArray(), x.offset(),
+                y.firstArray(), y.secondArray(), y.offset(),
+                z.firstArray(), z.secondArray(), z.offset(), length);
+    }
+
+    /**
+     * z[i] = x[i].sub(y[i])
+     */
+    public static void sub(double[] xHi, double[] xLo, int xOffset,
+                           double[] yHi, double[] yLo, int yOffset,
+                           double[] zHi, double[] zLo, int zOffset, int length) {
+        checkRange(xHi, xLo, xOffset, length);
+        checkRange(yHi, yLo, yOffset, length);
+        checkRange(zHi, zLo, zOffset, length);
+        MutableDoubleDouble m = new MutableDoubleDouble();
+        for (int i = 0; i < length; i++) {
+            m.setNormalized(xHi[xOffset + i], xLo[xOffset + i]).sub(yHi[yOffset + i], yLo[yOffset + i]);
+            zHi[zOffset + i] = m.getFirst();
+            zLo[zOffset + i] = m.getSecond();
+        }
+    }
+
+    /**
+     * z[i] = x[i].mul(y[i])
+     */
+    public static void mul(DoubleDoubleArray x, DoubleDoubleArray y, DoubleDoubleArray z) {
+        int length = checkLength(x, y, z);
+        mul(x.firstArray(), x.secondArray(), x.offset(),
+                y.firstArray(), y.secondArray(), y.offset(),
+                z.firstArray(), z.secondArray(), z.offset(), length);
+    }
+
+    /**
+     * z[i] = x[i].mul(y[i])
+     */
+    public static void mul(double[] xHi, double[] xLo, int xOffset,
+                           double[] yHi, double[] yLo, int yOffset,
+                           double[] zHi, double[] zLo, int zOffset, int length) {
+        checkRange(xHi, xLo, xOffset, length);
+        checkRange(yHi, yLo, yOffset, length);
+        checkRange(zHi, zLo, zOffset, length);
+        MutableDoubleDouble m = new MutableDoubleDouble();
+        for (int i = 0; i < length; i++) {
+            m.setNormalized(xHi[xOffset + i], xLo[xOffset + i]).mul(yHi[yOffset + i], yLo[yOffset + i]);
+            zHi[zOffset + i] = m.getFirst();
+            zLo[zOffset + i] = m.getSecond();
+        }
+    }
+
+    /**
+     * z[i] = x[i].div(y[i])
+     */
+    public static void div(DoubleDoubleArray x, DoubleDoubleArray y, DoubleDoubleArray z) {
+        int length = checkLength(x, y, z);
+        div(x.firstArray(), x.secondArray(), x.offset(),
+                y.firstArray(), y.secondArray(), y.offset(),
+                z.firstArray(), z.secondArray(), z.offset(), length);
+    }
+
+    /**
+     * z[i] = x[i].div(y[i])
+     */
+    public static void div(double[] xHi, double[] xLo, int xOffset,
+                           double[] yHi, double[] yLo, int yOffset,
+                           double[] zHi, double[] zLo, int zOffset, int length) {
+        checkRange(xHi, xLo, xOffset, length);
+        checkRange(yHi, yLo, yOffset, length);
+        checkRange(zHi, zLo, zOffset, length);
+        MutableDoubleDouble m = new MutableDoubleDouble();
+        for (int i = 0; i < length; i++) {
+            m.setNormalized(xHi[xOffset + i], xLo[xOffset + i]).div(yHi[yOffset + i], yLo[yOffset + i]);
+            zHi[zOffset + i] = m.getFirst();
+            zLo[zOffset + i] = m.getSecond();
+        }
+    }
+
+    /**
+     * x[i] = x[i].mul(a)
+     */
+    public static void scale(double a, DoubleDoubleArray x) {
+        scale(a, x.firstArray(), x.secondArray(), x.offset(), x.length());
+    }
+
+    /**
+     * x[i] = x[i].mul(a)
+     */
+    public static void scale(double a, double[] xHi, double[] xLo, int xOffset, int length) {
+        checkRange(xHi, xLo, xOffset, length);
+        MutableDoubleDouble m = new MutableDoubleDouble();
+        for (int i = xOffset; i < xOffset + length; i++) {
+            m.setNormalized(xHi[i], xLo[i]).mul(a);
+            xHi[i] = m.getFirst();
+            xLo[i] = m.getSecond();
+        }
+    }
+
+    /**
+     * x[i] = x[i].mul(a)
+     */
+    public static void scale(DoubleDouble a, DoubleDoubleArray x) {
+        scale(a, x.firstArray(), x.secondArray(), x.offset(), x.length());
+    }
+
+    /**
+     * x[i] = x[i].mul(a)
+     */
+    public static void scale(DoubleDouble a, double[] xHi, double[] xLo, int xOffset, int length) {
+        checkRange(xHi, xLo, xOffset, length);
+        double aFirst = a.getFirst();
+        double aSecond = a.getSecond();
+        MutableDoubleDouble m = new MutableDoubleDouble();
+        for (int i = xOffset; i < xOffset + length; i++) {
+            m.setNormalized(xHi[i], xLo[i]).mul(aFirst, aSecond);
+            xHi[i] = m.getFirst();
+            xLo[i] = m.getSecond();
+        }
+    }
+
+    /**
+     * y[i] = y[i].add(a.mul(x[i]))
+     */
+    public static void axpy(DoubleDouble a, DoubleDoubleArray x, DoubleDoubleArray y) {
+        int length = checkLength(x, y, y);
+        axpy(a, x.firstArray(), x.secondArray(), x.offset(),
+                y.firstArray(), y.secondArray(), y.offset(), length);
+    }
+
+    /**
+     * y[i] = y[i].add(a.mul(x[i]))
+     */
+    public static void axpy(DoubleDouble a, double[] xHi, double[] xLo, int xOffset,
+                            double[] yHi, double[] yLo, int yOffset, int length) {
+        checkRange(xHi, xLo, xOffset, length);
+        checkRange(yHi, yLo, yOffset, length);
+        double aFirst = a.getFirst();
+        double aSecond = a.getSecond();
+        MutableDoubleDouble product = new MutableDoubleDouble();
+        MutableDoubleDouble m = new MutableDoubleDouble();
+        for (int i = 0; i < length; i++) {
+            product.setNormalized(aFirst, aSecond).mul(xHi[xOffset + i], xLo[xOffset + i]);
+            m.setNormalized(yHi[yOffset + i], yLo[yOffset + i]).add(product);
+            yHi[yOffset + i] = m.getFirst();
+            yLo[yOffset + i] = m.getSecond();
+        }
+    }
+
+    private static int checkLength(DoubleDoubleArray x, DoubleDoubleArray y, DoubleDoubleArray z) {
+        int length = x.length();
+        if (y.length() != length || z.length() != length) {
+            throw new IllegalArgumentException("length mismatch: " + length + ", "
+                    + y.length() + ", " + z.length());
+        }
+        return length;
+    }
+
+    private static void checkRange(double[] hi, double[] lo, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > hi.length - length || offset > lo.length - length) {
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package ntysdd;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+public class DoubleDoubleVectorsTest {
+    private static final double[] SPECIAL_DOUBLES = {
+            0.0, -0.0, 1.0, -1.0, 3.0, 0.1, 1E-20, 1E30, -1E30, Double.MAX_VALUE, Double.MIN_VALUE,
+            Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN,
+    };
+
+    private static DoubleDouble[] values(Random random, int n) {
+        DoubleDouble[] values = new DoubleDouble[n];
+        for (int i = 0; i < n; i++) {
+            if (random.nextInt(8) == 0) {
+                values[i] = DoubleDouble.valueOf(SPECIAL_DOUBLES[random.nextInt(SPECIAL_DOUBLES.length)]);
+            } else {
+                double hi = (random.nextDouble() - 0.5) * StrictMath.pow(2, random.nextInt(120) - 60);
+                double lo = hi * random.nextDouble() * StrictMath.pow(2, -53);
+                values[i] = DoubleDouble.add(hi, lo);
+            }
+        }
+        return values;
+    }
+
+    public static void test001() {
+        Random random = new Random(0);
+        int n = 2000;
+        DoubleDouble[] xs = values(random, n);
+        DoubleDouble[] ys = values(random, n);
+        DoubleDoubleArray x = DoubleDoubleArray.valueOf(xs);
+        DoubleDoubleArray y = DoubleDoubleArray.valueOf(ys);
+        DoubleDoubleArray z = new DoubleDoubleArray(n);
+
+        DoubleDoubleVectors.add(x, y, z);
+        for (int i = 0; i < n; i++) {
+            assertEquals(xs[i].add(ys[i]), z.get(i));
+        }
+        DoubleDoubleVectors.sub(x, y, z);
+        for (int i = 0; i < n; i++) {
+            assertEquals(xs[i].sub(ys[i]), z.get(i));
+        }
+        DoubleDoubleVectors.mul(x, y, z);
+        for (int i = 0; i < n; i++) {
+            assertEquals(xs[i].mul(ys[i]), z.get(i));
+        }
+        DoubleDoubleVectors.div(x, y, z);
+        for (int i = 0; i < n; i++) {
+            assertEquals(xs[i].div(ys[i]), z.get(i));
+        }
+    }
+
+    public static void test002() {
+        Random random = new Random(1);
+        int n = 2000;
+        DoubleDouble[] xs = values(random, n);
+        DoubleDouble[] ys = values(random, n);
+        DoubleDouble a = DoubleDouble.ONE.div(3);
+
+        DoubleDoubleArray y = DoubleDoubleArray.valueOf(ys);
+        DoubleDoubleVectors.axpy(a, DoubleDoubleArray.valueOf(xs), y);
+        for (int i = 0; i < n; i++) {
+            assertEquals(ys[i].add(a.mul(xs[i])), y.get(i));
+        }
+
+        DoubleDoubleArray x = DoubleDoubleArray.valueOf(xs);
+        DoubleDoubleVectors.scale(a, x);
+        for (int i = 0; i < n; i++) {
+            assertEquals(xs[i].mul(a), x.get(i));
+        }
+        x = DoubleDoubleArray.valueOf(xs);
+        DoubleDoubleVectors.scale(0.1, x);
+        for (int i = 0; i < n; i++) {
+            assertEquals(xs[i].mul(0.1), x.get(i));
+        }
+    }
+
+    public static void test003() {
+        // 原地计算，以及slice和offset
+        Random random = new Random(2);
+        int n = 100;
+        DoubleDouble[] xs = values(random, n);
+        DoubleDoubleArray x = DoubleDoubleArray.valueOf(xs);
+        DoubleDoubleVectors.mul(x.slice(10, 60), x.slice(50, 100), x.slice(10, 60));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(xs[i], x.get(i));
+        }
+        for (int i = 10; i < 60; i++) {
+            assertEquals(xs[i].mul(xs[i + 40]), x.get(i));
+        }
+        for (int i = 60; i < 100; i++) {
+            assertEquals(xs[i], x.get(i));
+        }
+
+        double[] hi = new double[n];
+        double[] lo = new double[n];
+        for (int i = 0; i < n; i++) {
+            hi[i] = xs[i].getFirst();
+            lo[i] = xs[i].getSecond();
+        }
+        DoubleDoubleVectors.add(hi, lo, 0, hi, lo, 1, hi, lo, 0, n - 1);
+        for (int i = 0; i < n - 1; i++) {
+            assertEquals(xs[i].add(xs[i + 1]), DoubleDouble.add(hi[i], lo[i]));
+        }
+
+        try {
+            DoubleDoubleVectors.add(x, x.slice(0, 10), x);
+            throw new AssertionError();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            DoubleDoubleVectors.scale(2.0, hi, lo, 1, n);
+            throw new AssertionError();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Method[] methods = Arrays.stream(DoubleDoubleVectorsTest.class.getMethods())
+                .filter(m -> m.getName().matches("test[0-9]+")
+                        && m.getParameterCount() == 0)
+                .sorted(Comparator.comparing(Method::getName))
+                .toArray(Method[]::new);
+        for (Method method : methods) {
+            method.invoke(null);
+        }
+    }
+
+    private static void assertEquals(Object expected, Object actual) {
+        if ((expected == null) != (actual == null)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+        if (expected != null && !expected.equals(actual)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package ntysdd;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * 用任意多个double的和精确地表示一个数（Shewchuk的浮点数展开）
+ * 适用情况：需要精确的和、积、内积，例如核对其他计算的结果，又不想使用BigDecimal的时候
+ * 各部分按绝对值从小到大排列，互不重叠，不含0，
+ * 每次运算的结果都经过压缩，最大的部分与整个数的差小于它的一个ulp
+ * 计算只使用和DoubleDouble.add(double, double)、DoubleDouble.mul(double, double)
+ * 相同的无误差变换，加减乘都没有舍入误差
+ * 注意：
+ * 不能表示无穷大和NaN，也不区分+0和-0
+ * 结果超出double的范围、或者乘积中有比Double.MIN_VALUE还小的部分时抛出ArithmeticException
+ * 相等的数不一定有相同的表示
+ */
+public final strictfp class DoubleExpansion implements Comparable<DoubleExpansion> {
+    public static final DoubleExpansion ZERO = new DoubleExpansion(new double[0]);
+
+    // 求和时缓冲区的初始大小，满了之后先压缩，压缩之后还是满的才扩大
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final double[] components;
+
+    private DoubleExpansion(double[] components) {
+        this.components = components;
+    }
+
+    /**
+     * 将double转为DoubleExpansion
+     * x是无穷大或者NaN时抛出IllegalArgumentException
+     */
+    public static DoubleExpansion valueOf(double x) {
+        checkFinite(x);
+        if (x == 0) {
+            return ZERO;
+        }
+        return new DoubleExpansion(new double[]{x});
+    }
+
+    /**
+     * 将long转为DoubleExpansion，不会丢失精度
+     */
+    public static DoubleExpansion valueOf(long x) {
+        return valueOf(DoubleDouble.valueOf(x));
+    }
+
+    /**
+     * 将DoubleDouble转为DoubleExpansion，不会丢失精度
+     * x是无穷大或者NaN时抛出IllegalArgumentException
+     */
+    public static DoubleExpansion valueOf(DoubleDouble x) {
+        double first = x.getFirst();
+        double second = x.getSecond();
+        checkFinite(first);
+        if (second == 0) {
+            return valueOf(first);
+        }
+        return new DoubleExpansion(new double[]{second, first});
+    }
+
+    /**
+     * 计算数组中所有元素的精确和
+     */
+    public static DoubleExpansion sum(double[] values) {
+        return sum(values, 0, values.length);
+    }
+
+    /**
+     * 计算values[from]到values[to - 1]的精确和
+     * 逐个加到同一个缓冲区中，不生成中间的DoubleExpansion
+     */
+    public static DoubleExpansion sum(double[] values, int from, int to) {
+        if (from < 0 || to > values.length || from > to) {
+            throw new IndexOutOfBoundsException("from: " + from + ", to: " + to
+                    + ", length: " + values.length);
+        }
+        double[] buffer = new double[INITIAL_CAPACITY];
+        int length = 0;
+        for (int i = from; i < to; i++) {
+            double x = values[i];
+            checkFinite(x);
+            if (length == buffer.length) {
+                length = compress(buffer, length);
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, 2 * length);
+                }
+            }
+            length = grow(buffer, length, x);
+        }
+        return of(buffer, length);
+    }
+
+    /**
+     * 计算两个数组的精确内积
+     * 每一项的积精确地拆成两个double，再和sum(double[], int, int)一样累加
+     */
+    public static DoubleExpansion dot(double[] x, double[] y) {
+        if (x.length != y.length) {
+            throw new IllegalArgumentException("length mismatch: " + x.length + ", " + y.length);
+        }
+        double[] buffer = new double[INITIAL_CAPACITY];
+        int length = 0;
+        for (int i = 0; i < x.length; i++) {
+            double lhs = x[i];
+            double rhs = y[i];
+            checkFinite(lhs);
+            checkFinite(rhs);
+            if (lhs == 0 || rhs == 0) {
+                continue;
+            }
+            double p = lhs * rhs;
+            double e = productError(lhs, rhs, p);
+            if (length + 2 > buffer.length) {
+                length = compress(buffer, length);
+                if (length + 2 > buffer.length) {
+                    buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+                }
+            }
+            length = grow(buffer, length, e);
+            length = grow(buffer, length, p);
+        }
+        return of(buffer, length);
+    }
+
+    /**
+     * 返回各部分的副本，按绝对值从小到大排列，0的副本是空数组
+     */
+    public double[] getComponents() {
+        return components.clone();
+    }
+
+    /**
+     * 返回部分的个数
+     */
+    public int size() {
+        return components.length;
+    }
+
+    /**
+     * 返回符号，-1、0或者1
+     */
+    public int signum() {
+        int length = components.length;
+        if (length == 0) {
+            return 0;
+        }
+        // 各部分互不重叠，最大的部分决定符号
+        return components[length - 1] > 0 ? 1 : -1;
+    }
+
+    public DoubleExpansion add(double rhs) {
+        checkFinite(rhs);
+        if (rhs == 0) {
+            return this;
+        }
+        int length = components.length;
+        double[] buffer = Arrays.copyOf(components, length + 1);
+        return of(buffer, grow(buffer, length, rhs));
+    }
+
+    public DoubleExpansion add(DoubleExpansion rhs) {
+        return addComponents(rhs.components, false);
+    }
+
+    public DoubleExpansion neg() {
+        int length = components.length;
+        if (length == 0) {
+            return this;
+        }
+        double[] result = new double[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = -components[i];
+        }
+        return new DoubleExpansion(result);
+    }
+
+    public DoubleExpansion sub(double rhs) {
+        return add(-rhs);
+    }
+
+    public DoubleExpansion sub(DoubleExpansion rhs) {
+        return addComponents(rhs.components, true);
+    }
+
+    public DoubleExpansion mul(double rhs) {
+        checkFinite(rhs);
+        int length = components.length;
+        if (length == 0 || rhs == 0) {
+            return ZERO;
+        }
+        double[] buffer = new double[2 * length];
+        return of(buffer, scale(components, length, rhs, buffer));
+    }
+
+    public DoubleExpansion mul(DoubleExpansion rhs) {
+        double[] lhs = this.components;
+        double[] multipliers = rhs.components;
+        if (lhs.length < multipliers.length) {
+            double[] t = lhs;
+            lhs = multipliers;
+            multipliers = t;
+        }
+        if (multipliers.length == 0) {
+            return ZERO;
+        }
+        // 长的展开乘以短的展开的每一部分，再把这些积加起来
+        double[] product = new double[2 * lhs.length];
+        double[] buffer = new double[2 * lhs.length * multipliers.length];
+        int length = 0;
+        for (double m : multipliers) {
+            int productLength = scale(lhs, lhs.length, m, product);
+            for (int i = 0; i < productLength; i++) {
+                length = grow(buffer, length, product[i]);
+            }
+        }
+        return of(buffer, length);
+    }
+
+    /**
+     * 舍入成最接近的double，距离相同时取最后一位是0的
+     * 超出double的范围时返回无穷大
+     */
+    public double doubleValue() {
+        int length = components.length;
+        if (length == 0) {
+            return 0.0;
+        }
+        double h = components[length - 1];
+        while (true) {
+            // 余数this - h是精确的，用它的符号判断h是否就是最接近的double
+            DoubleExpansion r = sub(h);
+            int sign = r.signum();
+            if (sign == 0) {
+                return h;
+            }
+            double next = sign > 0 ? Math.nextUp(h) : Math.nextDown(h);
+            double halfGap;
+            if (Double.isInfinite(next)) {
+                halfGap = Math.copySign(Math.ulp(Double.MAX_VALUE) / 2, h);
+            } else {
+                halfGap = (next - h) / 2;
+            }
+            // 间隔是Double.MIN_VALUE时余数至少有一个间隔，一定要移到next
+            int c = halfGap == 0 ? sign : r.sub(halfGap).signum();
+            if (c * sign < 0) {
+                return h;
+            }
+            if (c == 0 || Double.isInfinite(next)) {
+                // 正好在中间，或者已经超出了double的范围
+                return Double.isInfinite(next) || (Double.doubleToRawLongBits(h) & 1) != 0 ? next : h;
+            }
+            h = next;
+        }
+    }
+
+    /**
+     * 舍入成DoubleDouble，能用DoubleDouble表示时不会丢失精度
+     * 超出double的范围时返回无穷大
+     */
+    public DoubleDouble toDoubleDouble() {
+        double first = doubleValue();
+        if (Double.isInfinite(first)) {
+            return DoubleDouble.valueOf(first);
+        }
+        return DoubleDouble.add(first, sub(first).doubleValue());
+    }
+
+    /**
+     * 转成BigDecimal，不会丢失精度
+     */
+    public BigDecimal toBigDecimal() {
+        BigDecimal result = BigDecimal.ZERO;
+        for (double c : components) {
+            result = result.add(new BigDecimal(c));
+        }
+        return result.stripTrailingZeros();
+    }
+
+    /**
+     * 转成String，返回精确的十进制表示
+     * 注意：
+     * 各部分的指数相差很大时结果可能很长
+     */
+    @Override
+    public String toString() {
+        return toBigDecimal().toString();
+    }
+
+    /**
+     * 按照数值比较，与表示形式无关
+     */
+    @Override
+    public int compareTo(DoubleExpansion o) {
+        return sub(o).signum();
+    }
+
+    /**
+     * 按照数值比较，与表示形式无关
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof DoubleExpansion)) {
+            return false;
+        }
+        return compareTo((DoubleExpansion) o) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        // 相等的数舍入成相同的DoubleDouble
+        return toDoubleDouble().hashCode();
+    }
+
+    private static void checkFinite(double x) {
+        if (!Double.isFinite(x)) {
+            throw new IllegalArgumentException("not finite: " + x);
+        }
+    }
+
+    // 压缩buffer的前length个元素，生成DoubleExpansion
+    private static DoubleExpansion of(double[] buffer, int length) {
+        length = compress(buffer, length);
+        if (length == 0) {
+            return ZERO;
+        }
+        return new DoubleExpansion(Arrays.copyOf(buffer, length));
+    }
+
+    // 把f（negate为true时为-f）的各部分逐个加上去
+    private DoubleExpansion addComponents(double[] f, boolean negate) {
+        int length = components.length;
+        double[] buffer = Arrays.copyOf(components, length + f.length);
+        for (double x : f) {
+            length = grow(buffer, length, negate ? -x : x);
+        }
+        return of(buffer, length);
+    }
+
+    /*
+     * Shewchuk的Grow-Expansion，把b加到e的前length个元素上，结果仍然存放在e中
+     * 要求e在length之后至少有一个空位，返回结果的部分数
+     * 结果互不重叠，不含0
+     */
+    static int grow(double[] e, int length, double b) {
+        double q = b;
+        int index = 0;
+        for (int i = 0; i < length; i++) {
+            double x = e[i];
+            double s = q + x;
+            double h = DoubleDouble.addError(q, x, s);
+            q = s;
+            if (h != 0) {
+                e[index++] = h;
+            }
+        }
+        checkResult(q);
+        if (q != 0) {
+            e[index++] = q;
+        }
+        return index;
+    }
+
+    /*
+     * Shewchuk的Scale-Expansion，计算e的前length个元素乘以b的精确结果，存放在h中
+     * 要求h至少有2 * length个元素，返回结果的部分数
+     */
+    private static int scale(double[] e, int length, double b, double[] h) {
+        double q = e[0] * b;
+        int index = 0;
+        double t = productError(e[0], b, q);
+        if (t != 0) {
+            h[index++] = t;
+        }
+        for (int i = 1; i < length; i++) {
+            double p = e[i] * b;
+            double pe = productError(e[i], b, p);
+            double s = q + pe;
+            t = DoubleDouble.addError(q, pe, s);
+            if (t != 0) {
+                h[index++] = t;
+            }
+            q = p + s;
+            t = DoubleDouble.addError(p, s, q);
+            if (t != 0) {
+                h[index++] = t;
+            }
+        }
+        checkResult(q);
+        if (q != 0) {
+            h[index++] = q;
+        }
+        return index;
+    }
+
+    /*
+     * Shewchuk的Compress，结果仍然存放在e中，返回结果的部分数
+     * 先从大到小、再从小到大各做一遍加法，结果互不相邻，最大的部分与整个数的差小于它的一个ulp
+     */
+    static int compress(double[] e, int length) {
+        if (length <= 1) {
+            return length;
+        }
+        int bottom = length - 1;
+        double q = e[bottom];
+        for (int i = length - 2; i >= 0; i--) {
+            double x = e[i];
+            double s = q + x;
+            double small = DoubleDouble.addError(q, x, s);
+            if (small != 0) {
+                e[bottom--] = s;
+                q = small;
+            } else {
+                q = s;
+            }
+        }
+        e[bottom] = q;
+        int top = 0;
+        for (int i = bottom + 1; i < length; i++) {
+            double x = e[i];
+            double s = x + q;
+            double small = DoubleDouble.addError(x, q, s);
+            q = s;
+            if (small != 0) {
+                e[top++] = small;
+            }
+        }
+        if (q != 0) {
+            e[top++] = q;
+        }
+        return top;
+    }
+
+    /*
+     * lhs * rhs的精确舍入误差，p是lhs * rhs的浮点结果，lhs和rhs都不是0
+     * 积超出double的范围，或者误差比Double.MIN_VALUE还小时抛出ArithmeticException
+     */
+    private static double productError(double lhs, double rhs, double p) {
+        checkResult(p);
+        // 两个数最低的非0位相乘得到积最低的非0位
+        if (p == 0 || lowestBitExponent(lhs) + lowestBitExponent(rhs) < -1074) {
+            throw new ArithmeticException("underflow: " + lhs + " * " + rhs);
+        }
+        return DoubleDouble.productError(lhs, rhs, p);
+    }
+
+    // x最低的非0位的指数，x不是0
+    private static int lowestBitExponent(double x) {
+        long bits = Double.doubleToRawLongBits(x);
+        int exponent = (int) (bits >>> 52) & 0x7ff;
+        long significand = bits & 0xfffffffffffffL;
+        if (exponent == 0) {
+            exponent = 1;
+        } else {
+            significand |= 1L << 52;
+        }
+        return exponent - 1075 + Long.numberOfTrailingZeros(significand);
+    }
+
+    private static void checkResult(double x) {
+        if (!Double.isFinite(x)) {
+            throw new ArithmeticException("overflow");
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package ntysdd;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+public class DoubleExpansionTest {
+    private static double randomDouble(Random random, int maxExponent) {
+        return (random.nextDouble() - 0.5)
+                * StrictMath.pow(2, random.nextInt(2 * maxExponent + 1) - maxExponent);
+    }
+
+    private static DoubleExpansion randomExpansion(Random random, int maxExponent) {
+        double[] values = new double[1 + random.nextInt(8)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = randomDouble(random, maxExponent);
+        }
+        return DoubleExpansion.sum(values);
+    }
+
+    public static void test001() {
+        // 转换
+        assertEquals(0, DoubleExpansion.ZERO.size());
+        assertEquals(DoubleExpansion.ZERO, DoubleExpansion.valueOf(-0.0));
+        assertEquals("0", DoubleExpansion.ZERO.toString());
+        assertEquals(0.0, DoubleExpansion.ZERO.doubleValue());
+        assertEquals(DoubleDouble.ZERO, DoubleExpansion.ZERO.toDoubleDouble());
+        assertEquals("9223372036854775807", DoubleExpansion.valueOf(Long.MAX_VALUE).toString());
+        assertEquals(DoubleDouble.valueOf(Long.MAX_VALUE), DoubleExpansion.valueOf(Long.MAX_VALUE).toDoubleDouble());
+
+        DoubleDouble oneThird = DoubleDouble.ONE.div(3);
+        assertEquals(oneThird, DoubleExpansion.valueOf(oneThird).toDoubleDouble());
+        assertEquals(oneThird.toBigDecimal(), DoubleExpansion.valueOf(oneThird).toBigDecimal());
+
+        // 1 + 2^-200 - 2^-400 需要三部分，舍入成DoubleDouble时丢掉最后一部分
+        DoubleExpansion e = DoubleExpansion.valueOf(1.0)
+                .add(StrictMath.pow(2, -200))
+                .sub(StrictMath.pow(2, -400));
+        assertEquals(3, e.size());
+        assertEquals(DoubleDouble.add(1.0, StrictMath.pow(2, -200)), e.toDoubleDouble());
+        assertEquals(new BigDecimal(1.0).add(new BigDecimal(StrictMath.pow(2, -200)))
+                .subtract(new BigDecimal(StrictMath.pow(2, -400))), e.toBigDecimal());
+    }
+
+    public static void test002() {
+        // 精确的加减乘
+        Random random = new Random(0);
+        for (int i = 0; i < 2000; i++) {
+            DoubleExpansion a = randomExpansion(random, 300);
+            DoubleExpansion b = randomExpansion(random, 300);
+            BigDecimal x = a.toBigDecimal();
+            BigDecimal y = b.toBigDecimal();
+            assertExact(x.add(y), a.add(b));
+            assertExact(x.subtract(y), a.sub(b));
+            assertExact(x.negate(), a.neg());
+            assertExact(x.multiply(y), a.mul(b));
+            double d = randomDouble(random, 300);
+            BigDecimal z = new BigDecimal(d);
+            assertExact(x.add(z), a.add(d));
+            assertExact(x.subtract(z), a.sub(d));
+            assertExact(x.multiply(z), a.mul(d));
+            assertEquals(x.compareTo(y), a.compareTo(b));
+            assertEquals(0, a.compareTo(a.add(b).sub(b)));
+            assertEquals(a, a.add(b).sub(b));
+            assertEquals(a.hashCode(), a.add(b).sub(b).hashCode());
+        }
+    }
+
+    public static void test003() {
+        // 求和与内积
+        Random random = new Random(1);
+        double[] x = new double[1000];
+        double[] y = new double[1000];
+        BigDecimal sum = BigDecimal.ZERO;
+        BigDecimal dot = BigDecimal.ZERO;
+        for (int i = 0; i < x.length; i++) {
+            x[i] = randomDouble(random, 500);
+            y[i] = randomDouble(random, 500);
+            sum = sum.add(new BigDecimal(x[i]));
+            dot = dot.add(new BigDecimal(x[i]).multiply(new BigDecimal(y[i])));
+        }
+        assertExact(sum, DoubleExpansion.sum(x));
+        assertExact(dot, DoubleExpansion.dot(x, y));
+        assertExact(new BigDecimal(x[3]).add(new BigDecimal(x[4])), DoubleExpansion.sum(x, 3, 5));
+        assertEquals(DoubleExpansion.ZERO, DoubleExpansion.sum(x, 3, 3));
+
+        // 完全抵消
+        double[] values = {1E300, 1, -1E300, 1E-300, -1, -1E-300};
+        assertEquals(0, DoubleExpansion.sum(values).signum());
+        assertEquals(0, DoubleExpansion.sum(values).size());
+        try {
+            DoubleExpansion.sum(x, 1, 1001);
+            throw new AssertionError();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    public static void test004() {
+        // 舍入成double和DoubleDouble
+        Random random = new Random(2);
+        for (int i = 0; i < 2000; i++) {
+            DoubleExpansion a = randomExpansion(random, 100);
+            if (i % 2 == 0) {
+                // 构造正好在两个double中间的情况
+                double h = randomDouble(random, 100);
+                double half = (Math.nextUp(h) - h) / 2;
+                a = DoubleExpansion.valueOf(h).add(half);
+                if (i % 4 == 0) {
+                    a = a.add(half * StrictMath.pow(2, -random.nextInt(200)) * (random.nextBoolean() ? 1 : -1));
+                }
+            }
+            assertNearest(a.toBigDecimal(), a.doubleValue());
+            // 舍入成DoubleDouble的误差不超过第二部分的半个ulp
+            DoubleDouble d = a.toDoubleDouble();
+            BigDecimal error = a.toBigDecimal().subtract(d.toBigDecimal()).abs();
+            assertEquals(true, error.compareTo(new BigDecimal(Math.ulp(d.getSecond()) / 2)) <= 0);
+
+            // DoubleDouble能精确表示的数不丢失精度
+            DoubleDouble dd = DoubleDouble.add(randomDouble(random, 100), 1).div(randomDouble(random, 100));
+            assertEquals(dd, DoubleExpansion.valueOf(dd).toDoubleDouble());
+            assertEquals(dd, DoubleExpansion.valueOf(dd.getSecond()).add(dd.getFirst()).toDoubleDouble());
+        }
+        // 很小的数
+        DoubleExpansion tiny = DoubleExpansion.valueOf(Double.MIN_VALUE).add(Double.MIN_VALUE);
+        assertEquals(2 * Double.MIN_VALUE, tiny.doubleValue());
+        // 接近double的范围
+        DoubleExpansion max = DoubleExpansion.valueOf(Double.MAX_VALUE);
+        double halfUlp = Math.ulp(Double.MAX_VALUE) / 2;
+        assertEquals(Double.MAX_VALUE, max.add(halfUlp / 2).doubleValue());
+        assertEquals(-Double.MAX_VALUE, max.add(halfUlp / 2).neg().doubleValue());
+        assertThrows(ArithmeticException.class, () -> max.add(halfUlp));
+    }
+
+    public static void test005() {
+        // 压缩之后的部分数
+        double[] values = new double[200];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = StrictMath.pow(2, -i);
+        }
+        // 和是2 - 2^-199，200位的1压缩成两部分
+        assertEquals(2, DoubleExpansion.sum(values).size());
+        DoubleExpansion e = DoubleExpansion.sum(values).sub(2);
+        assertEquals(1, e.size());
+        assertEquals(-StrictMath.pow(2, -199), e.doubleValue());
+        // 返回的是副本
+        double[] components = e.getComponents();
+        components[0] = 0;
+        assertEquals(-1, e.signum());
+    }
+
+    public static void test006() {
+        // 无法精确表示的结果
+        DoubleExpansion max = DoubleExpansion.valueOf(Double.MAX_VALUE);
+        assertThrows(ArithmeticException.class, () -> max.add(max));
+        assertThrows(ArithmeticException.class, () -> max.mul(2));
+        assertThrows(ArithmeticException.class, () -> DoubleExpansion.valueOf(Double.MIN_VALUE).mul(0.5));
+        assertThrows(ArithmeticException.class, () -> DoubleExpansion.valueOf(1.0 / 3).mul(1E-300));
+        assertThrows(ArithmeticException.class, () -> DoubleExpansion.dot(new double[]{1E-200}, new double[]{1E-200}));
+        assertThrows(IllegalArgumentException.class, () -> DoubleExpansion.valueOf(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> max.add(Double.POSITIVE_INFINITY));
+        assertThrows(IllegalArgumentException.class, () -> DoubleExpansion.sum(new double[]{1, Double.NaN}));
+        assertThrows(IllegalArgumentException.class, () -> DoubleExpansion.dot(new double[1], new double[2]));
+        // 乘积很小但是可以精确表示
+        assertExact(new BigDecimal(Double.MIN_VALUE).multiply(BigDecimal.valueOf(3)),
+                DoubleExpansion.valueOf(Double.MIN_VALUE).mul(3));
+        assertExact(new BigDecimal(StrictMath.pow(2, -1000)).multiply(new BigDecimal(1.5)),
+                DoubleExpansion.valueOf(StrictMath.pow(2, -1000)).mul(1.5));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Method[] methods = Arrays.stream(DoubleExpansionTest.class.getMethods())
+                .filter(m -> m.getName().matches("test[0-9]+")
+                        && m.getParameterCount() == 0)
+                .sorted(Comparator.comparing(Method::getName))
+                .toArray(Method[]::new);
+        for (Method method : methods) {
+            method.invoke(null);
+        }
+    }
+
+    private static void assertExact(BigDecimal expected, DoubleExpansion actual) {
+        if (expected.compareTo(actual.toBigDecimal()) != 0) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+        // 各部分按绝对值从小到大排列，互不重叠：大的部分最低的非0位比小的部分最高的非0位还要高
+        double[] components = actual.getComponents();
+        for (int i = 1; i < components.length; i++) {
+            double small = components[i - 1];
+            double large = components[i];
+            if (small == 0 || large % Math.scalb(1.0, Math.getExponent(small) + 1) != 0) {
+                throw new AssertionError(Arrays.toString(components));
+            }
+        }
+    }
+
+    // actual是最接近expected的double，距离相同时最后一位是0
+    private static void assertNearest(BigDecimal expected, double actual) {
+        BigDecimal error = new BigDecimal(actual).subtract(expected).abs();
+        for (double neighbor : new double[]{Math.nextUp(actual), Math.nextDown(actual)}) {
+            int c = new BigDecimal(neighbor).subtract(expected).abs().compareTo(error);
+            if (c < 0 || c == 0 && (Double.doubleToRawLongBits(actual) & 1) != 0) {
+                throw new AssertionError("expected: " + expected + ", actual: " + actual);
+            }
+        }
+    }
+
+    private static void assertThrows(Class<? extends Throwable> type, Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (Throwable e) {
+            if (type.isInstance(e)) {
+                return;
+            }
+            throw new AssertionError(e);
+        }
+        throw new AssertionError("expected " + type.getSimpleName());
+    }
+
+    private static void assertEquals(Object expected, Object actual) {
+        if ((expected == null) != (actual == null)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+        if (expected != null && !expected.equals(actual)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package ntysdd;
+
+/**
+ * 乘积的舍入误差的计算，以及对Math.fma的包装
+ * 这是Java 8的版本，Java 8没有Math.fma，总是用FmaFallback中拆分的计算方法
+ * Java 9以上的版本在src-java9中，编译到jar的META-INF/versions/9，直接调用Math.fma，
+ * 两个版本的包内接口相同
+ */
+final strictfp class Fma {
+    private Fma() {
+    }
+
+    /*
+     * 当前运行环境是否提供Math.fma
+     */
+    static boolean isAvailable() {
+        return false;
+    }
+
+    /*
+     * 计算a * b + c，只舍入一次
+     */
+    static double fma(double a, double b, double c) {
+        return FmaFallback.fma(a, b, c);
+    }
+
+    /*
+     * 计算lhs * rhs的舍入误差，r1是lhs * rhs的浮点结果
+     * 要求r1是非0的有限值
+     */
+    static double productError(double lhs, double rhs, double r1) {
+        return FmaFallback.productError(lhs, rhs, r1);
+    }
+}
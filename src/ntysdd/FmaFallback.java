@@ -0,0 +1,97 @@
+package ntysdd;
+
+/**
+ * 没有Math.fma时，乘积的舍入误差和fma的计算方法
+ * Java 8的Fma总是用这里的方法，Java 9以上的Fma在关闭FMA时用这里的方法
+ */
+final strictfp class FmaFallback {
+    // 模拟fma用的临时变量，每个线程一个
+    private static final ThreadLocal<MutableDoubleDouble> SCRATCH =
+            ThreadLocal.withInitial(MutableDoubleDouble::new);
+
+    private FmaFallback() {
+    }
+
+    /*
+     * 计算a * b + c，只舍入一次
+     * 结果与DoubleDouble.mul(a, b).add(c)的第一部分相同
+     */
+    static double fma(double a, double b, double c) {
+        return SCRATCH.get().setProduct(a, b).add(c).getFirst();
+    }
+
+    private static final double SPLIT = StrictMath.pow(2, 27) + 1;
+    private static final double POW_2_970 = StrictMath.pow(2, 970);
+    private static final double POW_2_53 = StrictMath.pow(2, 53);
+    private static final double POW_2_minus_53 = StrictMath.pow(2, -53);
+    private static final double POW_2_160 = StrictMath.pow(2, 160);
+    private static final double POW_2_minus_900 = StrictMath.pow(2, -900);
+
+    /*
+     * 计算lhs * rhs的舍入误差，r1是lhs * rhs的浮点结果
+     * 要求r1是非0的有限值
+     * 把lhs和rhs各自拆成两个26位的部分，用Dekker的方法计算
+     */
+    static double productError(double lhs, double rhs, double r1) {
+        int shift = 0;
+        if (Math.abs(r1) < POW_2_minus_900) {
+            // 积很小的时候，拆分之后的部分积会下溢，误差也可能不是精确的
+            // 先把绝对值较小的数放大，算出误差之后再缩小，只舍入一次
+            if (Math.abs(lhs) < Math.abs(rhs)) {
+                lhs *= POW_2_160;
+            } else {
+                rhs *= POW_2_160;
+            }
+            shift -= 160;
+        } else {
+            if (Math.abs(lhs) == 1 || Math.abs(lhs) == 0.5 || Math.abs(lhs) == 2
+                    || Math.abs(rhs) == 1 || Math.abs(rhs) == 0.5 || Math.abs(rhs) == 2) {
+                // 这些常见值走快速路径
+                return 0;
+            }
+            double mantissa1 = Math.scalb(lhs, -Math.getExponent(lhs));
+            double mantissa2 = Math.scalb(rhs, -Math.getExponent(rhs));
+            if (Math.abs(mantissa1) == 1.0 || Math.abs(mantissa2) == 1.0) {
+                return 0;
+            }
+        }
+        if (Math.abs(lhs) >= POW_2_970) {
+            lhs *= POW_2_minus_53;
+            shift += 53;
+        }
+        if (Math.abs(rhs) >= POW_2_970) {
+            rhs *= POW_2_minus_53;
+            shift += 53;
+        }
+        if (shift == 0 && Math.abs(r1) >= POW_2_970) {
+            // 积接近上溢时，拆分之后的部分积也可能上溢
+            if (Math.abs(lhs) < Math.abs(rhs)) {
+                rhs *= POW_2_minus_53;
+            } else {
+                lhs *= POW_2_minus_53;
+            }
+            shift += 53;
+        }
+        double p = lhs * SPLIT;
+        double lhs1 = (lhs - p) + p;
+        double lhs2 = lhs - lhs1;
+        p = rhs * SPLIT;
+        double rhs1 = (rhs - p) + p;
+        double rhs2 = rhs - rhs1;
+        double c = lhs1 * rhs1 - lhs * rhs;
+        c += lhs1 * rhs2;
+        c += lhs2 * rhs1;
+        c += lhs2 * rhs2;
+        if (shift == 0) {
+            return c;
+        } else {
+            double scale;
+            if (shift == 53) {
+                scale = POW_2_53;
+            } else {
+                scale = StrictMath.pow(2, shift);
+            }
+            return c * scale;
+        }
+    }
+}
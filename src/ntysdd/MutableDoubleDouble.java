@@ -0,0 +1,1047 @@
+package ntysdd;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 可变的DoubleDouble
+ * 适用情况：在循环中反复计算，不想每一步都生成新的DoubleDouble对象
+ * 每个操作的结果与DoubleDouble中对应的操作完全相同，
+ * 结果保存在自身中，并返回自身，方便连续调用
+ * 注意：
+ * 这个类不是线程安全的
+ */
+public final strictfp class MutableDoubleDouble {
+    private double first;
+    private double second;
+
+    // 计算中使用的临时变量，用到时才创建
+    private MutableDoubleDouble[] temps;
+    private MutableTripleDouble[] triples;
+
+    // log1p的多项式系数
+    private static final double[] LOG1P_COEFFICIENTS = {
+            20564.141339293772,
+            -0.40742573671663634,
+            0.2857174507900288,
+            -1.20149472161068E-11,
+            0.4,
+            -1.5906358982810946E-23,
+    };
+
+    /**
+     * 创建一个值为0的MutableDoubleDouble
+     */
+    public MutableDoubleDouble() {
+    }
+
+    /**
+     * 创建一个值为value的MutableDoubleDouble
+     */
+    public MutableDoubleDouble(double value) {
+        set(value);
+    }
+
+    /**
+     * 创建一个值为value的MutableDoubleDouble
+     */
+    public MutableDoubleDouble(DoubleDouble value) {
+        set(value);
+    }
+
+    /**
+     * 设置为value，与DoubleDouble.valueOf(double)相同
+     */
+    public MutableDoubleDouble set(double value) {
+        return assign(value, 0);
+    }
+
+    /**
+     * 设置为value，与DoubleDouble.valueOf(long)相同
+     */
+    public MutableDoubleDouble set(long value) {
+        if (DoubleDouble.canLongBeConvertedToDoubleExactly(value)) {
+            return set((double) value);
+        }
+        int part1 = ((int) value & 0x7fffffff);
+        long part2 = value - part1;
+        return setSum((double) part1, (double) part2);
+    }
+
+    /**
+     * 设置为value
+     */
+    public MutableDoubleDouble set(DoubleDouble value) {
+        this.first = value.getFirst();
+        this.second = value.getSecond();
+        return this;
+    }
+
+    /**
+     * 设置为value
+     */
+    public MutableDoubleDouble set(MutableDoubleDouble value) {
+        this.first = value.first;
+        this.second = value.second;
+        return this;
+    }
+
+    // 直接设置两部分，要求已经规格化，供同一个包中的类使用
+    MutableDoubleDouble setNormalized(double first, double second) {
+        this.first = first;
+        this.second = second;
+        return this;
+    }
+
+    /**
+     * 返回内部表示的第一部分
+     */
+    public double getFirst() {
+        return first;
+    }
+
+    /**
+     * 返回内部表示的第二部分
+     */
+    public double getSecond() {
+        return second;
+    }
+
+    /**
+     * 转为DoubleDouble
+     */
+    public DoubleDouble toDoubleDouble() {
+        return DoubleDouble.ofNormalized(first, second);
+    }
+
+    @Override
+    public String toString() {
+        return toDoubleDouble().toString();
+    }
+
+    /**
+     * 写入16字节，格式与DoubleDouble.writeTo(ByteBuffer)相同
+     */
+    public ByteBuffer writeTo(ByteBuffer buf) {
+        DoubleDoubleCodec.write(buf, first, second);
+        return buf;
+    }
+
+    /**
+     * 读取DoubleDouble.writeTo(ByteBuffer)写入的16字节，设置为读到的值
+     * 出错时与DoubleDouble.readFrom(ByteBuffer)相同，自身和position都不变
+     */
+    public MutableDoubleDouble readFrom(ByteBuffer buf) {
+        return DoubleDoubleCodec.read(buf, this);
+    }
+
+    /**
+     * 设置为两个double的和，与DoubleDouble.add(double, double)相同
+     */
+    public MutableDoubleDouble setSum(double lhs, double rhs) {
+        double f = lhs + rhs;
+        return assign(f, DoubleDouble.sumError(lhs, rhs, f));
+    }
+
+    /**
+     * 设置为两个double的积，与DoubleDouble.mul(double, double)相同
+     */
+    public MutableDoubleDouble setProduct(double lhs, double rhs) {
+        double f = lhs * rhs;
+        return assign(f, DoubleDouble.productError(lhs, rhs, f));
+    }
+
+    /**
+     * 加上一个double，与DoubleDouble.add(double)相同
+     */
+    public MutableDoubleDouble add(double rhs) {
+        double first = this.first;
+        if (rhs == 0) {
+            if (first == 0) {
+                // 0 + 0的特殊形式，需要考虑±0的问题
+                this.first = first + rhs;
+            }
+            return this;
+        }
+        if (first == 0.0) {
+            return set(first + rhs);
+        }
+        if (Double.isInfinite(first) && first == rhs) {
+            return this;
+        }
+        if (this.second == 0) {
+            return setSum(first, rhs);
+        }
+        if (Double.isNaN(first)) {
+            return this;
+        }
+        if (Double.isNaN(rhs)) {
+            return set(Double.NaN);
+        }
+        if (Double.isInfinite(first) || Double.isInfinite(rhs)) {
+            return set(first + rhs);
+        }
+        double second = this.second;
+        double t1 = first + rhs;
+        double t2 = DoubleDouble.sumError(first, rhs, t1);
+        if (t1 == 0) {
+            return set(second);
+        }
+        if (t2 == 0 && second + t1 == t1) {
+            return assign(t1, second);
+        }
+        return setSum(t1, second + t2);
+    }
+
+    /**
+     * 加上一个long，与DoubleDouble.add(long)相同
+     */
+    public MutableDoubleDouble add(long rhs) {
+        if (DoubleDouble.canLongBeConvertedToDoubleExactly(rhs)) {
+            return add((double) rhs);
+        }
+        MutableDoubleDouble t = temp(0).set(rhs);
+        return add(t.first, t.second);
+    }
+
+    /**
+     * 加上一个DoubleDouble，与DoubleDouble.add(DoubleDouble)相同
+     */
+    public MutableDoubleDouble add(DoubleDouble rhs) {
+        return add(rhs.getFirst(), rhs.getSecond());
+    }
+
+    /**
+     * 加上一个MutableDoubleDouble，与DoubleDouble.add(DoubleDouble)相同
+     */
+    public MutableDoubleDouble add(MutableDoubleDouble rhs) {
+        return add(rhs.first, rhs.second);
+    }
+
+    // 参数是规格化的DoubleDouble的两部分，供同一个包中的批量计算使用
+    MutableDoubleDouble add(double rhsFirst, double rhsSecond) {
+        double x1 = this.first;
+        double x2 = rhsFirst;
+        if (x1 == 0 || x2 == 0) {
+            if (x1 == 0 && x2 == 0) {
+                // 处理±0的问题
+                this.first = x1 + x2;
+            } else if (x1 == 0) {
+                this.first = rhsFirst;
+                this.second = rhsSecond;
+            }
+            return this;
+        }
+        if (Double.isInfinite(x1)) {
+            if (Double.isFinite(x2) || x1 == x2) {
+                return this;
+            }
+            return set(Double.NaN);
+        }
+        double x3 = this.second;
+        double x4 = rhsSecond;
+
+        // 按绝对值从大到小排序，相等时保持原有顺序，和DoubleDouble中的插排结果相同
+        double t;
+        if (Math.abs(x1) < Math.abs(x2)) {
+            t = x1;
+            x1 = x2;
+            x2 = t;
+        }
+        if (Math.abs(x2) < Math.abs(x3)) {
+            t = x2;
+            x2 = x3;
+            x3 = t;
+        }
+        if (Math.abs(x3) < Math.abs(x4)) {
+            t = x3;
+            x3 = x4;
+            x4 = t;
+        }
+        if (Math.abs(x1) < Math.abs(x2)) {
+            t = x1;
+            x1 = x2;
+            x2 = t;
+        }
+        if (Math.abs(x2) < Math.abs(x3)) {
+            t = x2;
+            x2 = x3;
+            x3 = t;
+        }
+        if (Math.abs(x1) < Math.abs(x2)) {
+            t = x1;
+            x1 = x2;
+            x2 = t;
+        }
+
+        double s1 = 0;
+        double s2 = 0;
+        double s3 = 0;
+        double f;
+
+        s3 += x1;
+        f = s2 + s3;
+        s3 = DoubleDouble.sumError(s2, s3, f);
+        s2 = f;
+        f = s1 + s2;
+        s2 = DoubleDouble.sumError(s1, s2, f);
+        s1 = f;
+
+        s3 += x2;
+        f = s2 + s3;
+        s3 = DoubleDouble.sumError(s2, s3, f);
+        s2 = f;
+        f = s1 + s2;
+        s2 = DoubleDouble.sumError(s1, s2, f);
+        s1 = f;
+
+        s3 += x3;
+        f = s2 + s3;
+        s3 = DoubleDouble.sumError(s2, s3, f);
+        s2 = f;
+        f = s1 + s2;
+        s2 = DoubleDouble.sumError(s1, s2, f);
+        s1 = f;
+
+        s3 += x4;
+        f = s2 + s3;
+        s3 = DoubleDouble.sumError(s2, s3, f);
+        s2 = f;
+        f = s1 + s2;
+        s2 = DoubleDouble.sumError(s1, s2, f);
+        s1 = f;
+
+        return setSum(s1, s2).add(s3);
+    }
+
+    /**
+     * 取相反数，与DoubleDouble.neg()相同
+     */
+    public MutableDoubleDouble neg() {
+        if (first == 0) {
+            return assign(-first, 0.0);
+        }
+        return assign(-first, -second);
+    }
+
+    /**
+     * 减去一个double，与DoubleDouble.sub(double)相同
+     */
+    public MutableDoubleDouble sub(double rhs) {
+        return add(-rhs);
+    }
+
+    /**
+     * 减去一个long，与DoubleDouble.sub(long)相同
+     */
+    public MutableDoubleDouble sub(long rhs) {
+        if (DoubleDouble.canLongBeConvertedToDoubleExactly(rhs)) {
+            return sub((double) rhs);
+        }
+        MutableDoubleDouble t = temp(0).set(rhs);
+        return sub(t.first, t.second);
+    }
+
+    /**
+     * 减去一个DoubleDouble，与DoubleDouble.sub(DoubleDouble)相同
+     */
+    public MutableDoubleDouble sub(DoubleDouble rhs) {
+        return sub(rhs.getFirst(), rhs.getSecond());
+    }
+
+    /**
+     * 减去一个MutableDoubleDouble，与DoubleDouble.sub(DoubleDouble)相同
+     */
+    public MutableDoubleDouble sub(MutableDoubleDouble rhs) {
+        return sub(rhs.first, rhs.second);
+    }
+
+    MutableDoubleDouble sub(double rhsFirst, double rhsSecond) {
+        if (rhsFirst == 0) {
+            return add(-rhsFirst, 0.0);
+        }
+        return add(-rhsFirst, -rhsSecond);
+    }
+
+    /**
+     * 乘以一个double，与DoubleDouble.mul(double)相同
+     */
+    public MutableDoubleDouble mul(double rhs) {
+        double first = this.first;
+        if (first == 0 || rhs == 0) {
+            // 处理±0
+            return set(first * rhs);
+        }
+        if (rhs == 1) {
+            return this;
+        }
+        if (rhs == -1) {
+            return neg();
+        }
+        if (this.second == 0) {
+            return setProduct(first, rhs);
+        }
+        if (Double.isNaN(first)) {
+            return this;
+        }
+        if (Double.isNaN(rhs)) {
+            return set(Double.NaN);
+        }
+        double second = this.second;
+        double a1 = first * rhs;
+        double b1 = DoubleDouble.productError(first, rhs, a1);
+        double a2 = second * rhs;
+        double b2 = DoubleDouble.productError(second, rhs, a2);
+        if (b1 != 0 || b2 != 0) {
+            assign(a1, b1).add(a2, b2);
+        } else {
+            setSum(a1, a2);
+        }
+        if (Double.isNaN(this.first)) {
+            // 两个有限值的积是NaN，只可能是中间结果上溢
+            return set(Math.copySign(Double.POSITIVE_INFINITY, first * rhs));
+        }
+        if (this.first == 0) {
+            // 处理±0
+            return set(Math.copySign(0, first * rhs));
+        }
+        return this;
+    }
+
+    /**
+     * 乘以一个long，与DoubleDouble.mul(long)相同
+     */
+    public MutableDoubleDouble mul(long rhs) {
+        if (DoubleDouble.canLongBeConvertedToDoubleExactly(rhs)) {
+            return mul((double) rhs);
+        }
+        if (Double.isNaN(first) || Double.isInfinite(first)) {
+            return mul((double) rhs);
+        }
+        MutableDoubleDouble t = temp(0).set(rhs);
+        return mul(t.first, t.second);
+    }
+
+    /**
+     * 乘以一个DoubleDouble，与DoubleDouble.mul(DoubleDouble)相同
+     */
+    public MutableDoubleDouble mul(DoubleDouble rhs) {
+        return mul(rhs.getFirst(), rhs.getSecond());
+    }
+
+    /**
+     * 乘以一个MutableDoubleDouble，与DoubleDouble.mul(DoubleDouble)相同
+     */
+    public MutableDoubleDouble mul(MutableDoubleDouble rhs) {
+        return mul(rhs.first, rhs.second);
+    }
+
+    MutableDoubleDouble mul(double rhsFirst, double rhsSecond) {
+        if (rhsSecond == 0 || Double.isNaN(rhsFirst)
+                || Double.isInfinite(rhsFirst)
+                || this.first == 0 || Double.isNaN(this.first)
+                || Double.isInfinite(this.first)) {
+            return mul(rhsFirst);
+        }
+        if (this.second == 0) {
+            double lhs = this.first;
+            return assign(rhsFirst, rhsSecond).mul(lhs);
+        }
+        double x1 = this.first;
+        double x2 = rhsFirst;
+        double x3 = this.second;
+        double x4 = rhsSecond;
+
+        MutableDoubleDouble sum = temp(0).set(0.0);
+        MutableDoubleDouble c = temp(1).set(0.0);
+        MutableDoubleDouble s1 = temp(2);
+        MutableDoubleDouble d = temp(3);
+        mulStep(sum, c, s1, d, x1, x2);
+        mulStep(sum, c, s1, d, x1, x4);
+        mulStep(sum, c, s1, d, x2, x3);
+        mulStep(sum, c, s1, d, x3, x4);
+        if (Double.isNaN(sum.first)) {
+            // 两个有限值的积是NaN，只可能是中间结果上溢
+            return set(Math.copySign(Double.POSITIVE_INFINITY, x1 * x2));
+        }
+        return set(sum);
+    }
+
+    // 与DoubleDouble.mul(DoubleDouble)中的求和循环相同
+    private static void mulStep(MutableDoubleDouble sum, MutableDoubleDouble c,
+                                MutableDoubleDouble s1, MutableDoubleDouble d,
+                                double lhs, double rhs) {
+        double p = lhs * rhs;
+        c.add(p, DoubleDouble.productError(lhs, rhs, p));
+        s1.set(sum).add(c);
+        d.set(s1).sub(sum);
+        c.sub(d);
+        sum.set(s1);
+    }
+
+    /**
+     * 除以一个double，与DoubleDouble.div(double)相同
+     */
+    public MutableDoubleDouble div(double rhs) {
+        double first = this.first;
+        if (first == 0 && rhs != 0) {
+            if (Double.isNaN(rhs)) {
+                return set(Double.NaN);
+            }
+            if (Double.isFinite(rhs)) {
+                return mul(rhs);
+            } else {
+                return mul(1.0 / rhs);
+            }
+        }
+        if (Double.isInfinite(rhs)) {
+            return mul(1.0 / rhs);
+        }
+        if (Double.isInfinite(first)) {
+            if (Double.isFinite(rhs) && rhs != 0) {
+                return mul(rhs);
+            }
+        }
+        if (rhs == 1.0) {
+            return this;
+        }
+        if (Double.isNaN(first)) {
+            return this;
+        }
+        if (rhs == 0) {
+            return set(first / rhs);
+        }
+        if (Math.abs(Math.scalb(rhs, -Math.getExponent(rhs))) == 1) {
+            // rhs是2的整数次幂，且1.0 / rhs不会导致无穷
+            return mul(1.0 / rhs);
+        }
+        if (Double.isNaN(rhs)) {
+            return set(Double.NaN);
+        }
+        return divide(first, this.second, rhs, 0.0);
+    }
+
+    /**
+     * 除以一个long，与DoubleDouble.div(long)相同
+     */
+    public MutableDoubleDouble div(long rhs) {
+        if (DoubleDouble.canLongBeConvertedToDoubleExactly(rhs)) {
+            return div((double) rhs);
+        }
+        if (Double.isNaN(first) || Double.isInfinite(first)) {
+            return div((double) rhs);
+        }
+        if (isOne()) {
+            return set(rhs).reciprocal();
+        }
+        MutableDoubleDouble t = temp(0).set(rhs);
+        return div(t.first, t.second);
+    }
+
+    /**
+     * 除以一个DoubleDouble，与DoubleDouble.div(DoubleDouble)相同
+     */
+    public MutableDoubleDouble div(DoubleDouble rhs) {
+        return div(rhs.getFirst(), rhs.getSecond());
+    }
+
+    /**
+     * 除以一个MutableDoubleDouble，与DoubleDouble.div(DoubleDouble)相同
+     */
+    public MutableDoubleDouble div(MutableDoubleDouble rhs) {
+        return div(rhs.first, rhs.second);
+    }
+
+    MutableDoubleDouble div(double rhsFirst, double rhsSecond) {
+        if (rhsSecond == 0 || Double.isNaN(rhsFirst)
+                || Double.isInfinite(rhsFirst)
+                || this.first == 0 || Double.isNaN(this.first)
+                || Double.isInfinite(this.first)) {
+            return div(rhsFirst);
+        }
+        return divide(this.first, this.second, rhsFirst, rhsSecond);
+    }
+
+    // 与DoubleDouble.divide(double, double, double, double)相同
+    private MutableDoubleDouble divide(double ah, double al, double bh, double bl) {
+        int ea = Math.getExponent(ah);
+        int eb = Math.getExponent(bh);
+        if (DoubleDouble.isDivisionScalingNeeded(ea, eb)) {
+            divide(Math.scalb(ah, -ea), Math.scalb(al, -ea),
+                    Math.scalb(bh, -eb), Math.scalb(bl, -eb));
+            int k = ea - eb;
+            double h = Math.scalb(this.first, k);
+            if (h == 0 || Double.isInfinite(h)) {
+                return set(h);
+            }
+            return setSum(h, Math.scalb(this.second, k));
+        }
+
+        double q1 = ah / bh;
+        double p1 = q1 * bh;
+        double e1 = Fma.productError(q1, bh, p1);
+        double p2 = q1 * bl;
+        double e2 = p2 == 0 ? 0 : Fma.productError(q1, bl, p2);
+        double d = ah - p1;
+        double rh = d + al;
+        double rl = DoubleDouble.addError(d, al, rh);
+        double t = rh - e1;
+        rl += DoubleDouble.addError(rh, -e1, t);
+        rh = t;
+        t = rh - p2;
+        rl += DoubleDouble.addError(rh, -p2, t);
+        rh = t;
+        rl -= e2;
+        t = rh + rl;
+        rl = DoubleDouble.addError(rh, rl, t);
+        rh = t;
+
+        double q2 = rh / bh;
+        double p3 = q2 * bh;
+        double e3 = p3 == 0 ? 0 : Fma.productError(q2, bh, p3);
+        double r = (rh - p3) + rl - e3 - q2 * bl;
+        double q3 = r / bh;
+
+        return setSum(q1, q2).add(q3);
+    }
+
+    /**
+     * 设置为自身的倒数，与DoubleDouble.reciprocal(DoubleDouble)相同
+     */
+    public MutableDoubleDouble reciprocal() {
+        double first = this.first;
+        if (first == 0 || Double.isInfinite(first)) {
+            return set(1.0 / first);
+        }
+        double second = this.second;
+        if (second == 0) {
+            return setReciprocal(first);
+        }
+        if (Double.isNaN(first)) {
+            return set(Double.NaN);
+        }
+
+        return divide(1.0, 0.0, first, second);
+    }
+
+    /**
+     * 设置为value的倒数，与DoubleDouble.reciprocal(double)相同
+     */
+    public MutableDoubleDouble setReciprocal(double value) {
+        if (value == 0 || Double.isInfinite(value)) {
+            return set(1.0 / value);
+        }
+        if (Double.isNaN(value)) {
+            return set(value);
+        }
+        if (Math.abs(Math.scalb(value, -Math.getExponent(value))) == 1) {
+            // value是2的整数幂
+            return set(1.0 / value);
+        }
+
+        double f = 1.0 / value;
+        if (Double.isInfinite(f)) {
+            return set(f);
+        }
+
+        double r;
+        if (Fma.isAvailable()) {
+            r = Fma.fma(f, -value, 1.0);
+        } else {
+            r = temp(0).setProduct(f, -value).add(1.0, 0.0).first;
+        }
+        setProduct(f, r);
+        double k2 = this.first * r;
+        return add(k2).add(f);
+    }
+
+    /**
+     * 设置为value的倒数，与DoubleDouble.reciprocal(long)相同
+     */
+    public MutableDoubleDouble setReciprocal(long value) {
+        if (DoubleDouble.canLongBeConvertedToDoubleExactly(value)) {
+            return setReciprocal((double) value);
+        }
+        return set(value).reciprocal();
+    }
+
+    /**
+     * 设置为value的倒数，与DoubleDouble.reciprocal(DoubleDouble)相同
+     */
+    public MutableDoubleDouble setReciprocal(DoubleDouble value) {
+        return set(value).reciprocal();
+    }
+
+    /**
+     * 设置为自身的平方根，与DoubleDouble.sqrt(DoubleDouble)相同
+     */
+    public MutableDoubleDouble sqrt() {
+        double first = this.first;
+        double second = this.second;
+        if (second == 0) {
+            return setSqrt(first);
+        }
+        double x0 = Math.sqrt(first);
+        int exponent = Math.getExponent(first);
+        if (DoubleDouble.isRootScalingNeeded(exponent) && Double.isFinite(x0)) {
+            int k = exponent / 2;
+            return scalb(-2 * k).sqrt().scalb(k);
+        }
+        MutableDoubleDouble h = temp(0).setProduct(-x0, x0).add(first, second).div(first, second);
+        double eps2 = 0.375 * x0 * h.first * h.first;
+        h.mul(x0 * 0.5).add(eps2).add(x0);
+        return set(h);
+    }
+
+    /**
+     * 设置为value的平方根，与DoubleDouble.sqrt(double)相同
+     */
+    public MutableDoubleDouble setSqrt(double value) {
+        if (value == 0) {
+            // 这里要注意±0问题
+            return set(value);
+        }
+        if (value == 1) {
+            return set(1.0);
+        }
+        double f0 = Math.sqrt(value);
+        if (!(Double.isFinite(f0))) {
+            return set(f0);
+        }
+        int exponent = Math.getExponent(value);
+        if (DoubleDouble.isRootScalingNeeded(exponent)) {
+            int k = exponent / 2;
+            return setSqrt(Math.scalb(value, -2 * k)).scalb(k);
+        }
+        MutableDoubleDouble k = temp(0).setProduct(f0, f0);
+        double k1 = k.first;
+        double t = k.sub(value).first;
+        if (t == 0) {
+            return set(f0);
+        }
+
+        double eps2 = t * t / (k1 * f0) * (1.0 / -8.0);
+        return set(t).div(f0).mul(-0.5).add(eps2).add(f0);
+    }
+
+    /**
+     * 设置为value的平方根，与DoubleDouble.sqrt(long)相同
+     */
+    public MutableDoubleDouble setSqrt(long value) {
+        if (DoubleDouble.canLongBeConvertedToDoubleExactly(value)) {
+            return setSqrt((double) value);
+        }
+        if (value < 0) {
+            return set(Double.NaN);
+        }
+        return set(value).sqrt();
+    }
+
+    /**
+     * 设置为value的平方根，与DoubleDouble.sqrt(DoubleDouble)相同
+     */
+    public MutableDoubleDouble setSqrt(DoubleDouble value) {
+        return set(value).sqrt();
+    }
+
+    /**
+     * 设置为自身平方根的倒数，与DoubleDouble.rsqrt(DoubleDouble)相同
+     */
+    public MutableDoubleDouble rsqrt() {
+        if (second == 0 || Double.isNaN(second)) {
+            return setRsqrt(first);
+        }
+        int exponent = Math.getExponent(first);
+        if (exponent % 2 != 0) {
+            exponent++;
+        }
+        double normalized1 = Math.scalb(first, -exponent);
+        double normalized2 = Math.scalb(second, -exponent);
+
+        MutableTripleDouble v = triple(0).set(temp(1).setSum(normalized1, normalized2));
+        v.dirtyRsqrt();
+
+        return setSum(Math.scalb(v.getFirst(), -exponent / 2),
+                Math.scalb(v.getSecond(), -exponent / 2));
+    }
+
+    /**
+     * 设置为value平方根的倒数，与DoubleDouble.rsqrt(double)相同
+     */
+    public MutableDoubleDouble setRsqrt(double value) {
+        if (!(value >= 0)) {
+            return set(Double.NaN);
+        }
+        if (value == Double.POSITIVE_INFINITY) {
+            return set(0.0);
+        }
+        if (value == 0) {
+            return set(1.0 / value);
+        }
+
+        int exponent = Math.getExponent(value);
+        if (exponent % 2 != 0) {
+            exponent++;
+        }
+        double normalized = Math.scalb(value, -exponent);
+
+        double r1 = 1.0 / Math.sqrt(normalized);
+        MutableTripleDouble triple = triple(0).setProduct(r1, r1, -normalized);
+        triple.dirtyAdd(1);
+        setSum(triple.getFirst(), triple.getSecond());
+        double k1 = first;
+
+        MutableDoubleDouble t = temp(1).setSum(r1, 3.0 / 8 * k1 * k1 * r1);
+        return mul(r1 * 0.5).add(t).mul(Math.scalb(1.0, -exponent / 2));
+    }
+
+    /**
+     * 设置为value平方根的倒数，与DoubleDouble.rsqrt(long)相同
+     */
+    public MutableDoubleDouble setRsqrt(long value) {
+        if (DoubleDouble.canLongBeConvertedToDoubleExactly(value)) {
+            return setRsqrt((double) value);
+        }
+        if (value < 0) {
+            return set(Double.NaN);
+        }
+        return set(value).rsqrt();
+    }
+
+    /**
+     * 设置为value平方根的倒数，与DoubleDouble.rsqrt(DoubleDouble)相同
+     */
+    public MutableDoubleDouble setRsqrt(DoubleDouble value) {
+        return set(value).rsqrt();
+    }
+
+    /**
+     * 设置为自身的立方根，与DoubleDouble.cbrt(DoubleDouble)相同
+     */
+    public MutableDoubleDouble cbrt() {
+        double first = this.first;
+        double second = this.second;
+        if (second == 0) {
+            return setCbrt(first);
+        }
+        double f0 = Math.cbrt(first);
+        if (!(Double.isFinite(f0))) {
+            return set(f0);
+        }
+        int exponent = Math.getExponent(first);
+        if (DoubleDouble.isRootScalingNeeded(exponent)) {
+            int k = exponent / 3;
+            return scalb(-3 * k).cbrt().scalb(k);
+        }
+        MutableDoubleDouble h = temp(0).setProduct(f0, f0).mul(-f0).add(first, second).div(first, second);
+        double eps2 = f0 * h.first * h.first * (2.0 / 9.0);
+        h.mul(f0).div(3.0).add(eps2).add(f0);
+        return set(h);
+    }
+
+    /**
+     * 设置为value的立方根，与DoubleDouble.cbrt(double)相同
+     */
+    public MutableDoubleDouble setCbrt(double value) {
+        if (value == 0) {
+            return set(value);
+        }
+        if (value == 1) {
+            return set(1.0);
+        }
+        double f0 = Math.cbrt(value);
+        if (!(Double.isFinite(f0))) {
+            return set(f0);
+        }
+        int exponent = Math.getExponent(value);
+        if (DoubleDouble.isRootScalingNeeded(exponent)) {
+            int k = exponent / 3;
+            return setCbrt(Math.scalb(value, -3 * k)).scalb(k);
+        }
+        MutableDoubleDouble h = temp(0).setProduct(f0, f0).mul(-f0).add(value).div(value);
+        double eps2 = f0 * h.first * h.first * (2.0 / 9.0);
+        h.mul(f0).div(3.0).add(eps2).add(f0);
+        return set(h);
+    }
+
+    /**
+     * 设置为value的立方根，与DoubleDouble.cbrt(long)相同
+     */
+    public MutableDoubleDouble setCbrt(long value) {
+        if (DoubleDouble.canLongBeConvertedToDoubleExactly(value)) {
+            return setCbrt((double) value);
+        }
+        return set(value).cbrt();
+    }
+
+    /**
+     * 设置为value的立方根，与DoubleDouble.cbrt(DoubleDouble)相同
+     */
+    public MutableDoubleDouble setCbrt(DoubleDouble value) {
+        return set(value).cbrt();
+    }
+
+    /**
+     * 设置为value的自然对数，与DoubleDouble.log(double)相同
+     */
+    public MutableDoubleDouble setLog(double value) {
+        if (!(value >= 0)) {
+            return set(Double.NaN);
+        }
+        if (value == 0) {
+            return set(Double.NEGATIVE_INFINITY);
+        }
+        if (value == Double.POSITIVE_INFINITY) {
+            return set(Double.POSITIVE_INFINITY);
+        }
+        int exponent = Math.getExponent(value);
+        double normalized = Math.scalb(value, -exponent);
+        if (exponent == Double.MIN_EXPONENT - 1) {
+            // subnormal
+            int exponent2 = Math.getExponent(normalized);
+            exponent += exponent2;
+            normalized = Math.scalb(value, -exponent);
+        }
+
+        // 1.0 <= normalized && normalized < 2
+        MutableTripleDouble result;
+        if (normalized <= 1.99 || exponent != -1) {
+            result = log1p(normalized - 1);
+        } else {
+            // normalized > 1.99 && normalized < 2
+            double reciprocal = 2 / normalized;
+            double val = reciprocal - 1;
+            result = log1p(val);
+
+            MutableDoubleDouble ke = temp(1).setProduct(reciprocal, value).add(-1.0);
+            double k = ke.first;
+            MutableDoubleDouble k2 = temp(2).setProduct(k, k);
+            if (ke.second != 0) {
+                k2.add(2 * k * ke.second);
+            }
+            MutableTripleDouble lk = triple(0).set(k2);
+            lk.setUnnormalized(lk.getFirst() * -0.5, lk.getSecond() * -0.5, lk.getThird());
+            lk.dirtyAdd(k * k * k / 3);
+            lk.dirtyAdd(k);
+
+            lk.dirtyAdd(-result.getThird());
+            lk.dirtyAdd(-result.getSecond());
+            lk.dirtyAdd(-result.getFirst());
+
+            return assign(lk.getFirst(), lk.getSecond());
+        }
+        MutableTripleDouble log2 = triple(0)
+                .setUnnormalized(0.6931471805599453, 2.3190468138462996E-17, 5.707708438416212E-34);
+        log2.dirtyMul((double) exponent);
+        result.dirtyAdd(log2.getThird());
+        result.dirtyAdd(log2.getSecond());
+        result.dirtyAdd(log2.getFirst());
+        return assign(result.getFirst(), result.getSecond());
+    }
+
+    // 计算log(1 + value)，0 <= value <= 1，结果保存在triple(6)中，不保证规格化
+    private MutableTripleDouble log1p(double value) {
+        if (!(0 <= value && value <= 1)) {
+            throw new AssertionError();
+        }
+        MutableTripleDouble vt = triple(1).set(value);
+        vt.dirtyAdd(1);
+        for (int i = 0; i < 16; i++) {
+            vt.dirtySqrt();
+        }
+        MutableTripleDouble vtc = triple(2).set(vt);
+        vtc.dirtyAdd(-1);
+        double value1 = vtc.getFirst();
+
+        double x = value1 / (2 + value1);
+
+        MutableTripleDouble tInv = triple(3).set(temp(1).setSum(1, -x));
+        MutableTripleDouble reciprocalX = triple(4).setReciprocal1p(x);
+        reciprocalX.dirtyAdd(1);
+        tInv.dirtyMul(reciprocalX);
+
+        MutableTripleDouble vtMulInv = triple(2).set(vt);
+        vtMulInv.dirtyMul(tInv);
+
+        MutableTripleDouble s2 = triple(5).setProduct(x, x, x);
+        s2.dirtyDiv(3);
+
+        MutableTripleDouble k = triple(6).set(temp(1).setProduct(x, LOG1P_COEFFICIENTS[0]));
+        k.dirtyAdd(LOG1P_COEFFICIENTS[1]);
+
+        for (int i = 2; i < LOG1P_COEFFICIENTS.length; i++) {
+            double c = LOG1P_COEFFICIENTS[i];
+            k.dirtyMul(x);
+            k.dirtyAdd(c);
+        }
+        k.dirtyMul(x);
+        k.dirtyMul(x);
+        k.dirtyMul(x);
+        k.dirtyMul(x);
+
+        k.dirtyAdd(x * 2);
+        k.dirtyAdd(s2.getThird() * 2);
+        k.dirtyAdd(s2.getSecond() * 2);
+        k.dirtyAdd(s2.getFirst() * 2);
+
+
+        // 修正value与(1+x)/(1-x)中的细微差别
+        vtMulInv.dirtyAdd(-1);
+        double vs1 = vtMulInv.getFirst();
+        double vs2 = vtMulInv.getSecond();
+
+        k.dirtyAdd(vs1);
+        k.dirtyAdd(vs2 + vs1 * vs1 * (-0.5));
+
+        k.setUnnormalized(k.getFirst() * 65536, k.getSecond() * 65536, k.getThird() * 65536);
+
+        return k;
+    }
+
+    private boolean isOne() {
+        return Double.compare(first, 1.0) == 0 && Double.compare(second, 0.0) == 0;
+    }
+
+    private MutableDoubleDouble temp(int i) {
+        MutableDoubleDouble[] temps = this.temps;
+        if (temps == null) {
+            temps = this.temps = new MutableDoubleDouble[4];
+        }
+        MutableDoubleDouble t = temps[i];
+        if (t == null) {
+            t = temps[i] = new MutableDoubleDouble();
+        }
+        return t;
+    }
+
+    private MutableTripleDouble triple(int i) {
+        MutableTripleDouble[] triples = this.triples;
+        if (triples == null) {
+            triples = this.triples = new MutableTripleDouble[7];
+        }
+        MutableTripleDouble t = triples[i];
+        if (t == null) {
+            t = triples[i] = new MutableTripleDouble();
+        }
+        return t;
+    }
+
+    // 和DoubleDouble的构造函数一样，对两部分进行规格化
+    private MutableDoubleDouble assign(double first, double second) {
+        if (Double.isNaN(first) || Double.isNaN(second)) {
+            this.first = Double.NaN;
+            this.second = Double.NaN;
+        } else if (Double.isInfinite(first) || first == 0 || second == 0) {
+            this.first = first;
+            this.second = 0;
+        } else {
+            this.first = first;
+            this.second = second;
+        }
+        return this;
+    }
+
+    // 乘以2^k，与DoubleDouble中开方时的缩放相同
+    private MutableDoubleDouble scalb(int k) {
+        return setSum(Math.scalb(first, k), Math.scalb(second, k));
+    }
+}
@@ -0,0 +1,159 @@
+package ntysdd;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+public class MutableDoubleDoubleTest {
+    private static final double[] SPECIAL_DOUBLES = {
+            0.0, -0.0, 1.0, -1.0, 2.0, 0.5, 3.0, -7.0, 0.1, 1E-20, -1E-20, 1E30, -1E30, 1E300, 1E-200,
+            Double.MAX_VALUE, -Double.MAX_VALUE, Double.MIN_VALUE, -Double.MIN_VALUE, Double.MIN_NORMAL,
+            Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN,
+    };
+
+    private static final long[] SPECIAL_LONGS = {
+            0, 1, -1, 3, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE - 1, Long.MIN_VALUE + 1,
+            (long) StrictMath.pow(2, 53) + 1, -(long) StrictMath.pow(2, 53) - 1,
+    };
+
+    private static List<DoubleDouble> values() {
+        List<DoubleDouble> values = new ArrayList<>();
+        for (double d : SPECIAL_DOUBLES) {
+            values.add(DoubleDouble.valueOf(d));
+        }
+        for (long l : SPECIAL_LONGS) {
+            values.add(DoubleDouble.valueOf(l));
+        }
+        values.add(DoubleDouble.ONE.div(3));
+        values.add(DoubleDouble.ONE.div(-7));
+        values.add(DoubleDouble.add(1.0, 1E-20));
+        values.add(DoubleDouble.add(1E200, 1E184));
+        values.add(DoubleDouble.add(1E-200, 1E-217));
+        Random random = new Random(0);
+        for (int i = 0; i < 60; i++) {
+            double hi = (random.nextDouble() - 0.5) * StrictMath.pow(2, random.nextInt(120) - 60);
+            double lo = hi * random.nextDouble() * StrictMath.pow(2, -53);
+            values.add(DoubleDouble.add(hi, lo));
+        }
+        return values;
+    }
+
+    public static void test001() {
+        List<DoubleDouble> values = values();
+        for (DoubleDouble x : values) {
+            for (DoubleDouble y : values) {
+                assertEquals(x.add(y), new MutableDoubleDouble(x).add(y).toDoubleDouble());
+                assertEquals(x.add(y), new MutableDoubleDouble(x).add(new MutableDoubleDouble(y)).toDoubleDouble());
+                assertEquals(x.sub(y), new MutableDoubleDouble(x).sub(y).toDoubleDouble());
+                assertEquals(x.mul(y), new MutableDoubleDouble(x).mul(y).toDoubleDouble());
+                assertEquals(x.div(y), new MutableDoubleDouble(x).div(y).toDoubleDouble());
+                assertEquals(x.div(y), new MutableDoubleDouble(x).div(new MutableDoubleDouble(y)).toDoubleDouble());
+            }
+        }
+    }
+
+    public static void test002() {
+        for (DoubleDouble x : values()) {
+            for (double y : SPECIAL_DOUBLES) {
+                assertEquals(x.add(y), new MutableDoubleDouble(x).add(y).toDoubleDouble());
+                assertEquals(x.sub(y), new MutableDoubleDouble(x).sub(y).toDoubleDouble());
+                assertEquals(x.mul(y), new MutableDoubleDouble(x).mul(y).toDoubleDouble());
+                assertEquals(x.div(y), new MutableDoubleDouble(x).div(y).toDoubleDouble());
+            }
+            for (long y : SPECIAL_LONGS) {
+                assertEquals(x.add(y), new MutableDoubleDouble(x).add(y).toDoubleDouble());
+                assertEquals(x.sub(y), new MutableDoubleDouble(x).sub(y).toDoubleDouble());
+                assertEquals(x.mul(y), new MutableDoubleDouble(x).mul(y).toDoubleDouble());
+                assertEquals(x.div(y), new MutableDoubleDouble(x).div(y).toDoubleDouble());
+            }
+        }
+    }
+
+    public static void test003() {
+        MutableDoubleDouble m = new MutableDoubleDouble();
+        for (DoubleDouble x : values()) {
+            assertEquals(x.neg(), m.set(x).neg().toDoubleDouble());
+            assertEquals(DoubleDouble.reciprocal(x), m.set(x).reciprocal().toDoubleDouble());
+            assertEquals(DoubleDouble.reciprocal(x), m.setReciprocal(x).toDoubleDouble());
+            assertEquals(DoubleDouble.sqrt(x), m.set(x).sqrt().toDoubleDouble());
+            assertEquals(DoubleDouble.sqrt(x), m.setSqrt(x).toDoubleDouble());
+            assertEquals(DoubleDouble.cbrt(x), m.set(x).cbrt().toDoubleDouble());
+            assertEquals(DoubleDouble.cbrt(x), m.setCbrt(x).toDoubleDouble());
+            assertEquals(DoubleDouble.rsqrt(x), m.setRsqrt(x).toDoubleDouble());
+        }
+        for (double d : SPECIAL_DOUBLES) {
+            assertEquals(DoubleDouble.valueOf(d), m.set(d).toDoubleDouble());
+            assertEquals(DoubleDouble.reciprocal(d), m.setReciprocal(d).toDoubleDouble());
+            assertEquals(DoubleDouble.sqrt(d), m.setSqrt(d).toDoubleDouble());
+            assertEquals(DoubleDouble.cbrt(d), m.setCbrt(d).toDoubleDouble());
+            assertEquals(DoubleDouble.rsqrt(d), m.setRsqrt(d).toDoubleDouble());
+            assertEquals(DoubleDouble.log(d), m.setLog(d).toDoubleDouble());
+            for (double e : SPECIAL_DOUBLES) {
+                assertEquals(DoubleDouble.add(d, e), m.setSum(d, e).toDoubleDouble());
+                assertEquals(DoubleDouble.mul(d, e), m.setProduct(d, e).toDoubleDouble());
+            }
+        }
+        for (long l : SPECIAL_LONGS) {
+            assertEquals(DoubleDouble.valueOf(l), m.set(l).toDoubleDouble());
+            assertEquals(DoubleDouble.reciprocal(l), m.setReciprocal(l).toDoubleDouble());
+            assertEquals(DoubleDouble.sqrt(l), m.setSqrt(l).toDoubleDouble());
+            assertEquals(DoubleDouble.cbrt(l), m.setCbrt(l).toDoubleDouble());
+            assertEquals(DoubleDouble.rsqrt(l), m.setRsqrt(l).toDoubleDouble());
+        }
+    }
+
+    public static void test004() {
+        // 连续计算时，中间结果与DoubleDouble的计算过程一致
+        Random random = new Random(1);
+        DoubleDouble expected = DoubleDouble.ONE;
+        MutableDoubleDouble m = new MutableDoubleDouble(1.0);
+        for (int i = 0; i < 10000; i++) {
+            DoubleDouble x = DoubleDouble.add(random.nextDouble() + 0.5, random.nextDouble() * 1E-17);
+            switch (i % 4) {
+                case 0:
+                    expected = expected.mul(x).add(x);
+                    m.mul(x).add(x);
+                    break;
+                case 1:
+                    expected = expected.div(x).sub(0.25);
+                    m.div(x).sub(0.25);
+                    break;
+                case 2:
+                    expected = DoubleDouble.sqrt(expected.mul(expected).add(1));
+                    m.mul(m).add(1L).sqrt();
+                    break;
+                default:
+                    expected = DoubleDouble.cbrt(expected.mul(expected).mul(expected));
+                    DoubleDouble current = m.toDoubleDouble();
+                    m.mul(current).mul(current).cbrt();
+                    break;
+            }
+            assertEquals(expected, m.toDoubleDouble());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Method[] methods = Arrays.stream(MutableDoubleDoubleTest.class.getMethods())
+                .filter(m -> m.getName().matches("test[0-9]+")
+                        && m.getParameterCount() == 0)
+                .sorted(Comparator.comparing(Method::getName))
+                .toArray(Method[]::new);
+        for (Method method : methods) {
+            method.invoke(null);
+        }
+    }
+
+    private static void assertEquals(Object expected, Object actual) {
+        if ((expected == null) != (actual == null)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+        if (expected != null && !expected.equals(actual)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+    }
+}
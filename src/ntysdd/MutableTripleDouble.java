@@ -0,0 +1,990 @@
+package ntysdd;
+
+import java.math.BigDecimal;
+
+/**
+ * 可变的TripleDouble
+ * 适用情况：在循环中反复计算，不想每一步都生成新的TripleDouble对象
+ * 每个操作的结果与TripleDouble中对应的操作完全相同，
+ * 结果保存在自身中，并返回自身，方便连续调用
+ * 公开的方法总是保持和TripleDouble相同的规格化要求，get的三部分可以直接用来构造TripleDouble
+ * 同一个包中DoubleDouble的log和rsqrt借用这个类保存不规格化的中间结果，
+ * 相关的方法都不是公开的，中间结果不会通过公开的方法得到
+ * 注意：
+ * 这个类不是线程安全的
+ */
+public final strictfp class MutableTripleDouble {
+    private double first;
+    private double second;
+    private double third;
+
+    // 计算中使用的四级的和，每一级保存上一级的舍入误差
+    private double acc1;
+    private double acc2;
+    private double acc3;
+    private double acc4;
+
+    // log和rsqrt内部使用的计算中的临时变量，用到时才创建
+    private MutableDoubleDouble[] temps;
+    private MutableTripleDouble triple;
+    private double[] productTerms;
+    private double[] mulTerms;
+
+    /**
+     * 创建一个值为0的MutableTripleDouble
+     */
+    public MutableTripleDouble() {
+    }
+
+    /**
+     * 创建一个值为value的MutableTripleDouble
+     */
+    public MutableTripleDouble(double value) {
+        set(value);
+    }
+
+    /**
+     * 创建一个值为value的MutableTripleDouble
+     */
+    public MutableTripleDouble(DoubleDouble value) {
+        set(value);
+    }
+
+    /**
+     * 创建一个值为value的MutableTripleDouble
+     */
+    public MutableTripleDouble(TripleDouble value) {
+        set(value);
+    }
+
+    /**
+     * 设置为value
+     */
+    public MutableTripleDouble set(double value) {
+        if (Double.isNaN(value)) {
+            return setNormalized(Double.NaN, Double.NaN, Double.NaN);
+        }
+        return setNormalized(value, 0, 0);
+    }
+
+    /**
+     * 设置为value
+     */
+    public MutableTripleDouble set(long value) {
+        return set(DoubleDouble.valueOf(value));
+    }
+
+    /**
+     * 设置为value
+     */
+    public MutableTripleDouble set(DoubleDouble value) {
+        if (Double.isNaN(value.getFirst())) {
+            return set(Double.NaN);
+        }
+        return setNormalized(value.getFirst(), value.getSecond(), 0);
+    }
+
+    /**
+     * 设置为value
+     */
+    public MutableTripleDouble set(MutableDoubleDouble value) {
+        if (Double.isNaN(value.getFirst())) {
+            return set(Double.NaN);
+        }
+        return setNormalized(value.getFirst(), value.getSecond(), 0);
+    }
+
+    /**
+     * 设置为value
+     */
+    public MutableTripleDouble set(TripleDouble value) {
+        return setNormalized(value.getFirst(), value.getSecond(), value.getThird());
+    }
+
+    /**
+     * 设置为value
+     */
+    public MutableTripleDouble set(MutableTripleDouble value) {
+        return setNormalized(value.first, value.second, value.third);
+    }
+
+    /**
+     * 设置为最接近value的值
+     */
+    public MutableTripleDouble set(BigDecimal value) {
+        double v1 = value.doubleValue();
+        if (Double.isInfinite(v1)) {
+            return set(v1);
+        }
+        BigDecimal r = value.subtract(new BigDecimal(v1));
+        double v2 = r.doubleValue();
+        double v3 = r.subtract(new BigDecimal(v2)).doubleValue();
+        // 在次正规数附近doubleValue不一定是正确舍入的，三部分可能不满足规格化的要求
+        if (!tryAssign(v1, v2, v3, 0)) {
+            throw new AssertionError();
+        }
+        return this;
+    }
+
+    // 直接设置三部分，要求已经规格化
+    MutableTripleDouble setNormalized(double first, double second, double third) {
+        this.first = first;
+        this.second = second;
+        this.third = third;
+        return this;
+    }
+
+    /**
+     * 返回内部表示的第一部分
+     */
+    public double getFirst() {
+        return first;
+    }
+
+    /**
+     * 返回内部表示的第二部分
+     */
+    public double getSecond() {
+        return second;
+    }
+
+    /**
+     * 返回内部表示的第三部分
+     */
+    public double getThird() {
+        return third;
+    }
+
+    /**
+     * 转为TripleDouble
+     */
+    public TripleDouble toTripleDouble() {
+        return TripleDouble.ofNormalized(first, second, third);
+    }
+
+    /**
+     * 舍入成DoubleDouble
+     */
+    public DoubleDouble toDoubleDouble() {
+        // 因为已经规格化，second + third == second，舍入的结果就是前两部分
+        return DoubleDouble.ofNormalized(first, second);
+    }
+
+    @Override
+    public String toString() {
+        return toTripleDouble().toString();
+    }
+
+    /**
+     * 设置为values[from]到values[to - 1]的和，与TripleDouble.sum(double[], int, int)相同
+     */
+    public MutableTripleDouble setSum(double[] values, int from, int to) {
+        if (from < 0 || to > values.length || from > to) {
+            throw new IndexOutOfBoundsException("from: " + from + ", to: " + to
+                    + ", length: " + values.length);
+        }
+        if (from == to) {
+            return set(0.0);
+        }
+        clearSum();
+        for (int i = from; i < to; i++) {
+            accumulate(values[i]);
+        }
+        if (!Double.isFinite(acc1)) {
+            double result = 0;
+            for (int i = from; i < to; i++) {
+                result += values[i];
+            }
+            return set(result);
+        }
+        return assignSum();
+    }
+
+    /**
+     * 加上一个double
+     */
+    public MutableTripleDouble add(double rhs) {
+        return add(rhs, 0, 0);
+    }
+
+    /**
+     * 加上一个long
+     */
+    public MutableTripleDouble add(long rhs) {
+        MutableDoubleDouble t = temp(0).set(rhs);
+        return add(t.getFirst(), t.getSecond(), 0);
+    }
+
+    /**
+     * 加上一个DoubleDouble
+     */
+    public MutableTripleDouble add(DoubleDouble rhs) {
+        return add(rhs.getFirst(), rhs.getSecond(), 0);
+    }
+
+    /**
+     * 加上一个TripleDouble
+     */
+    public MutableTripleDouble add(TripleDouble rhs) {
+        return add(rhs.getFirst(), rhs.getSecond(), rhs.getThird());
+    }
+
+    /**
+     * 加上一个MutableTripleDouble，rhs可以是自身
+     */
+    public MutableTripleDouble add(MutableTripleDouble rhs) {
+        return add(rhs.first, rhs.second, rhs.third);
+    }
+
+    // 加上三部分表示的数，三部分要求已经规格化，或者是0的相反数
+    private MutableTripleDouble add(double rhsFirst, double rhsSecond, double rhsThird) {
+        double first = this.first;
+        if (!Double.isFinite(first) || !Double.isFinite(rhsFirst)) {
+            return set(first + rhsFirst);
+        }
+        if (rhsFirst == 0) {
+            if (first == 0) {
+                return set(first + rhsFirst);
+            }
+            return this;
+        }
+        if (first == 0) {
+            return assign(rhsFirst, rhsSecond, rhsThird, 0);
+        }
+        clearSum();
+        accumulate(first);
+        accumulate(rhsFirst);
+        accumulate(this.second);
+        accumulate(rhsSecond);
+        accumulate(this.third);
+        accumulate(rhsThird);
+        return assignSum();
+    }
+
+    /**
+     * 取相反数
+     */
+    public MutableTripleDouble neg() {
+        this.first = -first;
+        // 0.0 - 0.0 == 0.0，不会产生-0.0
+        this.second = 0.0 - second;
+        this.third = 0.0 - third;
+        return this;
+    }
+
+    /**
+     * 减去一个double
+     */
+    public MutableTripleDouble sub(double rhs) {
+        return add(-rhs, 0, 0);
+    }
+
+    /**
+     * 减去一个long
+     */
+    public MutableTripleDouble sub(long rhs) {
+        MutableDoubleDouble t = temp(0).set(rhs);
+        return add(-t.getFirst(), -t.getSecond(), 0);
+    }
+
+    /**
+     * 减去一个DoubleDouble
+     */
+    public MutableTripleDouble sub(DoubleDouble rhs) {
+        return add(-rhs.getFirst(), -rhs.getSecond(), 0);
+    }
+
+    /**
+     * 减去一个TripleDouble
+     */
+    public MutableTripleDouble sub(TripleDouble rhs) {
+        return add(-rhs.getFirst(), -rhs.getSecond(), -rhs.getThird());
+    }
+
+    /**
+     * 减去一个MutableTripleDouble，rhs可以是自身
+     */
+    public MutableTripleDouble sub(MutableTripleDouble rhs) {
+        return add(-rhs.first, -rhs.second, -rhs.third);
+    }
+
+    /**
+     * 乘以一个double
+     */
+    public MutableTripleDouble mul(double rhs) {
+        return mul(rhs, 0, 0);
+    }
+
+    /**
+     * 乘以一个long
+     */
+    public MutableTripleDouble mul(long rhs) {
+        MutableDoubleDouble t = temp(0).set(rhs);
+        return mul(t.getFirst(), t.getSecond(), 0);
+    }
+
+    /**
+     * 乘以一个DoubleDouble
+     */
+    public MutableTripleDouble mul(DoubleDouble rhs) {
+        return mul(rhs.getFirst(), rhs.getSecond(), 0);
+    }
+
+    /**
+     * 乘以一个TripleDouble
+     */
+    public MutableTripleDouble mul(TripleDouble rhs) {
+        return mul(rhs.getFirst(), rhs.getSecond(), rhs.getThird());
+    }
+
+    /**
+     * 乘以一个MutableTripleDouble，rhs可以是自身
+     */
+    public MutableTripleDouble mul(MutableTripleDouble rhs) {
+        return mul(rhs.first, rhs.second, rhs.third);
+    }
+
+    private MutableTripleDouble mul(double rhsFirst, double rhsSecond, double rhsThird) {
+        double first = this.first;
+        if (first == 0 || rhsFirst == 0 || !Double.isFinite(first) || !Double.isFinite(rhsFirst)) {
+            return set(first * rhsFirst);
+        }
+        int ea = Math.getExponent(first);
+        int eb = Math.getExponent(rhsFirst);
+        if (Math.abs(ea) > 900 || Math.abs(eb) > 900 || Math.abs(ea + eb) > 900) {
+            // 部分积可能上溢或者下溢，先把两个数缩放到1附近
+            multiply(Math.scalb(first, -ea), Math.scalb(second, -ea), Math.scalb(third, -ea),
+                    Math.scalb(rhsFirst, -eb), Math.scalb(rhsSecond, -eb), Math.scalb(rhsThird, -eb));
+            return scale(ea + eb);
+        }
+        return multiply(first, second, third, rhsFirst, rhsSecond, rhsThird);
+    }
+
+    // 计算(a1 + a2 + a3) * (b1 + b2 + b3)
+    // 部分积按照大小分级，a1 * b1到a1 * b3等积的舍入误差都保留，
+    // 更小的部分积只影响第三部分的最后几位
+    private MutableTripleDouble multiply(double a1, double a2, double a3,
+                                         double b1, double b2, double b3) {
+        double p11 = a1 * b1;
+        double p12 = a1 * b2;
+        double p21 = a2 * b1;
+        double p13 = a1 * b3;
+        double p22 = a2 * b2;
+        double p31 = a3 * b1;
+        double tail = DoubleDouble.productError(a1, b3, p13)
+                + DoubleDouble.productError(a2, b2, p22)
+                + DoubleDouble.productError(a3, b1, p31)
+                + (a2 * b3 + a3 * b2);
+        clearSum();
+        accumulate(p11);
+        accumulate(DoubleDouble.productError(a1, b1, p11));
+        accumulate(p12);
+        accumulate(p21);
+        accumulate(DoubleDouble.productError(a1, b2, p12));
+        accumulate(DoubleDouble.productError(a2, b1, p21));
+        accumulate(p13);
+        accumulate(p22);
+        accumulate(p31);
+        accumulate(tail);
+        return assignSum();
+    }
+
+    /**
+     * 除以一个double
+     */
+    public MutableTripleDouble div(double rhs) {
+        return div(rhs, 0, 0);
+    }
+
+    /**
+     * 除以一个long
+     */
+    public MutableTripleDouble div(long rhs) {
+        MutableDoubleDouble t = temp(0).set(rhs);
+        return div(t.getFirst(), t.getSecond(), 0);
+    }
+
+    /**
+     * 除以一个DoubleDouble
+     */
+    public MutableTripleDouble div(DoubleDouble rhs) {
+        return div(rhs.getFirst(), rhs.getSecond(), 0);
+    }
+
+    /**
+     * 除以一个TripleDouble
+     */
+    public MutableTripleDouble div(TripleDouble rhs) {
+        return div(rhs.getFirst(), rhs.getSecond(), rhs.getThird());
+    }
+
+    /**
+     * 除以一个MutableTripleDouble，rhs可以是自身
+     */
+    public MutableTripleDouble div(MutableTripleDouble rhs) {
+        return div(rhs.first, rhs.second, rhs.third);
+    }
+
+    private MutableTripleDouble div(double rhsFirst, double rhsSecond, double rhsThird) {
+        return divide(first, second, third, rhsFirst, rhsSecond, rhsThird);
+    }
+
+    /**
+     * 取倒数
+     */
+    public MutableTripleDouble reciprocal() {
+        return divide(1.0, 0, 0, first, second, third);
+    }
+
+    private MutableTripleDouble divide(double a1, double a2, double a3,
+                                       double b1, double b2, double b3) {
+        if (a1 == 0 || b1 == 0 || !Double.isFinite(a1) || !Double.isFinite(b1)) {
+            return set(a1 / b1);
+        }
+        int ea = Math.getExponent(a1);
+        int eb = Math.getExponent(b1);
+        if (DoubleDouble.isDivisionScalingNeeded(ea, eb)) {
+            // 和DoubleDouble的除法一样，先缩放到1附近，算完之后再缩放回去
+            quotient(Math.scalb(a1, -ea), Math.scalb(a2, -ea), Math.scalb(a3, -ea),
+                    Math.scalb(b1, -eb), Math.scalb(b2, -eb), Math.scalb(b3, -eb));
+            return scale(ea - eb);
+        }
+        return quotient(a1, a2, a3, b1, b2, b3);
+    }
+
+    // 长除法，每次用余数的近似值除以b1得到商的下一部分
+    // 余数a - (q1 + q2 + ...) * b一直保存在四级的和中，不会丢失低位
+    private MutableTripleDouble quotient(double a1, double a2, double a3,
+                                         double b1, double b2, double b3) {
+        double q1 = a1 / b1;
+        clearSum();
+        accumulate(a1);
+        subtractProduct(q1, b1);
+        accumulate(a2);
+        subtractProduct(q1, b2);
+        accumulate(a3);
+        subtractProduct(q1, b3);
+
+        double q2 = (acc1 + acc2 + acc3) / b1;
+        subtractProduct(q2, b1);
+        subtractProduct(q2, b2);
+        accumulate(-(q2 * b3));
+
+        double q3 = (acc1 + acc2 + acc3) / b1;
+        subtractProduct(q3, b1);
+        accumulate(-(q3 * b2));
+
+        double q4 = (acc1 + acc2 + acc3) / b1;
+        clearSum();
+        accumulate(q1);
+        accumulate(q2);
+        accumulate(q3);
+        accumulate(q4);
+        return assignSum();
+    }
+
+    /**
+     * 开平方
+     */
+    public MutableTripleDouble sqrt() {
+        double first = this.first;
+        if (!(first > 0) || first == Double.POSITIVE_INFINITY) {
+            return set(Math.sqrt(first));
+        }
+        // 缩放到1附近，指数取偶数，这样结果只需要缩放一半的指数
+        int exponent = Math.getExponent(first) & ~1;
+        double a1 = Math.scalb(first, -exponent);
+        double a2 = Math.scalb(second, -exponent);
+        double a3 = Math.scalb(third, -exponent);
+
+        // 牛顿法，余数a - (q1 + q2 + ...)^2一直保存在四级的和中
+        double q1 = Math.sqrt(a1);
+        double twoQ1 = 2 * q1;
+        clearSum();
+        accumulate(a1);
+        subtractProduct(q1, q1);
+        accumulate(a2);
+        accumulate(a3);
+
+        double q2 = (acc1 + acc2 + acc3) / twoQ1;
+        subtractProduct(twoQ1, q2);
+        subtractProduct(q2, q2);
+
+        double q3 = (acc1 + acc2 + acc3) / twoQ1;
+        subtractProduct(twoQ1, q3);
+        accumulate(-(2 * q2 * q3));
+
+        double q4 = (acc1 + acc2 + acc3) / twoQ1;
+        clearSum();
+        accumulate(q1);
+        accumulate(q2);
+        accumulate(q3);
+        accumulate(q4);
+        assignSum();
+        return scale(exponent / 2);
+    }
+
+    /**
+     * 设置为自身平方根的倒数
+     */
+    public MutableTripleDouble rsqrt() {
+        // 开平方和取倒数的误差实测都在2^-160左右，组合起来仍然在2^-155以内
+        return sqrt().reciprocal();
+    }
+
+    // 乘以2的exponent次方，上溢和下溢时重新规格化
+    private MutableTripleDouble scale(int exponent) {
+        double f = Math.scalb(first, exponent);
+        if (Double.isInfinite(f)) {
+            return set(f);
+        }
+        return assign(f, Math.scalb(second, exponent),
+                Math.scalb(third, exponent), 0);
+    }
+
+    private void clearSum() {
+        // 从-0.0开始，这样-0.0加-0.0的结果也是-0.0
+        acc1 = -0.0;
+        acc2 = 0;
+        acc3 = 0;
+        acc4 = 0;
+    }
+
+    // 把x加到四级的和中，只有最后一级有舍入误差
+    private void accumulate(double x) {
+        double t = acc1 + x;
+        double e = DoubleDouble.addError(acc1, x, t);
+        acc1 = t;
+        t = acc2 + e;
+        e = DoubleDouble.addError(acc2, e, t);
+        acc2 = t;
+        t = acc3 + e;
+        e = DoubleDouble.addError(acc3, e, t);
+        acc3 = t;
+        acc4 += e;
+    }
+
+    // 从四级的和中减去lhs * rhs，积的舍入误差也减去
+    private void subtractProduct(double lhs, double rhs) {
+        double p = lhs * rhs;
+        accumulate(-p);
+        accumulate(-DoubleDouble.productError(lhs, rhs, p));
+    }
+
+    private MutableTripleDouble assignSum() {
+        return assign(acc1, acc2, acc3, acc4);
+    }
+
+    // 把a + b + c + d规格化成三部分，结果保存在自身中
+    // 规格化的要求：first + second == first，second + third == second，
+    // 第二部分为0时第三部分也为0，为0的部分都是+0.0
+    private MutableTripleDouble assign(double a, double b, double c, double d) {
+        if (tryAssign(a, b, c, d)) {
+            return this;
+        }
+        // 很少见
+        return set(new BigDecimal(a)
+                .add(new BigDecimal(b))
+                .add(new BigDecimal(c))
+                .add(new BigDecimal(d)));
+    }
+
+    // 自下而上合并两遍，满足规格化的要求时保存结果并返回true
+    private boolean tryAssign(double a, double b, double c, double d) {
+        for (int i = 0; i < 2; i++) {
+            if (!Double.isFinite(a)) {
+                // 上溢时其他部分可能是NaN，结果只取决于第一部分
+                set(a);
+                return true;
+            }
+            if (b == 0 && c == 0 && d == 0) {
+                // 保留第一部分的符号，包括-0.0
+                setNormalized(a, 0, 0);
+                return true;
+            }
+            double t = c + d;
+            double e3 = DoubleDouble.addError(c, d, t);
+            double u = b + t;
+            double e2 = DoubleDouble.addError(b, t, u);
+            double f = a + u;
+            if (!Double.isFinite(f)) {
+                set(f);
+                return true;
+            }
+            double e1 = DoubleDouble.addError(a, u, f);
+            double s = e1 + e2;
+            double es = DoubleDouble.addError(e1, e2, s);
+            a = f;
+            b = s;
+            c = es + e3;
+            d = DoubleDouble.addError(es, e3, c);
+            if (a + b == a && b + c == b) {
+                if (b == 0) {
+                    setNormalized(a, 0, 0);
+                } else {
+                    setNormalized(a, b, c == 0 ? 0 : c);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 以下是DoubleDouble的log和rsqrt内部使用的计算，
+    // 为了速度不保证结果规格化，也不处理特殊值
+    // 中间结果保存在temps等临时变量中，不生成新对象
+
+    // 直接设置三部分，不进行规格化
+    MutableTripleDouble setUnnormalized(double first, double second, double third) {
+        this.first = first;
+        this.second = second;
+        this.third = third;
+        return this;
+    }
+
+    void renormalize() {
+        final double ov1 = this.first;
+        final double ov2 = this.second;
+        final double ov3 = this.third;
+        if (!(Double.isFinite(ov1) && Double.isFinite(ov2) && Double.isFinite(ov3))) {
+            if (Double.isNaN(ov1) || Double.isNaN(ov2) || Double.isNaN(ov3)) {
+                this.first = Double.NaN;
+                this.second = Double.NaN;
+                this.third = Double.NaN;
+                return;
+            }
+            if (Double.isInfinite(ov1) || Double.isInfinite(ov2) || Double.isInfinite(ov3)) {
+                double res = ov1 + ov2 + ov3;
+                if (Double.isNaN(res)) {
+                    this.first = Double.NaN;
+                    this.second = Double.NaN;
+                    this.third = Double.NaN;
+                    return;
+                }
+                this.first = res;
+                this.second = 0;
+                this.third = 0;
+                return;
+            }
+            throw new AssertionError();
+        }
+        if (ov2 == 0 && ov3 == 0) {
+            if (Double.doubleToRawLongBits(ov2) == 0
+                    && Double.doubleToRawLongBits(ov3) == 0) {
+                return;
+            }
+            this.second = 0;
+            this.third = 0;
+            return;
+        }
+        if (Math.abs(ov1) * 0.25 <= Math.abs(ov2)
+                || Math.abs(ov2) * 0.25 <= Math.abs(ov3)
+        ) {
+            // 大小关系很奇怪
+            BigDecimal bd1 = new BigDecimal(ov1);
+            BigDecimal bd2 = new BigDecimal(ov2);
+            BigDecimal bd3 = new BigDecimal(ov3);
+            BigDecimal res = bd1.add(bd2).add(bd3);
+            double lv1 = res.doubleValue();
+            BigDecimal r = res.subtract(new BigDecimal(lv1));
+            double lv2 = r.doubleValue();
+            double lv3 = r.subtract(new BigDecimal(lv2)).doubleValue();
+            if (Double.isInfinite(lv1)) {
+                this.first = lv1;
+                this.second = 0;
+                this.third = 0;
+                return;
+            }
+            this.first = lv1;
+            this.second = lv2;
+            this.third = lv3;
+            return;
+        }
+
+        MutableDoubleDouble t = temp(0).setSum(this.second, this.third);
+        MutableDoubleDouble t2 = temp(1).setSum(this.first, t.getFirst());
+        MutableDoubleDouble t3 = temp(2).setSum(t2.getSecond(), t.getSecond());
+        this.first = t2.getFirst();
+        this.second = t3.getFirst();
+        this.third = t3.getSecond();
+    }
+
+    // 设置为v中所有数的和，用三级的和来求和
+    // 注意会对v进行排序
+    private MutableTripleDouble setSortedSum(double[] v) {
+        this.first = 0;
+        this.second = 0;
+        this.third = 0;
+        if (v.length == 0) {
+            return this;
+        }
+        DoubleDouble.sortByAbsMaxFirst(v);
+        if (Double.isNaN(v[v.length - 1])) {
+            this.first = Double.NaN;
+            this.second = Double.NaN;
+            this.third = Double.NaN;
+            return this;
+        }
+        MutableDoubleDouble t = temp(0);
+        double sum1 = 0;
+        double sum2 = 0;
+        double sum3 = 0;
+        for (double x : v) {
+            if (x == 0) {
+                // 因为前面按照绝对值排序了，所以后面都是0.0（或者NaN）
+                break;
+            }
+            sum3 += x;
+            t.setSum(sum2, sum3);
+            sum2 = t.getFirst();
+            sum3 = t.getSecond();
+            t.setSum(sum1, sum2);
+            sum1 = t.getFirst();
+            sum2 = t.getSecond();
+        }
+
+        this.first = sum1;
+        this.second = sum2;
+        this.third = sum3;
+
+        if (this.second + this.third != this.second) {
+            renormalize();
+        }
+        return this;
+    }
+
+    // 设置为x1 * x2 * x3
+    MutableTripleDouble setProduct(double x1, double x2, double x3) {
+        MutableDoubleDouble t1 = temp(0).setProduct(x1, x2);
+        MutableDoubleDouble t2 = temp(1).setProduct(t1.getFirst(), x3);
+        MutableDoubleDouble t3 = temp(2).setProduct(t1.getSecond(), x3);
+        double[] v = productTerms;
+        if (v == null) {
+            v = productTerms = new double[4];
+        }
+        v[0] = t2.getFirst();
+        v[1] = t3.getFirst();
+        v[2] = t2.getSecond();
+        v[3] = t3.getSecond();
+        return setSortedSum(v);
+    }
+
+    void dirtyMul(double m) {
+        double v1 = this.first;
+        double v2 = this.second;
+        double v3 = this.third;
+
+        MutableDoubleDouble t1 = temp(0).setProduct(m, v1);
+        MutableDoubleDouble t2 = temp(1).setProduct(m, v2);
+        double t3 = m * v3;
+
+        MutableDoubleDouble t4 = temp(2).setSum(t1.getSecond(), t2.getFirst());
+        double t5 = t2.getSecond() + t3;
+        double t6 = t5 + t4.getSecond();
+
+        MutableDoubleDouble t7 = temp(3).setSum(t4.getFirst(), t6);
+
+        this.first = t1.getFirst();
+        this.second = t7.getFirst();
+        this.third = t7.getSecond();
+        if (this.first + this.second != this.first) {
+            this.renormalize();
+        }
+    }
+
+    void dirtyAdd(double x) {
+        if (this.first == 0) {
+            // assert this.second == 0 && this.third == 0
+            this.first = x;
+            this.second = 0;
+            this.third = 0;
+            return;
+        }
+        if (this.second == 0) {
+            // assert this.third == 0
+            MutableDoubleDouble t = temp(0).setSum(this.first, x);
+            this.first = t.getFirst();
+            this.second = t.getSecond();
+            this.third = 0;
+            return;
+        }
+        if (this.third == 0) {
+            MutableDoubleDouble t = temp(0).setSum(x, this.first);
+            if (t.getFirst() == 0) {
+                this.first = this.second;
+                this.second = 0;
+                this.third = 0;
+                return;
+            }
+            MutableDoubleDouble t2 = temp(1).setSum(t.getSecond(), this.second);
+            this.first = t.getFirst();
+            this.second = t2.getFirst();
+            this.third = t2.getSecond();
+            if (this.first + this.second != this.first) {
+                renormalize();
+            }
+            return;
+        }
+        MutableDoubleDouble t1 = temp(0).setSum(x, this.first);
+        if (t1.getSecond() == 0 && Math.abs(t1.getFirst()) >= Math.abs(this.first)) {
+            this.first = t1.getFirst();
+            return;
+        }
+        if (t1.getFirst() == 0) {
+            this.first = this.second;
+            this.second = this.third;
+            this.third = 0;
+            return;
+        }
+        MutableDoubleDouble t2 = temp(1).setSum(this.second, t1.getSecond());
+        double t3 = t2.getSecond() + this.third;
+        MutableDoubleDouble t4 = temp(2).setSum(t2.getFirst(), t3);
+
+        MutableDoubleDouble r1 = temp(3).setSum(t1.getFirst(), t4.getFirst());
+        double r1First = r1.getFirst();
+        MutableDoubleDouble r2 = temp(0).setSum(r1.getSecond(), t4.getSecond());
+
+        this.first = r1First;
+        this.second = r2.getFirst();
+        this.third = r2.getSecond();
+    }
+
+    void dirtyDiv(double d) {
+        double r1 = this.first / d;
+        double k = Fma.fma(-d, r1, this.first);
+        MutableDoubleDouble t = temp(0).setSum(this.second, k);
+        double k2 = t.getSecond() + this.third;
+        MutableDoubleDouble t2 = temp(1).setSum(t.getFirst(), k2);
+
+        double r2 = t2.getFirst() / d;
+        k = Fma.fma(-d, r2, t2.getFirst());
+
+        double r3 = (k + t2.getSecond()) / d;
+
+        this.first = r1;
+        this.second = r2;
+        this.third = r3;
+    }
+
+    // 设置为1/(1+x)-1
+    MutableTripleDouble setReciprocal1p(double x) {
+        double r1;
+        if (Math.abs(x) > 1E-5) {
+            r1 = Math.expm1(-Math.log1p(x));
+        } else {
+            r1 = x * (-1 + x * (1 + x * (-1 + x * 0.999999999999999)));
+        }
+        MutableDoubleDouble r1p1 = temp(0).setSum(1.0, r1);
+        MutableDoubleDouble h = temp(1).setSum(r1, x)
+                .add(temp(2).setProduct(r1, x));
+
+        double h2 = h.getFirst() * h.getFirst();
+        double r2 = h2 * r1p1.getFirst();
+
+        // r1p1不再使用，r = r1p1 * -h
+        MutableDoubleDouble r = r1p1.mul(h.neg());
+
+        MutableDoubleDouble s1 = temp(2).setSum(r1, r.getFirst());
+        double c = r.getSecond() + r2;
+        set(s1);
+        dirtyAdd(c);
+        return this;
+    }
+
+    void dirtyMul(MutableTripleDouble rhs) {
+        double[] v = mulTerms;
+        if (v == null) {
+            v = mulTerms = new double[18];
+        }
+        // 先把所有部分积保存下来，最后再修改，rhs可以是自身
+        MutableDoubleDouble d = temp(0);
+        d.setProduct(this.first, rhs.first);
+        v[0] = d.getFirst();
+        v[3] = d.getSecond();
+        d.setProduct(this.first, rhs.second);
+        v[1] = d.getFirst();
+        v[6] = d.getSecond();
+        d.setProduct(this.first, rhs.third);
+        v[8] = d.getFirst();
+        v[9] = d.getSecond();
+        d.setProduct(this.second, rhs.first);
+        v[2] = d.getFirst();
+        v[5] = d.getSecond();
+        d.setProduct(this.second, rhs.second);
+        v[4] = d.getFirst();
+        v[7] = d.getSecond();
+        d.setProduct(this.second, rhs.third);
+        v[10] = d.getFirst();
+        v[12] = d.getSecond();
+        d.setProduct(this.third, rhs.first);
+        v[11] = d.getFirst();
+        v[13] = d.getSecond();
+        d.setProduct(this.third, rhs.second);
+        v[14] = d.getFirst();
+        v[15] = d.getSecond();
+        d.setProduct(this.third, rhs.third);
+        v[16] = d.getFirst();
+        v[17] = d.getSecond();
+        setSortedSum(v);
+    }
+
+    void dirtySqrt() {
+        double v1 = this.first;
+        double v2 = this.second;
+        double v3 = this.third;
+
+        double r1 = Math.sqrt(v1);
+        MutableDoubleDouble k = temp(0).setSum(v2, v3).add(Fma.fma(r1, -r1, v1));
+        double k1 = k.getFirst();
+        MutableDoubleDouble r = temp(1).set(k).mul(0.5).div(r1);
+        double r2 = (k1 * k1) / (r1 * r1 * r1) * (-0.125);
+
+        MutableDoubleDouble s1 = temp(2).setSum(r1, r.getFirst());
+        double c = r.getSecond() + r2;
+        this.first = s1.getFirst();
+        this.second = s1.getSecond();
+        this.third = 0;
+        dirtyAdd(c);
+    }
+
+    void dirtyRsqrt() {
+        double v1 = this.first;
+        double v2 = this.second;
+        double v3 = this.third;
+
+        double r1 = 1.0 / Math.sqrt(v1);
+        MutableTripleDouble n1 = triple;
+        if (n1 == null) {
+            n1 = triple = new MutableTripleDouble();
+        }
+        n1.setProduct(r1, -r1, v1);
+        n1.dirtyAdd(1);
+        n1.dirtyDiv(r1);
+        n1.dirtyDiv(r1);
+        MutableDoubleDouble k = temp(0).setSum(n1.first, n1.second)
+                .sub(temp(1).setSum(v2, v3));
+
+        double k1 = k.getFirst();
+        MutableDoubleDouble r = temp(1).set(k).mul(r1).mul(r1).mul(r1 * 0.5);
+        double r2 = 3.0 / 8 * (k1 * k1) * ((r1 * r1) * (r1 * r1) * r1);
+
+        MutableDoubleDouble s1 = temp(2).setSum(r1, r.getFirst());
+        double c = r.getSecond() + r2;
+        this.first = s1.getFirst();
+        this.second = s1.getSecond();
+        this.third = 0;
+        dirtyAdd(c);
+    }
+
+    private MutableDoubleDouble temp(int i) {
+        MutableDoubleDouble[] temps = this.temps;
+        if (temps == null) {
+            temps = this.temps = new MutableDoubleDouble[4];
+        }
+        MutableDoubleDouble t = temps[i];
+        if (t == null) {
+            t = temps[i] = new MutableDoubleDouble();
+        }
+        return t;
+    }
+}
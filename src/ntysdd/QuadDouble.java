@@ -0,0 +1,527 @@
+package ntysdd;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Objects;
+
+/**
+ * 用四个double变量来表示一个数，有效数字大约有64位
+ * 适用情况：TripleDouble的精度也不够，又不想使用BigDecimal的时候
+ * 计算只使用和DoubleDouble.add(double, double)、DoubleDouble.mul(double, double)
+ * 相同的无误差变换，部分结果保存在五级的和中，只有最后一级有舍入误差
+ * 四部分满足first + second == first，second + third == second，third + fourth == third，
+ * 为0的部分都是+0.0，所以相等的数有相同的表示
+ * 四则运算和开平方的相对误差在2^-205以内（不考虑上溢和下溢）
+ * 注意：
+ * 不保证计算结果正确到最后一位
+ */
+public final strictfp class QuadDouble {
+    public static final QuadDouble ZERO = new QuadDouble(0.0, 0.0, 0.0, 0.0);
+    public static final QuadDouble ONE = new QuadDouble(1.0, 0.0, 0.0, 0.0);
+
+    // 第四部分的舍入误差比第一部分小大约2^-265，指数超过这个范围时先缩放，避免中间结果下溢
+    private static final int SCALING_THRESHOLD = 700;
+
+    private final double first;
+    private final double second;
+    private final double third;
+    private final double fourth;
+
+    /**
+     * 将double转为QuadDouble
+     */
+    public static QuadDouble valueOf(double x) {
+        if (x == 1) {
+            return ONE;
+        }
+        if (Double.doubleToRawLongBits(x) == 0) {
+            return ZERO;
+        }
+        return new QuadDouble(x, 0, 0, 0);
+    }
+
+    /**
+     * 将DoubleDouble转为QuadDouble，不会丢失精度
+     */
+    public static QuadDouble valueOf(DoubleDouble x) {
+        if (x.getSecond() == 0) {
+            return valueOf(x.getFirst());
+        }
+        return new QuadDouble(x.getFirst(), x.getSecond(), 0, 0);
+    }
+
+    /**
+     * 将BigDecimal转为QuadDouble，超出精度的部分舍入
+     */
+    public static QuadDouble valueOf(BigDecimal x) {
+        double v1 = x.doubleValue();
+        if (Double.isInfinite(v1)) {
+            return valueOf(v1);
+        }
+        BigDecimal r = x.subtract(new BigDecimal(v1));
+        double v2 = r.doubleValue();
+        r = r.subtract(new BigDecimal(v2));
+        double v3 = r.doubleValue();
+        double v4 = r.subtract(new BigDecimal(v3)).doubleValue();
+        // 在次正规数附近doubleValue不一定是正确舍入的，四部分可能不满足规格化的要求
+        QuadDouble result = tryNormalize(v1, v2, v3, v4, 0);
+        if (result == null) {
+            throw new AssertionError();
+        }
+        return result;
+    }
+
+    private QuadDouble(double first, double second, double third, double fourth) {
+        if (Double.isNaN(first) || Double.isNaN(second) || Double.isNaN(third) || Double.isNaN(fourth)) {
+            this.first = Double.NaN;
+            this.second = Double.NaN;
+            this.third = Double.NaN;
+            this.fourth = Double.NaN;
+            return;
+        }
+        if (Double.isInfinite(first)) {
+            this.first = first;
+            this.second = 0;
+            this.third = 0;
+            this.fourth = 0;
+            return;
+        }
+        if (first + second != first || second + third != second || third + fourth != third) {
+            throw new AssertionError();
+        }
+        this.first = first;
+        if (second == 0) {
+            this.second = 0;
+            this.third = 0;
+            this.fourth = 0;
+        } else if (third == 0) {
+            this.second = second;
+            this.third = 0;
+            this.fourth = 0;
+        } else {
+            this.second = second;
+            this.third = third;
+            this.fourth = fourth == 0 ? 0 : fourth;
+        }
+    }
+
+    /**
+     * 返回内部表示的第一部分
+     */
+    public double getFirst() {
+        return first;
+    }
+
+    /**
+     * 返回内部表示的第二部分
+     */
+    public double getSecond() {
+        return second;
+    }
+
+    /**
+     * 返回内部表示的第三部分
+     */
+    public double getThird() {
+        return third;
+    }
+
+    /**
+     * 返回内部表示的第四部分
+     */
+    public double getFourth() {
+        return fourth;
+    }
+
+    public QuadDouble add(double rhs) {
+        return add(rhs, 0, 0, 0);
+    }
+
+    public QuadDouble add(DoubleDouble rhs) {
+        return add(rhs.getFirst(), rhs.getSecond(), 0, 0);
+    }
+
+    public QuadDouble add(QuadDouble rhs) {
+        return add(rhs.first, rhs.second, rhs.third, rhs.fourth);
+    }
+
+    // 三部分要求已经规格化，或者是0的相反数
+    private QuadDouble add(double b1, double b2, double b3, double b4) {
+        double a1 = this.first;
+        if (!Double.isFinite(a1) || !Double.isFinite(b1)) {
+            return valueOf(a1 + b1);
+        }
+        if (b1 == 0) {
+            if (a1 == 0) {
+                return valueOf(a1 + b1);
+            }
+            return this;
+        }
+        if (a1 == 0) {
+            return normalize(b1, b2, b3, b4, 0);
+        }
+        Sum sum = new Sum();
+        sum.add(a1);
+        sum.add(b1);
+        sum.add(this.second);
+        sum.add(b2);
+        sum.add(this.third);
+        sum.add(b3);
+        sum.add(this.fourth);
+        sum.add(b4);
+        return sum.toQuadDouble();
+    }
+
+    public QuadDouble neg() {
+        // 0.0 - 0.0 == 0.0，不会产生-0.0
+        return new QuadDouble(-first, 0.0 - second, 0.0 - third, 0.0 - fourth);
+    }
+
+    public QuadDouble sub(double rhs) {
+        return add(-rhs, 0, 0, 0);
+    }
+
+    public QuadDouble sub(DoubleDouble rhs) {
+        return add(-rhs.getFirst(), -rhs.getSecond(), 0, 0);
+    }
+
+    public QuadDouble sub(QuadDouble rhs) {
+        return add(-rhs.first, -rhs.second, -rhs.third, -rhs.fourth);
+    }
+
+    public QuadDouble mul(double rhs) {
+        return mul(rhs, 0, 0, 0);
+    }
+
+    public QuadDouble mul(DoubleDouble rhs) {
+        return mul(rhs.getFirst(), rhs.getSecond(), 0, 0);
+    }
+
+    public QuadDouble mul(QuadDouble rhs) {
+        return mul(rhs.first, rhs.second, rhs.third, rhs.fourth);
+    }
+
+    private QuadDouble mul(double b1, double b2, double b3, double b4) {
+        double a1 = this.first;
+        if (a1 == 0 || b1 == 0 || !Double.isFinite(a1) || !Double.isFinite(b1)) {
+            return valueOf(a1 * b1);
+        }
+        int ea = Math.getExponent(a1);
+        int eb = Math.getExponent(b1);
+        if (isScalingNeeded(ea, eb) || Math.abs(ea + eb) > SCALING_THRESHOLD) {
+            // 部分积可能上溢或者下溢，先把两个数缩放到1附近
+            return multiply(Math.scalb(a1, -ea), Math.scalb(second, -ea),
+                    Math.scalb(third, -ea), Math.scalb(fourth, -ea),
+                    Math.scalb(b1, -eb), Math.scalb(b2, -eb), Math.scalb(b3, -eb), Math.scalb(b4, -eb))
+                    .scale(ea + eb);
+        }
+        return multiply(a1, second, third, fourth, b1, b2, b3, b4);
+    }
+
+    // 部分积ai * bj的大小约为u^(i + j - 2)，u = 2^-53
+    // 到u^3为止的部分积都保留舍入误差，u^4的部分积直接相加，更小的部分积忽略
+    private static QuadDouble multiply(double a1, double a2, double a3, double a4,
+                                       double b1, double b2, double b3, double b4) {
+        Sum sum = new Sum();
+        sum.addProduct(a1, b1);
+        sum.addProduct(a1, b2);
+        sum.addProduct(a2, b1);
+        sum.addProduct(a1, b3);
+        sum.addProduct(a2, b2);
+        sum.addProduct(a3, b1);
+        sum.addProduct(a1, b4);
+        sum.addProduct(a2, b3);
+        sum.addProduct(a3, b2);
+        sum.addProduct(a4, b1);
+        sum.add(a2 * b4 + a3 * b3 + a4 * b2);
+        return sum.toQuadDouble();
+    }
+
+    public QuadDouble div(double rhs) {
+        return divide(first, second, third, fourth, rhs, 0, 0, 0);
+    }
+
+    public QuadDouble div(DoubleDouble rhs) {
+        return divide(first, second, third, fourth, rhs.getFirst(), rhs.getSecond(), 0, 0);
+    }
+
+    public QuadDouble div(QuadDouble rhs) {
+        return divide(first, second, third, fourth, rhs.first, rhs.second, rhs.third, rhs.fourth);
+    }
+
+    public static QuadDouble reciprocal(QuadDouble value) {
+        return divide(1.0, 0, 0, 0, value.first, value.second, value.third, value.fourth);
+    }
+
+    private static QuadDouble divide(double a1, double a2, double a3, double a4,
+                                     double b1, double b2, double b3, double b4) {
+        if (a1 == 0 || b1 == 0 || !Double.isFinite(a1) || !Double.isFinite(b1)) {
+            return valueOf(a1 / b1);
+        }
+        int ea = Math.getExponent(a1);
+        int eb = Math.getExponent(b1);
+        if (isScalingNeeded(ea, eb) || Math.abs(ea - eb) > SCALING_THRESHOLD) {
+            // 和DoubleDouble的除法一样，先缩放到1附近，算完之后再缩放回去
+            return quotient(Math.scalb(a1, -ea), Math.scalb(a2, -ea), Math.scalb(a3, -ea), Math.scalb(a4, -ea),
+                    Math.scalb(b1, -eb), Math.scalb(b2, -eb), Math.scalb(b3, -eb), Math.scalb(b4, -eb))
+                    .scale(ea - eb);
+        }
+        return quotient(a1, a2, a3, a4, b1, b2, b3, b4);
+    }
+
+    // 长除法，第k部分的商qk的大小约为u^(k - 1)
+    // 余数a - (q1 + q2 + ...) * b一直保存在五级的和中，qk * bj按照大小决定是否保留舍入误差
+    private static QuadDouble quotient(double a1, double a2, double a3, double a4,
+                                       double b1, double b2, double b3, double b4) {
+        Sum r = new Sum();
+        r.add(a1);
+        r.add(a2);
+        r.add(a3);
+        r.add(a4);
+        double q1 = a1 / b1;
+        r.subtractProduct(q1, b1, 0);
+        r.subtractProduct(q1, b2, 1);
+        r.subtractProduct(q1, b3, 2);
+        r.subtractProduct(q1, b4, 3);
+        double q2 = r.approximation() / b1;
+        r.subtractProduct(q2, b1, 1);
+        r.subtractProduct(q2, b2, 2);
+        r.subtractProduct(q2, b3, 3);
+        r.subtractProduct(q2, b4, 4);
+        double q3 = r.approximation() / b1;
+        r.subtractProduct(q3, b1, 2);
+        r.subtractProduct(q3, b2, 3);
+        r.subtractProduct(q3, b3, 4);
+        double q4 = r.approximation() / b1;
+        r.subtractProduct(q4, b1, 3);
+        r.subtractProduct(q4, b2, 4);
+        double q5 = r.approximation() / b1;
+
+        Sum sum = new Sum();
+        sum.add(q1);
+        sum.add(q2);
+        sum.add(q3);
+        sum.add(q4);
+        sum.add(q5);
+        return sum.toQuadDouble();
+    }
+
+    public static QuadDouble sqrt(QuadDouble value) {
+        double a1 = value.first;
+        if (!(a1 > 0) || a1 == Double.POSITIVE_INFINITY) {
+            return valueOf(Math.sqrt(a1));
+        }
+        // 缩放到1附近，指数取偶数，这样结果只需要缩放一半的指数
+        int exponent = Math.getExponent(a1) & ~1;
+        Sum r = new Sum();
+        r.add(Math.scalb(a1, -exponent));
+        r.add(Math.scalb(value.second, -exponent));
+        r.add(Math.scalb(value.third, -exponent));
+        r.add(Math.scalb(value.fourth, -exponent));
+
+        // 牛顿法，余数a - (q1 + q2 + ...)^2一直保存在五级的和中
+        double q1 = Math.sqrt(Math.scalb(a1, -exponent));
+        double twoQ1 = 2 * q1;
+        r.subtractProduct(q1, q1, 0);
+        double q2 = r.approximation() / twoQ1;
+        r.subtractProduct(twoQ1, q2, 1);
+        r.subtractProduct(q2, q2, 2);
+        double q3 = r.approximation() / twoQ1;
+        r.subtractProduct(twoQ1, q3, 2);
+        r.subtractProduct(2 * q2, q3, 3);
+        r.subtractProduct(q3, q3, 4);
+        double q4 = r.approximation() / twoQ1;
+        r.subtractProduct(twoQ1, q4, 3);
+        r.subtractProduct(2 * q2, q4, 4);
+        double q5 = r.approximation() / twoQ1;
+
+        Sum sum = new Sum();
+        sum.add(q1);
+        sum.add(q2);
+        sum.add(q3);
+        sum.add(q4);
+        sum.add(q5);
+        return sum.toQuadDouble().scale(exponent / 2);
+    }
+
+    private static boolean isScalingNeeded(int ea, int eb) {
+        return Math.abs(ea) > SCALING_THRESHOLD || Math.abs(eb) > SCALING_THRESHOLD;
+    }
+
+    // 乘以2的exponent次方，上溢和下溢时重新规格化
+    private QuadDouble scale(int exponent) {
+        double f = Math.scalb(first, exponent);
+        if (Double.isInfinite(f)) {
+            return valueOf(f);
+        }
+        return normalize(f, Math.scalb(second, exponent), Math.scalb(third, exponent),
+                Math.scalb(fourth, exponent), 0);
+    }
+
+    /**
+     * 舍入成DoubleDouble
+     */
+    public DoubleDouble toDoubleDouble() {
+        // 因为已经规格化，后两部分的和不会改变第二部分，舍入的结果就是前两部分
+        return DoubleDouble.ofNormalized(first, second);
+    }
+
+    /**
+     * 转成String
+     * 注意：
+     * 不保证返回的String能够精确表示这个数
+     * 不保证返回的表示具体形式
+     */
+    @Override
+    public String toString() {
+        if (first == 0) {
+            return Math.copySign(1, first) < 0 ? "-0" : "0";
+        }
+        if (!Double.isFinite(first)) {
+            return Double.toString(first);
+        }
+        BigDecimal bd = toBigDecimal();
+        long longValue = bd.longValue();
+        if (bd.compareTo(BigDecimal.valueOf(longValue)) == 0) {
+            return Long.toString(longValue);
+        }
+        return bd.round(new MathContext(66))
+                .stripTrailingZeros()
+                .toString();
+    }
+
+    /**
+     * 转成BigDecimal
+     * 值为Inf或者NaN时抛出异常
+     */
+    public BigDecimal toBigDecimal() {
+        return new BigDecimal(first)
+                .add(new BigDecimal(second))
+                .add(new BigDecimal(third))
+                .add(new BigDecimal(fourth))
+                .stripTrailingZeros();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof QuadDouble)) {
+            return false;
+        }
+        QuadDouble that = (QuadDouble) o;
+        return Double.compare(this.first, that.first) == 0
+                && Double.compare(this.second, that.second) == 0
+                && Double.compare(this.third, that.third) == 0
+                && Double.compare(this.fourth, that.fourth) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(first, second, third, fourth);
+    }
+
+    // 把a + b + c + d + e规格化成四部分
+    private static QuadDouble normalize(double a, double b, double c, double d, double e) {
+        QuadDouble result = tryNormalize(a, b, c, d, e);
+        if (result != null) {
+            return result;
+        }
+        // 很少见
+        return valueOf(new BigDecimal(a)
+                .add(new BigDecimal(b))
+                .add(new BigDecimal(c))
+                .add(new BigDecimal(d))
+                .add(new BigDecimal(e)));
+    }
+
+    // 自下而上合并，每一遍至少让一个部分满足规格化的要求
+    // 四遍之后仍然不满足要求时返回null
+    private static QuadDouble tryNormalize(double a, double b, double c, double d, double e) {
+        for (int i = 0; i < 4; i++) {
+            if (!Double.isFinite(a)) {
+                // 上溢时其他部分可能是NaN，结果只取决于第一部分
+                return valueOf(a);
+            }
+            if (b == 0 && c == 0 && d == 0 && e == 0) {
+                // 保留第一部分的符号，包括-0.0
+                return valueOf(a);
+            }
+            double t = d + e;
+            double e4 = DoubleDouble.addError(d, e, t);
+            double u = c + t;
+            double e3 = DoubleDouble.addError(c, t, u);
+            double v = b + u;
+            double e2 = DoubleDouble.addError(b, u, v);
+            double f = a + v;
+            if (!Double.isFinite(f)) {
+                return valueOf(f);
+            }
+            double e1 = DoubleDouble.addError(a, v, f);
+            a = f;
+            b = e1;
+            c = e2;
+            d = e3;
+            e = e4;
+            double z = d + e;
+            if (a + b == a && b + c == b && c + z == c) {
+                return new QuadDouble(a, b, c, z);
+            }
+        }
+        return null;
+    }
+
+    // 五级的和，每一级保存上一级的舍入误差，只有最后一级有舍入误差
+    private static final class Sum {
+        // 从-0.0开始，这样-0.0加-0.0的结果也是-0.0
+        private double s1 = -0.0;
+        private double s2;
+        private double s3;
+        private double s4;
+        private double s5;
+
+        void add(double x) {
+            double t = s1 + x;
+            double e = DoubleDouble.addError(s1, x, t);
+            s1 = t;
+            t = s2 + e;
+            e = DoubleDouble.addError(s2, e, t);
+            s2 = t;
+            t = s3 + e;
+            e = DoubleDouble.addError(s3, e, t);
+            s3 = t;
+            t = s4 + e;
+            e = DoubleDouble.addError(s4, e, t);
+            s4 = t;
+            s5 += e;
+        }
+
+        // 加上lhs * rhs，积的舍入误差也加上
+        void addProduct(double lhs, double rhs) {
+            double p = lhs * rhs;
+            add(p);
+            add(DoubleDouble.productError(lhs, rhs, p));
+        }
+
+        // 减去lhs * rhs，积的大小约为u^level
+        // level小于4时积的舍入误差也减去，等于4时只减去积，更大时忽略
+        void subtractProduct(double lhs, double rhs, int level) {
+            if (level > 4) {
+                return;
+            }
+            double p = lhs * rhs;
+            add(-p);
+            if (level < 4) {
+                add(-DoubleDouble.productError(lhs, rhs, p));
+            }
+        }
+
+        // 和的近似值
+        // 长除法中s1和s2经常几乎抵消，所以从大到小相加
+        double approximation() {
+            return s1 + s2 + s3 + s4 + s5;
+        }
+
+        QuadDouble toQuadDouble() {
+            return normalize(s1, s2, s3, s4, s5);
+        }
+    }
+}
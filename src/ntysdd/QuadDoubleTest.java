@@ -0,0 +1,191 @@
+package ntysdd;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+public class QuadDoubleTest {
+    private static final MathContext MC = new MathContext(80);
+    private static final BigDecimal BOUND = new BigDecimal(StrictMath.pow(2, -205));
+
+    private static QuadDouble randomQuadDouble(Random random, int maxExponent) {
+        double x1 = (random.nextDouble() - 0.5)
+                * StrictMath.pow(2, random.nextInt(2 * maxExponent + 1) - maxExponent);
+        double x2 = x1 * random.nextDouble() * StrictMath.pow(2, -53);
+        double x3 = x1 * random.nextDouble() * StrictMath.pow(2, -106);
+        double x4 = x1 * random.nextDouble() * StrictMath.pow(2, -159);
+        return QuadDouble.valueOf(x1).add(x2).add(x3).add(x4);
+    }
+
+    public static void test001() {
+        // 转换
+        DoubleDouble oneThird = DoubleDouble.ONE.div(3);
+        assertEquals(oneThird, QuadDouble.valueOf(oneThird).toDoubleDouble());
+        assertEquals(QuadDouble.ONE, QuadDouble.valueOf(1.0));
+        assertEquals(QuadDouble.ZERO, QuadDouble.valueOf(0.0));
+        assertEquals("-0", QuadDouble.valueOf(-0.0).toString());
+        assertEquals("NaN", QuadDouble.valueOf(Double.NaN).toString());
+        assertEquals("-Infinity", QuadDouble.valueOf(Double.NEGATIVE_INFINITY).toString());
+        assertEquals("12345", QuadDouble.valueOf(12345.0).toString());
+
+        BigDecimal exact = BigDecimal.ONE.divide(BigDecimal.valueOf(3), MC);
+        QuadDouble q = QuadDouble.valueOf(exact);
+        assertRelativeError(exact, q, BOUND);
+        assertEquals(q, QuadDouble.ONE.div(3));
+        assertEquals(q, QuadDouble.reciprocal(QuadDouble.valueOf(3)));
+        assertEquals(q.hashCode(), QuadDouble.ONE.div(3).hashCode());
+        assertEquals("0.33333333333333333333333333333333333333333333333333333333333333",
+                q.toString().substring(0, 64));
+        // 第四部分超出了TripleDouble的精度
+        assertEquals(true, q.getFourth() != 0);
+        assertEquals(oneThird, q.toDoubleDouble());
+
+        // 转成BigDecimal再转回来不丢失精度
+        QuadDouble r = QuadDouble.sqrt(QuadDouble.valueOf(2));
+        assertEquals(r, QuadDouble.valueOf(r.toBigDecimal()));
+    }
+
+    public static void test002() {
+        Random random = new Random(0);
+        for (int i = 0; i < 2000; i++) {
+            QuadDouble a = randomQuadDouble(random, 60);
+            QuadDouble b = randomQuadDouble(random, 60);
+            if (i % 4 == 0) {
+                // 严重的相消
+                b = a.neg().add(randomQuadDouble(random, 60).mul(StrictMath.pow(2, -random.nextInt(220))));
+            }
+            BigDecimal x = a.toBigDecimal();
+            BigDecimal y = b.toBigDecimal();
+            assertRelativeError(x.add(y), a.add(b), BOUND);
+            assertRelativeError(x.subtract(y), a.sub(b), BOUND);
+            assertRelativeError(x.multiply(y), a.mul(b), BOUND);
+            assertRelativeError(x.divide(y, MC), a.div(b), BOUND);
+            assertRelativeError(BigDecimal.ONE.divide(y, MC), QuadDouble.reciprocal(b), BOUND);
+            assertRelativeError(sqrt(x.abs(), MC), QuadDouble.sqrt(x.signum() < 0 ? a.neg() : a), BOUND);
+
+            DoubleDouble d = b.toDoubleDouble();
+            BigDecimal z = d.toBigDecimal();
+            assertRelativeError(x.add(z), a.add(d), BOUND);
+            assertRelativeError(x.multiply(z), a.mul(d), BOUND);
+            assertRelativeError(x.divide(z, MC), a.div(d), BOUND);
+            double e = b.getFirst();
+            BigDecimal w = new BigDecimal(e);
+            assertRelativeError(x.subtract(w), a.sub(e), BOUND);
+            assertRelativeError(x.multiply(w), a.mul(e), BOUND);
+            assertRelativeError(x.divide(w, MC), a.div(e), BOUND);
+        }
+    }
+
+    public static void test003() {
+        // 很大和很小的指数，结果在正规数的范围内时误差不变
+        Random random = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            QuadDouble a = randomQuadDouble(random, 1000);
+            QuadDouble b = randomQuadDouble(random, 1000);
+            BigDecimal x = a.toBigDecimal();
+            BigDecimal y = b.toBigDecimal();
+            checkIfInRange(x.multiply(y), a.mul(b));
+            checkIfInRange(x.divide(y, MC), a.div(b));
+            assertRelativeError(sqrt(x.abs(), MC), QuadDouble.sqrt(x.signum() < 0 ? a.neg() : a), BOUND);
+        }
+        QuadDouble max = QuadDouble.valueOf(Double.MAX_VALUE);
+        assertEquals(QuadDouble.valueOf(Double.POSITIVE_INFINITY), max.mul(max));
+        assertEquals(QuadDouble.valueOf(Double.POSITIVE_INFINITY), max.add(max));
+        assertEquals(QuadDouble.valueOf(-0.0), QuadDouble.valueOf(-Double.MIN_VALUE).div(max));
+        QuadDouble s = QuadDouble.sqrt(max);
+        assertRelativeError(max.toBigDecimal(), s.mul(s), BOUND);
+        assertRelativeError(max.toBigDecimal(), max.div(3).mul(3), BOUND);
+    }
+
+    public static void test004() {
+        // 特殊值，与double的计算结果相同
+        double[] values = {
+                0.0, -0.0, 3.0, -3.0, Double.MIN_VALUE,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN,
+        };
+        for (double x : values) {
+            QuadDouble a = QuadDouble.valueOf(x);
+            for (double y : values) {
+                if (isSpecial(x) || isSpecial(y)) {
+                    QuadDouble b = QuadDouble.valueOf(y);
+                    assertEquals(QuadDouble.valueOf(x + y), a.add(b));
+                    assertEquals(QuadDouble.valueOf(x - y), a.sub(b));
+                    assertEquals(QuadDouble.valueOf(x * y), a.mul(b));
+                    assertEquals(QuadDouble.valueOf(x / y), a.div(b));
+                }
+            }
+            assertEquals(QuadDouble.valueOf(-x), a.neg());
+            if (isSpecial(x) || x < 0) {
+                assertEquals(QuadDouble.valueOf(Math.sqrt(x)), QuadDouble.sqrt(a));
+            }
+            if (isSpecial(x)) {
+                assertEquals(QuadDouble.valueOf(1 / x), QuadDouble.reciprocal(a));
+            }
+        }
+        QuadDouble q = QuadDouble.ONE.div(3);
+        assertEquals(QuadDouble.ZERO, q.sub(q));
+        assertEquals(QuadDouble.ZERO, q.add(q.neg()));
+        assertEquals(QuadDouble.valueOf(Double.NaN), QuadDouble.sqrt(q.neg()));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Method[] methods = Arrays.stream(QuadDoubleTest.class.getMethods())
+                .filter(m -> m.getName().matches("test[0-9]+")
+                        && m.getParameterCount() == 0)
+                .sorted(Comparator.comparing(Method::getName))
+                .toArray(Method[]::new);
+        for (Method method : methods) {
+            method.invoke(null);
+        }
+    }
+
+    // BigDecimal.sqrt是Java 9才有的，这里用牛顿迭代
+    private static BigDecimal sqrt(BigDecimal x, MathContext mc) {
+        if (x.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+        // x = m * 10^(2k)，m在[1, 100)之间，用double的平方根作为初值，每次迭代有效位数加倍
+        int k = Math.floorDiv(x.precision() - x.scale() - 1, 2);
+        BigDecimal m = x.scaleByPowerOfTen(-2 * k);
+        MathContext work = new MathContext(mc.getPrecision() + 10);
+        BigDecimal y = new BigDecimal(Math.sqrt(m.doubleValue()));
+        for (int digits = 8; digits < work.getPrecision(); digits *= 2) {
+            y = y.add(m.divide(y, work)).divide(BigDecimal.valueOf(2), work);
+        }
+        return y.scaleByPowerOfTen(k).round(mc);
+    }
+
+    private static boolean isSpecial(double x) {
+        return x == 0 || !Double.isFinite(x);
+    }
+
+    // 结果在正规数的范围内时检查误差
+    private static void checkIfInRange(BigDecimal expected, QuadDouble actual) {
+        double d = expected.abs().doubleValue();
+        if (d > 1E-230 && d < 1E300) {
+            assertRelativeError(expected, actual, BOUND);
+        }
+    }
+
+    private static void assertRelativeError(BigDecimal expected, QuadDouble actual, BigDecimal bound) {
+        BigDecimal error = actual.toBigDecimal().subtract(expected).abs();
+        if (error.compareTo(expected.abs().multiply(bound)) > 0) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+    }
+
+    private static void assertEquals(Object expected, Object actual) {
+        if ((expected == null) != (actual == null)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+        if (expected != null && !expected.equals(actual)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+    }
+}
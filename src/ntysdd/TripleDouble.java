@@ -0,0 +1,282 @@
+package ntysdd;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Objects;
+
+/**
+ * 用三个double变量来表示一个数，有效数字大约有48位
+ * 适用情况：DoubleDouble的精度不够，又不想使用BigDecimal的时候，
+ * 例如很长的求和、内积中的中间结果
+ * 三部分满足first + second == first，second + third == second，
+ * 为0的部分都是+0.0，所以相等的数有相同的表示
+ * 四则运算、开平方和rsqrt的相对误差在2^-155以内（不考虑上溢和下溢），实测的误差大约是2^-160
+ * 计算都由MutableTripleDouble完成，结果与MutableTripleDouble中对应的操作完全相同
+ * 注意：
+ * 不保证计算结果正确到最后一位
+ */
+public final strictfp class TripleDouble {
+    public static final TripleDouble ZERO = new TripleDouble(0.0, 0.0, 0.0);
+    public static final TripleDouble ONE = new TripleDouble(1.0, 0.0, 0.0);
+
+    private final double first;
+    private final double second;
+    private final double third;
+
+    /**
+     * 将double转为TripleDouble
+     */
+    public static TripleDouble valueOf(double x) {
+        if (x == 1) {
+            return ONE;
+        }
+        if (Double.doubleToRawLongBits(x) == 0) {
+            return ZERO;
+        }
+        return new TripleDouble(x, 0, 0);
+    }
+
+    /**
+     * 将long转为TripleDouble
+     */
+    public static TripleDouble valueOf(long x) {
+        return valueOf(DoubleDouble.valueOf(x));
+    }
+
+    /**
+     * 将DoubleDouble转为TripleDouble，不会丢失精度
+     */
+    public static TripleDouble valueOf(DoubleDouble x) {
+        return ofNormalized(x.getFirst(), x.getSecond(), 0);
+    }
+
+    /**
+     * 将BigDecimal转为TripleDouble，超出精度的部分舍入
+     */
+    public static TripleDouble valueOf(BigDecimal x) {
+        return new MutableTripleDouble().set(x).toTripleDouble();
+    }
+
+    /**
+     * 计算数组中所有元素的和，返回TripleDouble
+     */
+    public static TripleDouble sum(double[] values) {
+        return sum(values, 0, values.length);
+    }
+
+    /**
+     * 计算values[from]到values[to - 1]的和，返回TripleDouble
+     * 不排序，只需要遍历一次数组，计算时维护四级的和
+     * 注意：
+     * 如果中间结果溢出，或者含有无穷大和NaN，结果与直接用double求和相同
+     */
+    public static TripleDouble sum(double[] values, int from, int to) {
+        return new MutableTripleDouble().setSum(values, from, to).toTripleDouble();
+    }
+
+    private TripleDouble(double first, double second, double third) {
+        if (Double.isNaN(first) || Double.isNaN(second) || Double.isNaN(third)) {
+            this.first = Double.NaN;
+            this.second = Double.NaN;
+            this.third = Double.NaN;
+            return;
+        }
+        if (Double.isInfinite(first)) {
+            this.first = first;
+            this.second = 0;
+            this.third = 0;
+            return;
+        }
+        if (first + second != first || second + third != second) {
+            throw new AssertionError();
+        }
+        this.first = first;
+        if (second == 0) {
+            this.second = 0;
+            this.third = 0;
+        } else {
+            this.second = second;
+            this.third = third == 0 ? 0 : third;
+        }
+    }
+
+    /*
+     * 用已经规格化的三部分构造TripleDouble，供同一个包中的可变类型使用
+     * 三部分不满足规格化要求时抛出AssertionError
+     */
+    static TripleDouble ofNormalized(double first, double second, double third) {
+        if (second == 0 && third == 0) {
+            if (first == 1) {
+                return ONE;
+            }
+            if (Double.doubleToRawLongBits(first) == 0) {
+                return ZERO;
+            }
+        }
+        return new TripleDouble(first, second, third);
+    }
+
+    /**
+     * 返回内部表示的第一部分
+     */
+    public double getFirst() {
+        return first;
+    }
+
+    /**
+     * 返回内部表示的第二部分
+     */
+    public double getSecond() {
+        return second;
+    }
+
+    /**
+     * 返回内部表示的第三部分
+     */
+    public double getThird() {
+        return third;
+    }
+
+    public TripleDouble add(double rhs) {
+        return mutable().add(rhs).toTripleDouble();
+    }
+
+    public TripleDouble add(long rhs) {
+        return mutable().add(rhs).toTripleDouble();
+    }
+
+    public TripleDouble add(DoubleDouble rhs) {
+        return mutable().add(rhs).toTripleDouble();
+    }
+
+    public TripleDouble add(TripleDouble rhs) {
+        return mutable().add(rhs).toTripleDouble();
+    }
+
+    public TripleDouble neg() {
+        return mutable().neg().toTripleDouble();
+    }
+
+    public TripleDouble sub(double rhs) {
+        return mutable().sub(rhs).toTripleDouble();
+    }
+
+    public TripleDouble sub(long rhs) {
+        return mutable().sub(rhs).toTripleDouble();
+    }
+
+    public TripleDouble sub(DoubleDouble rhs) {
+        return mutable().sub(rhs).toTripleDouble();
+    }
+
+    public TripleDouble sub(TripleDouble rhs) {
+        return mutable().sub(rhs).toTripleDouble();
+    }
+
+    public TripleDouble mul(double rhs) {
+        return mutable().mul(rhs).toTripleDouble();
+    }
+
+    public TripleDouble mul(long rhs) {
+        return mutable().mul(rhs).toTripleDouble();
+    }
+
+    public TripleDouble mul(DoubleDouble rhs) {
+        return mutable().mul(rhs).toTripleDouble();
+    }
+
+    public TripleDouble mul(TripleDouble rhs) {
+        return mutable().mul(rhs).toTripleDouble();
+    }
+
+    public TripleDouble div(double rhs) {
+        return mutable().div(rhs).toTripleDouble();
+    }
+
+    public TripleDouble div(long rhs) {
+        return mutable().div(rhs).toTripleDouble();
+    }
+
+    public TripleDouble div(DoubleDouble rhs) {
+        return mutable().div(rhs).toTripleDouble();
+    }
+
+    public TripleDouble div(TripleDouble rhs) {
+        return mutable().div(rhs).toTripleDouble();
+    }
+
+    public static TripleDouble reciprocal(TripleDouble value) {
+        return value.mutable().reciprocal().toTripleDouble();
+    }
+
+    public static TripleDouble sqrt(TripleDouble value) {
+        return value.mutable().sqrt().toTripleDouble();
+    }
+
+    public static TripleDouble rsqrt(TripleDouble value) {
+        return value.mutable().rsqrt().toTripleDouble();
+    }
+
+    private MutableTripleDouble mutable() {
+        return new MutableTripleDouble(this);
+    }
+
+    /**
+     * 舍入成DoubleDouble
+     */
+    public DoubleDouble toDoubleDouble() {
+        // 因为已经规格化，second + third == second，舍入的结果就是前两部分
+        return DoubleDouble.ofNormalized(first, second);
+    }
+
+    /**
+     * 转成String
+     * 注意：
+     * 不保证返回的String能够精确表示这个数
+     * 不保证返回的表示具体形式
+     */
+    @Override
+    public String toString() {
+        if (first == 0) {
+            return Math.copySign(1, first) < 0 ? "-0" : "0";
+        }
+        if (!Double.isFinite(first)) {
+            return Double.toString(first);
+        }
+        BigDecimal bd = toBigDecimal();
+        long longValue = bd.longValue();
+        if (bd.compareTo(BigDecimal.valueOf(longValue)) == 0) {
+            return Long.toString(longValue);
+        }
+        return bd.round(new MathContext(51))
+                .stripTrailingZeros()
+                .toString();
+    }
+
+    /**
+     * 转成BigDecimal
+     * 值为Inf或者NaN时抛出异常
+     */
+    public BigDecimal toBigDecimal() {
+        return new BigDecimal(first)
+                .add(new BigDecimal(second))
+                .add(new BigDecimal(third))
+                .stripTrailingZeros();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof TripleDouble)) {
+            return false;
+        }
+        TripleDouble that = (TripleDouble) o;
+        return Double.compare(this.first, that.first) == 0
+                && Double.compare(this.second, that.second) == 0
+                && Double.compare(this.third, that.third) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(first, second, third);
+    }
+}
@@ -0,0 +1,267 @@
+package ntysdd;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+public class TripleDoubleTest {
+    private static final MathContext MC = new MathContext(60);
+    private static final BigDecimal BOUND = new BigDecimal(StrictMath.pow(2, -155));
+
+    private static TripleDouble randomTripleDouble(Random random, int maxExponent) {
+        double hi = (random.nextDouble() - 0.5)
+                * StrictMath.pow(2, random.nextInt(2 * maxExponent + 1) - maxExponent);
+        double mid = hi * random.nextDouble() * StrictMath.pow(2, -53);
+        double lo = hi * random.nextDouble() * StrictMath.pow(2, -106);
+        return TripleDouble.valueOf(hi).add(mid).add(lo);
+    }
+
+    public static void test001() {
+        // 转换
+        DoubleDouble oneThird = DoubleDouble.ONE.div(3);
+        assertEquals(oneThird, TripleDouble.valueOf(oneThird).toDoubleDouble());
+        assertEquals(TripleDouble.ONE, TripleDouble.valueOf(1.0));
+        assertEquals(TripleDouble.ZERO, TripleDouble.valueOf(0.0));
+        assertEquals(TripleDouble.valueOf(Long.MAX_VALUE).toBigDecimal(), BigDecimal.valueOf(Long.MAX_VALUE));
+        assertEquals("9223372036854775807", TripleDouble.valueOf(Long.MAX_VALUE).toString());
+        assertEquals("-0", TripleDouble.valueOf(-0.0).toString());
+        assertEquals("NaN", TripleDouble.valueOf(Double.NaN).toString());
+        assertEquals("-Infinity", TripleDouble.valueOf(Double.NEGATIVE_INFINITY).toString());
+
+        BigDecimal exact = BigDecimal.ONE.divide(BigDecimal.valueOf(3), MC);
+        TripleDouble t = TripleDouble.valueOf(exact);
+        assertRelativeError(exact, t, BOUND);
+        assertEquals(t, TripleDouble.ONE.div(3));
+        assertEquals(t, TripleDouble.reciprocal(TripleDouble.valueOf(3)));
+        assertEquals(t.hashCode(), TripleDouble.ONE.div(3).hashCode());
+        assertEquals("0.333333333333333333333333333333333333333333333333",
+                t.toString().substring(0, 50));
+        // 第三部分超出了DoubleDouble的精度
+        assertEquals(true, t.getThird() != 0);
+        assertEquals(oneThird, t.toDoubleDouble());
+    }
+
+    public static void test002() {
+        Random random = new Random(0);
+        for (int i = 0; i < 2000; i++) {
+            TripleDouble a = randomTripleDouble(random, 60);
+            TripleDouble b = randomTripleDouble(random, 60);
+            if (i % 4 == 0) {
+                // 严重的相消
+                b = a.neg().add(randomTripleDouble(random, 60).mul(StrictMath.pow(2, -random.nextInt(170))));
+            }
+            BigDecimal x = a.toBigDecimal();
+            BigDecimal y = b.toBigDecimal();
+            assertRelativeError(x.add(y), a.add(b), BOUND);
+            assertRelativeError(x.subtract(y), a.sub(b), BOUND);
+            assertRelativeError(x.multiply(y), a.mul(b), BOUND);
+            assertRelativeError(x.divide(y, MC), a.div(b), BOUND);
+            assertRelativeError(BigDecimal.ONE.divide(y, MC), TripleDouble.reciprocal(b), BOUND);
+            assertRelativeError(sqrt(x.abs(), MC), TripleDouble.sqrt(x.signum() < 0 ? a.neg() : a), BOUND);
+
+            DoubleDouble d = b.toDoubleDouble();
+            BigDecimal z = d.toBigDecimal();
+            assertRelativeError(x.add(z), a.add(d), BOUND);
+            assertRelativeError(x.multiply(z), a.mul(d), BOUND);
+            assertRelativeError(x.divide(z, MC), a.div(d), BOUND);
+            double e = b.getFirst();
+            BigDecimal w = new BigDecimal(e);
+            assertRelativeError(x.subtract(w), a.sub(e), BOUND);
+            assertRelativeError(x.multiply(w), a.mul(e), BOUND);
+            assertRelativeError(x.divide(w, MC), a.div(e), BOUND);
+        }
+    }
+
+    public static void test003() {
+        // 很大和很小的指数，结果在正规数的范围内时误差不变
+        Random random = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            TripleDouble a = randomTripleDouble(random, 1000);
+            TripleDouble b = randomTripleDouble(random, 1000);
+            BigDecimal x = a.toBigDecimal();
+            BigDecimal y = b.toBigDecimal();
+            checkIfInRange(x.multiply(y), a.mul(b));
+            checkIfInRange(x.divide(y, MC), a.div(b));
+            assertRelativeError(sqrt(x.abs(), MC), TripleDouble.sqrt(x.signum() < 0 ? a.neg() : a), BOUND);
+        }
+        TripleDouble max = TripleDouble.valueOf(Double.MAX_VALUE);
+        assertEquals(TripleDouble.valueOf(Double.POSITIVE_INFINITY), max.mul(max));
+        assertEquals(TripleDouble.valueOf(Double.POSITIVE_INFINITY), max.add(max));
+        assertEquals(TripleDouble.valueOf(-0.0), TripleDouble.valueOf(-Double.MIN_VALUE).div(max));
+        TripleDouble s = TripleDouble.sqrt(max);
+        assertRelativeError(max.toBigDecimal(), s.mul(s), BOUND);
+        assertRelativeError(max.toBigDecimal(), max.div(3).mul(3), BOUND);
+    }
+
+    public static void test004() {
+        // 特殊值，与double的计算结果相同
+        double[] values = {
+                0.0, -0.0, 3.0, -3.0, Double.MIN_VALUE,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN,
+        };
+        for (double x : values) {
+            TripleDouble a = TripleDouble.valueOf(x);
+            for (double y : values) {
+                if (isSpecial(x) || isSpecial(y)) {
+                    TripleDouble b = TripleDouble.valueOf(y);
+                    assertEquals(TripleDouble.valueOf(x + y), a.add(b));
+                    assertEquals(TripleDouble.valueOf(x - y), a.sub(b));
+                    assertEquals(TripleDouble.valueOf(x * y), a.mul(b));
+                    assertEquals(TripleDouble.valueOf(x / y), a.div(b));
+                }
+            }
+            assertEquals(TripleDouble.valueOf(-x), a.neg());
+            if (isSpecial(x) || x < 0) {
+                assertEquals(TripleDouble.valueOf(Math.sqrt(x)), TripleDouble.sqrt(a));
+            }
+            if (isSpecial(x)) {
+                assertEquals(TripleDouble.valueOf(1 / x), TripleDouble.reciprocal(a));
+            }
+        }
+        TripleDouble t = TripleDouble.ONE.div(3);
+        assertEquals(TripleDouble.ZERO, t.sub(t));
+        assertEquals(TripleDouble.ZERO, t.add(t.neg()));
+        assertEquals(TripleDouble.valueOf(Double.NaN), TripleDouble.sqrt(t.neg()));
+    }
+
+    public static void test005() {
+        // MutableTripleDouble与TripleDouble的结果相同
+        Random random = new Random(2);
+        MutableTripleDouble m = new MutableTripleDouble();
+        for (int i = 0; i < 10000; i++) {
+            TripleDouble a = randomTripleDouble(random, 100);
+            TripleDouble b = randomTripleDouble(random, 100);
+            DoubleDouble d = b.toDoubleDouble();
+            assertEquals(a.add(b), m.set(a).add(b).toTripleDouble());
+            assertEquals(a.sub(d), m.set(a).sub(d).toTripleDouble());
+            assertEquals(a.mul(b), m.set(a).mul(new MutableTripleDouble(b)).toTripleDouble());
+            assertEquals(a.div(b.getFirst()), m.set(a).div(b.getFirst()).toTripleDouble());
+            assertEquals(TripleDouble.sqrt(a.mul(a)), m.set(a).mul(m).sqrt().toTripleDouble());
+            assertEquals(a.add(a), m.set(a).add(m).toTripleDouble());
+            assertEquals(TripleDouble.ZERO, m.set(a).sub(m).toTripleDouble());
+            assertEquals(TripleDouble.ONE, m.set(a).div(m).toTripleDouble());
+        }
+    }
+
+    public static void test006() {
+        Random random = new Random(3);
+        double[] values = new double[1000];
+        BigDecimal exact = BigDecimal.ZERO;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (random.nextDouble() - 0.5) * StrictMath.pow(2, random.nextInt(200) - 100);
+            exact = exact.add(new BigDecimal(values[i]));
+        }
+        assertRelativeError(exact, TripleDouble.sum(values), BOUND);
+        assertEquals(TripleDouble.valueOf(values[3]).add(values[4]), TripleDouble.sum(values, 3, 5));
+        assertEquals(TripleDouble.ZERO, TripleDouble.sum(values, 3, 3));
+        assertEquals(TripleDouble.valueOf(-0.0), TripleDouble.sum(new double[]{-0.0, -0.0}));
+        assertEquals(TripleDouble.valueOf(Double.NaN),
+                TripleDouble.sum(new double[]{1, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY}));
+        try {
+            TripleDouble.sum(values, 1, 1001);
+            throw new AssertionError();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    public static void test007() {
+        // rsqrt和long的运算
+        Random random = new Random(4);
+        MutableTripleDouble m = new MutableTripleDouble();
+        long[] longs = {0, 1, -3, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE - 1,
+                (long) StrictMath.pow(2, 53) + 1, -(long) StrictMath.pow(2, 60) - 12345};
+        for (int i = 0; i < 2000; i++) {
+            TripleDouble a = randomTripleDouble(random, i < 1900 ? 60 : 1000);
+            TripleDouble p = a.getFirst() < 0 ? a.neg() : a;
+            BigDecimal x = p.toBigDecimal();
+            BigDecimal expected = BigDecimal.ONE.divide(sqrt(x, MC), MC);
+            checkIfInRange(expected, TripleDouble.rsqrt(p));
+            assertEquals(TripleDouble.rsqrt(p), m.set(p).rsqrt().toTripleDouble());
+
+            long l = i < longs.length ? longs[i] : random.nextLong() >> random.nextInt(64);
+            BigDecimal y = BigDecimal.valueOf(l);
+            TripleDouble b = TripleDouble.valueOf(l);
+            x = a.toBigDecimal();
+            assertEquals(a.add(b), a.add(l));
+            assertEquals(a.sub(b), a.sub(l));
+            assertRelativeError(x.add(y), a.add(l), BOUND);
+            assertRelativeError(x.subtract(y), a.sub(l), BOUND);
+            assertEquals(a.mul(b), a.mul(l));
+            assertEquals(a.add(l), m.set(a).add(l).toTripleDouble());
+            assertEquals(a.sub(l), m.set(a).sub(l).toTripleDouble());
+            assertEquals(a.mul(l), m.set(a).mul(l).toTripleDouble());
+            if (l != 0) {
+                assertEquals(a.div(b), a.div(l));
+                checkIfInRange(x.divide(y, MC), a.div(l));
+                assertEquals(a.div(l), m.set(a).div(l).toTripleDouble());
+            }
+        }
+        assertEquals(TripleDouble.valueOf(0.5), TripleDouble.rsqrt(TripleDouble.valueOf(4)));
+        assertEquals(TripleDouble.valueOf(Double.POSITIVE_INFINITY), TripleDouble.rsqrt(TripleDouble.ZERO));
+        assertEquals(TripleDouble.valueOf(Double.NEGATIVE_INFINITY), TripleDouble.rsqrt(TripleDouble.valueOf(-0.0)));
+        assertEquals(TripleDouble.ZERO, TripleDouble.rsqrt(TripleDouble.valueOf(Double.POSITIVE_INFINITY)));
+        assertEquals(TripleDouble.valueOf(Double.NaN), TripleDouble.rsqrt(TripleDouble.valueOf(-1.0)));
+        assertEquals(TripleDouble.valueOf(Double.NaN), TripleDouble.ONE.div(0L).sub(Long.MAX_VALUE).mul(0L));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Method[] methods = Arrays.stream(TripleDoubleTest.class.getMethods())
+                .filter(m -> m.getName().matches("test[0-9]+")
+                        && m.getParameterCount() == 0)
+                .sorted(Comparator.comparing(Method::getName))
+                .toArray(Method[]::new);
+        for (Method method : methods) {
+            method.invoke(null);
+        }
+    }
+
+    // BigDecimal.sqrt是Java 9才有的，这里用牛顿迭代
+    private static BigDecimal sqrt(BigDecimal x, MathContext mc) {
+        if (x.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+        // x = m * 10^(2k)，m在[1, 100)之间，用double的平方根作为初值，每次迭代有效位数加倍
+        int k = Math.floorDiv(x.precision() - x.scale() - 1, 2);
+        BigDecimal m = x.scaleByPowerOfTen(-2 * k);
+        MathContext work = new MathContext(mc.getPrecision() + 10);
+        BigDecimal y = new BigDecimal(Math.sqrt(m.doubleValue()));
+        for (int digits = 8; digits < work.getPrecision(); digits *= 2) {
+            y = y.add(m.divide(y, work)).divide(BigDecimal.valueOf(2), work);
+        }
+        return y.scaleByPowerOfTen(k).round(mc);
+    }
+
+    private static boolean isSpecial(double x) {
+        return x == 0 || !Double.isFinite(x);
+    }
+
+    // 结果在正规数的范围内时检查误差
+    private static void checkIfInRange(BigDecimal expected, TripleDouble actual) {
+        double d = expected.abs().doubleValue();
+        if (d > 1E-250 && d < 1E300) {
+            assertRelativeError(expected, actual, BOUND);
+        }
+    }
+
+    private static void assertRelativeError(BigDecimal expected, TripleDouble actual, BigDecimal bound) {
+        BigDecimal error = actual.toBigDecimal().subtract(expected).abs();
+        if (error.compareTo(expected.abs().multiply(bound)) > 0) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+    }
+
+    private static void assertEquals(Object expected, Object actual) {
+        if ((expected == null) != (actual == null)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+        if (expected != null && !expected.equals(actual)) {
+            String msg = "expected: " + expected + ", actual: " + actual;
+            throw new AssertionError(msg);
+        }
+    }
+}